@@ -0,0 +1,68 @@
+package com.example.auth.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surcoût de {@link JwtAuthFilter} par requête selon le préfixe de route : routes publiques (login, inscription,
+ * autres) laissées passer sans JWT, routes protégées avec un jeton valide ou invalide (réponse 401).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"/api/login", "/api/inscription", "/api/users/42", "/api/orders/42/validate", "/api/logs", "/api/admin/jobs", "/actuator/health"})
+    public String path;
+
+    private JwtAuthFilter filter;
+    private String validToken;
+    private String invalidToken;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtHelper jwtHelper = new JwtHelper(JwtBenchmark.SECRET);
+        filter = new JwtAuthFilter(jwtHelper);
+        validToken = jwtHelper.createToken(42);
+        invalidToken = validToken.substring(0, validToken.length() - 2) + "xx";
+    }
+
+    @Benchmark
+    public Object validToken() throws ServletException, IOException {
+        return filter(validToken);
+    }
+
+    @Benchmark
+    public Object invalidToken() throws ServletException, IOException {
+        return filter(invalidToken);
+    }
+
+    private Object filter(String token) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilterInternal(request, response, chain);
+        Object userId = request.getAttribute("userId");
+        return userId != null ? userId : response.getStatus();
+    }
+}
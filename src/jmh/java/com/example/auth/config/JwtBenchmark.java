@@ -0,0 +1,45 @@
+package com.example.auth.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Émission (login) et vérification (chaque requête authentifiée) d'un JWT HS256. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    static final String SECRET = "BenchmarkSecretOfAtLeastThirtyTwoBytes!!";
+
+    private JwtHelper jwtHelper;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtHelper = new JwtHelper(SECRET);
+        token = jwtHelper.createToken(42);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtHelper.createToken(42);
+    }
+
+    @Benchmark
+    public Integer parseUserId() {
+        return jwtHelper.parseUserId(token);
+    }
+}
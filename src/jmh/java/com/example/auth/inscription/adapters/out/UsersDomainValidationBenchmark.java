@@ -0,0 +1,85 @@
+package com.example.auth.inscription.adapters.out;
+
+import com.example.auth.inscription.entity.Users;
+import com.example.auth.inscription.ports.out.UsersRepositoryStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validation du domaine {@link Users} rejouée par JpaInscriptionRepositoryAdapter.toDomain (findAll) :
+ * conversion de users comptes, puis chaque regex isolée (compilée à chaque appel comme dans Users, ou
+ * précompilée pour comparaison).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsersDomainValidationBenchmark {
+
+    private static final String MAIL = "alice.martin+orders@example.com";
+    /** Forme d'un hash BCrypt : c'est lui qui passe par setPsw dans toDomain. */
+    private static final String PSW_HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+    private static final Pattern MAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    private static final Pattern UPPER_PATTERN = Pattern.compile(".*[A-Z].*");
+
+    @Param({"1", "100", "1000"})
+    public int users;
+
+    private JpaInscriptionRepositoryAdapter adapter;
+
+    @Setup
+    public void setUp() {
+        List<UsersJpaEntity> entities = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            UsersJpaEntity e = new UsersJpaEntity();
+            e.setId(i);
+            e.setName("Alice " + i);
+            e.setMail(MAIL);
+            e.setPswHash(PSW_HASH);
+            e.setVaultKey("user-" + i);
+            entities.add(e);
+        }
+        adapter = new JpaInscriptionRepositoryAdapter(UsersRepositoryStub.returning(entities));
+    }
+
+    @Benchmark
+    public List<Users> toDomainFindAll() {
+        return adapter.findAll();
+    }
+
+    @Benchmark
+    public boolean mailRegexCompiledPerCall() {
+        return Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$").matcher(MAIL).matches();
+    }
+
+    @Benchmark
+    public boolean mailRegexPrecompiled() {
+        return MAIL_PATTERN.matcher(MAIL).matches();
+    }
+
+    @Benchmark
+    public boolean uppercaseStringMatches() {
+        return PSW_HASH.matches(".*[A-Z].*");
+    }
+
+    @Benchmark
+    public boolean uppercasePrecompiled() {
+        return UPPER_PATTERN.matcher(PSW_HASH).matches();
+    }
+}
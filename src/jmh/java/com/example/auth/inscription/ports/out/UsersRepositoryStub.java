@@ -0,0 +1,27 @@
+package com.example.auth.inscription.ports.out;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * {@link SpringDataUsersRepository} en mémoire pour les benchmarks : findAllByMail et findAll rendent la liste
+ * fournie, sans base ni contexte Spring ; toute autre méthode lève.
+ */
+public final class UsersRepositoryStub {
+
+    private UsersRepositoryStub() {
+    }
+
+    public static SpringDataUsersRepository returning(List<UsersJpaEntity> users) {
+        return (SpringDataUsersRepository) Proxy.newProxyInstance(SpringDataUsersRepository.class.getClassLoader(),
+                new Class<?>[]{SpringDataUsersRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllByMail", "findAll" -> users;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "UsersRepositoryStub";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
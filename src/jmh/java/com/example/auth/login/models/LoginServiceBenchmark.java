@@ -0,0 +1,72 @@
+package com.example.auth.login.models;
+
+import com.example.auth.config.JwtHelper;
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.UsersRepositoryStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoginService#authenticate} sans base : candidates comptes partagent le même mail, le bon mot de passe
+ * est celui du dernier (pire cas d'un login réussi) ou d'aucun (échec : un BCrypt par candidat).
+ * cost : facteur BCrypt (SecurityBeans utilise la valeur par défaut, 10).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LoginServiceBenchmark {
+
+    private static final String MAIL = "alice@example.com";
+
+    @Param({"1", "2", "5"})
+    public int candidates;
+
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private LoginService loginService;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        List<UsersJpaEntity> users = new ArrayList<>();
+        for (int i = 1; i <= candidates; i++) {
+            UsersJpaEntity u = new UsersJpaEntity();
+            u.setId(i);
+            u.setName("Alice " + i);
+            u.setMail(MAIL);
+            u.setPswHash(encoder.encode("Password" + i));
+            users.add(u);
+        }
+        loginService = new LoginService(UsersRepositoryStub.returning(users), encoder,
+                new JwtHelper("BenchmarkSecretOfAtLeastThirtyTwoBytes!!"));
+    }
+
+    @Benchmark
+    public Optional<LoginService.LoginResponse> authenticateLastCandidate() {
+        return loginService.authenticate(MAIL, "Password" + candidates);
+    }
+
+    @Benchmark
+    public Optional<LoginService.LoginResponse> authenticateWrongPassword() {
+        return loginService.authenticate(MAIL, "WrongPassword");
+    }
+}
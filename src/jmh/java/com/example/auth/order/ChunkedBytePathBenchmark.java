@@ -0,0 +1,153 @@
+package com.example.auth.order;
+
+import com.example.auth.order.upload.SealedSegments;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alternatives au chemin actuel ({@link OrderBytePathBenchmark}), par taille de vidéo et de segment :
+ * streaming (une passe par segments : hash et chiffrement AES-GCM incrémentaux dans un tampon réutilisé,
+ * hash du chiffré au fil de l'eau) et segments scellés ({@link SealedSegments}, format des uploads reprenables).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ChunkedBytePathBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    public int sizeMb;
+
+    @Param({"64", "1024", "8192"})
+    public int chunkKb;
+
+    private byte[] plain;
+    private byte[] dek;
+    private byte[] iv;
+    private byte[] raw;
+    private byte[] sealedOut;
+    private byte[] plainOut;
+    private byte[] base64Out;
+    private SealedSegments.Header header;
+    private byte[] segmented;
+    private byte[] segmentedOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        SplittableRandom rng = new SplittableRandom(42);
+        plain = VideoCryptoPrimitivesBenchmark.randomBytes(rng, sizeMb * 1024 * 1024);
+        dek = VideoCryptoPrimitivesBenchmark.randomBytes(rng, 32);
+        iv = VideoCryptoPrimitivesBenchmark.randomBytes(rng, VideoCryptoPrimitivesBenchmark.GCM_IV_LENGTH);
+        raw = VideoCryptoPrimitivesBenchmark.encryptCurrent(dek, iv, plain);
+        sealedOut = new byte[raw.length];
+        plainOut = new byte[plain.length];
+        base64Out = new byte[4 * ((plain.length + 2) / 3)];
+        header = SealedSegments.newHeader(plain.length, chunkKb * 1024, new SecureRandom());
+        segmented = new byte[(int) header.fileSize()];
+        segmentedOut = new byte[segmented.length];
+        sealSegments(segmented, new ArrayList<>());
+    }
+
+    /** createOrder en une passe : hash du clair, chiffrement et hash du chiffré par segments. */
+    @Benchmark
+    public void createStreaming(Blackhole bh) throws GeneralSecurityException {
+        int chunk = chunkKb * 1024;
+        MessageDigest plainSha = MessageDigest.getInstance("SHA-256");
+        MessageDigest cipherSha = MessageDigest.getInstance("SHA-256");
+        Cipher cipher = VideoCryptoPrimitivesBenchmark.cipher(Cipher.ENCRYPT_MODE, dek, iv, 0);
+        System.arraycopy(iv, 0, sealedOut, 0, iv.length);
+        cipherSha.update(iv);
+        int out = iv.length;
+        for (int off = 0; off < plain.length; off += chunk) {
+            int len = Math.min(chunk, plain.length - off);
+            plainSha.update(plain, off, len);
+            int n = cipher.update(plain, off, len, sealedOut, out);
+            cipherSha.update(sealedOut, out, n);
+            out += n;
+        }
+        int n = cipher.doFinal(sealedOut, out);
+        cipherSha.update(sealedOut, out, n);
+        bh.consume(OrderService.bytesToHex(plainSha.digest()));
+        bh.consume(OrderService.bytesToHex(cipherSha.digest()));
+        bh.consume(sealedOut);
+    }
+
+    /** createOrder par segments scellés indépendants : SHA-256 et AES-GCM par segment, puis racine signée. */
+    @Benchmark
+    public void createSealedSegments(Blackhole bh) throws GeneralSecurityException {
+        List<byte[]> hashes = new ArrayList<>(header.chunkCount());
+        sealSegments(segmentedOut, hashes);
+        bh.consume(OrderService.bytesToHex(SealedSegments.root(header, hashes)));
+        bh.consume(OrderService.bytesToHex(MessageDigest.getInstance("SHA-256").digest(segmentedOut)));
+    }
+
+    /**
+     * validateOrder en une passe sur le chiffré : hash du chiffré et déchiffrement par segments. AES-GCM ne rend
+     * le clair qu'au tag (tout est bufferisé par le fournisseur JDK) : le hash du clair suit donc doFinal.
+     */
+    @Benchmark
+    public void validateStreaming(Blackhole bh) throws GeneralSecurityException {
+        int chunk = chunkKb * 1024;
+        MessageDigest cipherSha = MessageDigest.getInstance("SHA-256");
+        cipherSha.update(raw, 0, VideoCryptoPrimitivesBenchmark.GCM_IV_LENGTH);
+        Cipher cipher = VideoCryptoPrimitivesBenchmark.cipher(Cipher.DECRYPT_MODE, dek, raw, 0);
+        int out = 0;
+        for (int off = VideoCryptoPrimitivesBenchmark.GCM_IV_LENGTH; off < raw.length; off += chunk) {
+            int len = Math.min(chunk, raw.length - off);
+            cipherSha.update(raw, off, len);
+            out += cipher.update(raw, off, len, plainOut, out);
+        }
+        out += cipher.doFinal(plainOut, out);
+        MessageDigest plainSha = MessageDigest.getInstance("SHA-256");
+        plainSha.update(plainOut, 0, out);
+        Base64.getEncoder().encode(plainOut, base64Out);
+        bh.consume(OrderService.bytesToHex(cipherSha.digest()));
+        bh.consume(plainSha.digest());
+        bh.consume(base64Out);
+    }
+
+    /** validateOrder sur segments scellés : chaque segment est authentifié et haché dès son déchiffrement. */
+    @Benchmark
+    public void validateSealedSegments(Blackhole bh) throws GeneralSecurityException {
+        String ciphertextSha256 = OrderService.bytesToHex(MessageDigest.getInstance("SHA-256").digest(segmented));
+        SealedSegments.Opened opened = SealedSegments.open(dek, segmented, true);
+        bh.consume(ciphertextSha256);
+        bh.consume(opened.root());
+        bh.consume(Base64.getEncoder().encodeToString(opened.plain()));
+    }
+
+    private void sealSegments(byte[] target, List<byte[]> hashes) throws GeneralSecurityException {
+        System.arraycopy(header.encode(), 0, target, 0, SealedSegments.HEADER_LENGTH);
+        for (int i = 0; i < header.chunkCount(); i++) {
+            int from = i * header.chunkSize();
+            byte[] chunk = Arrays.copyOfRange(plain, from, from + header.chunkLength(i));
+            hashes.add(MessageDigest.getInstance("SHA-256").digest(chunk));
+            byte[] sealed = SealedSegments.seal(dek, header, i, chunk);
+            System.arraycopy(sealed, 0, target, (int) header.segmentOffset(i), sealed.length);
+        }
+    }
+}
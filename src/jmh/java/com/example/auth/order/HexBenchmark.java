@@ -0,0 +1,43 @@
+package com.example.auth.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Encodage hex d'une empreinte SHA-256 (32 octets) : OrderService.bytesToHex face à HexFormat. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexBenchmark {
+
+    private byte[] digest;
+
+    @Setup
+    public void setUp() {
+        digest = VideoCryptoPrimitivesBenchmark.randomBytes(new SplittableRandom(42), 32);
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return OrderService.bytesToHex(digest);
+    }
+
+    @Benchmark
+    public String hexFormat() {
+        return HexFormat.of().formatHex(digest);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.auth.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin des octets de createOrder et validateOrder tel qu'il est aujourd'hui, sans Vault, base ni store :
+ * hash du clair, chiffrement, SHA-256 du chiffré (empreinte du reçu), puis déchiffrement, hash du clair et
+ * Base64 de la réponse. Référence des variantes de {@link ChunkedBytePathBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderBytePathBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    public int sizeMb;
+
+    private byte[] plain;
+    private byte[] dek;
+    private byte[] iv;
+    private byte[] raw;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        SplittableRandom rng = new SplittableRandom(42);
+        plain = VideoCryptoPrimitivesBenchmark.randomBytes(rng, sizeMb * 1024 * 1024);
+        dek = VideoCryptoPrimitivesBenchmark.randomBytes(rng, 32);
+        iv = VideoCryptoPrimitivesBenchmark.randomBytes(rng, VideoCryptoPrimitivesBenchmark.GCM_IV_LENGTH);
+        raw = VideoCryptoPrimitivesBenchmark.encryptCurrent(dek, iv, plain);
+    }
+
+    @Benchmark
+    public void createOrder(Blackhole bh) throws GeneralSecurityException {
+        String videoHash = OrderService.bytesToHex(MessageDigest.getInstance("SHA-256").digest(plain));
+        byte[] toWrite = VideoCryptoPrimitivesBenchmark.encryptCurrent(dek, iv, plain);
+        String ciphertextSha256 = OrderService.bytesToHex(MessageDigest.getInstance("SHA-256").digest(toWrite));
+        bh.consume(videoHash);
+        bh.consume(toWrite);
+        bh.consume(ciphertextSha256);
+    }
+
+    @Benchmark
+    public void validateOrder(Blackhole bh) throws GeneralSecurityException {
+        String ciphertextSha256 = OrderService.bytesToHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        byte[] decrypted = VideoCryptoPrimitivesBenchmark.cipher(Cipher.DECRYPT_MODE, dek, raw, 0)
+                .doFinal(raw, VideoCryptoPrimitivesBenchmark.GCM_IV_LENGTH, raw.length - VideoCryptoPrimitivesBenchmark.GCM_IV_LENGTH);
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(decrypted);
+        bh.consume(ciphertextSha256);
+        bh.consume(digest);
+        bh.consume(Base64.getEncoder().encodeToString(decrypted));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.auth.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primitives du pipeline vidéo, une à une, sur des vidéos de 1 à 200 Mo : SHA-256, AES-GCM avec allocation
+ * du résultat (code actuel) ou dans un tampon réutilisé, et Base64 du clair renvoyé par validateOrder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class VideoCryptoPrimitivesBenchmark {
+
+    static final int GCM_IV_LENGTH = 12;
+    static final int GCM_TAG_BITS = 128;
+
+    @Param({"1", "10", "50", "200"})
+    public int sizeMb;
+
+    private byte[] plain;
+    private byte[] dek;
+    private byte[] iv;
+    private byte[] raw;
+    private byte[] sealedOut;
+    private byte[] plainOut;
+    private byte[] base64Out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        SplittableRandom rng = new SplittableRandom(42);
+        plain = randomBytes(rng, sizeMb * 1024 * 1024);
+        dek = randomBytes(rng, 32);
+        iv = randomBytes(rng, GCM_IV_LENGTH);
+        raw = encryptCurrent(dek, iv, plain);
+        sealedOut = new byte[raw.length];
+        plainOut = new byte[plain.length];
+        base64Out = new byte[4 * ((plain.length + 2) / 3)];
+    }
+
+    @Benchmark
+    public byte[] sha256() throws GeneralSecurityException {
+        return MessageDigest.getInstance("SHA-256").digest(plain);
+    }
+
+    /** createOrder actuel : doFinal alloue le chiffré, puis copie dans IV || chiffré. */
+    @Benchmark
+    public byte[] aesGcmEncrypt() throws GeneralSecurityException {
+        return encryptCurrent(dek, iv, plain);
+    }
+
+    /** Chiffré écrit directement après l'IV dans un tampon préalloué (ni allocation ni copie). */
+    @Benchmark
+    public byte[] aesGcmEncryptReuse() throws GeneralSecurityException {
+        Cipher cipher = cipher(Cipher.ENCRYPT_MODE, dek, iv, 0);
+        System.arraycopy(iv, 0, sealedOut, 0, GCM_IV_LENGTH);
+        cipher.doFinal(plain, 0, plain.length, sealedOut, GCM_IV_LENGTH);
+        return sealedOut;
+    }
+
+    /** validateOrder actuel : doFinal alloue le clair. */
+    @Benchmark
+    public byte[] aesGcmDecrypt() throws GeneralSecurityException {
+        return cipher(Cipher.DECRYPT_MODE, dek, raw, 0).doFinal(raw, GCM_IV_LENGTH, raw.length - GCM_IV_LENGTH);
+    }
+
+    @Benchmark
+    public byte[] aesGcmDecryptReuse() throws GeneralSecurityException {
+        cipher(Cipher.DECRYPT_MODE, dek, raw, 0).doFinal(raw, GCM_IV_LENGTH, raw.length - GCM_IV_LENGTH, plainOut, 0);
+        return plainOut;
+    }
+
+    /** Réponse de validateOrder actuelle : String Base64 du clair. */
+    @Benchmark
+    public String base64Encode() {
+        return Base64.getEncoder().encodeToString(plain);
+    }
+
+    @Benchmark
+    public byte[] base64EncodeReuse() {
+        Base64.getEncoder().encode(plain, base64Out);
+        return base64Out;
+    }
+
+    /** Copie conforme de l'étape encrypt de OrderService.createOrders. */
+    static byte[] encryptCurrent(byte[] dek, byte[] iv, byte[] plain) throws GeneralSecurityException {
+        byte[] encrypted = cipher(Cipher.ENCRYPT_MODE, dek, iv, 0).doFinal(plain);
+        byte[] out = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, out, 0, iv.length);
+        System.arraycopy(encrypted, 0, out, iv.length, encrypted.length);
+        return out;
+    }
+
+    static Cipher cipher(int mode, byte[] dek, byte[] ivSource, int ivOffset) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, new SecretKeySpec(dek, "AES"), new GCMParameterSpec(GCM_TAG_BITS, ivSource, ivOffset, GCM_IV_LENGTH));
+        return cipher;
+    }
+
+    static byte[] randomBytes(SplittableRandom rng, int n) {
+        byte[] b = new byte[n];
+        rng.nextBytes(b);
+        return b;
+    }
+}
@@ -4,7 +4,12 @@ import com.example.auth.audit.entity.AuditLogJpaEntity;
 import com.example.auth.audit.repository.AuditLogRepository;
 import com.example.auth.inscription.adapters.out.UsersJpaEntity;
 import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.profiling.AuditInsertEvent;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
@@ -15,37 +20,50 @@ public class AuditLogService {
     private final AuditLogRepository auditLogRepository;
     private final SpringDataUsersRepository userRepository;
 
+    private final Tracer tracer;
+
     public AuditLogService(AuditLogRepository auditLogRepository, SpringDataUsersRepository userRepository) {
+        this(auditLogRepository, userRepository, Tracer.NOOP);
+    }
+
+    @Autowired
+    public AuditLogService(AuditLogRepository auditLogRepository, SpringDataUsersRepository userRepository,
+                           ObjectProvider<Tracer> tracer) {
+        this(auditLogRepository, userRepository, tracer.getIfAvailable(() -> Tracer.NOOP));
+    }
+
+    public AuditLogService(AuditLogRepository auditLogRepository, SpringDataUsersRepository userRepository, Tracer tracer) {
         this.auditLogRepository = auditLogRepository;
         this.userRepository = userRepository;
+        this.tracer = tracer;
     }
 
     /**
      * Crée un log d'audit pour une action utilisateur.
      */
     public void logAction(Integer userId, String action, String entity, Integer entityId, String message, HttpServletRequest request) {
-        UsersJpaEntity user = userId != null ? userRepository.findById(userId).orElse(null) : null;
-
-        AuditLogJpaEntity log = new AuditLogJpaEntity();
-        log.setActorUserId(userId);
-        log.setActorName(user != null ? user.getName() : null);
-        log.setActorMail(user != null ? user.getMail() : null);
-        log.setAction(action);
-        log.setEntity(entity);
-        log.setEntityId(entityId);
-        log.setMessage(message);
-        log.setIpAddress(extractIpAddress(request));
-        log.setUserAgent(extractUserAgent(request));
-        log.setMetadata(null);
-        log.setCreatedAt(java.time.LocalDateTime.now());
-
-        auditLogRepository.save(log);
+        logAction(userId, action, entity, entityId, message, null, request);
     }
 
     /**
-     * Crée un log d'audit avec métadonnées JSON.
+     * Crée un log d'audit avec métadonnées JSON (span audit.log, attribut audit.action ; événement JFR
+     * com.example.auth.AuditInsert).
      */
     public void logAction(Integer userId, String action, String entity, Integer entityId, String message, Map<String, Object> metadata, HttpServletRequest request) {
+        Span span = tracer.nextSpan().name("audit.log").tag("audit.action", action != null ? action : "").start();
+        AuditInsertEvent event = AuditInsertEvent.begin(action, entity, entityId, userId);
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            save(userId, action, entity, entityId, message, metadata, request);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+            event.commit();
+        }
+    }
+
+    private void save(Integer userId, String action, String entity, Integer entityId, String message, Map<String, Object> metadata, HttpServletRequest request) {
         UsersJpaEntity user = userId != null ? userRepository.findById(userId).orElse(null) : null;
 
         AuditLogJpaEntity log = new AuditLogJpaEntity();
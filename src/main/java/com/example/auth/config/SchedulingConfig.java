@@ -0,0 +1,12 @@
+package com.example.auth.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches de fond (@Scheduled) : purge des vidéos expirées, etc.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,38 @@
+package com.example.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Enregistre le contrôle d'admission des uploads après la chaîne Spring Security : une requête non
+ * authentifiée est refusée par le filtre JWT sans consommer de budget.
+ */
+@Configuration
+public class UploadAdmissionConfig {
+
+    @Bean
+    public UploadBudget uploadBudget(MeterRegistry meterRegistry,
+                                     @Value("${app.uploads.budget:256MB}") DataSize budget) {
+        return new UploadBudget(budget.toBytes(), meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<UploadAdmissionFilter> uploadAdmissionFilter(
+            UploadBudget uploadBudget,
+            MeterRegistry meterRegistry,
+            @Value("${app.uploads.enabled:true}") boolean enabled,
+            @Value("${app.uploads.max-wait-ms:2000}") long maxWaitMs,
+            @Value("${app.uploads.retry-after-seconds:5}") long retryAfterSeconds,
+            @Value("${spring.servlet.multipart.max-request-size:110MB}") DataSize maxRequestSize) {
+        FilterRegistrationBean<UploadAdmissionFilter> registration = new FilterRegistrationBean<>(
+                new UploadAdmissionFilter(uploadBudget, maxWaitMs, maxRequestSize.toBytes(), retryAfterSeconds, meterRegistry));
+        registration.setEnabled(enabled);
+        registration.setOrder(0);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Contrôle d'admission des uploads (multipart, et segments binaires des uploads reprenables) : réserve le
+ * Content-Length déclaré sur le {@link UploadBudget} avant la lecture du corps (le multipart n'est analysé
+ * qu'ensuite, par le DispatcherServlet).
+ * Sans réservation après une courte attente en file : 503 avec Retry-After. Sans Content-Length (chunked),
+ * la taille maximale d'une requête est réservée. Un traitement asynchrone peut reprendre la réservation
+ * ({@link UploadBudget#takeOver}) pour la garder jusqu'à sa fin.
+ */
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private final UploadBudget budget;
+    private final long maxWaitMs;
+    private final long unknownLengthBytes;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+
+    public UploadAdmissionFilter(UploadBudget budget, long maxWaitMs, long unknownLengthBytes, long retryAfterSeconds,
+                                 MeterRegistry meterRegistry) {
+        this.budget = budget;
+        this.maxWaitMs = maxWaitMs;
+        this.unknownLengthBytes = Math.min(unknownLengthBytes, budget.capacityBytes());
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (!"POST".equalsIgnoreCase(request.getMethod()) && !"PUT".equalsIgnoreCase(request.getMethod())
+                || contentType == null) {
+            return true;
+        }
+        String type = contentType.toLowerCase();
+        return !type.startsWith("multipart/") && !type.startsWith("application/octet-stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long declared = request.getContentLengthLong();
+        long bytes = declared >= 0 ? declared : unknownLengthBytes;
+        if (bytes > budget.capacityBytes()) {
+            count("too_large");
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Fichier trop volumineux.");
+            return;
+        }
+
+        UploadBudget.Reservation reservation = reserve(bytes);
+        if (reservation == null) {
+            count("rejected");
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Serveur occupé : réessayez dans quelques secondes.");
+            return;
+        }
+        count("admitted");
+        request.setAttribute(UploadBudget.RESERVATION_ATTRIBUTE, reservation);
+        try (reservation) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private UploadBudget.Reservation reserve(long bytes) {
+        try {
+            return budget.tryReserve(bytes, maxWaitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("upload.admission", "result", result).increment();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
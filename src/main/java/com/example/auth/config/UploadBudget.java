@@ -0,0 +1,96 @@
+package com.example.auth.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget global d'octets en cours d'upload (par réplica). Chaque upload réserve sa taille déclarée avant
+ * que le multipart ne soit lu ; les réservations sont servies dans l'ordre d'arrivée (sémaphore équitable).
+ *
+ * Comptabilisé par Kio (une réservation est arrondie au Kio supérieur) pour tenir dans un sémaphore int.
+ */
+public class UploadBudget {
+
+    /** Attribut de requête portant la réservation de l'upload en cours (voir {@link #takeOver}). */
+    public static final String RESERVATION_ATTRIBUTE = UploadBudget.class.getName() + ".reservation";
+
+    private static final long UNIT = 1024;
+
+    private final long capacityBytes;
+    private final int capacityUnits;
+    private final Semaphore units;
+
+    public UploadBudget(long capacityBytes, MeterRegistry meterRegistry) {
+        this.capacityUnits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, capacityBytes / UNIT));
+        this.capacityBytes = capacityUnits * UNIT;
+        this.units = new Semaphore(capacityUnits, true);
+        Gauge.builder("upload.budget.used", this, UploadBudget::usedBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("upload.budget.capacity", this, UploadBudget::capacityBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("upload.budget.waiting", units, Semaphore::getQueueLength).register(meterRegistry);
+    }
+
+    public long capacityBytes() {
+        return capacityBytes;
+    }
+
+    public long usedBytes() {
+        return (capacityUnits - (long) units.availablePermits()) * UNIT;
+    }
+
+    /**
+     * Réserve bytes octets, en attendant au plus maxWaitMs derrière les réservations déjà en file.
+     * Retourne null si la réservation n'a pas pu être obtenue à temps.
+     */
+    public Reservation tryReserve(long bytes, long maxWaitMs) throws InterruptedException {
+        if (bytes > capacityBytes) {
+            throw new IllegalArgumentException("Réservation supérieure au budget d'upload : " + bytes + " octets");
+        }
+        int n = (int) Math.max(1, (bytes + UNIT - 1) / UNIT);
+        if (!units.tryAcquire(n, Math.max(0, maxWaitMs), TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        return new Reservation(n);
+    }
+
+    /**
+     * Reprend la réservation de la requête pour un traitement qui lui survit (ex. création asynchrone) :
+     * elle n'est plus libérée à la fin de la requête mais par l'appelant. Null si la requête n'en a pas.
+     */
+    public static Reservation takeOver(HttpServletRequest request) {
+        Object r = request.getAttribute(RESERVATION_ATTRIBUTE);
+        request.removeAttribute(RESERVATION_ATTRIBUTE);
+        return r instanceof Reservation reservation ? reservation.transfer() : null;
+    }
+
+    /** Réservation à libérer (une seule fois) à la fin de la requête. */
+    public final class Reservation implements AutoCloseable {
+
+        private final int n;
+        private boolean released;
+
+        private Reservation(int n) {
+            this.n = n;
+        }
+
+        /** Nouvelle réservation des mêmes octets ; celle-ci devient sans effet. Null si elle est déjà libérée. */
+        synchronized Reservation transfer() {
+            if (released) {
+                return null;
+            }
+            released = true;
+            return new Reservation(n);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                units.release(n);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.auth.config;
+
+import com.example.auth.inscription.adapters.out.InstrumentedUserKeyVaultPort;
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Mesure et trace les appels Vault Transit : toute implémentation de {@link UserKeyVaultPort} est enveloppée
+ * dans {@link InstrumentedUserKeyVaultPort}, sans modifier l'adaptateur ni ses consommateurs (injection par le port).
+ */
+@Configuration
+public class VaultInstrumentationConfig {
+
+    @Bean
+    public static BeanPostProcessor instrumentedVaultPortPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                       ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof UserKeyVaultPort port && !(bean instanceof InstrumentedUserKeyVaultPort)) {
+                    return new InstrumentedUserKeyVaultPort(port, meterRegistry.getObject(),
+                            tracer.getIfAvailable(() -> Tracer.NOOP));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.auth.inscription.adapters.out;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vault Transit émulé en mémoire (JCA), pour les tests de charge et le développement hors ligne
+ * (profil Spring vault-stub, qui remplace {@link VaultTransitAdapter}).
+ *
+ * Même contrat que Transit : clés de signature Ed25519 (clé publique exportée en Base64 brut, signature
+ * vault:vN:...), clés symétriques AES-256-GCM créées au premier chiffrement (ciphertext vault:vN:Base64(nonce
+ * || chiffré || tag)), versions de clé avec {@link #rotateKey}, rewrap en lot (null pour une entrée en échec).
+ * Les clés sont perdues à l'arrêt : une base alimentée par ce profil n'est pas lisible avec un vrai Vault.
+ *
+ * Comportement réseau simulé par appel (un lot = un appel) : latence app.vault.stub.latency-ms + jitter uniforme
+ * app.vault.stub.jitter-ms, et échec (IllegalStateException, comme une VaultException) avec la probabilité
+ * app.vault.stub.error-rate. app.vault.stub.seed (non nul) rend jitter et erreurs reproductibles.
+ */
+@Component
+@Profile("vault-stub")
+public class InProcessTransitAdapter implements UserKeyVaultPort {
+
+    private static final String PREFIX = "vault:v";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    /** En-tête X.509 d'une clé publique Ed25519 (la clé brute de 32 octets suit). */
+    private static final int ED25519_SPKI_HEADER = 12;
+
+    private final Map<String, TransitKey> keys = new ConcurrentHashMap<>();
+    private final SecureRandom rng = new SecureRandom();
+    private final long latencyMicros;
+    private final long jitterMicros;
+    private final double errorRate;
+    private final Random faults;
+
+    public InProcessTransitAdapter(@Value("${app.vault.stub.latency-ms:0}") double latencyMs,
+                                   @Value("${app.vault.stub.jitter-ms:0}") double jitterMs,
+                                   @Value("${app.vault.stub.error-rate:0}") double errorRate,
+                                   @Value("${app.vault.stub.seed:0}") long seed) {
+        if (latencyMs < 0 || jitterMs < 0) {
+            throw new IllegalArgumentException("app.vault.stub.latency-ms et jitter-ms doivent être positifs");
+        }
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("app.vault.stub.error-rate doit être compris entre 0 et 1");
+        }
+        this.latencyMicros = Math.round(latencyMs * 1000);
+        this.jitterMicros = Math.round(jitterMs * 1000);
+        this.errorRate = errorRate;
+        this.faults = seed != 0 ? new Random(seed) : null;
+    }
+
+    @Override
+    public void createSigningKey(String vaultKeyName) {
+        call();
+        keys.computeIfAbsent(vaultKeyName, k -> TransitKey.create(KeyType.ED25519, rng));
+    }
+
+    @Override
+    public String exportPublicKey(String vaultKeyName) {
+        call();
+        TransitKey key = require(vaultKeyName, KeyType.ED25519);
+        byte[] spki = key.signing(key.latest()).getPublic().getEncoded();
+        return Base64.getEncoder().encodeToString(Arrays.copyOfRange(spki, ED25519_SPKI_HEADER, spki.length));
+    }
+
+    @Override
+    public String encryptDek(String keyName, byte[] dekPlaintext) {
+        call();
+        // Comme Transit (upsert), la clé symétrique est créée au premier chiffrement
+        TransitKey key = keys.computeIfAbsent(keyName, k -> TransitKey.create(KeyType.AES256_GCM, rng));
+        if (key.type != KeyType.AES256_GCM) {
+            throw new IllegalStateException("Clé Transit non symétrique : " + keyName);
+        }
+        return encrypt(key, dekPlaintext);
+    }
+
+    @Override
+    public byte[] decryptDek(String keyName, String ciphertext) {
+        call();
+        return decrypt(require(keyName, KeyType.AES256_GCM), ciphertext);
+    }
+
+    @Override
+    public int latestKeyVersion(String keyName) {
+        call();
+        TransitKey key = keys.get(keyName);
+        if (key == null) {
+            throw new IllegalStateException("Clé Transit introuvable : " + keyName);
+        }
+        return key.latest();
+    }
+
+    @Override
+    public List<String> rewrapDeks(String keyName, List<String> ciphertexts) {
+        call();
+        TransitKey key = require(keyName, KeyType.AES256_GCM);
+        List<String> out = new ArrayList<>(ciphertexts.size());
+        for (String ct : ciphertexts) {
+            try {
+                byte[] plain = decrypt(key, ct);
+                out.add(encrypt(key, plain));
+                Arrays.fill(plain, (byte) 0);
+            } catch (RuntimeException e) {
+                // Entrée en erreur dans batch_results : les autres sont rechiffrées
+                out.add(null);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public String sign(String vaultKeyName, String inputBase64) {
+        call();
+        TransitKey key = require(vaultKeyName, KeyType.ED25519);
+        int version = key.latest();
+        try {
+            Signature s = Signature.getInstance("Ed25519");
+            s.initSign(key.signing(version).getPrivate());
+            s.update(Base64.getDecoder().decode(inputBase64));
+            return PREFIX + version + ":" + Base64.getEncoder().encodeToString(s.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signature Ed25519 impossible : " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean verify(String vaultKeyName, String inputBase64, String signature) {
+        call();
+        TransitKey key = require(vaultKeyName, KeyType.ED25519);
+        Envelope env = Envelope.parse(signature);
+        if (env.version() > key.latest()) {
+            return false;
+        }
+        try {
+            Signature s = Signature.getInstance("Ed25519");
+            s.initVerify(key.signing(env.version()).getPublic());
+            s.update(Base64.getDecoder().decode(inputBase64));
+            return s.verify(env.payload());
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /** Nouvelle version de la clé (transit/keys/{name}/rotate) ; retourne la dernière version. */
+    public int rotateKey(String keyName) {
+        TransitKey key = keys.get(keyName);
+        if (key == null) {
+            throw new IllegalStateException("Clé Transit introuvable : " + keyName);
+        }
+        return key.rotate(rng);
+    }
+
+    private String encrypt(TransitKey key, byte[] plain) {
+        int version = key.latest();
+        byte[] nonce = new byte[NONCE_LENGTH];
+        rng.nextBytes(nonce);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key.symmetric(version), new GCMParameterSpec(TAG_BITS, nonce));
+            byte[] sealed = cipher.doFinal(plain);
+            byte[] payload = ByteBuffer.allocate(nonce.length + sealed.length).put(nonce).put(sealed).array();
+            return PREFIX + version + ":" + Base64.getEncoder().encodeToString(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chiffrement Transit impossible : " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] decrypt(TransitKey key, String ciphertext) {
+        Envelope env = Envelope.parse(ciphertext);
+        if (env.version() > key.latest() || env.payload().length <= NONCE_LENGTH) {
+            throw new IllegalArgumentException("Ciphertext Transit invalide.");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key.symmetric(env.version()),
+                    new GCMParameterSpec(TAG_BITS, env.payload(), 0, NONCE_LENGTH));
+            return cipher.doFinal(env.payload(), NONCE_LENGTH, env.payload().length - NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Ciphertext Transit invalide.");
+        }
+    }
+
+    private TransitKey require(String keyName, KeyType type) {
+        TransitKey key = keys.get(keyName);
+        if (key == null) {
+            throw new IllegalStateException("Clé Transit introuvable : " + keyName);
+        }
+        if (key.type != type) {
+            throw new IllegalStateException("Type de clé Transit incompatible : " + keyName);
+        }
+        return key;
+    }
+
+    /** Latence et erreurs simulées d'un aller-retour HTTP vers Vault. */
+    private void call() {
+        long delay = latencyMicros + (jitterMicros > 0 ? (long) (nextDouble() * jitterMicros) : 0);
+        if (delay > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Appel Vault interrompu.");
+            }
+        }
+        if (errorRate > 0 && nextDouble() < errorRate) {
+            throw new IllegalStateException("Vault indisponible (erreur simulée).");
+        }
+    }
+
+    private double nextDouble() {
+        if (faults == null) {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+        synchronized (faults) {
+            return faults.nextDouble();
+        }
+    }
+
+    private enum KeyType { ED25519, AES256_GCM }
+
+    /** Clé Transit : versions 1..n, la dernière sert au chiffrement et à la signature. */
+    private static final class TransitKey {
+
+        private final KeyType type;
+        private final List<Object> versions = new CopyOnWriteArrayList<>();
+
+        private TransitKey(KeyType type) {
+            this.type = type;
+        }
+
+        static TransitKey create(KeyType type, SecureRandom rng) {
+            TransitKey key = new TransitKey(type);
+            key.rotate(rng);
+            return key;
+        }
+
+        synchronized int rotate(SecureRandom rng) {
+            try {
+                if (type == KeyType.ED25519) {
+                    versions.add(KeyPairGenerator.getInstance("Ed25519").generateKeyPair());
+                } else {
+                    KeyGenerator gen = KeyGenerator.getInstance("AES");
+                    gen.init(256, rng);
+                    versions.add(gen.generateKey());
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Génération de clé impossible : " + e.getMessage(), e);
+            }
+            return versions.size();
+        }
+
+        int latest() {
+            return versions.size();
+        }
+
+        KeyPair signing(int version) {
+            return (KeyPair) versions.get(version - 1);
+        }
+
+        SecretKey symmetric(int version) {
+            return (SecretKey) versions.get(version - 1);
+        }
+    }
+
+    /** vault:vN:Base64 → version N et octets décodés. */
+    private record Envelope(int version, byte[] payload) {
+
+        static Envelope parse(String value) {
+            if (value == null || !value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Format Transit invalide (vault:vN:...).");
+            }
+            int sep = value.indexOf(':', PREFIX.length());
+            try {
+                int version = Integer.parseInt(value.substring(PREFIX.length(), sep));
+                if (version < 1) {
+                    throw new IllegalArgumentException("Version de clé Transit invalide.");
+                }
+                return new Envelope(version, Base64.getDecoder().decode(value.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Format Transit invalide (vault:vN:...).");
+            }
+        }
+    }
+}
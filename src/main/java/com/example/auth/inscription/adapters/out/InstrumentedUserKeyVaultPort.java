@@ -0,0 +1,138 @@
+package com.example.auth.inscription.adapters.out;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.profiling.VaultTransitEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Décorateur de {@link UserKeyVaultPort} : durée de chaque appel Transit, vault.transit{operation, outcome}
+ * (histogramme publié pour les quantiles Prometheus), et span vault.{operation} (attribut vault.key : nom de
+ * la clé), ainsi qu'un événement JFR com.example.auth.VaultTransit. outcome : success, error, ou invalid pour
+ * une signature refusée par verify.
+ * Posé sur toute implémentation du port par VaultInstrumentationConfig.
+ */
+public class InstrumentedUserKeyVaultPort implements UserKeyVaultPort {
+
+    private final UserKeyVaultPort delegate;
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+
+    public InstrumentedUserKeyVaultPort(UserKeyVaultPort delegate, MeterRegistry meterRegistry) {
+        this(delegate, meterRegistry, Tracer.NOOP);
+    }
+
+    public InstrumentedUserKeyVaultPort(UserKeyVaultPort delegate, MeterRegistry meterRegistry, Tracer tracer) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+    }
+
+    public UserKeyVaultPort getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void createSigningKey(String vaultKeyName) {
+        timed("create_signing_key", vaultKeyName, () -> {
+            delegate.createSigningKey(vaultKeyName);
+            return null;
+        });
+    }
+
+    @Override
+    public String exportPublicKey(String vaultKeyName) {
+        return timed("export_public_key", vaultKeyName, () -> delegate.exportPublicKey(vaultKeyName));
+    }
+
+    @Override
+    public String encryptDek(String keyName, byte[] dekPlaintext) {
+        return timed("encrypt_dek", keyName, () -> delegate.encryptDek(keyName, dekPlaintext));
+    }
+
+    @Override
+    public byte[] decryptDek(String keyName, String ciphertext) {
+        return timed("decrypt_dek", keyName, () -> delegate.decryptDek(keyName, ciphertext));
+    }
+
+    @Override
+    public int latestKeyVersion(String keyName) {
+        return timed("latest_key_version", keyName, () -> delegate.latestKeyVersion(keyName));
+    }
+
+    @Override
+    public List<String> rewrapDeks(String keyName, List<String> ciphertexts) {
+        return timed("rewrap_deks", keyName, () -> delegate.rewrapDeks(keyName, ciphertexts));
+    }
+
+    @Override
+    public String sign(String vaultKeyName, String inputBase64) {
+        return timed("sign", vaultKeyName, () -> delegate.sign(vaultKeyName, inputBase64));
+    }
+
+    @Override
+    public boolean verify(String vaultKeyName, String inputBase64, String signature) {
+        Span span = start("verify", vaultKeyName);
+        VaultTransitEvent event = VaultTransitEvent.begin("verify", vaultKeyName);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            boolean valid = delegate.verify(vaultKeyName, inputBase64, signature);
+            outcome = valid ? "success" : "invalid";
+            span.tag("vault.valid", valid);
+            return valid;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+            event.outcome = outcome;
+            event.commit();
+            timer("verify", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T timed(String operation, String keyName, Supplier<T> call) {
+        Span span = start(operation, keyName);
+        VaultTransitEvent event = VaultTransitEvent.begin(operation, keyName);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+            event.outcome = outcome;
+            event.commit();
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Span start(String operation, String keyName) {
+        Span span = tracer.nextSpan().name("vault." + operation);
+        if (keyName != null) {
+            span.tag("vault.key", keyName);
+        }
+        return span.start();
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("vault.transit").tag("operation", operation).tag("outcome", outcome)
+                .description("Durée d'un appel Vault Transit")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
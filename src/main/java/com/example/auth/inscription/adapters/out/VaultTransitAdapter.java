@@ -1,14 +1,19 @@
 package com.example.auth.inscription.adapters.out;
 
 import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.vault.core.VaultTemplate;
 import org.springframework.vault.support.VaultResponse;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 
+/** Port Transit adossé à Vault (HTTP) ; remplacé par {@link InProcessTransitAdapter} sous le profil vault-stub. */
 @Component
+@Profile("!vault-stub")
 public class VaultTransitAdapter implements UserKeyVaultPort {
 
     private final VaultTemplate vaultTemplate;
@@ -60,6 +65,37 @@ public class VaultTransitAdapter implements UserKeyVaultPort {
         return Base64.getDecoder().decode(pt.toString());
     }
 
+    @Override
+    public int latestKeyVersion(String keyName) {
+        VaultResponse resp = vaultTemplate.read("transit/keys/" + keyName);
+        if (resp == null || resp.getData() == null) throw new IllegalStateException("Clé Transit introuvable : " + keyName);
+        Object v = dataMap(resp.getData()).get("latest_version");
+        if (v == null) throw new IllegalStateException("Pas de latest_version dans la réponse Vault pour: " + keyName);
+        return Integer.parseInt(v.toString());
+    }
+
+    @Override
+    public List<String> rewrapDeks(String keyName, List<String> ciphertexts) {
+        List<Map<String, Object>> batch = new ArrayList<>(ciphertexts.size());
+        for (String ct : ciphertexts) {
+            batch.add(Map.of("ciphertext", ct));
+        }
+        var resp = vaultTemplate.write("transit/rewrap/" + keyName, Map.of("batch_input", batch));
+        if (resp == null || resp.getData() == null) throw new IllegalStateException("Vault rewrap a échoué pour: " + keyName);
+        Object results = dataMap(resp.getData()).get("batch_results");
+        if (!(results instanceof List<?> list) || list.size() != ciphertexts.size()) {
+            throw new IllegalStateException("Réponse Vault rewrap incomplète pour: " + keyName);
+        }
+        List<String> out = new ArrayList<>(list.size());
+        for (Object r : list) {
+            Map<String, Object> item = dataMap(r);
+            Object ct = item.get("ciphertext");
+            Object error = item.get("error");
+            out.add(ct != null && (error == null || error.toString().isEmpty()) ? ct.toString() : null);
+        }
+        return out;
+    }
+
     @Override
     public String sign(String vaultKeyName, String inputBase64) {
         // Ed25519 : prehashed doit être false, pas de suffixe /sha2-256 (réservé RSA, etc.)
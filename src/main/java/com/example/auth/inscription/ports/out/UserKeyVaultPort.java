@@ -1,5 +1,7 @@
 package com.example.auth.inscription.ports.out;
 
+import java.util.List;
+
 public interface UserKeyVaultPort {
 
     void createSigningKey(String vaultKeyName);
@@ -12,6 +14,15 @@ public interface UserKeyVaultPort {
     /** Déchiffre un DEK via Transit. ciphertext au format vault:v1:... */
     byte[] decryptDek(String keyName, String ciphertext);
 
+    /** Dernière version de la clé Transit (latest_version). */
+    int latestKeyVersion(String keyName);
+
+    /**
+     * Rechiffre des DEK sur la dernière version de la clé Transit, en un appel (rewrap, batch_input), sans
+     * exposer le DEK en clair. Retourne les nouveaux ciphertexts dans l'ordre ; null pour une entrée en échec.
+     */
+    List<String> rewrapDeks(String keyName, List<String> ciphertexts);
+
     /** Signe le hash (SHA-256) de la vidéo avec la clé privée de l'utilisateur (vault_key). inputBase64 = Base64(hash). */
     String sign(String vaultKeyName, String inputBase64);
 
@@ -0,0 +1,10 @@
+package com.example.auth.inscription.ports.out;
+
+public interface UserVideoPurgePort {
+
+    /**
+     * Rend illisibles toutes les vidéos envoyées par l'utilisateur (destruction des DEK chiffrés) ;
+     * les fichiers .enc sont supprimés plus tard en arrière-plan. Retourne le nombre d'ordres purgés.
+     */
+    int purgeUserVideos(Integer userId);
+}
@@ -4,6 +4,7 @@ import com.example.auth.inscription.entity.Users;
 import com.example.auth.inscription.ports.in.InscriptionUseCase;
 import com.example.auth.inscription.ports.out.InscriptionRepository;
 import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.inscription.ports.out.UserVideoPurgePort;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -17,15 +18,18 @@ public class InscriptionService implements InscriptionUseCase
     private final InscriptionRepository inscriptionRepository;
     private final UserKeyVaultPort userKeyVaultPort;
     private final BCryptPasswordEncoder encoder;
+    private final UserVideoPurgePort userVideoPurgePort;
 
     public InscriptionService(
             InscriptionRepository inscriptionRepository,
             UserKeyVaultPort userKeyVaultPort,
-            BCryptPasswordEncoder encoder
+            BCryptPasswordEncoder encoder,
+            UserVideoPurgePort userVideoPurgePort
     ) {
         this.inscriptionRepository = inscriptionRepository;
         this.userKeyVaultPort = userKeyVaultPort;
         this.encoder = encoder;
+        this.userVideoPurgePort = userVideoPurgePort;
     }
 
     @Override
@@ -56,6 +60,8 @@ public class InscriptionService implements InscriptionUseCase
 
     @Override
     public void deleteUser(Integer userId) {
+        // Vidéos envoyées rendues illisibles (DEK détruits) avant la suppression du compte
+        userVideoPurgePort.purgeUserVideos(userId);
         inscriptionRepository.deleteById(userId);
     }
 }
@@ -0,0 +1,62 @@
+package com.example.auth.jobs.controller;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.jobs.service.JobCoordinator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Suivi des tâches de fond réparties. Réservé aux administrateurs (JWT requis).
+ */
+@RestController
+@RequestMapping("/api/admin/jobs")
+@ConditionalOnProperty(name = "app.jobs.enabled", havingValue = "true", matchIfMissing = true)
+public class JobAdminController {
+
+    private final JobCoordinator coordinator;
+    private final SpringDataUsersRepository userRepo;
+
+    public JobAdminController(JobCoordinator coordinator, SpringDataUsersRepository userRepo) {
+        this.coordinator = coordinator;
+        this.userRepo = userRepo;
+    }
+
+    /**
+     * GET /api/admin/jobs : leader, parts par statut, éléments traités et débit de chaque tâche.
+     */
+    @GetMapping
+    public ResponseEntity<?> progress(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        return ResponseEntity.ok(coordinator.progress());
+    }
+
+    /**
+     * POST /api/admin/jobs/{name}/run : demande une exécution, planifiée par le leader à son prochain battement.
+     */
+    @PostMapping("/{name}/run")
+    public ResponseEntity<?> run(@RequestAttribute("userId") Integer userId, @PathVariable("name") String name) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        if (!coordinator.requestRun(name)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Tâche inconnue"));
+        }
+        return ResponseEntity.accepted().body(Map.of("requested", true));
+    }
+
+    private boolean isAdmin(Integer userId) {
+        return userId != null && userRepo.findById(userId).map(UsersJpaEntity::isAdmin).orElse(false);
+    }
+}
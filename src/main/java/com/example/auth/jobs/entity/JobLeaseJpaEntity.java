@@ -0,0 +1,94 @@
+package com.example.auth.jobs.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Bail de leader d'une tâche de fond : une ligne par tâche.
+ * fencing_token est incrémenté à chaque changement de leader ; les écritures du leader le vérifient,
+ * si bien qu'un ancien leader (GC, réseau) ne peut plus rien modifier après la perte du bail.
+ */
+@Entity
+@Table(name = "job_leases")
+public class JobLeaseJpaEntity {
+
+    @Id
+    @Column(name = "job_name", length = 80)
+    private String jobName;
+
+    @Column(name = "owner", length = 120)
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    // Exécution en cours : fencing_token du leader qui l'a planifiée
+    @Column(name = "current_run")
+    private Long currentRun;
+
+    @Column(name = "last_planned_at")
+    private LocalDateTime lastPlannedAt;
+
+    @Column(name = "run_requested", nullable = false)
+    private boolean runRequested;
+
+    // Getters & Setters
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public Long getCurrentRun() {
+        return currentRun;
+    }
+
+    public void setCurrentRun(Long currentRun) {
+        this.currentRun = currentRun;
+    }
+
+    public LocalDateTime getLastPlannedAt() {
+        return lastPlannedAt;
+    }
+
+    public void setLastPlannedAt(LocalDateTime lastPlannedAt) {
+        this.lastPlannedAt = lastPlannedAt;
+    }
+
+    public boolean isRunRequested() {
+        return runRequested;
+    }
+
+    public void setRunRequested(boolean runRequested) {
+        this.runRequested = runRequested;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.auth.jobs.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Part d'une tâche découpée : plage d'ids [range_start, range_end) réclamée par un réplica.
+ * claim_token est incrémenté à chaque réclamation ; la progression et la fin ne sont enregistrées
+ * que si le jeton correspond encore (le réplica n'a pas perdu la part entre-temps).
+ */
+@Entity
+@Table(
+    name = "job_shards",
+    indexes = {
+        @Index(name = "idx_shards_job_status", columnList = "job_name, status"),
+        @Index(name = "idx_shards_job_run", columnList = "job_name, run_token")
+    }
+)
+public class JobShardJpaEntity {
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false, length = 80)
+    private String jobName;
+
+    @Column(name = "run_token", nullable = false)
+    private long runToken;
+
+    @Column(name = "range_start", nullable = false)
+    private long rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private long rangeEnd;
+
+    // Position de reprise dans la plage (dernier point de contrôle)
+    @Column(name = "cursor_pos", nullable = false)
+    private long cursorPos;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "owner", length = 160)
+    private String owner;
+
+    @Column(name = "claim_token", nullable = false)
+    private long claimToken;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public long getRunToken() {
+        return runToken;
+    }
+
+    public void setRunToken(long runToken) {
+        this.runToken = runToken;
+    }
+
+    public long getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(long rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(long rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public long getCursorPos() {
+        return cursorPos;
+    }
+
+    public void setCursorPos(long cursorPos) {
+        this.cursorPos = cursorPos;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(long claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
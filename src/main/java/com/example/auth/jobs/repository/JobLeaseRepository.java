@@ -0,0 +1,67 @@
+package com.example.auth.jobs.repository;
+
+import com.example.auth.jobs.entity.JobLeaseJpaEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Baux de leader. Toutes les comparaisons de dates utilisent l'horloge MySQL (NOW(3)) :
+ * le décalage d'horloge entre réplicas n'intervient pas.
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLeaseJpaEntity, String> {
+
+    /** Crée la ligne de la tâche (bail expiré, sans propriétaire) si elle n'existe pas. */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_leases (job_name, owner, fencing_token, lease_until, run_requested) "
+            + "VALUES (:job, NULL, 0, NOW(3), 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("job") String job);
+
+    /** Prend le bail s'il est libre ou expiré ; incrémente le jeton de fencing. Retourne 1 en cas de succès. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_leases SET owner = :owner, fencing_token = fencing_token + 1, "
+            + "lease_until = DATE_ADD(NOW(3), INTERVAL :leaseMs * 1000 MICROSECOND) "
+            + "WHERE job_name = :job AND (owner IS NULL OR lease_until < NOW(3))", nativeQuery = true)
+    int acquire(@Param("job") String job, @Param("owner") String owner, @Param("leaseMs") long leaseMs);
+
+    /** Prolonge le bail s'il est toujours détenu avec ce jeton et non expiré. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_leases SET lease_until = DATE_ADD(NOW(3), INTERVAL :leaseMs * 1000 MICROSECOND) "
+            + "WHERE job_name = :job AND owner = :owner AND fencing_token = :token AND lease_until >= NOW(3)",
+            nativeQuery = true)
+    int renew(@Param("job") String job, @Param("owner") String owner, @Param("token") long token,
+              @Param("leaseMs") long leaseMs);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_leases SET owner = NULL, lease_until = NOW(3) "
+            + "WHERE job_name = :job AND owner = :owner AND fencing_token = :token", nativeQuery = true)
+    int release(@Param("job") String job, @Param("owner") String owner, @Param("token") long token);
+
+    /** Enregistre une nouvelle exécution planifiée par le leader détenant ce jeton. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_leases SET current_run = :token, last_planned_at = NOW(3), run_requested = 0 "
+            + "WHERE job_name = :job AND owner = :owner AND fencing_token = :token AND lease_until >= NOW(3)",
+            nativeQuery = true)
+    int markPlanned(@Param("job") String job, @Param("owner") String owner, @Param("token") long token);
+
+    /** Demande une exécution (prise en compte par le leader au prochain battement). */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_leases SET run_requested = 1 WHERE job_name = :job", nativeQuery = true)
+    int requestRun(@Param("job") String job);
+
+    /** Vrai si la dernière planification date de plus de intervalMs (ou n'a jamais eu lieu). */
+    @Query(value = "SELECT COUNT(*) FROM job_leases WHERE job_name = :job "
+            + "AND (last_planned_at IS NULL OR last_planned_at < DATE_SUB(NOW(3), INTERVAL :intervalMs * 1000 MICROSECOND))",
+            nativeQuery = true)
+    long countDueForPlanning(@Param("job") String job, @Param("intervalMs") long intervalMs);
+}
@@ -0,0 +1,89 @@
+package com.example.auth.jobs.repository;
+
+import com.example.auth.jobs.entity.JobShardJpaEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobShardRepository extends JpaRepository<JobShardJpaEntity, Long> {
+
+    /**
+     * Insère une part, uniquement si le bail est toujours détenu par ce leader avec ce jeton (fencing).
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO job_shards (job_name, run_token, range_start, range_end, cursor_pos, status, "
+            + "claim_token, attempts, processed, updated_at) "
+            + "SELECT l.job_name, l.fencing_token, :start, :end, :start, 'PENDING', 0, 0, 0, NOW(3) FROM job_leases l "
+            + "WHERE l.job_name = :job AND l.owner = :owner AND l.fencing_token = :token AND l.lease_until >= NOW(3)",
+            nativeQuery = true)
+    int insertFenced(@Param("job") String job, @Param("owner") String owner, @Param("token") long token,
+                     @Param("start") long start, @Param("end") long end);
+
+    /** Supprime les parts des exécutions précédentes (le nouveau leader les remplace). */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM job_shards WHERE job_name = :job AND run_token < :token", nativeQuery = true)
+    int deleteOlderRuns(@Param("job") String job, @Param("token") long token);
+
+    /**
+     * Réclame la première part libre (ou dont le détenteur a cessé de donner signe de vie).
+     * UPDATE ... LIMIT 1 : atomique, deux réplicas ne peuvent pas obtenir la même part.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_shards SET status = 'RUNNING', owner = :worker, claim_token = claim_token + 1, "
+            + "attempts = attempts + 1, claimed_until = DATE_ADD(NOW(3), INTERVAL :claimMs * 1000 MICROSECOND), "
+            + "updated_at = NOW(3) "
+            + "WHERE job_name = :job AND run_token = :run "
+            + "AND (status = 'PENDING' OR (status = 'RUNNING' AND claimed_until < NOW(3))) "
+            + "ORDER BY id LIMIT 1", nativeQuery = true)
+    int claimNext(@Param("job") String job, @Param("run") long run, @Param("worker") String worker,
+                  @Param("claimMs") long claimMs);
+
+    Optional<JobShardJpaEntity> findFirstByJobNameAndOwnerAndStatus(String jobName, String owner, String status);
+
+    /** Point de contrôle : avance le curseur et prolonge la réclamation, si la part est toujours détenue. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_shards SET cursor_pos = :cursor, processed = processed + :delta, "
+            + "claimed_until = DATE_ADD(NOW(3), INTERVAL :claimMs * 1000 MICROSECOND), updated_at = NOW(3) "
+            + "WHERE id = :id AND owner = :worker AND claim_token = :claim AND status = 'RUNNING'",
+            nativeQuery = true)
+    int checkpoint(@Param("id") long id, @Param("worker") String worker, @Param("claim") long claim,
+                   @Param("cursor") long cursor, @Param("delta") long delta, @Param("claimMs") long claimMs);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_shards SET status = 'DONE', cursor_pos = range_end, processed = processed + :delta, "
+            + "owner = NULL, claimed_until = NULL, updated_at = NOW(3) "
+            + "WHERE id = :id AND owner = :worker AND claim_token = :claim AND status = 'RUNNING'",
+            nativeQuery = true)
+    int complete(@Param("id") long id, @Param("worker") String worker, @Param("claim") long claim,
+                 @Param("delta") long delta);
+
+    /** Échec : la part redevient disponible, ou passe en FAILED après maxAttempts tentatives. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_shards SET status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END, "
+            + "processed = processed + :delta, owner = NULL, claimed_until = NULL, last_error = :error, updated_at = NOW(3) "
+            + "WHERE id = :id AND owner = :worker AND claim_token = :claim AND status = 'RUNNING'",
+            nativeQuery = true)
+    int fail(@Param("id") long id, @Param("worker") String worker, @Param("claim") long claim,
+             @Param("delta") long delta, @Param("error") String error, @Param("maxAttempts") int maxAttempts);
+
+    long countByJobNameAndRunTokenAndStatusIn(String jobName, long runToken, Collection<String> statuses);
+
+    /** Nombre de parts et éléments traités par statut, pour une exécution : [status, count, sum(processed)]. */
+    @Query("select s.status, count(s), coalesce(sum(s.processed), 0) from JobShardJpaEntity s "
+            + "where s.jobName = :job and s.runToken = :run group by s.status")
+    List<Object[]> summarize(@Param("job") String job, @Param("run") long run);
+}
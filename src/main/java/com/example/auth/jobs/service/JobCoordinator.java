@@ -0,0 +1,325 @@
+package com.example.auth.jobs.service;
+
+import com.example.auth.jobs.entity.JobLeaseJpaEntity;
+import com.example.auth.jobs.entity.JobShardJpaEntity;
+import com.example.auth.jobs.repository.JobLeaseRepository;
+import com.example.auth.jobs.repository.JobShardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordonnanceur des {@link ShardedJob} pour un cluster de réplicas.
+ *
+ * Battement (heartbeat-ms) : chaque réplica tente de prendre ou renouveler le bail de chaque tâche ; le leader
+ * planifie une nouvelle exécution quand elle est due (intervalle ou demande explicite) et qu'aucune part n'est en cours.
+ * Scrutation (poll-ms) : chaque réplica réclame des parts de l'exécution courante, dans la limite de ses workers.
+ * Le travail est ainsi réparti entre réplicas ; une part abandonnée (réplica arrêté) est reprise après claim-ms.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jobs.enabled", havingValue = "true", matchIfMissing = true)
+public class JobCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(JobCoordinator.class);
+    private static final List<String> OPEN = List.of(JobShardJpaEntity.PENDING, JobShardJpaEntity.RUNNING);
+
+    private final Map<String, ShardedJob> jobs = new LinkedHashMap<>();
+    private final JobLeaseService leases;
+    private final JobLeaseRepository leaseRepo;
+    private final JobShardRepository shardRepo;
+    private final MeterRegistry meterRegistry;
+    private final long claimMs;
+    private final int maxAttempts;
+    private final Semaphore slots;
+    private final ExecutorService workers;
+    private final AtomicLong claimSeq = new AtomicLong();
+
+    public JobCoordinator(ObjectProvider<ShardedJob> jobs,
+                          JobLeaseService leases,
+                          JobLeaseRepository leaseRepo,
+                          JobShardRepository shardRepo,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.jobs.workers:2}") int workerCount,
+                          @Value("${app.jobs.claim-ms:60000}") long claimMs,
+                          @Value("${app.jobs.max-attempts:3}") int maxAttempts) {
+        jobs.orderedStream().forEach(j -> {
+            if (this.jobs.putIfAbsent(j.name(), j) != null) {
+                throw new IllegalStateException("Nom de tâche en double : " + j.name());
+            }
+        });
+        this.leases = leases;
+        this.leaseRepo = leaseRepo;
+        this.shardRepo = shardRepo;
+        this.meterRegistry = meterRegistry;
+        this.claimMs = claimMs;
+        this.maxAttempts = maxAttempts;
+        this.slots = new Semaphore(workerCount);
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "job-worker-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        for (String name : jobs.keySet()) {
+            try {
+                leases.release(name);
+            } catch (RuntimeException e) {
+                log.warn("Libération du bail {} impossible : {}", name, e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:5000}", initialDelay = 5000)
+    public void heartbeat() {
+        for (ShardedJob job : jobs.values()) {
+            try {
+                OptionalLong token = leases.acquireOrRenew(job.name());
+                if (token.isPresent()) {
+                    planIfDue(job, token.getAsLong());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Battement de la tâche {} en échec : {}", job.name(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-ms:2000}", initialDelay = 5000)
+    public void poll() {
+        for (ShardedJob job : jobs.values()) {
+            try {
+                while (slots.tryAcquire()) {
+                    Optional<Claim> claim = claimNext(job);
+                    if (claim.isEmpty()) {
+                        slots.release();
+                        break;
+                    }
+                    workers.execute(() -> {
+                        try {
+                            runShard(job, claim.get());
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                slots.release();
+                log.warn("Réclamation d'une part de {} impossible : {}", job.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Demande une exécution de la tâche ; le leader la planifie à son prochain battement.
+     * Retourne false si la tâche est inconnue.
+     */
+    public boolean requestRun(String jobName) {
+        if (!jobs.containsKey(jobName)) {
+            return false;
+        }
+        leaseRepo.insertIfAbsent(jobName);
+        leaseRepo.requestRun(jobName);
+        return true;
+    }
+
+    /**
+     * Planifie une exécution si elle est due et qu'aucune part de l'exécution courante n'est ouverte.
+     * Retourne le nombre de parts créées.
+     */
+    int planIfDue(ShardedJob job, long token) {
+        String name = job.name();
+        JobLeaseJpaEntity lease = leaseRepo.findById(name).orElse(null);
+        if (lease == null) {
+            return 0;
+        }
+        // Un nouveau leader reprend l'exécution en cours plutôt que de la replanifier
+        if (lease.getCurrentRun() != null && shardRepo.countByJobNameAndRunTokenAndStatusIn(name, lease.getCurrentRun(), OPEN) > 0) {
+            return 0;
+        }
+        Duration interval = job.interval();
+        boolean due = lease.isRunRequested()
+                || (interval != null && leaseRepo.countDueForPlanning(name, interval.toMillis()) > 0);
+        if (!due) {
+            return 0;
+        }
+        String owner = leases.getInstanceId();
+        shardRepo.deleteOlderRuns(name, token);
+        ShardedJob.IdRange range = job.plan();
+        int created = 0;
+        if (range != null) {
+            long size = Math.max(1, job.shardSize());
+            for (long start = range.from(); start < range.to(); start += size) {
+                long end = Math.min(range.to(), start + size);
+                if (shardRepo.insertFenced(name, owner, token, start, end) == 0) {
+                    // Bail perdu entre-temps : le nouveau leader replanifiera
+                    return created;
+                }
+                created++;
+            }
+        }
+        leaseRepo.markPlanned(name, owner, token);
+        counter("jobs.runs.planned", name).increment();
+        return created;
+    }
+
+    Optional<Claim> claimNext(ShardedJob job) {
+        String name = job.name();
+        Long run = leaseRepo.findById(name).map(JobLeaseJpaEntity::getCurrentRun).orElse(null);
+        if (run == null) {
+            return Optional.empty();
+        }
+        // Identifiant unique par réclamation : permet de relire la part obtenue par UPDATE ... LIMIT 1
+        String worker = leases.getInstanceId() + "/" + claimSeq.incrementAndGet();
+        if (shardRepo.claimNext(name, run, worker, claimMs) == 0) {
+            return Optional.empty();
+        }
+        return shardRepo.findFirstByJobNameAndOwnerAndStatus(name, worker, JobShardJpaEntity.RUNNING)
+                .map(s -> new Claim(s, worker));
+    }
+
+    void runShard(ShardedJob job, Claim claim) {
+        JobShardJpaEntity shard = claim.shard();
+        Context ctx = new Context(job.name(), shard, claim.worker());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        try {
+            long delta = job.process(ctx);
+            outcome = shardRepo.complete(shard.getId(), claim.worker(), shard.getClaimToken(), delta) == 1 ? "done" : "lost";
+            if ("done".equals(outcome)) {
+                processed(job.name()).increment(delta);
+            }
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            shardRepo.fail(shard.getId(), claim.worker(), shard.getClaimToken(), 0,
+                    error.length() > 500 ? error.substring(0, 500) : error, maxAttempts);
+            log.warn("Part {} de la tâche {} en échec : {}", shard.getId(), job.name(), error);
+            outcome = "failed";
+        }
+        sample.stop(Timer.builder("jobs.shard.duration").tag("job", job.name()).tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Avancement de chaque tâche : leader, parts par statut, éléments traités et débit de l'exécution courante.
+     */
+    public List<JobProgress> progress() {
+        List<JobProgress> result = new ArrayList<>();
+        for (String name : jobs.keySet()) {
+            JobLeaseJpaEntity lease = leaseRepo.findById(name).orElse(null);
+            if (lease == null) {
+                result.add(new JobProgress(name, null, 0, null, null, null, 0, 0, 0, 0, 0, 0.0, false));
+                continue;
+            }
+            long pending = 0, running = 0, done = 0, failed = 0, items = 0;
+            if (lease.getCurrentRun() != null) {
+                for (Object[] row : shardRepo.summarize(name, lease.getCurrentRun())) {
+                    long count = ((Number) row[1]).longValue();
+                    items += ((Number) row[2]).longValue();
+                    switch ((String) row[0]) {
+                        case JobShardJpaEntity.PENDING -> pending = count;
+                        case JobShardJpaEntity.RUNNING -> running = count;
+                        case JobShardJpaEntity.DONE -> done = count;
+                        case JobShardJpaEntity.FAILED -> failed = count;
+                        default -> { }
+                    }
+                }
+            }
+            double rate = 0.0;
+            if (lease.getLastPlannedAt() != null) {
+                long seconds = Duration.between(lease.getLastPlannedAt(), LocalDateTime.now()).toSeconds();
+                rate = seconds > 0 ? (double) items / seconds : 0.0;
+            }
+            result.add(new JobProgress(name, lease.getOwner(), lease.getFencingToken(), lease.getLeaseUntil(),
+                    lease.getCurrentRun(), lease.getLastPlannedAt(), pending, running, done, failed, items, rate,
+                    leases.isLeader(name)));
+        }
+        return result;
+    }
+
+    private Counter processed(String job) {
+        return counter("jobs.items.processed", job);
+    }
+
+    private Counter counter(String meter, String job) {
+        return Counter.builder(meter).tag("job", job).register(meterRegistry);
+    }
+
+    record Claim(JobShardJpaEntity shard, String worker) {}
+
+    /**
+     * @param itemsPerSecond débit moyen de l'exécution courante, tous réplicas confondus
+     */
+    public record JobProgress(String job, String leader, long fencingToken, LocalDateTime leaseUntil,
+                              Long run, LocalDateTime lastPlannedAt,
+                              long pendingShards, long runningShards, long doneShards, long failedShards,
+                              long processed, double itemsPerSecond, boolean leaderHere) {}
+
+    private final class Context implements ShardedJob.ShardContext {
+
+        private final String jobName;
+        private final JobShardJpaEntity shard;
+        private final String worker;
+
+        Context(String jobName, JobShardJpaEntity shard, String worker) {
+            this.jobName = jobName;
+            this.shard = shard;
+            this.worker = worker;
+        }
+
+        @Override
+        public long from() {
+            return shard.getRangeStart();
+        }
+
+        @Override
+        public long to() {
+            return shard.getRangeEnd();
+        }
+
+        @Override
+        public long cursor() {
+            return shard.getCursorPos();
+        }
+
+        @Override
+        public long claimToken() {
+            return shard.getClaimToken();
+        }
+
+        @Override
+        public boolean checkpoint(long cursor, long processedSinceLastCheckpoint) {
+            boolean held = shardRepo.checkpoint(shard.getId(), worker, shard.getClaimToken(), cursor,
+                    processedSinceLastCheckpoint, claimMs) == 1;
+            if (held) {
+                processed(jobName).increment(processedSinceLastCheckpoint);
+            }
+            return held;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.auth.jobs.service;
+
+import com.example.auth.jobs.entity.JobLeaseJpaEntity;
+import com.example.auth.jobs.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Élection d'un leader par tâche grâce à une ligne de bail en base (job_leases).
+ *
+ * Le bail est pris pour lease-ms et renouvelé au tiers de sa durée ; localement, il est considéré comme perdu
+ * un dixième avant son échéance (marge pour les pauses GC et la latence réseau). Les appels sont limités :
+ * un leader ne touche la base qu'au renouvellement, un non-leader qu'une fois par tiers de bail.
+ */
+@Service
+public class JobLeaseService {
+
+    private final JobLeaseRepository leaseRepo;
+    private final MeterRegistry meterRegistry;
+    private final long leaseMs;
+    private final String instanceId;
+    private final Map<String, Held> held = new ConcurrentHashMap<>();
+    private final Map<String, Long> nextAttempt = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> known = new ConcurrentHashMap<>();
+
+    public JobLeaseService(JobLeaseRepository leaseRepo,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.jobs.lease-ms:30000}") long leaseMs,
+                           @Value("${app.jobs.instance-id:}") String instanceId) {
+        if (leaseMs < 1000) {
+            throw new IllegalArgumentException("app.jobs.lease-ms doit être >= 1000");
+        }
+        this.leaseRepo = leaseRepo;
+        this.meterRegistry = meterRegistry;
+        this.leaseMs = leaseMs;
+        this.instanceId = instanceId == null || instanceId.isBlank() ? defaultInstanceId() : instanceId.trim();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Prend ou renouvelle le bail de la tâche. Retourne le jeton de fencing si ce réplica est leader.
+     */
+    public OptionalLong acquireOrRenew(String job) {
+        register(job);
+        long now = System.nanoTime();
+        Held h = held.get(job);
+        if (h != null) {
+            if (now - h.renewAfterNanos() < 0) {
+                return OptionalLong.of(h.token());
+            }
+            if (leaseRepo.renew(job, instanceId, h.token(), leaseMs) == 1) {
+                held.put(job, Held.of(h.token(), now, leaseMs));
+                return OptionalLong.of(h.token());
+            }
+            held.remove(job);
+        } else {
+            Long next = nextAttempt.get(job);
+            if (next != null && now - next < 0) {
+                return OptionalLong.empty();
+            }
+        }
+        if (leaseRepo.acquire(job, instanceId, leaseMs) == 1) {
+            long token = leaseRepo.findById(job).map(JobLeaseJpaEntity::getFencingToken)
+                    .orElseThrow(() -> new IllegalStateException("Bail introuvable : " + job));
+            held.put(job, Held.of(token, now, leaseMs));
+            nextAttempt.remove(job);
+            return OptionalLong.of(token);
+        }
+        nextAttempt.put(job, now + TimeUnit.MILLISECONDS.toNanos(leaseMs / 3));
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Vrai si ce réplica détient le bail et qu'il n'est pas proche de l'échéance (sans accès à la base).
+     */
+    public boolean isLeader(String job) {
+        Held h = held.get(job);
+        return h != null && System.nanoTime() - h.validUntilNanos() < 0;
+    }
+
+    /** Jeton de fencing détenu localement, s'il est encore valide. */
+    public OptionalLong currentToken(String job) {
+        Held h = held.get(job);
+        return h != null && isLeader(job) ? OptionalLong.of(h.token()) : OptionalLong.empty();
+    }
+
+    /** Libère le bail (arrêt propre) pour qu'un autre réplica le reprenne sans attendre l'expiration. */
+    public void release(String job) {
+        Held h = held.remove(job);
+        if (h != null) {
+            leaseRepo.release(job, instanceId, h.token());
+        }
+    }
+
+    private void register(String job) {
+        if (known.containsKey(job)) {
+            return;
+        }
+        leaseRepo.insertIfAbsent(job);
+        if (known.putIfAbsent(job, Boolean.TRUE) == null) {
+            Gauge.builder("jobs.leader", this, s -> s.isLeader(job) ? 1 : 0)
+                    .description("1 si ce réplica est leader de la tâche")
+                    .tag("job", job)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "instance";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record Held(long token, long renewAfterNanos, long validUntilNanos) {
+        static Held of(long token, long startNanos, long leaseMs) {
+            long lease = TimeUnit.MILLISECONDS.toNanos(leaseMs);
+            return new Held(token, startNanos + lease / 3, startNanos + lease - lease / 10);
+        }
+    }
+}
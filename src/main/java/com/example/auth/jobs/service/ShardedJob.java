@@ -0,0 +1,62 @@
+package com.example.auth.jobs.service;
+
+import java.time.Duration;
+
+/**
+ * Tâche de fond découpée en parts, exécutée une seule fois pour tout le cluster.
+ *
+ * Le leader (bail job_leases) appelle {@link #plan()} puis découpe la plage en parts de {@link #shardSize()} ids ;
+ * chaque réplica réclame ensuite des parts et appelle {@link #process(ShardContext)}.
+ */
+public interface ShardedJob {
+
+    /** Nom unique de la tâche (clé de job_leases, max 80 caractères). */
+    String name();
+
+    /** Intervalle entre deux exécutions planifiées ; null pour une exécution uniquement à la demande. */
+    default Duration interval() {
+        return null;
+    }
+
+    default long shardSize() {
+        return 10_000;
+    }
+
+    /** Appelé sur le leader : plage [from, to) à traiter, ou null s'il n'y a rien à faire. */
+    IdRange plan();
+
+    /**
+     * Traite les ids [shard.cursor(), shard.to()). Peut être appelé plusieurs fois pour la même part
+     * (reprise après panne) : le traitement doit être idempotent.
+     *
+     * @return nombre d'éléments traités depuis le dernier point de contrôle
+     */
+    long process(ShardContext shard) throws Exception;
+
+    record IdRange(long from, long to) {
+        public IdRange {
+            if (to < from) {
+                throw new IllegalArgumentException("Plage invalide : [" + from + ", " + to + ")");
+            }
+        }
+    }
+
+    interface ShardContext {
+
+        long from();
+
+        long to();
+
+        /** Position de reprise : from() ou le dernier point de contrôle enregistré. */
+        long cursor();
+
+        /** Jeton de réclamation de la part (fencing). */
+        long claimToken();
+
+        /**
+         * Enregistre l'avancement et prolonge la réclamation. Retourne false si la part a été perdue
+         * (réclamation expirée puis reprise par un autre réplica) : le traitement doit alors s'arrêter.
+         */
+        boolean checkpoint(long cursor, long processedSinceLastCheckpoint);
+    }
+}
@@ -9,11 +9,17 @@ import java.time.LocalDateTime;
     name = "signature_transactions",
     indexes = {
         @Index(name = "idx_orders_user_id", columnList = "user_id"),
-        @Index(name = "idx_sig_video_hash", columnList = "video_hash")
+        @Index(name = "idx_sig_video_hash", columnList = "video_hash"),
+        @Index(name = "idx_sig_active_expired", columnList = "is_active, expired_video")
     }
 )
 public class SignatureTransactionJpaEntity {
 
+    /** video_hash = SHA-256 du clair (envoi d'un seul bloc). */
+    public static final String HASH_KIND_SHA256 = "sha256";
+    /** video_hash = racine des segments (envoi par segments, voir SealedSegments). */
+    public static final String HASH_KIND_MERKLE = "merkle";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -33,6 +39,10 @@ public class SignatureTransactionJpaEntity {
     @Column(name = "video_hash", nullable = false, columnDefinition = "text")
     private String videoHash;
 
+    // Nature de l'empreinte signée (video_hash) : les deux ne sont pas comparables entre elles
+    @Column(name = "video_hash_kind", nullable = false, length = 16)
+    private String videoHashKind = HASH_KIND_SHA256;
+
     @Column(name = "path_video", nullable = false, columnDefinition = "text")
     private String pathVideo;
 
@@ -54,6 +64,17 @@ public class SignatureTransactionJpaEntity {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Empreinte du fichier chiffré (IV || ciphertext || tag) : contrôle d'intégrité sans appel à Vault
+    @Column(name = "ciphertext_size")
+    private Long ciphertextSize;
+
+    @Column(name = "ciphertext_sha256", length = 64)
+    private String ciphertextSha256;
+
+    // Blob dédupliqué (video_blobs) partagé avec d'autres ordres ; null une fois la référence libérée
+    @Column(name = "blob_id")
+    private Long blobId;
+
     /* ==========================
        Lifecycle hooks
        ========================== */
@@ -116,6 +137,14 @@ public class SignatureTransactionJpaEntity {
         this.videoHash = videoHash;
     }
 
+    public String getVideoHashKind() {
+        return videoHashKind;
+    }
+
+    public void setVideoHashKind(String videoHashKind) {
+        this.videoHashKind = videoHashKind;
+    }
+
     public String getPathVideo() {
         return pathVideo;
     }
@@ -171,4 +200,28 @@ public class SignatureTransactionJpaEntity {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getCiphertextSize() {
+        return ciphertextSize;
+    }
+
+    public void setCiphertextSize(Long ciphertextSize) {
+        this.ciphertextSize = ciphertextSize;
+    }
+
+    public String getCiphertextSha256() {
+        return ciphertextSha256;
+    }
+
+    public void setCiphertextSha256(String ciphertextSha256) {
+        this.ciphertextSha256 = ciphertextSha256;
+    }
+
+    public Long getBlobId() {
+        return blobId;
+    }
+
+    public void setBlobId(Long blobId) {
+        this.blobId = blobId;
+    }
 }
@@ -2,12 +2,74 @@ package com.example.auth.login.ports;
 
 import com.example.auth.login.entity.SignatureTransactionJpaEntity;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface SpringDataSignatureTransactionRepository extends JpaRepository<SignatureTransactionJpaEntity, Integer> {
 
     /** Ordres reçus par l'utilisateur (transaction_send_to = nom du destinataire). */
     List<SignatureTransactionJpaEntity> findByTransactionSendToOrderByCreatedAtDesc(String transactionSendTo);
+
+    /** Parcours par clé (keyset) : page suivante d'ordres d'id strictement supérieur à afterId. */
+    List<SignatureTransactionJpaEntity> findByIdGreaterThanOrderByIdAsc(Integer afterId, Pageable pageable);
+
+    /** Ordres d'id dans [fromId, toId), par pages : parcours d'une part de tâche répartie. */
+    List<SignatureTransactionJpaEntity> findByIdGreaterThanEqualAndIdLessThanOrderByIdAsc(Integer fromId, Integer toId, Pageable pageable);
+
+    /** Ordres actifs d'id dans [fromId, toId), par pages. */
+    List<SignatureTransactionJpaEntity> findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(
+            Integer fromId, Integer toId, Pageable pageable);
+
+    Optional<SignatureTransactionJpaEntity> findTopByOrderByIdDesc();
+
+    /** Ordres envoyés par l'utilisateur, par pages (keyset sur id). */
+    List<SignatureTransactionJpaEntity> findByUserIdAndIdGreaterThanOrderByIdAsc(Integer userId, Integer afterId, Pageable pageable);
+
+    /** Ordres actifs expirant avant la date donnée, par pages (keyset sur id). */
+    List<SignatureTransactionJpaEntity> findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(
+            LocalDateTime before, Integer afterId, Pageable pageable);
+
+    /** Désactive un lot d'ordres en une seule requête (is_active = false). */
+    @Transactional
+    @Modifying
+    @Query("update SignatureTransactionJpaEntity s set s.active = false where s.id in :ids")
+    int deactivateByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Parmi les identifiants donnés, ceux référencés par un ordre (requête IN par lot).
+     * Suppose l'index idx_sig_path_video (préfixe de path_video).
+     */
+    @Query("select s.pathVideo from SignatureTransactionJpaEntity s where s.pathVideo in :ids")
+    List<String> findExistingPathVideos(@Param("ids") Collection<String> ids);
+
+    /** Parmi les identifiants donnés, ceux encore référencés par au moins un ordre actif. */
+    @Query("select distinct s.pathVideo from SignatureTransactionJpaEntity s where s.active = true and s.pathVideo in :ids")
+    List<String> findActivePathVideos(@Param("ids") Collection<String> ids);
+
+    /** Vrai s'il reste des path_video au format chemin absolu (avant migration). */
+    boolean existsByPathVideoContaining(String fragment);
+
+    /**
+     * Détache l'ordre de son blob dédupliqué. Retourne 1 une seule fois par ordre :
+     * la référence n'est donc décomptée qu'une fois même si la purge est relancée.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SignatureTransactionJpaEntity s set s.blobId = null where s.id = :id and s.blobId = :blobId")
+    int detachBlob(@Param("id") Integer id, @Param("blobId") Long blobId);
+
+    /** Met à jour uniquement path_video (sans réécrire le reste de la ligne). */
+    @Transactional
+    @Modifying
+    @Query("update SignatureTransactionJpaEntity s set s.pathVideo = :pathVideo where s.id = :id")
+    int updatePathVideo(@Param("id") Integer id, @Param("pathVideo") String pathVideo);
 }
@@ -1,8 +1,14 @@
 package com.example.auth.order;
 
 import com.example.auth.audit.service.AuditLogService;
+import com.example.auth.config.UploadBudget;
 import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
 import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.order.async.OrderJob;
+import com.example.auth.order.async.OrderJobController;
+import com.example.auth.order.async.OrderJobService;
+import com.example.auth.order.idempotency.IdempotencyService;
+import com.example.auth.order.purge.VideoPurgeService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -12,6 +18,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -23,15 +31,25 @@ public class OrderController {
     private final OrderService orderService;
     private final SpringDataUsersRepository userRepo;
     private final AuditLogService auditLogService;
+    private final VideoPurgeService videoPurgeService;
+    private final OrderJobService jobService;
+    private final IdempotencyService idempotency;
 
-    public OrderController(OrderService orderService, SpringDataUsersRepository userRepo, AuditLogService auditLogService) {
+    public OrderController(OrderService orderService, SpringDataUsersRepository userRepo, AuditLogService auditLogService,
+                           VideoPurgeService videoPurgeService, OrderJobService jobService, IdempotencyService idempotency) {
         this.orderService = orderService;
         this.userRepo = userRepo;
         this.auditLogService = auditLogService;
+        this.videoPurgeService = videoPurgeService;
+        this.jobService = jobService;
+        this.idempotency = idempotency;
     }
 
     /**
      * POST /api/orders (multipart) : transaction_send_to, montant, video_name, video (fichier).
+     * Sans fichier, video_hash (SHA-256) désigne une vidéo déjà envoyée par l'utilisateur (voir GET /videos/{hash}).
+     * Avec async=true : 202 et id du traitement, suivi par GET /api/orders/jobs/{jobId}.
+     * Avec l'en-tête Idempotency-Key, une reprise de la même requête rejoue la première réponse.
      */
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> create(
@@ -39,16 +57,31 @@ public class OrderController {
             @RequestParam("transaction_send_to") String transactionSendTo,
             @RequestParam("montant") String montantStr,
             @RequestParam("video_name") String videoName,
-            @RequestParam("video") MultipartFile video,
+            @RequestParam(value = "video", required = false) MultipartFile video,
+            @RequestParam(value = "video_hash", required = false) String videoHash,
+            @RequestParam(value = "async", defaultValue = "false") boolean async,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             HttpServletRequest request) {
 
+        if (idempotencyKey == null) {
+            return doCreate(userId, transactionSendTo, montantStr, videoName, video, videoHash, async, request);
+        }
+        String fingerprint = IdempotencyService.fingerprint("create", transactionSendTo, montantStr, videoName,
+                describe(video), videoHash, String.valueOf(async));
+        return idempotency.execute(userId, idempotencyKey, fingerprint,
+                () -> doCreate(userId, transactionSendTo, montantStr, videoName, video, videoHash, async, request));
+    }
+
+    private ResponseEntity<?> doCreate(Integer userId, String transactionSendTo, String montantStr, String videoName,
+                                       MultipartFile video, String videoHash, boolean async, HttpServletRequest request) {
         if (transactionSendTo == null || transactionSendTo.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "transaction_send_to requis"));
         }
         if (videoName == null || videoName.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "video_name requis"));
         }
-        if (video == null || video.isEmpty()) {
+        boolean withFile = video != null && !video.isEmpty();
+        if (!withFile && (videoHash == null || videoHash.isBlank())) {
             return ResponseEntity.badRequest().body(Map.of("error", "Fichier vidéo requis"));
         }
 
@@ -59,8 +92,14 @@ public class OrderController {
             return ResponseEntity.badRequest().body(Map.of("error", "Montant invalide"));
         }
 
+        if (async) {
+            return createAsync(userId, transactionSendTo.trim(), montant, videoName.trim(), withFile ? video : null, videoHash, request);
+        }
+
         try {
-            OrderService.CreateOrderResult r = orderService.createOrder(userId, transactionSendTo.trim(), montant, videoName.trim(), video);
+            OrderService.CreateOrderResult r = withFile
+                    ? orderService.createOrder(userId, transactionSendTo.trim(), montant, videoName.trim(), video)
+                    : orderService.createOrderFromExisting(userId, transactionSendTo.trim(), montant, videoName.trim(), videoHash);
             
             // Log de l'action
             String actorName = userRepo.findById(userId).map(u -> u.getName() != null ? u.getName() : "").orElse("");
@@ -83,6 +122,123 @@ public class OrderController {
         }
     }
 
+    /**
+     * Création asynchrone : le fichier est lu pendant la requête (le multipart est supprimé ensuite) et la
+     * réservation du budget d'upload est gardée jusqu'à la fin du traitement.
+     */
+    private ResponseEntity<?> createAsync(Integer userId, String transactionSendTo, BigDecimal montant, String videoName,
+                                          MultipartFile video, String videoHash, HttpServletRequest request) {
+        UploadBudget.Reservation reservation = null;
+        try {
+            byte[] videoBytes = video != null ? video.getBytes() : null;
+            reservation = UploadBudget.takeOver(request);
+            UploadBudget.Reservation held = reservation;
+            OrderJob job = jobService.submit(userId, OrderJob.Kind.CREATE, j -> {
+                try (held) {
+                    OrderService.CreateOrdersResult r = videoBytes != null
+                            ? orderService.createOrders(userId, List.of(transactionSendTo), montant, videoName, videoBytes)
+                            : orderService.createOrdersFromExisting(userId, List.of(transactionSendTo), montant, videoName, videoHash);
+                    String actorName = userRepo.findById(userId).map(u -> u.getName() != null ? u.getName() : "").orElse("");
+                    String message = String.format("%s a créé un ordre pour %s (montant: $%s, vidéo: %s)",
+                            actorName.isEmpty() ? "Utilisateur #" + userId : actorName, transactionSendTo, montant.toString(), videoName);
+                    auditLogService.logAction(userId, "TX_CREATED", "signature_transactions", r.ids().get(0), message,
+                            Map.of("job_id", j.getId()), null);
+                    return Map.of("id", r.ids().get(0), "steps", r.steps());
+                }
+            });
+            return OrderJobController.accepted(job);
+        } catch (IllegalStateException e) {
+            if (reservation != null) {
+                reservation.close();
+            }
+            return OrderJobController.busy(e.getMessage());
+        } catch (Exception e) {
+            if (reservation != null) {
+                reservation.close();
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    /**
+     * POST /api/orders/multi (multipart) : un ordre par destinataire pour une même vidéo.
+     * transaction_send_to répété (ou séparé par des virgules), montant, video_name, video ou video_hash.
+     * La vidéo est chiffrée et signée une seule fois ; tous les ordres partagent le même fichier chiffré.
+     * Accepte aussi l'en-tête Idempotency-Key.
+     */
+    @PostMapping(value = "/multi", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> createMulti(
+            @RequestAttribute("userId") Integer userId,
+            @RequestParam("transaction_send_to") List<String> recipients,
+            @RequestParam("montant") String montantStr,
+            @RequestParam("video_name") String videoName,
+            @RequestParam(value = "video", required = false) MultipartFile video,
+            @RequestParam(value = "video_hash", required = false) String videoHash,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest request) {
+
+        if (idempotencyKey == null) {
+            return doCreateMulti(userId, recipients, montantStr, videoName, video, videoHash, request);
+        }
+        String fingerprint = IdempotencyService.fingerprint("multi", String.join("\n", recipients), montantStr, videoName,
+                describe(video), videoHash);
+        return idempotency.execute(userId, idempotencyKey, fingerprint,
+                () -> doCreateMulti(userId, recipients, montantStr, videoName, video, videoHash, request));
+    }
+
+    private ResponseEntity<?> doCreateMulti(Integer userId, List<String> recipients, String montantStr, String videoName,
+                                            MultipartFile video, String videoHash, HttpServletRequest request) {
+        if (videoName == null || videoName.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "video_name requis"));
+        }
+        boolean withFile = video != null && !video.isEmpty();
+        if (!withFile && (videoHash == null || videoHash.isBlank())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Fichier vidéo requis"));
+        }
+
+        BigDecimal montant;
+        try {
+            montant = new BigDecimal(montantStr.trim());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Montant invalide"));
+        }
+
+        try {
+            OrderService.CreateOrdersResult r = withFile
+                    ? orderService.createOrders(userId, recipients, montant, videoName.trim(), video)
+                    : orderService.createOrdersFromExisting(userId, recipients, montant, videoName.trim(), videoHash);
+
+            String actorName = userRepo.findById(userId).map(u -> u.getName() != null ? u.getName() : "").orElse("");
+            for (int i = 0; i < r.ids().size(); i++) {
+                String message = String.format("%s a créé un ordre pour %s (montant: $%s, vidéo: %s, envoi groupé)",
+                        actorName.isEmpty() ? "Utilisateur #" + userId : actorName,
+                        r.recipients().get(i),
+                        montant.toString(),
+                        videoName.trim());
+                auditLogService.logAction(userId, "TX_CREATED", "signature_transactions", r.ids().get(i), message, request);
+            }
+
+            return ResponseEntity.ok(Map.of("ids", r.ids(), "steps", r.steps()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        } catch (GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Erreur de chiffrement ou signature"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    /**
+     * GET /api/orders/videos/{hash} : l'utilisateur a-t-il déjà envoyé cette vidéo (SHA-256 du clair) ?
+     * Si oui, l'ordre peut être créé avec video_hash sans renvoyer le fichier.
+     */
+    @GetMapping("/videos/{hash}")
+    public ResponseEntity<?> hasVideo(@RequestAttribute("userId") Integer userId, @PathVariable("hash") String hash) {
+        return ResponseEntity.ok(Map.of("exists", orderService.hasVideo(userId, hash)));
+    }
+
     /**
      * GET /api/orders/received : ordres reçus par l'utilisateur connecté.
      */
@@ -94,11 +250,33 @@ public class OrderController {
     }
 
     /**
-     * POST /api/orders/:id/validate : scan, déchiffrement, vérification signature. Retourne videoBase64 ou erreur "Vidéo corrompue".
+     * POST /api/orders/:id/validate : scan, déchiffrement, vérification signature. Retourne videoBase64 et receipt
+     * (reçu de validation signé) ou erreur "Vidéo corrompue". Avec async=true : 202 et id du traitement
+     * (prioritaire sur les créations en attente) ; son résultat ne contient pas la vidéo mais le lien de sa lecture
+     * unique (GET /api/orders/jobs/{id}/video) : ni nouvelle validation, ni nouvelle entrée d'audit.
      */
     @PostMapping("/{id}/validate")
-    public ResponseEntity<?> validate(@RequestAttribute("userId") Integer userId, @PathVariable("id") Integer id, HttpServletRequest request) {
+    public ResponseEntity<?> validate(@RequestAttribute("userId") Integer userId, @PathVariable("id") Integer id,
+                                      @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                      HttpServletRequest request) {
         String currentUserName = userRepo.findById(userId).map(u -> u.getName() != null ? u.getName() : "").orElse("");
+        if (async) {
+            try {
+                OrderJob job = jobService.submit(userId, OrderJob.Kind.VALIDATE, j -> {
+                    OrderService.ValidateOrderResult r = orderService.validateOrder(id, currentUserName);
+                    String message = String.format("%s a validé l'ordre #%d (vidéo déchiffrée et signature vérifiée)",
+                            currentUserName.isEmpty() ? "Utilisateur #" + userId : currentUserName, id);
+                    auditLogService.logAction(userId, "TX_VALIDATED", "signature_transactions", id, message,
+                            Map.of("job_id", j.getId()), null);
+                    boolean kept = r.videoBase64() != null
+                            && jobService.retainVideo(j, Base64.getDecoder().decode(r.videoBase64()));
+                    return toValidateJobBody(id, r, kept ? "/api/orders/jobs/" + j.getId() + "/video" : null);
+                });
+                return OrderJobController.accepted(job);
+            } catch (IllegalStateException e) {
+                return OrderJobController.busy(e.getMessage());
+            }
+        }
         try {
             OrderService.ValidateOrderResult r = orderService.validateOrder(id, currentUserName);
             
@@ -107,7 +285,7 @@ public class OrderController {
                     currentUserName.isEmpty() ? "Utilisateur #" + userId : currentUserName, id);
             auditLogService.logAction(userId, "TX_VALIDATED", "signature_transactions", id, message, request);
             
-            return ResponseEntity.ok(Map.of("success", r.success(), "videoBase64", r.videoBase64()));
+            return ResponseEntity.ok(toValidateBody(r));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IllegalStateException e) {
@@ -117,11 +295,66 @@ public class OrderController {
         }
     }
 
+    /**
+     * DELETE /api/orders/:id : purge par l'expéditeur. Le DEK est détruit immédiatement (vidéo irrécupérable),
+     * le fichier chiffré est supprimé plus tard en arrière-plan.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> purge(@RequestAttribute("userId") Integer userId, @PathVariable("id") Integer id, HttpServletRequest request) {
+        try {
+            videoPurgeService.purgeOrder(id, userId);
+            String actorName = userRepo.findById(userId).map(u -> u.getName() != null ? u.getName() : "").orElse("");
+            String message = String.format("%s a supprimé l'ordre #%d (clé de la vidéo détruite)",
+                    actorName.isEmpty() ? "Utilisateur #" + userId : actorName, id);
+            auditLogService.logAction(userId, "TX_PURGED", "signature_transactions", id, message, request);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    /**
+     * Fichier dans l'empreinte d'idempotence : nom et taille (le contenu n'est pas relu, une reprise doit
+     * coûter une simple lecture de la clé).
+     */
+    private static String describe(MultipartFile video) {
+        return video != null && !video.isEmpty() ? video.getOriginalFilename() + ":" + video.getSize() : null;
+    }
+
+    private static Map<String, Object> toValidateBody(OrderService.ValidateOrderResult r) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", r.success());
+        body.put("videoBase64", r.videoBase64());
+        if (r.receipt() != null) {
+            body.put("receipt", r.receipt());
+        }
+        return body;
+    }
+
+    /**
+     * Résultat d'une validation asynchrone : statut, reçu et lien de lecture unique de la vidéo (enregistré dans
+     * order_jobs, jamais le clair). video vaut null si la vidéo n'a pas été gardée (budget mémoire atteint).
+     */
+    private static Map<String, Object> toValidateJobBody(Integer orderId, OrderService.ValidateOrderResult r,
+                                                         String videoLink) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", r.success());
+        body.put("orderId", orderId);
+        if (r.receipt() != null) {
+            body.put("receipt", r.receipt());
+        }
+        body.put("video", videoLink);
+        return body;
+    }
+
     private OrderReceivedDto toDto(SignatureTransactionJpaEntity e) {
         return new OrderReceivedDto(
                 e.getId(),
                 e.getVideoName(),
                 e.getVideoHash(),
+                e.getVideoHashKind(),
                 e.getPathVideo(),
                 e.getExpiredVideo() != null ? e.getExpiredVideo().toString() : null,
                 e.isActive(),
@@ -130,6 +363,7 @@ public class OrderController {
         );
     }
 
-    public record OrderReceivedDto(Integer id, String videoName, String videoHash, String pathVideo,
+    /** videoHashKind : "sha256" (SHA-256 du clair) ou "merkle" (racine d'un envoi par segments). */
+    public record OrderReceivedDto(Integer id, String videoName, String videoHash, String videoHashKind, String pathVideo,
                                    String expiredVideo, boolean active, String signedAt, String createdAt) {}
 }
@@ -5,6 +5,17 @@ import com.example.auth.inscription.ports.out.UserKeyVaultPort;
 import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
 import com.example.auth.login.entity.SignatureTransactionJpaEntity;
 import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.cache.DecryptedVideoCache;
+import com.example.auth.order.dedup.VideoBlobJpaEntity;
+import com.example.auth.order.dedup.VideoBlobService;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import com.example.auth.order.receipt.ValidationReceiptJpaEntity;
+import com.example.auth.order.receipt.ValidationReceiptService;
+import com.example.auth.order.storage.VideoStore;
+import com.example.auth.order.upload.SealedSegments;
+import com.example.auth.profiling.VideoCryptoEvent;
+import com.example.auth.profiling.VideoHashEvent;
+import com.example.auth.profiling.VideoStorageEvent;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -16,15 +27,16 @@ import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class OrderService {
@@ -32,103 +44,355 @@ public class OrderService {
     private static final int GCM_TAG_LENGTH = 128;
     private static final int GCM_IV_LENGTH = 12;
     private static final int DEK_LENGTH = 32;
+    private static final int REGISTER_ATTEMPTS = 3;
+    private static final String FLOW_CREATE = "create";
+    private static final String FLOW_VALIDATE = "validate";
 
     private final SpringDataSignatureTransactionRepository sigRepo;
     private final SpringDataUsersRepository userRepo;
     private final UserKeyVaultPort vaultPort;
+    private final VideoStore videoStore;
+    private final VideoBlobService blobService;
+    private final VideoKeyHierarchy keyHierarchy;
+    private final OrderStageExecutor stages;
+    private final ValidationReceiptService receipts;
+    private final DecryptedVideoCache plainCache;
 
-    @Value("${app.video.storage-path:./data/videos}")
-    private String storagePath;
-
-    @Value("${app.vault.video-dek-key:video-dek}")
-    private String videoDekKeyName;
+    @Value("${app.orders.max-recipients:50}")
+    private int maxRecipients = 50;
 
     public OrderService(SpringDataSignatureTransactionRepository sigRepo,
                         SpringDataUsersRepository userRepo,
-                        UserKeyVaultPort vaultPort) {
+                        UserKeyVaultPort vaultPort,
+                        VideoStore videoStore,
+                        VideoBlobService blobService,
+                        VideoKeyHierarchy keyHierarchy,
+                        OrderStageExecutor stages,
+                        ValidationReceiptService receipts,
+                        DecryptedVideoCache plainCache) {
         this.sigRepo = sigRepo;
         this.userRepo = userRepo;
         this.vaultPort = vaultPort;
+        this.videoStore = videoStore;
+        this.blobService = blobService;
+        this.keyHierarchy = keyHierarchy;
+        this.stages = stages;
+        this.receipts = receipts;
+        this.plainCache = plainCache;
     }
 
     /**
-     * Crée un ordre : chiffre la vidéo, signe le hash, enregistre sur disque et en BDD.
+     * Crée un ordre : chiffre la vidéo, signe le hash, enregistre dans le store vidéo et en BDD.
+     * Si l'expéditeur a déjà envoyé la même vidéo, le fichier chiffré existant est réutilisé.
      * Refuse si l'utilisateur est admin.
      */
     public CreateOrderResult createOrder(Integer userId, String transactionSendTo, BigDecimal montant,
                                          String videoName, MultipartFile video) throws IOException, GeneralSecurityException {
-        UsersJpaEntity user = userRepo.findById(userId)
-                .orElseThrow(() -> new IllegalStateException("Utilisateur introuvable"));
-        if (user.isAdmin()) {
-            throw new IllegalArgumentException("Un administrateur ne peut pas créer d'ordre de transaction.");
-        }
-        String vaultKey = user.getVaultKey();
-        String publicKey = user.getPublicKey();
-        if (vaultKey == null || vaultKey.isBlank() || publicKey == null || publicKey.isBlank()) {
-            throw new IllegalStateException("Clés Vault manquantes pour cet utilisateur (vault_key, public_key).");
-        }
+        return createOrders(userId, List.of(transactionSendTo), montant, videoName, video).first();
+    }
 
-        byte[] videoBytes = video.getBytes();
-        if (videoBytes.length == 0) {
+    /**
+     * Crée un ordre par destinataire pour une même vidéo : un seul chiffrement, un seul DEK chiffré par Vault
+     * et une seule signature, partagés par toutes les lignes (blob référencé une fois par ordre).
+     */
+    public CreateOrdersResult createOrders(Integer userId, List<String> recipients, BigDecimal montant,
+                                           String videoName, MultipartFile video) throws IOException, GeneralSecurityException {
+        return createOrders(userId, recipients, montant, videoName, video.getBytes());
+    }
+
+    /**
+     * Variante de {@link #createOrders} à partir du contenu déjà lu (traitements asynchrones : le fichier
+     * multipart n'existe plus une fois la requête terminée).
+     */
+    public CreateOrdersResult createOrders(Integer userId, List<String> recipients, BigDecimal montant,
+                                           String videoName, byte[] videoBytes) throws IOException, GeneralSecurityException {
+        return stages.flow(FLOW_CREATE, () -> doCreateOrders(userId, recipients, montant, videoName, videoBytes));
+    }
+
+    /*
+     * Graphe des étapes : hash -> { signature (Vault), recherche du blob (BDD) } ;
+     * chiffrement AES-GCM -> { écriture du .enc, empreinte du .enc } en parallèle du chiffrement du DEK (Vault/KEK)
+     * -> écriture du .dek ; l'enregistrement des ordres attend la signature.
+     */
+    private CreateOrdersResult doCreateOrders(Integer userId, List<String> recipients, BigDecimal montant,
+                                              String videoName, byte[] videoBytes) throws IOException, GeneralSecurityException {
+        UsersJpaEntity user = requireSender(userId);
+        List<String> sendTo = normalizeRecipients(recipients);
+
+        if (videoBytes == null || videoBytes.length == 0) {
             throw new IllegalArgumentException("Fichier vidéo vide.");
         }
 
         // 1) Hash SHA-256 de la vidéo (avant chiffrement)
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] hash = md.digest(videoBytes);
+        byte[] hash = stages.run(FLOW_CREATE, "hash", () -> {
+            VideoHashEvent event = VideoHashEvent.begin(FLOW_CREATE, "plain", 0, videoBytes.length);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(videoBytes);
+            event.commit();
+            return digest;
+        });
         String videoHash = bytesToHex(hash);
+        stages.bytes(FLOW_CREATE, "hash", videoBytes.length);
+        stages.tag("video.size", videoBytes.length);
+        stages.tag("order.recipients", sendTo.size());
+
+        // Signature du hash avec la clé privée de l'utilisateur (Vault Transit), indépendante du chiffrement
         String hashBase64 = Base64.getEncoder().encodeToString(hash);
+        CompletableFuture<String> signature = stages.supply(FLOW_CREATE, "sign",
+                () -> vaultPort.sign(user.getVaultKey(), hashBase64));
+
+        // Même vidéo déjà envoyée par cet utilisateur : nouveaux ordres et signature, sans rechiffrement
+        Optional<VideoBlobJpaEntity> existing = stages.run(FLOW_CREATE, "dedup_lookup",
+                () -> blobService.acquire(userId, videoHash, sendTo.size()));
+        if (existing.isPresent()) {
+            return saveOrders(user, sendTo, montant, videoName, videoHash, SignatureTransactionJpaEntity.HASH_KIND_SHA256,
+                    existing.get(), signature, List.of("Vidéo déjà chiffrée (réutilisée)", "Vidéo signée RSA"));
+        }
 
-        // 2) Chiffrement : DEK + AES-GCM, puis chiffrement du DEK par Vault
+        // 2) Chiffrement : DEK + AES-GCM ; le DEK est chiffré (Vault ou KEK de la période) pendant ce temps
         SecureRandom rng = new SecureRandom();
         byte[] dek = new byte[DEK_LENGTH];
         rng.nextBytes(dek);
         byte[] iv = new byte[GCM_IV_LENGTH];
         rng.nextBytes(iv);
+        CompletableFuture<String> wrappedDek = stages.supply(FLOW_CREATE, "wrap_dek", () -> keyHierarchy.wrapDek(dek));
+        String baseName = userId + "_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().replace("-", "");
+        String encObjectId = baseName + ".enc";
+
+        byte[] toWrite = stages.run(FLOW_CREATE, "encrypt", () -> {
+            VideoCryptoEvent event = VideoCryptoEvent.begin("encrypt", encObjectId, 0, videoBytes.length);
+            SecretKey key = new SecretKeySpec(dek, "AES");
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            byte[] encrypted = cipher.doFinal(videoBytes);
+            // Fichier : IV (12) || ciphertext (inclut le tag)
+            byte[] out = new byte[iv.length + encrypted.length];
+            System.arraycopy(iv, 0, out, 0, iv.length);
+            System.arraycopy(encrypted, 0, out, iv.length, encrypted.length);
+            event.commit();
+            return out;
+        });
+
+        // 3) Sauvegarde dans le store vidéo (path_video = identifiant logique de l'objet)
+        CompletableFuture<Void> encWritten = stages.supply(FLOW_CREATE, "write_enc", () -> {
+            VideoStorageEvent event = VideoStorageEvent.begin("write", encObjectId, 0);
+            videoStore.put(encObjectId, toWrite);
+            event.bytes = toWrite.length;
+            event.commit();
+            return null;
+        });
+        String ciphertextSha256 = stages.run(FLOW_CREATE, "ciphertext_sha",
+                () -> ciphertextSha256(FLOW_CREATE, 0, toWrite));
+        String encryptedDek = OrderStageExecutor.await(wrappedDek);
+        stages.run(FLOW_CREATE, "write_dek", () -> {
+            videoStore.put(VideoStore.dekIdOf(encObjectId), encryptedDek.getBytes(StandardCharsets.UTF_8));
+            return null;
+        });
+        OrderStageExecutor.await(encWritten);
+        stages.bytes(FLOW_CREATE, "write_enc", toWrite.length);
+
+        VideoBlobJpaEntity blob = registerOrJoin(userId, videoHash, encObjectId, toWrite.length,
+                ciphertextSha256, sendTo.size());
+        return saveOrders(user, sendTo, montant, videoName, videoHash, SignatureTransactionJpaEntity.HASH_KIND_SHA256, blob,
+                signature, List.of("Vidéo chiffrée", "Vidéo signée RSA"));
+    }
 
-        SecretKey key = new SecretKeySpec(dek, "AES");
-        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
-        byte[] encrypted = cipher.doFinal(videoBytes);
-        // Fichier : IV (12) || ciphertext (inclut le tag)
-        byte[] toWrite = new byte[iv.length + encrypted.length];
-        System.arraycopy(iv, 0, toWrite, 0, iv.length);
-        System.arraycopy(encrypted, 0, toWrite, iv.length, encrypted.length);
+    /**
+     * Crée un ordre sans envoi de fichier, à partir d'une vidéo déjà envoyée par l'utilisateur
+     * (identifiée par son SHA-256). Lève si l'utilisateur n'a pas de vidéo de ce contenu.
+     */
+    public CreateOrderResult createOrderFromExisting(Integer userId, String transactionSendTo, BigDecimal montant,
+                                                     String videoName, String videoHash) throws IOException, GeneralSecurityException {
+        return createOrdersFromExisting(userId, List.of(transactionSendTo), montant, videoName, videoHash).first();
+    }
 
-        String encryptedDek = vaultPort.encryptDek(videoDekKeyName, dek);
+    /**
+     * Variante multi-destinataires de {@link #createOrderFromExisting}.
+     */
+    public CreateOrdersResult createOrdersFromExisting(Integer userId, List<String> recipients, BigDecimal montant,
+                                                       String videoName, String videoHash) throws IOException, GeneralSecurityException {
+        UsersJpaEntity user = requireSender(userId);
+        List<String> sendTo = normalizeRecipients(recipients);
+        String hash = videoHash != null ? videoHash.trim().toLowerCase() : "";
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("video_hash invalide (SHA-256 hexadécimal attendu).");
+        }
+        VideoBlobJpaEntity blob = blobService.acquire(userId, hash, sendTo.size())
+                .orElseThrow(() -> new IllegalArgumentException("Vidéo inconnue : envoyer le fichier."));
+        String hashBase64 = Base64.getEncoder().encodeToString(hexToBytes(hash));
+        CompletableFuture<String> signature = stages.supply(FLOW_CREATE, "sign",
+                () -> vaultPort.sign(user.getVaultKey(), hashBase64));
+        return saveOrders(user, sendTo, montant, videoName, hash, SignatureTransactionJpaEntity.HASH_KIND_SHA256, blob,
+                signature, List.of("Vidéo déjà chiffrée (réutilisée)", "Vidéo signée RSA"));
+    }
 
-        // 3) Signature du hash avec la clé privée de l'utilisateur (Vault Transit)
-        String signature = vaultPort.sign(vaultKey, hashBase64);
+    /**
+     * Contrôles préalables à un envoi (expéditeur autorisé, destinataires). Retourne les destinataires normalisés.
+     */
+    public List<String> requireSendable(Integer userId, List<String> recipients) {
+        requireSender(userId);
+        return normalizeRecipients(recipients);
+    }
 
-        // 4) Sauvegarde sur disque
-        Path root = Paths.get(storagePath).toAbsolutePath();
-        Files.createDirectories(root);
-        String baseName = userId + "_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().replace("-", "");
-        String encFileName = baseName + ".enc";
-        Path encPath = root.resolve(encFileName);
-        Path dekPath = root.resolve(encFileName + ".dek");
-        Files.write(encPath, toWrite);
-        Files.writeString(dekPath, encryptedDek);
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expired = now.plusHours(2);
-
-        SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
-        e.setUserId(userId);
-        e.setTransactionSendTo(transactionSendTo);
-        e.setVideoName(videoName);
-        e.setMontantTransaction(montant);
-        e.setVideoHash(videoHash);
-        e.setPathVideo(encPath.toString());
-        e.setExpiredVideo(expired);
-        e.setActive(true);
-        e.setPublicKey(publicKey);
-        e.setSignature(signature);
-        e.setSignedAt(now);
-        e.setCreatedAt(now);
-        sigRepo.save(e);
-
-        return new CreateOrderResult(e.getId(), List.of("Vidéo chiffrée", "Vidéo signée RSA"));
+    /**
+     * Crée les ordres d'une vidéo envoyée par segments, déjà chiffrée et écrite dans le store
+     * ({@link SealedSegments}) : signature de la racine puis enregistrement des lignes.
+     * Pas de déduplication : la racine couvre l'en-tête, dont le préfixe de nonce est tiré au hasard à chaque
+     * envoi, et le fichier existant ne pourrait de toute façon pas porter la signature d'une autre racine.
+     * Le blob enregistré ne sert qu'au partage du .enc entre les destinataires de cet envoi.
+     */
+    public CreateOrdersResult createOrdersFromSealed(Integer userId, List<String> recipients, BigDecimal montant,
+                                                     String videoName, byte[] root, String encObjectId,
+                                                     long ciphertextSize, String ciphertextSha256)
+            throws IOException, GeneralSecurityException {
+        return stages.flow(FLOW_CREATE, () -> doCreateOrdersFromSealed(userId, recipients, montant, videoName, root,
+                encObjectId, ciphertextSize, ciphertextSha256));
+    }
+
+    private CreateOrdersResult doCreateOrdersFromSealed(Integer userId, List<String> recipients, BigDecimal montant,
+                                                        String videoName, byte[] root, String encObjectId,
+                                                        long ciphertextSize, String ciphertextSha256)
+            throws IOException, GeneralSecurityException {
+        UsersJpaEntity user = requireSender(userId);
+        List<String> sendTo = normalizeRecipients(recipients);
+        // La racine n'est pas un SHA-256 du clair : signalée par video_hash_kind, et clé de blob à part
+        String videoHash = bytesToHex(root);
+        String blobKey = VideoBlobService.merkleKey(videoHash);
+        stages.tag("video.ciphertext_size", ciphertextSize);
+        String rootBase64 = Base64.getEncoder().encodeToString(root);
+        CompletableFuture<String> signature = stages.supply(FLOW_CREATE, "sign",
+                () -> vaultPort.sign(user.getVaultKey(), rootBase64));
+
+        VideoBlobJpaEntity blob = blobService.register(userId, blobKey, encObjectId, ciphertextSize,
+                ciphertextSha256, sendTo.size());
+        if (blob == null) {
+            // Même racine, donc même préfixe de nonce : uniquement un envoi rejoué
+            deleteObjects(encObjectId);
+            throw new IllegalStateException("Vidéo déjà enregistrée pour cet envoi.");
+        }
+        return saveOrders(user, sendTo, montant, videoName, videoHash, SignatureTransactionJpaEntity.HASH_KIND_MERKLE,
+                blob, signature, List.of("Vidéo chiffrée (segments)", "Vidéo signée RSA"));
+    }
+
+    /**
+     * Enregistre le blob des objets qui viennent d'être écrits, avec une référence par destinataire.
+     * Si un envoi concurrent du même contenu l'a enregistré entre-temps, ses références sont prises et les objets
+     * écrits ici supprimés : des ordres sans blob partageraient sinon un .enc dont la purge de l'un
+     * détruirait le DEK de tous les autres.
+     */
+    private VideoBlobJpaEntity registerOrJoin(Integer userId, String contentHash, String encObjectId,
+                                              long ciphertextSize, String ciphertextSha256, int refs)
+            throws IOException {
+        for (int attempt = 0; attempt < REGISTER_ATTEMPTS; attempt++) {
+            VideoBlobJpaEntity blob = blobService.register(userId, contentHash, encObjectId, ciphertextSize,
+                    ciphertextSha256, refs);
+            if (blob != null) {
+                return blob;
+            }
+            // Blob concurrent déjà libéré (ref_count à 0, en cours de suppression) : nouvel essai d'enregistrement
+            Optional<VideoBlobJpaEntity> winner = blobService.acquire(userId, contentHash, refs);
+            if (winner.isPresent()) {
+                deleteObjects(encObjectId);
+                return winner.get();
+            }
+        }
+        deleteObjects(encObjectId);
+        throw new IllegalStateException("Envoi concurrent de la même vidéo : réessayer.");
+    }
+
+    private void deleteObjects(String encObjectId) throws IOException {
+        videoStore.delete(VideoStore.dekIdOf(encObjectId));
+        videoStore.delete(encObjectId);
+    }
+
+    /** Vrai si l'utilisateur a déjà envoyé une vidéo de ce SHA-256 : l'envoi du fichier peut être évité. */
+    public boolean hasVideo(Integer userId, String videoHash) {
+        return blobService.exists(userId, videoHash);
+    }
+
+    private UsersJpaEntity requireSender(Integer userId) {
+        UsersJpaEntity user = userRepo.findById(userId)
+                .orElseThrow(() -> new IllegalStateException("Utilisateur introuvable"));
+        if (user.isAdmin()) {
+            throw new IllegalArgumentException("Un administrateur ne peut pas créer d'ordre de transaction.");
+        }
+        String vaultKey = user.getVaultKey();
+        String publicKey = user.getPublicKey();
+        if (vaultKey == null || vaultKey.isBlank() || publicKey == null || publicKey.isBlank()) {
+            throw new IllegalStateException("Clés Vault manquantes pour cet utilisateur (vault_key, public_key).");
+        }
+        return user;
+    }
+
+    /**
+     * Destinataires sans doublons (ordre conservé), non vides, au plus maxRecipients.
+     */
+    private List<String> normalizeRecipients(List<String> recipients) {
+        List<String> out = recipients == null ? List.of() : recipients.stream()
+                .filter(r -> r != null && !r.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
+        if (out.isEmpty()) {
+            throw new IllegalArgumentException("Au moins un destinataire requis.");
+        }
+        if (out.size() > maxRecipients) {
+            throw new IllegalArgumentException("Trop de destinataires (maximum " + maxRecipients + ").");
+        }
+        return out;
+    }
+
+    /**
+     * Enregistre un ordre par destinataire, avec la signature (unique) calculée en parallèle.
+     * L'appelant détient une référence sur le blob par destinataire ; si les ordres ne sont pas enregistrés,
+     * ces références sont rendues.
+     */
+    private CreateOrdersResult saveOrders(UsersJpaEntity user, List<String> recipients, BigDecimal montant,
+                                          String videoName, String videoHash, String videoHashKind,
+                                          VideoBlobJpaEntity blob, CompletableFuture<String> pendingSignature, List<String> steps)
+            throws IOException, GeneralSecurityException {
+        try {
+            String signature = OrderStageExecutor.await(pendingSignature);
+
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expired = now.plusHours(2);
+
+            List<SignatureTransactionJpaEntity> orders = new ArrayList<>(recipients.size());
+            for (String transactionSendTo : recipients) {
+                SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
+                e.setUserId(user.getId());
+                e.setTransactionSendTo(transactionSendTo);
+                e.setVideoName(videoName);
+                e.setMontantTransaction(montant);
+                e.setVideoHash(videoHash);
+                e.setVideoHashKind(videoHashKind);
+                e.setPathVideo(blob.getObjectId());
+                e.setExpiredVideo(expired);
+                e.setActive(true);
+                e.setPublicKey(user.getPublicKey());
+                e.setSignature(signature);
+                e.setSignedAt(now);
+                e.setCreatedAt(now);
+                e.setCiphertextSize(blob.getCiphertextSize());
+                e.setCiphertextSha256(blob.getCiphertextSha256());
+                e.setBlobId(blob.getId());
+                orders.add(e);
+            }
+            stages.run(FLOW_CREATE, "save_orders", () -> {
+                if (orders.size() == 1) {
+                    sigRepo.save(orders.get(0));
+                } else {
+                    sigRepo.saveAll(orders);
+                }
+                return null;
+            });
+
+            return new CreateOrdersResult(orders.stream().map(SignatureTransactionJpaEntity::getId).toList(), recipients, steps);
+        } catch (IOException | GeneralSecurityException | RuntimeException ex) {
+            if (blob.getId() != null) {
+                blobService.unref(blob.getId(), recipients.size());
+            }
+            throw ex;
+        }
     }
 
     /**
@@ -144,68 +408,176 @@ public class OrderService {
      * Valide un ordre : scan, déchiffrement, vérification de la signature. Retourne la vidéo en base64 ou lève en cas d'erreur.
      */
     public ValidateOrderResult validateOrder(Integer orderId, String currentUserName) throws IOException, GeneralSecurityException {
-        SignatureTransactionJpaEntity order = sigRepo.findById(orderId)
+        return stages.flow(FLOW_VALIDATE, () -> doValidateOrder(orderId, currentUserName));
+    }
+
+    /*
+     * Graphe des étapes : après les contrôles (et hors cache des vidéos déchiffrées), { lecture + déchiffrement du DEK (Vault/KEK), lecture du .enc,
+     * reçu de validation (BDD) } en parallèle ; si un reçu couvre l'ordre et que l'empreinte du .enc n'a pas changé,
+     * déchiffrement seul. Sinon : chargement de l'expéditeur (BDD) pendant le déchiffrement AES-GCM -> hash ->
+     * vérification (Vault) -> enregistrement du reçu.
+     */
+    private ValidateOrderResult doValidateOrder(Integer orderId, String currentUserName) throws IOException, GeneralSecurityException {
+        stages.tag("order.id", orderId);
+        SignatureTransactionJpaEntity order = stages.run(FLOW_VALIDATE, "load_order", () -> sigRepo.findById(orderId))
                 .orElseThrow(() -> new IllegalArgumentException("Ordre introuvable"));
         if (!currentUserName.trim().equals(order.getTransactionSendTo() != null ? order.getTransactionSendTo().trim() : "")) {
             throw new IllegalArgumentException("Cet ordre ne vous est pas destiné.");
         }
-
-        Path encPath = Paths.get(order.getPathVideo());
-        Path dekPath = Paths.get(order.getPathVideo() + ".dek");
-
-        // 1) Scan : existence et non vide
-        if (!Files.exists(encPath) || Files.size(encPath) == 0) {
-            throw new IllegalStateException("Fichier vidéo introuvable ou vide.");
+        // La purge des vidéos expirées est asynchrone : l'échéance est vérifiée ici aussi
+        if (!order.isActive() || (order.getExpiredVideo() != null && order.getExpiredVideo().isBefore(LocalDateTime.now()))) {
+            throw new IllegalStateException("Vidéo expirée.");
         }
-        if (!Files.exists(dekPath) || Files.size(dekPath) == 0) {
-            throw new IllegalStateException("Fichier DEK introuvable ou vide.");
+
+        // 0) Relecture récente par le même destinataire : clair en cache (hors tas)
+        String recipient = currentUserName.trim();
+        Optional<DecryptedVideoCache.Hit> cached = plainCache.get(order.getId(), recipient);
+        if (cached.isPresent()) {
+            byte[] plain = cached.get().plain();
+            String videoBase64 = Base64.getEncoder().encodeToString(plain);
+            DecryptedVideoCache.wipe(plain);
+            return new ValidateOrderResult(true, videoBase64, receipts.token(cached.get().receipt(), order.getExpiredVideo()));
         }
 
-        // 2) Déchiffrement du DEK
-        String encryptedDek = Files.readString(dekPath);
-        byte[] dek = vaultPort.decryptDek(videoDekKeyName, encryptedDek);
+        String encObjectId = VideoStore.objectIdOf(order.getPathVideo());
+        String dekObjectId = VideoStore.dekIdOf(encObjectId);
 
-        // 3) Déchiffrement de la vidéo (IV 12 + ciphertext)
-        byte[] raw = Files.readAllBytes(encPath);
+        // 1) Scan : existence et non vide
+        stages.run(FLOW_VALIDATE, "scan", () -> {
+            if (!videoStore.exists(encObjectId) || videoStore.size(encObjectId) == 0) {
+                throw new IllegalStateException("Fichier vidéo introuvable ou vide.");
+            }
+            if (!videoStore.exists(dekObjectId) || videoStore.size(dekObjectId) == 0) {
+                throw new IllegalStateException("Fichier DEK introuvable ou vide.");
+            }
+            return null;
+        });
+
+        // 2) Étapes indépendantes : DEK, fichier chiffré, reçu de validation précédent
+        CompletableFuture<byte[]> dekStage = stages.supply(FLOW_VALIDATE, "unwrap_dek", () -> {
+            String encryptedDek = new String(videoStore.get(dekObjectId), StandardCharsets.UTF_8);
+            return keyHierarchy.unwrapDek(encryptedDek);
+        });
+        CompletableFuture<byte[]> rawStage = stages.supply(FLOW_VALIDATE, "read_enc", () -> {
+            VideoStorageEvent event = VideoStorageEvent.begin("read", encObjectId, orderId);
+            byte[] read = videoStore.get(encObjectId);
+            event.bytes = read.length;
+            event.commit();
+            return read;
+        });
+        CompletableFuture<Optional<ValidationReceiptJpaEntity>> receiptStage = stages.supply(FLOW_VALIDATE, "load_receipt",
+                () -> receipts.find(order.getId()).filter(r -> receipts.matches(r, order)));
+
+        byte[] raw = OrderStageExecutor.await(rawStage);
+        stages.bytes(FLOW_VALIDATE, "read_enc", raw.length);
+        stages.tag("video.ciphertext_size", raw.length);
         if (raw.length <= GCM_IV_LENGTH) {
             throw new IllegalStateException("Fichier vidéo corrompu (taille).");
         }
-        byte[] iv = new byte[GCM_IV_LENGTH];
-        System.arraycopy(raw, 0, iv, 0, GCM_IV_LENGTH);
-        byte[] ciphertext = new byte[raw.length - GCM_IV_LENGTH];
-        System.arraycopy(raw, GCM_IV_LENGTH, ciphertext, 0, ciphertext.length);
+        String ciphertextSha256 = stages.run(FLOW_VALIDATE, "ciphertext_sha",
+                () -> ciphertextSha256(FLOW_VALIDATE, orderId, raw));
+
+        // Déjà validé et fichier chiffré inchangé : la signature n'est pas revérifiée (le tag GCM authentifie
+        // toujours le déchiffrement)
+        Optional<ValidationReceiptJpaEntity> receipt = OrderStageExecutor.await(receiptStage)
+                .filter(r -> r.getCiphertextSha256().equalsIgnoreCase(ciphertextSha256));
+        if (receipt.isPresent()) {
+            byte[] decrypted = decrypt(OrderStageExecutor.await(dekStage), raw, encObjectId, orderId, false).plain();
+            plainCache.put(order.getId(), recipient, decrypted, receipt.get(), order.getExpiredVideo());
+            return new ValidateOrderResult(true, Base64.getEncoder().encodeToString(decrypted),
+                    receipts.token(receipt.get(), order.getExpiredVideo()));
+        }
+
+        CompletableFuture<Optional<UsersJpaEntity>> senderStage = stages.supply(FLOW_VALIDATE, "load_sender",
+                () -> userRepo.findById(order.getUserId()));
 
-        SecretKey key = new SecretKeySpec(dek, "AES");
-        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
-        byte[] decrypted = cipher.doFinal(ciphertext);
+        // 3) Déchiffrement de la vidéo (IV 12 + ciphertext, ou segments scellés)
+        SealedSegments.Opened opened = decrypt(OrderStageExecutor.await(dekStage), raw, encObjectId, orderId, true);
+        byte[] decrypted = opened.plain();
 
         // 4) Vérification de la signature avec la clé de l'expéditeur (user_id)
-        UsersJpaEntity sender = userRepo.findById(order.getUserId()).orElseThrow(() -> new IllegalStateException("Expéditeur introuvable"));
+        UsersJpaEntity sender = OrderStageExecutor.await(senderStage)
+                .orElseThrow(() -> new IllegalStateException("Expéditeur introuvable"));
         String senderVaultKey = sender.getVaultKey();
         if (senderVaultKey == null || senderVaultKey.isBlank()) {
             throw new IllegalStateException("Vidéo corrompue : clé de signature de l'expéditeur indisponible.");
         }
 
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] hash = md.digest(decrypted);
-        String hashBase64 = Base64.getEncoder().encodeToString(hash);
+        String hashBase64 = Base64.getEncoder().encodeToString(opened.root());
 
-        if (!vaultPort.verify(senderVaultKey, hashBase64, order.getSignature())) {
+        boolean valid = stages.run(FLOW_VALIDATE, "verify", () -> vaultPort.verify(senderVaultKey, hashBase64, order.getSignature()));
+        if (!valid) {
             throw new IllegalArgumentException("Vidéo corrompue.");
         }
 
+        ValidationReceiptJpaEntity issued = stages.run(FLOW_VALIDATE, "save_receipt",
+                () -> receipts.record(order, ciphertextSha256));
+        plainCache.put(order.getId(), recipient, decrypted, issued, order.getExpiredVideo());
         String videoBase64 = Base64.getEncoder().encodeToString(decrypted);
-        return new ValidateOrderResult(true, videoBase64);
+        return new ValidateOrderResult(true, videoBase64, receipts.token(issued, order.getExpiredVideo()));
     }
 
-    private static String bytesToHex(byte[] b) {
+    /**
+     * Déchiffre IV (12) || ciphertext (tag GCM inclus), ou une vidéo envoyée par segments ({@link SealedSegments}).
+     * withDigest : calcule aussi l'empreinte signée (SHA-256 du clair, ou racine des segments).
+     */
+    private SealedSegments.Opened decrypt(byte[] dek, byte[] raw, String encObjectId, int orderId, boolean withDigest)
+            throws IOException, GeneralSecurityException {
+        SealedSegments.Opened opened = stages.run(FLOW_VALIDATE, "decrypt", () -> {
+            VideoCryptoEvent event = VideoCryptoEvent.begin("decrypt", encObjectId, orderId, raw.length);
+            SealedSegments.Opened result;
+            if (SealedSegments.isSealed(encObjectId)) {
+                result = SealedSegments.open(dek, raw, withDigest);
+            } else {
+                SecretKey key = new SecretKeySpec(dek, "AES");
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, raw, 0, GCM_IV_LENGTH));
+                byte[] plain = cipher.doFinal(raw, GCM_IV_LENGTH, raw.length - GCM_IV_LENGTH);
+                result = new SealedSegments.Opened(plain, withDigest ? MessageDigest.getInstance("SHA-256").digest(plain) : null);
+            }
+            event.commit();
+            return result;
+        });
+        stages.bytes(FLOW_VALIDATE, "decrypt", opened.plain().length);
+        return opened;
+    }
+
+    /** SHA-256 (hex) du fichier chiffré : empreinte du reçu de validation. */
+    private static String ciphertextSha256(String flow, int orderId, byte[] raw) throws GeneralSecurityException {
+        VideoHashEvent event = VideoHashEvent.begin(flow, "ciphertext", orderId, raw.length);
+        String hex = bytesToHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        event.commit();
+        return hex;
+    }
+
+    /** Hex minuscule (visible du paquet pour les benchmarks JMH). */
+    static String bytesToHex(byte[] b) {
         StringBuilder sb = new StringBuilder(b.length * 2);
         for (byte x : b) sb.append(String.format("%02x", x));
         return sb.toString();
     }
 
+    private static byte[] hexToBytes(String hex) {
+        byte[] out = new byte[hex.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return out;
+    }
+
     public record CreateOrderResult(int id, List<String> steps) {}
 
-    public record ValidateOrderResult(boolean success, String videoBase64) {}
+    /** ids[i] : ordre créé pour recipients[i] (destinataires normalisés, sans doublons). */
+    public record CreateOrdersResult(List<Integer> ids, List<String> recipients, List<String> steps) {
+        CreateOrderResult first() {
+            return new CreateOrderResult(ids.get(0), steps);
+        }
+    }
+
+    /** receipt : jeton signé du reçu de validation (vérifiable hors ligne). */
+    public record ValidateOrderResult(boolean success, String videoBase64, String receipt) {
+        public ValidateOrderResult(boolean success, String videoBase64) {
+            this(success, videoBase64, null);
+        }
+    }
 }
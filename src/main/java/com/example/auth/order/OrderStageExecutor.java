@@ -0,0 +1,250 @@
+package com.example.auth.order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution des étapes indépendantes de createOrder / validateOrder (appels Vault, lectures disque, BDD)
+ * sur un pool dédié, avec une durée mesurée par étape : order.stage{flow, stage, outcome} (histogramme publié
+ * pour les quantiles Prometheus) ; volumes traités : order.stage.bytes{flow, stage}.
+ *
+ * Traces : {@link #flow} ouvre le span order.{flow} et chaque étape un span enfant order.{flow}.{stage},
+ * y compris sur le pool (le span courant de l'appelant est repris comme parent).
+ *
+ * Les étapes ne s'attendent jamais entre elles sur le pool (seul le thread appelant attend) : quand le pool
+ * et sa file sont pleins, l'étape s'exécute dans le thread appelant plutôt que d'être mise en attente.
+ *
+ * Un {@link StageListener} posé par {@link #withListener} est notifié de la fin de chaque étape lancée depuis
+ * le thread appelant, y compris celles exécutées sur le pool (suivi de progression des traitements asynchrones).
+ */
+@Component
+public class OrderStageExecutor {
+
+    private static final ThreadLocal<StageListener> LISTENER = new ThreadLocal<>();
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
+
+    private final ThreadPoolExecutor pool;
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+
+    public OrderStageExecutor(MeterRegistry meterRegistry, int threads) {
+        this(meterRegistry, Tracer.NOOP, threads);
+    }
+
+    @Autowired
+    public OrderStageExecutor(MeterRegistry meterRegistry,
+                              ObjectProvider<Tracer> tracer,
+                              @Value("${app.orders.stage-threads:8}") int threads) {
+        this(meterRegistry, tracer.getIfAvailable(() -> Tracer.NOOP), threads);
+    }
+
+    public OrderStageExecutor(MeterRegistry meterRegistry, Tracer tracer, int threads) {
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+        int n = Math.max(1, threads);
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(n * 16), r -> {
+            Thread t = new Thread(r, "order-stage-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Exécute body dans le thread appelant en notifiant listener de la fin de chaque étape. */
+    public <T> T withListener(StageListener listener, Stage<T> body) throws Exception {
+        StageListener previous = LISTENER.get();
+        LISTENER.set(listener);
+        try {
+            return body.run();
+        } finally {
+            if (previous != null) {
+                LISTENER.set(previous);
+            } else {
+                LISTENER.remove();
+            }
+        }
+    }
+
+    /**
+     * Exécute un flux complet (createOrder, validateOrder...) dans le thread appelant : span order.{flow},
+     * durée totale order.stage{flow, stage=total, outcome}.
+     */
+    public <T> T flow(String flow, Stage<T> body) throws IOException, GeneralSecurityException {
+        Span span = tracer.nextSpan().name("order." + flow).start();
+        long start = System.nanoTime();
+        boolean success = false;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            T result = body.run();
+            success = true;
+            return result;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } catch (Exception e) {
+            span.error(e);
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            record(flow, "total", System.nanoTime() - start, success);
+            span.end();
+        }
+    }
+
+    /** Ajoute un attribut au span courant (taille de la vidéo, id d'ordre...). */
+    public void tag(String key, String value) {
+        Span span = tracer.currentSpan();
+        if (span != null && value != null) {
+            span.tag(key, value);
+        }
+    }
+
+    public void tag(String key, long value) {
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            span.tag(key, value);
+        }
+    }
+
+    /** Lance une étape sur le pool. */
+    public <T> CompletableFuture<T> supply(String flow, String stage, Stage<T> body) {
+        StageListener listener = LISTENER.get();
+        Span parent = tracer.currentSpan();
+        return CompletableFuture.supplyAsync(() -> {
+            Span span = (parent != null ? tracer.nextSpan(parent) : tracer.nextSpan()).name("order." + flow + "." + stage).start();
+            long start = System.nanoTime();
+            String outcome = OUTCOME_ERROR;
+            try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                T result = body.run();
+                outcome = OUTCOME_SUCCESS;
+                return result;
+            } catch (RuntimeException e) {
+                span.error(e);
+                throw e;
+            } catch (Exception e) {
+                span.error(e);
+                throw new CompletionException(e);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                span.end();
+                timer(flow, stage, outcome).record(nanos, TimeUnit.NANOSECONDS);
+                notify(listener, flow, stage, nanos);
+            }
+        }, pool);
+    }
+
+    /** Exécute une étape dans le thread appelant, en mesurant sa durée. */
+    public <T> T run(String flow, String stage, Stage<T> body) throws IOException, GeneralSecurityException {
+        Span span = tracer.nextSpan().name("order." + flow + "." + stage).start();
+        long start = System.nanoTime();
+        String outcome = OUTCOME_ERROR;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            T result = body.run();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } catch (Exception e) {
+            span.error(e);
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            span.end();
+            timer(flow, stage, outcome).record(nanos, TimeUnit.NANOSECONDS);
+            notify(LISTENER.get(), flow, stage, nanos);
+        }
+    }
+
+    /** Enregistre une durée mesurée par l'appelant (ex. durée totale du flux), en succès. */
+    public void record(String flow, String stage, long nanos) {
+        record(flow, stage, nanos, true);
+    }
+
+    public void record(String flow, String stage, long nanos, boolean success) {
+        timer(flow, stage, success ? OUTCOME_SUCCESS : OUTCOME_ERROR).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Compte les octets traités par une étape (clair haché, chiffré écrit, chiffré lu, clair déchiffré). */
+    public void bytes(String flow, String stage, long bytes) {
+        Counter.builder("order.stage.bytes").tag("flow", flow).tag("stage", stage).baseUnit("bytes")
+                .description("Octets traités par une étape de createOrder / validateOrder")
+                .register(meterRegistry).increment(bytes);
+    }
+
+    /**
+     * Attend le résultat d'une étape et relance son exception d'origine
+     * (IOException, GeneralSecurityException ou RuntimeException).
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException, GeneralSecurityException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Traitement interrompu.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof GeneralSecurityException gse) throw gse;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+
+    private static void notify(StageListener listener, String flow, String stage, long nanos) {
+        if (listener != null) {
+            try {
+                listener.stageCompleted(flow, stage, nanos);
+            } catch (RuntimeException ignored) {
+                // Le suivi de progression ne doit jamais faire échouer l'étape
+            }
+        }
+    }
+
+    private Timer timer(String flow, String stage, String outcome) {
+        return Timer.builder("order.stage").tag("flow", flow).tag("stage", stage).tag("outcome", outcome)
+                .description("Durée d'une étape de createOrder / validateOrder")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    public interface Stage<T> {
+        T run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface StageListener {
+        void stageCompleted(String flow, String stage, long nanos);
+    }
+}
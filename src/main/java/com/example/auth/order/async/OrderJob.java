@@ -0,0 +1,231 @@
+package com.example.auth.order.async;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traitement asynchrone d'un ordre (création ou validation) : état, étapes terminées, résultat ou erreur.
+ * Les abonnés SSE reçoivent un événement "progress" à chaque étape et un événement "done" à la fin.
+ * Une validation peut garder la vidéo déchiffrée (hors tas) jusqu'à sa lecture unique ({@link #takeVideo}).
+ */
+public class OrderJob {
+
+    public enum Kind {
+        // Ordre de priorité : une validation passe devant les créations en attente
+        VALIDATE, CREATE
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final Integer userId;
+    private final Kind kind;
+    private final Instant submittedAt;
+    private final List<String> stages = new ArrayList<>();
+    private final List<SseEmitter> subscribers = new ArrayList<>();
+    private Status status = Status.QUEUED;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Map<String, Object> result;
+    private String error;
+    private int errorStatus;
+    private ByteBuffer video;
+
+    public OrderJob(String id, Integer userId, Kind kind) {
+        this(id, userId, kind, Instant.now());
+    }
+
+    OrderJob(String id, Integer userId, Kind kind, Instant submittedAt) {
+        this.id = id;
+        this.userId = userId;
+        this.kind = kind;
+        this.submittedAt = submittedAt;
+    }
+
+    /** Copie d'un traitement lue en base (exécuté sur un autre réplica, ou oublié de la mémoire locale). */
+    static OrderJob restore(String id, Integer userId, Kind kind, Status status, List<String> stages,
+                            Instant submittedAt, Instant startedAt, Instant finishedAt,
+                            Map<String, Object> result, int errorStatus, String error) {
+        OrderJob job = new OrderJob(id, userId, kind, submittedAt);
+        job.status = status;
+        job.stages.addAll(stages);
+        job.startedAt = startedAt;
+        job.finishedAt = finishedAt;
+        job.result = result;
+        job.errorStatus = errorStatus;
+        job.error = error;
+        return job;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public synchronized boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    /** Code HTTP correspondant à l'erreur (400 ou 500), 0 si le traitement n'a pas échoué. */
+    public synchronized int getErrorStatus() {
+        return errorStatus;
+    }
+
+    synchronized List<String> getStages() {
+        return List.copyOf(stages);
+    }
+
+    synchronized Instant getStartedAt() {
+        return startedAt;
+    }
+
+    synchronized Map<String, Object> getResult() {
+        return result;
+    }
+
+    synchronized String getError() {
+        return error;
+    }
+
+    synchronized void attachVideo(ByteBuffer plain) {
+        this.video = plain;
+    }
+
+    /** Vidéo gardée par la validation, retirée du traitement : l'appelant l'efface après usage. Null si absente. */
+    synchronized ByteBuffer takeVideo() {
+        ByteBuffer v = video;
+        video = null;
+        return v;
+    }
+
+    synchronized void started() {
+        status = Status.RUNNING;
+        startedAt = Instant.now();
+        publish("progress", false);
+    }
+
+    synchronized void stageCompleted(String stage) {
+        stages.add(stage);
+        publish("progress", false);
+    }
+
+    synchronized void succeeded(Map<String, Object> result) {
+        this.result = result;
+        finish(Status.SUCCEEDED);
+    }
+
+    synchronized void failed(int httpStatus, String message) {
+        this.errorStatus = httpStatus;
+        this.error = message;
+        finish(Status.FAILED);
+    }
+
+    /**
+     * Envoie l'état courant puis ferme le flux (copie lue en base : pas de progression en direct). Si le traitement
+     * n'est pas terminé, le client EventSource se reconnecte après reconnectMs.
+     */
+    synchronized void sendOnce(SseEmitter emitter, long reconnectMs) {
+        try {
+            if (isFinished()) {
+                emitter.send(SseEmitter.event().name("done").data(snapshot(true)));
+            } else {
+                emitter.send(SseEmitter.event().name("progress").reconnectTime(reconnectMs).data(snapshot(false)));
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /** Abonne un flux SSE ; s'il est déjà terminé, le résultat est envoyé et le flux fermé. */
+    synchronized void subscribe(SseEmitter emitter) {
+        if (isFinished()) {
+            send(emitter, "done", true);
+            emitter.complete();
+            return;
+        }
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> unsubscribe(emitter));
+        send(emitter, "progress", false);
+    }
+
+    private synchronized void unsubscribe(SseEmitter emitter) {
+        subscribers.remove(emitter);
+    }
+
+    /** État du traitement ; withResult : inclut le résultat (ids créés, ou statut et reçu d'une validation : jamais la vidéo). */
+    public synchronized Map<String, Object> snapshot(boolean withResult) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", id);
+        m.put("kind", kind.name().toLowerCase());
+        m.put("status", status.name().toLowerCase());
+        m.put("stages", List.copyOf(stages));
+        m.put("submittedAt", submittedAt.toString());
+        if (startedAt != null) {
+            m.put("startedAt", startedAt.toString());
+        }
+        if (finishedAt != null) {
+            m.put("finishedAt", finishedAt.toString());
+        }
+        if (error != null) {
+            m.put("error", error);
+        }
+        if (withResult && result != null) {
+            m.put("result", result);
+        }
+        return m;
+    }
+
+    private void finish(Status s) {
+        status = s;
+        finishedAt = Instant.now();
+        for (SseEmitter emitter : List.copyOf(subscribers)) {
+            send(emitter, "done", true);
+            emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private void publish(String event, boolean withResult) {
+        for (SseEmitter emitter : List.copyOf(subscribers)) {
+            send(emitter, event, withResult);
+        }
+    }
+
+    private void send(SseEmitter emitter, String event, boolean withResult) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(snapshot(withResult)));
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+        }
+    }
+}
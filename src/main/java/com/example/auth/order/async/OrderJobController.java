@@ -0,0 +1,80 @@
+package com.example.auth.order.async;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Suivi des traitements asynchrones (POST /api/orders?async=true, POST /api/orders/{id}/validate?async=true) :
+ * GET /api/orders/jobs/{id} (état, puis résultat), GET /api/orders/jobs/{id}/events (progression en SSE) et
+ * GET /api/orders/jobs/{id}/video (lecture unique de la vidéo d'une validation).
+ */
+@RestController
+@RequestMapping("/api/orders/jobs")
+public class OrderJobController {
+
+    private final OrderJobService jobService;
+
+    public OrderJobController(OrderJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@RequestAttribute("userId") Integer userId, @PathVariable("id") String id) {
+        return jobService.find(userId, id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.snapshot(true)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Traitement introuvable ou expiré.")));
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> events(@RequestAttribute("userId") Integer userId, @PathVariable("id") String id) {
+        return jobService.find(userId, id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(jobService.subscribe(job)))
+                // Erreur en JSON : le corps ne peut pas être écrit dans le type text/event-stream annoncé
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+                        .body(Map.of("error", "Traitement introuvable ou expiré.")));
+    }
+
+    /**
+     * Vidéo déchiffrée par une validation asynchrone, servie une seule fois depuis la mémoire du traitement :
+     * 409 tant qu'elle n'est pas terminée, 410 une fois lue ou expirée (relancer la validation), 421 si la requête
+     * n'atteint pas le réplica qui l'a exécutée.
+     */
+    @GetMapping("/{id}/video")
+    public ResponseEntity<?> video(@RequestAttribute("userId") Integer userId, @PathVariable("id") String id) {
+        OrderJobService.VideoFetch fetch = jobService.takeVideo(userId, id);
+        return switch (fetch.state()) {
+            case READY -> {
+                String base64 = Base64.getEncoder().encodeToString(fetch.video());
+                Arrays.fill(fetch.video(), (byte) 0);
+                yield ResponseEntity.ok(Map.of("videoBase64", base64));
+            }
+            case PENDING -> ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Validation en cours."));
+            case GONE -> ResponseEntity.status(HttpStatus.GONE)
+                    .body(Map.of("error", "Vidéo déjà récupérée ou expirée : relancer la validation."));
+            case ELSEWHERE -> ResponseEntity.status(421)
+                    .body(Map.of("error", "Vidéo gardée par le serveur qui a exécuté la validation."));
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Traitement introuvable ou expiré."));
+        };
+    }
+
+    /** Réponse 202 d'une soumission : id du traitement et URL de suivi. */
+    public static ResponseEntity<?> accepted(OrderJob job) {
+        String location = "/api/orders/jobs/" + job.getId();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", location)
+                .body(Map.of("jobId", job.getId(), "status", job.getStatus().name().toLowerCase(), "location", location));
+    }
+
+    /** Réponse à une soumission refusée (file pleine). */
+    public static ResponseEntity<?> busy(String message) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of("error", message));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.auth.order.async;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * État persistant d'un traitement asynchrone (table order_jobs) : lisible depuis n'importe quel réplica
+ * (GET /api/orders/jobs/{id}), jusqu'à expires_at. Le résultat ne contient jamais la vidéo.
+ */
+@Entity
+@Table(
+    name = "order_jobs",
+    indexes = {
+        @Index(name = "idx_order_jobs_expires", columnList = "expires_at")
+    }
+)
+public class OrderJobJpaEntity {
+
+    @Id
+    @Column(name = "id", length = 32)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "kind", nullable = false, length = 16)
+    private String kind;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    // Étapes terminées, séparées par des virgules
+    @Column(name = "stages", length = 1000)
+    private String stages;
+
+    @Column(name = "error_status")
+    private Integer errorStatus;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    // Résultat exposé au client (JSON)
+    @Column(name = "result_json", columnDefinition = "MEDIUMTEXT")
+    private String resultJson;
+
+    // Réplica qui exécute le traitement (app.jobs.instance-id)
+    @Column(name = "owner", nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "submitted_at", nullable = false)
+    private LocalDateTime submittedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Getters & Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getStages() {
+        return stages;
+    }
+
+    public void setStages(String stages) {
+        this.stages = stages;
+    }
+
+    public Integer getErrorStatus() {
+        return errorStatus;
+    }
+
+    public void setErrorStatus(Integer errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getResultJson() {
+        return resultJson;
+    }
+
+    public void setResultJson(String resultJson) {
+        this.resultJson = resultJson;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.auth.order.async;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderJobRepository extends JpaRepository<OrderJobJpaEntity, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from OrderJobJpaEntity j where j.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,421 @@
+package com.example.auth.order.async;
+
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.order.OrderStageExecutor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exécution asynchrone de createOrder / validateOrder : la requête HTTP rend 202 avec l'id du traitement,
+ * qui s'exécute sur un pool dédié borné. La file est ordonnée par priorité (les validations passent devant
+ * les créations en attente), puis par ordre d'arrivée.
+ *
+ * Le traitement s'exécute sur le réplica qui l'a reçu. Son état et son résultat sont enregistrés à chaque
+ * transition dans order_jobs (app.orders.jobs.retention-hours, au moins la durée des clés d'idempotence : une
+ * réponse 202 rejouée pointe vers un traitement encore lisible) : GET /api/orders/jobs/{id} répond depuis
+ * n'importe quel réplica. La progression en direct (SSE) n'est émise que par le réplica d'exécution ; ailleurs,
+ * le flux envoie l'état enregistré puis se ferme (reconnexion automatique du client EventSource).
+ *
+ * La vidéo déchiffrée d'une validation n'est jamais enregistrée : elle reste hors tas, sur le réplica
+ * d'exécution, jusqu'à sa lecture unique (GET /api/orders/jobs/{id}/video) ou l'oubli du traitement
+ * (app.orders.jobs.result-ttl-ms), puis est mise à zéro ; total borné par app.orders.jobs.max-video-bytes.
+ *
+ * Métriques : order.jobs.queued{kind}, order.jobs.running, order.jobs.wait{kind},
+ * order.jobs.duration{kind, outcome}, order.jobs.rejected{kind}, order.jobs.video.bytes.
+ */
+@Service
+public class OrderJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJobService.class);
+    private static final TypeReference<Map<String, Object>> RESULT = new TypeReference<>() {};
+    private static final long RECONNECT_MS = 2000;
+    private static final int WIPE_CHUNK = 8192;
+
+    private final OrderStageExecutor stages;
+    private final OrderJobRepository repo;
+    private final ObjectMapper objectMapper;
+    private final String instanceId;
+    private final ThreadPoolExecutor pool;
+    private final Map<String, OrderJob> jobs = new ConcurrentHashMap<>();
+    private final Map<OrderJob.Kind, AtomicInteger> queued = new EnumMap<>(OrderJob.Kind.class);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int queueCapacity;
+    private final int maxRetained;
+    private final long resultTtlMs;
+    private final long sseTimeoutMs;
+    private final long retentionHours;
+    private final long maxVideoBytes;
+    private final AtomicLong videoBytes = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    public OrderJobService(OrderStageExecutor stages,
+                           OrderJobRepository repo,
+                           ObjectMapper objectMapper,
+                           JobLeaseService leases,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.orders.jobs.threads:4}") int threads,
+                           @Value("${app.orders.jobs.queue-capacity:200}") int queueCapacity,
+                           @Value("${app.orders.jobs.max-retained:1000}") int maxRetained,
+                           @Value("${app.orders.jobs.result-ttl-ms:600000}") long resultTtlMs,
+                           @Value("${app.orders.jobs.sse-timeout-ms:300000}") long sseTimeoutMs,
+                           @Value("${app.orders.jobs.retention-hours:24}") long retentionHours,
+                           @Value("${app.orders.idempotency.ttl-hours:24}") long idempotencyTtlHours,
+                           @Value("${app.orders.jobs.max-video-bytes:268435456}") long maxVideoBytes) {
+        this.stages = stages;
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.instanceId = leases.getInstanceId();
+        this.meterRegistry = meterRegistry;
+        // Marge d'une heure : la clé d'idempotence est enregistrée après la soumission du traitement
+        this.retentionHours = Math.max(Math.max(1, retentionHours), idempotencyTtlHours + 1);
+        this.maxVideoBytes = Math.max(0, maxVideoBytes);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxRetained = Math.max(this.queueCapacity, maxRetained);
+        this.resultTtlMs = resultTtlMs;
+        this.sseTimeoutMs = sseTimeoutMs;
+        int n = Math.max(1, threads);
+        AtomicInteger threadSeq = new AtomicInteger();
+        // File non bornée par construction : la capacité est contrôlée à la soumission
+        this.pool = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "order-job-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.pool.allowCoreThreadTimeOut(true);
+        for (OrderJob.Kind kind : OrderJob.Kind.values()) {
+            AtomicInteger depth = new AtomicInteger();
+            queued.put(kind, depth);
+            Gauge.builder("order.jobs.queued", depth, AtomicInteger::get).tag("kind", tag(kind))
+                    .description("Traitements d'ordres en attente d'un worker").register(meterRegistry);
+        }
+        Gauge.builder("order.jobs.running", running, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("order.jobs.video.bytes", videoBytes, AtomicLong::get).baseUnit("bytes")
+                .description("Vidéos déchiffrées en attente de lecture").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+        jobs.values().forEach(this::discardVideo);
+    }
+
+    /**
+     * Met un traitement en file. Lève IllegalStateException si la file (ou la mémoire des traitements) est pleine :
+     * le client doit réessayer plus tard.
+     */
+    public OrderJob submit(Integer userId, OrderJob.Kind kind, JobBody body) {
+        if (queuedTotal() >= queueCapacity || jobs.size() >= maxRetained) {
+            meterRegistry.counter("order.jobs.rejected", "kind", tag(kind)).increment();
+            throw new IllegalStateException("File de traitement pleine : réessayez plus tard.");
+        }
+        OrderJob job = new OrderJob(UUID.randomUUID().toString().replace("-", ""), userId, kind);
+        jobs.put(job.getId(), job);
+        persist(job);
+        queued.get(kind).incrementAndGet();
+        pool.execute(new Task(job, body, sequence.incrementAndGet()));
+        return job;
+    }
+
+    /**
+     * Traitement de l'utilisateur, s'il existe encore : en mémoire s'il s'exécute sur ce réplica,
+     * sinon copie lue dans order_jobs.
+     */
+    public Optional<OrderJob> find(Integer userId, String jobId) {
+        if (jobId == null) {
+            return Optional.empty();
+        }
+        OrderJob job = jobs.get(jobId);
+        if (job == null) {
+            OrderJobJpaEntity row = loadRow(jobId);
+            job = row != null ? restore(row) : null;
+        }
+        return job != null && job.getUserId().equals(userId) ? Optional.of(job) : Optional.empty();
+    }
+
+    /** Flux SSE de progression d'un traitement (état enregistré seulement, s'il s'exécute sur un autre réplica). */
+    public SseEmitter subscribe(OrderJob job) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        if (jobs.get(job.getId()) == job) {
+            job.subscribe(emitter);
+        } else {
+            job.sendOnce(emitter, RECONNECT_MS);
+        }
+        return emitter;
+    }
+
+    /**
+     * Garde la vidéo déchiffrée d'une validation pour une lecture unique ({@link #takeVideo}). Le tableau plain
+     * est effacé dans tous les cas. Retourne false si le budget app.orders.jobs.max-video-bytes est atteint.
+     */
+    public boolean retainVideo(OrderJob job, byte[] plain) {
+        try {
+            if (videoBytes.addAndGet(plain.length) > maxVideoBytes) {
+                videoBytes.addAndGet(-plain.length);
+                return false;
+            }
+            // Hors tas : absent des dumps du tas, non recopié par le GC
+            ByteBuffer buf = ByteBuffer.allocateDirect(plain.length);
+            buf.put(plain).flip();
+            job.attachVideo(buf);
+            return true;
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /**
+     * Lecture unique de la vidéo d'une validation terminée : la copie retournée est à effacer par l'appelant,
+     * le tampon du traitement est mis à zéro.
+     */
+    public VideoFetch takeVideo(Integer userId, String jobId) {
+        OrderJob job = jobId != null ? jobs.get(jobId) : null;
+        if (job == null) {
+            OrderJobJpaEntity row = jobId != null ? loadRow(jobId) : null;
+            if (row == null || !row.getUserId().equals(userId)) {
+                return new VideoFetch(VideoState.NOT_FOUND, null);
+            }
+            // La vidéo ne quitte pas la mémoire du réplica qui a exécuté la validation
+            return new VideoFetch(instanceId.equals(row.getOwner()) ? VideoState.GONE : VideoState.ELSEWHERE, null);
+        }
+        if (!job.getUserId().equals(userId)) {
+            return new VideoFetch(VideoState.NOT_FOUND, null);
+        }
+        if (!job.isFinished()) {
+            return new VideoFetch(VideoState.PENDING, null);
+        }
+        ByteBuffer video = job.takeVideo();
+        if (video == null) {
+            return new VideoFetch(VideoState.GONE, null);
+        }
+        byte[] copy = new byte[video.remaining()];
+        video.get(copy);
+        wipe(video);
+        return new VideoFetch(VideoState.READY, copy);
+    }
+
+    public int queuedTotal() {
+        int n = 0;
+        for (AtomicInteger q : queued.values()) {
+            n += q.get();
+        }
+        return n;
+    }
+
+    /**
+     * Oublie de la mémoire les traitements terminés depuis plus de result-ttl-ms (vidéo non lue mise à zéro)
+     * et supprime de order_jobs les lignes expirées.
+     */
+    @Scheduled(fixedDelayString = "${app.orders.jobs.sweep-ms:60000}", initialDelay = 60000)
+    public void evictFinished() {
+        Instant cutoff = Instant.now().minusMillis(resultTtlMs);
+        jobs.values().removeIf(j -> {
+            if (!j.isFinished() || !j.getFinishedAt().isBefore(cutoff)) {
+                return false;
+            }
+            discardVideo(j);
+            return true;
+        });
+        try {
+            repo.deleteExpired(LocalDateTime.now());
+        } catch (DataAccessException e) {
+            log.warn("Purge des traitements expirés impossible : {}", e.getMessage());
+        }
+    }
+
+    private void execute(OrderJob job, JobBody body) {
+        queued.get(job.getKind()).decrementAndGet();
+        running.incrementAndGet();
+        Timer.builder("order.jobs.wait").tag("kind", tag(job.getKind()))
+                .description("Attente en file d'un traitement d'ordre")
+                .register(meterRegistry).record(Duration.between(job.getSubmittedAt(), Instant.now()));
+        long start = System.nanoTime();
+        String outcome = "success";
+        job.started();
+        persist(job);
+        try {
+            Map<String, Object> result = stages.withListener((flow, stage, nanos) -> job.stageCompleted(stage),
+                    () -> body.run(job));
+            job.succeeded(result);
+        } catch (IllegalArgumentException e) {
+            outcome = "rejected";
+            job.failed(400, e.getMessage());
+        } catch (GeneralSecurityException e) {
+            outcome = "error";
+            job.failed(500, "Erreur de chiffrement ou signature");
+        } catch (Exception e) {
+            outcome = "error";
+            log.warn("Traitement {} ({}) en échec : {}", job.getId(), tag(job.getKind()), e.getMessage());
+            job.failed(500, e.getMessage() != null ? e.getMessage() : "Erreur serveur");
+        } finally {
+            running.decrementAndGet();
+            Timer.builder("order.jobs.duration").tag("kind", tag(job.getKind())).tag("outcome", outcome)
+                    .register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (job.getStatus() == OrderJob.Status.FAILED) {
+                discardVideo(job);
+            }
+            persist(job);
+        }
+    }
+
+    /** Enregistre l'état du traitement ; une base indisponible n'interrompt pas le traitement (suivi local seulement). */
+    private void persist(OrderJob job) {
+        try {
+            OrderJobJpaEntity row = new OrderJobJpaEntity();
+            row.setId(job.getId());
+            row.setUserId(job.getUserId());
+            row.setKind(job.getKind().name());
+            row.setStatus(job.getStatus().name());
+            row.setStages(truncate(String.join(",", job.getStages())));
+            row.setErrorStatus(job.getErrorStatus() != 0 ? job.getErrorStatus() : null);
+            row.setError(truncate(job.getError()));
+            Map<String, Object> result = job.getResult();
+            row.setResultJson(result != null ? objectMapper.writeValueAsString(result) : null);
+            row.setOwner(instanceId);
+            row.setSubmittedAt(toLocal(job.getSubmittedAt()));
+            row.setStartedAt(toLocal(job.getStartedAt()));
+            row.setFinishedAt(toLocal(job.getFinishedAt()));
+            row.setExpiresAt(row.getSubmittedAt().plusHours(retentionHours));
+            repo.save(row);
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("État du traitement {} non enregistré : {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private OrderJobJpaEntity loadRow(String jobId) {
+        try {
+            OrderJobJpaEntity row = repo.findById(jobId).orElse(null);
+            return row != null && !row.getExpiresAt().isBefore(LocalDateTime.now()) ? row : null;
+        } catch (DataAccessException e) {
+            log.warn("Lecture du traitement {} impossible : {}", jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    private OrderJob restore(OrderJobJpaEntity row) {
+        Map<String, Object> result = null;
+        if (row.getResultJson() != null) {
+            try {
+                result = objectMapper.readValue(row.getResultJson(), RESULT);
+            } catch (JsonProcessingException e) {
+                log.warn("Résultat du traitement {} illisible : {}", row.getId(), e.getMessage());
+            }
+        }
+        List<String> stageList = row.getStages() == null || row.getStages().isEmpty()
+                ? List.of() : List.of(row.getStages().split(","));
+        return OrderJob.restore(row.getId(), row.getUserId(), OrderJob.Kind.valueOf(row.getKind()),
+                OrderJob.Status.valueOf(row.getStatus()), stageList, toInstant(row.getSubmittedAt()),
+                toInstant(row.getStartedAt()), toInstant(row.getFinishedAt()), result,
+                row.getErrorStatus() != null ? row.getErrorStatus() : 0, row.getError());
+    }
+
+    private void discardVideo(OrderJob job) {
+        ByteBuffer video = job.takeVideo();
+        if (video != null) {
+            wipe(video);
+        }
+    }
+
+    /** Met le tampon à zéro et rend sa taille au budget. */
+    private void wipe(ByteBuffer video) {
+        ByteBuffer b = video.duplicate().clear();
+        byte[] zeros = new byte[WIPE_CHUNK];
+        while (b.hasRemaining()) {
+            b.put(zeros, 0, Math.min(zeros.length, b.remaining()));
+        }
+        videoBytes.addAndGet(-video.capacity());
+    }
+
+    private static String truncate(String s) {
+        return s != null && s.length() > 1000 ? s.substring(0, 1000) : s;
+    }
+
+    private static LocalDateTime toLocal(Instant i) {
+        return i != null ? LocalDateTime.ofInstant(i, ZoneId.systemDefault()) : null;
+    }
+
+    private static Instant toInstant(LocalDateTime t) {
+        return t != null ? t.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    private static String tag(OrderJob.Kind kind) {
+        return kind.name().toLowerCase();
+    }
+
+    public enum VideoState {
+        /** Vidéo retournée (et retirée du traitement). */
+        READY,
+        /** Validation pas encore terminée. */
+        PENDING,
+        /** Déjà lue, non conservée (budget) ou oubliée à l'expiration. */
+        GONE,
+        /** Conservée par un autre réplica : celui qui a exécuté la validation. */
+        ELSEWHERE,
+        NOT_FOUND
+    }
+
+    /** Résultat de {@link #takeVideo} ; video n'est renseigné que pour READY. */
+    public record VideoFetch(VideoState state, byte[] video) {}
+
+    /** Corps d'un traitement : retourne le résultat exposé au client (sérialisé en JSON). */
+    @FunctionalInterface
+    public interface JobBody {
+        Map<String, Object> run(OrderJob job) throws Exception;
+    }
+
+    /** Tâche ordonnée par priorité du type, puis par ordre de soumission. */
+    private final class Task implements Runnable, Comparable<Task> {
+
+        private final OrderJob job;
+        private final JobBody body;
+        private final long seq;
+
+        Task(OrderJob job, JobBody body, long seq) {
+            this.job = job;
+            this.body = body;
+            this.seq = seq;
+        }
+
+        @Override
+        public void run() {
+            execute(job, body);
+        }
+
+        @Override
+        public int compareTo(Task o) {
+            int byKind = job.getKind().compareTo(o.job.getKind());
+            return byKind != 0 ? byKind : Long.compare(seq, o.seq);
+        }
+    }
+}
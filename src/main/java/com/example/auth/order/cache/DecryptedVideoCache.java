@@ -0,0 +1,207 @@
+package com.example.auth.order.cache;
+
+import com.example.auth.order.receipt.ValidationReceiptJpaEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache LRU des vidéos récemment déchiffrées, pour les relectures successives d'un même ordre
+ * (évite le déchiffrement du DEK et le déchiffrement AES-GCM complet).
+ *
+ * Le clair est conservé hors tas (ByteBuffer direct : absent des dumps du tas, non déplacé par le GC)
+ * et mis à zéro à l'éviction, à l'expiration et à l'invalidation. Bornes : taille totale, taille par
+ * destinataire (ses entrées les plus anciennes sont évincées en premier), durée de vie limitée par
+ * l'expiration de la vidéo. Désactivé par défaut (app.video.plain-cache.enabled).
+ */
+@Component
+public class DecryptedVideoCache {
+
+    private static final int WIPE_CHUNK = 8192;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxBytesPerUser;
+    private final long ttlMinutes;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> bytesByUser = new HashMap<>();
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final MeterRegistry meterRegistry;
+
+    public DecryptedVideoCache(MeterRegistry meterRegistry,
+                               @Value("${app.video.plain-cache.enabled:false}") boolean enabled,
+                               @Value("${app.video.plain-cache.max-bytes:268435456}") long maxBytes,
+                               @Value("${app.video.plain-cache.max-bytes-per-user:67108864}") long maxBytesPerUser,
+                               @Value("${app.video.plain-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.enabled = enabled;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxBytesPerUser = Math.max(0, Math.min(maxBytesPerUser, maxBytes));
+        this.ttlMinutes = Math.max(1, ttlMinutes);
+        this.meterRegistry = meterRegistry;
+        this.hits = Counter.builder("video.plain_cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("video.plain_cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("video.plain_cache.bytes", this, DecryptedVideoCache::totalBytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Vidéo en cache pour cet ordre et ce destinataire, ou vide. Le tableau retourné est une copie
+     * que l'appelant doit effacer après usage.
+     */
+    public synchronized Optional<Hit> get(Integer orderId, String recipient) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Entry e = entries.get(orderId);
+        if (e == null || !e.recipient.equals(recipient)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (e.expiresAt.isBefore(LocalDateTime.now())) {
+            remove(orderId, "expired");
+            misses.increment();
+            return Optional.empty();
+        }
+        byte[] plain = new byte[e.size];
+        e.buffer.duplicate().clear().get(plain);
+        hits.increment();
+        return Optional.of(new Hit(plain, e.receipt));
+    }
+
+    /**
+     * Met en cache une copie du clair d'un ordre validé. Ignoré si la vidéo dépasse la part d'un destinataire.
+     * videoExpiresAt : expiration de la vidéo (expired_video), l'entrée ne lui survit pas.
+     */
+    public synchronized void put(Integer orderId, String recipient, byte[] plain, ValidationReceiptJpaEntity receipt,
+                                 LocalDateTime videoExpiresAt) {
+        if (!enabled || plain.length == 0 || plain.length > maxBytesPerUser) {
+            return;
+        }
+        remove(orderId, "replaced");
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        if (videoExpiresAt != null && videoExpiresAt.isBefore(expiresAt)) {
+            expiresAt = videoExpiresAt;
+        }
+        evictUser(recipient, maxBytesPerUser - plain.length);
+        evictEldest(maxBytes - plain.length);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(plain.length);
+        buffer.put(plain);
+        entries.put(orderId, new Entry(recipient, buffer, plain.length, receipt, expiresAt));
+        bytesByUser.merge(recipient, (long) plain.length, Long::sum);
+        totalBytes += plain.length;
+    }
+
+    /** Efface l'entrée d'un ordre (purge, crypto-shredding). */
+    public synchronized void invalidate(Integer orderId) {
+        if (enabled) {
+            remove(orderId, "invalidated");
+        }
+    }
+
+    /** Efface les entrées expirées (vidéo arrivée à échéance ou durée de vie du cache dépassée). */
+    @Scheduled(fixedDelayString = "${app.video.plain-cache.sweep-ms:60000}", initialDelay = 60000)
+    public synchronized void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Entry> e = it.next();
+            if (e.getValue().expiresAt.isBefore(now)) {
+                it.remove();
+                release(e.getValue(), "expired");
+            }
+        }
+    }
+
+    /** Efface tout le cache. */
+    public synchronized void clear() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            it.remove();
+            release(e, "cleared");
+        }
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Évince les entrées les moins récemment lues du destinataire jusqu'à ne pas dépasser budget. */
+    private void evictUser(String recipient, long budget) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytesByUser.getOrDefault(recipient, 0L) > budget && it.hasNext()) {
+            Entry e = it.next();
+            if (e.recipient.equals(recipient)) {
+                it.remove();
+                release(e, "user_limit");
+            }
+        }
+    }
+
+    /** Évince les entrées les moins récemment lues jusqu'à ne pas dépasser budget. */
+    private void evictEldest(long budget) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes > budget && it.hasNext()) {
+            Entry e = it.next();
+            it.remove();
+            release(e, "size");
+        }
+    }
+
+    private void remove(Integer orderId, String cause) {
+        Entry e = entries.remove(orderId);
+        if (e != null) {
+            release(e, cause);
+        }
+    }
+
+    private void release(Entry e, String cause) {
+        wipe(e.buffer);
+        totalBytes -= e.size;
+        bytesByUser.computeIfPresent(e.recipient, (k, v) -> v - e.size > 0 ? v - e.size : null);
+        meterRegistry.counter("video.plain_cache.evictions", "cause", cause).increment();
+    }
+
+    private static void wipe(ByteBuffer buffer) {
+        byte[] zeros = new byte[Math.min(WIPE_CHUNK, buffer.capacity())];
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+        }
+        buffer.clear();
+    }
+
+    /** Efface un tableau de clair obtenu par {@link #get}. */
+    public static void wipe(byte[] plain) {
+        Arrays.fill(plain, (byte) 0);
+    }
+
+    /** plain : copie du clair ; receipt : reçu de la validation qui a alimenté le cache. */
+    public record Hit(byte[] plain, ValidationReceiptJpaEntity receipt) {}
+
+    private record Entry(String recipient, ByteBuffer buffer, int size, ValidationReceiptJpaEntity receipt,
+                         LocalDateTime expiresAt) {}
+}
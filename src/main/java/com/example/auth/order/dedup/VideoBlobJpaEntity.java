@@ -0,0 +1,122 @@
+package com.example.auth.order.dedup;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Vidéo chiffrée partagée par plusieurs ordres d'un même expéditeur (table video_blobs).
+ * Clé de contenu : SHA-256 du clair (video_hash), ou racine préfixée par "merkle:" pour une vidéo envoyée
+ * par segments ({@link VideoBlobService#merkleKey}, propre à un envoi) ; ref_count = nombre d'ordres qui y font
+ * référence.
+ * Un blob dont ref_count est tombé à 0 n'est plus jamais réutilisé.
+ */
+@Entity
+@Table(
+    name = "video_blobs",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_blob_user_hash", columnNames = {"user_id", "content_hash"})
+    },
+    indexes = {
+        @Index(name = "idx_blob_object_id", columnList = "object_id")
+    }
+)
+public class VideoBlobJpaEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // La déduplication est limitée aux envois d'un même utilisateur : pas d'oracle d'existence entre utilisateurs
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "content_hash", nullable = false, length = 80)
+    private String contentHash;
+
+    @Column(name = "object_id", nullable = false, length = 200)
+    private String objectId;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "ciphertext_size")
+    private Long ciphertextSize;
+
+    @Column(name = "ciphertext_sha256", length = 64)
+    private String ciphertextSha256;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getObjectId() {
+        return objectId;
+    }
+
+    public void setObjectId(String objectId) {
+        this.objectId = objectId;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public Long getCiphertextSize() {
+        return ciphertextSize;
+    }
+
+    public void setCiphertextSize(Long ciphertextSize) {
+        this.ciphertextSize = ciphertextSize;
+    }
+
+    public String getCiphertextSha256() {
+        return ciphertextSha256;
+    }
+
+    public void setCiphertextSha256(String ciphertextSha256) {
+        this.ciphertextSha256 = ciphertextSha256;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
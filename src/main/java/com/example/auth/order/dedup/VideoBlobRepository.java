@@ -0,0 +1,38 @@
+package com.example.auth.order.dedup;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VideoBlobRepository extends JpaRepository<VideoBlobJpaEntity, Long> {
+
+    Optional<VideoBlobJpaEntity> findByUserIdAndContentHash(Integer userId, String contentHash);
+
+    Optional<VideoBlobJpaEntity> findByObjectId(String objectId);
+
+    boolean existsByUserIdAndContentHashAndRefCountGreaterThan(Integer userId, String contentHash, int refCount);
+
+    /** Prend refs références, seulement si le blob est encore vivant (ref_count > 0). */
+    @Modifying
+    @Query("update VideoBlobJpaEntity b set b.refCount = b.refCount + :refs "
+            + "where b.userId = :userId and b.contentHash = :hash and b.refCount > 0")
+    int incrementLive(@Param("userId") Integer userId, @Param("hash") String contentHash, @Param("refs") int refs);
+
+    @Modifying
+    @Query("update VideoBlobJpaEntity b set b.refCount = b.refCount - 1 where b.id = :id and b.refCount > 0")
+    int decrement(@Param("id") Long id);
+
+    @Modifying
+    @Query("update VideoBlobJpaEntity b set b.refCount = b.refCount - :refs where b.id = :id and b.refCount >= :refs")
+    int decrementBy(@Param("id") Long id, @Param("refs") int refs);
+
+    /** Supprime le blob s'il n'est plus référencé. Retourne 1 pour l'unique appelant chargé de détruire les fichiers. */
+    @Modifying
+    @Query("delete from VideoBlobJpaEntity b where b.id = :id and b.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
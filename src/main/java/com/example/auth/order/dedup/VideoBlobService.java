@@ -0,0 +1,114 @@
+package com.example.auth.order.dedup;
+
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Déduplication des vidéos par contenu (SHA-256 du clair), pour les envois d'un même expéditeur.
+ *
+ * Le premier envoi d'une vidéo enregistre son .enc/.dek comme blob (une référence par ordre créé) ; les envois
+ * suivants prennent de nouvelles références et ne créent que les lignes d'ordre et une signature. Les fichiers ne sont détruits
+ * (crypto-shredding) qu'à la libération de la dernière référence.
+ */
+@Service
+public class VideoBlobService {
+
+    private static final String MERKLE_PREFIX = "merkle:";
+
+    private final VideoBlobRepository blobRepo;
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final Counter reused;
+
+    public VideoBlobService(VideoBlobRepository blobRepo,
+                            SpringDataSignatureTransactionRepository sigRepo,
+                            MeterRegistry meterRegistry) {
+        this.blobRepo = blobRepo;
+        this.sigRepo = sigRepo;
+        this.reused = Counter.builder("video.dedup.reused").baseUnit("orders").register(meterRegistry);
+    }
+
+    /** Vrai si l'utilisateur a déjà envoyé une vidéo de ce contenu, encore disponible. */
+    public boolean exists(Integer userId, String contentHash) {
+        return contentHash != null && blobRepo.existsByUserIdAndContentHashAndRefCountGreaterThan(userId, normalize(contentHash), 0);
+    }
+
+    /**
+     * Prend refs références (une par ordre à créer) sur le blob existant de l'utilisateur pour ce contenu,
+     * s'il y en a un encore vivant. L'appelant doit rattacher chaque référence à un ordre, ou les rendre
+     * par {@link #unref}.
+     */
+    @Transactional
+    public Optional<VideoBlobJpaEntity> acquire(Integer userId, String contentHash, int refs) {
+        String hash = normalize(contentHash);
+        if (blobRepo.incrementLive(userId, hash, refs) == 0) {
+            return Optional.empty();
+        }
+        reused.increment(refs);
+        return blobRepo.findByUserIdAndContentHash(userId, hash);
+    }
+
+    /**
+     * Enregistre un nouveau blob avec refs références. Retourne null si un envoi concurrent du même contenu
+     * l'a enregistré entre-temps : l'appelant doit alors rejoindre ce blob par {@link #acquire}.
+     */
+    public VideoBlobJpaEntity register(Integer userId, String contentHash, String objectId,
+                                       long ciphertextSize, String ciphertextSha256, int refs) {
+        VideoBlobJpaEntity b = new VideoBlobJpaEntity();
+        b.setUserId(userId);
+        b.setContentHash(normalize(contentHash));
+        b.setObjectId(objectId);
+        b.setRefCount(refs);
+        b.setCiphertextSize(ciphertextSize);
+        b.setCiphertextSha256(ciphertextSha256);
+        try {
+            return blobRepo.save(b);
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    /** Rend les références prises pour des ordres finalement non enregistrés. */
+    @Transactional
+    public void unref(Long blobId, int refs) {
+        blobRepo.decrementBy(blobId, refs);
+        blobRepo.deleteIfUnreferenced(blobId);
+    }
+
+    /**
+     * Libère la référence de l'ordre sur le blob stocké sous objectId.
+     *
+     * @return vrai si d'autres ordres utilisent encore les fichiers (ils ne doivent pas être détruits) ;
+     *         faux si les fichiers ne sont pas partagés ou si cette référence était la dernière
+     */
+    @Transactional
+    public boolean stillReferencedAfterRelease(Integer orderId, String objectId) {
+        Optional<VideoBlobJpaEntity> blob = blobRepo.findByObjectId(objectId);
+        if (blob.isEmpty()) {
+            return false;
+        }
+        Long blobId = blob.get().getId();
+        if (sigRepo.detachBlob(orderId, blobId) == 1) {
+            blobRepo.decrement(blobId);
+        }
+        return blobRepo.deleteIfUnreferenced(blobId) == 0;
+    }
+
+    /**
+     * Clé de blob d'une vidéo envoyée par segments : la racine n'est pas un SHA-256 du clair et ne doit
+     * jamais être confondue avec un video_hash (recherche par hash, création sans fichier).
+     * Elle dépend du préfixe de nonce de l'envoi : propre à un envoi, elle ne permet aucune déduplication.
+     */
+    public static String merkleKey(String rootHex) {
+        return MERKLE_PREFIX + rootHex;
+    }
+
+    private static String normalize(String contentHash) {
+        return contentHash.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.auth.order.expiry;
+
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.purge.VideoPurgeService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purge des vidéos expirées (expired_video dépassé).
+ *
+ * Toutes les minutes, les ordres actifs expirant dans l'horizon configuré sont chargés (keyset sur id) dans une
+ * {@link HierarchicalTimingWheel}. À chaque tick, les ordres arrivés à échéance sont purgés par lots via
+ * {@link VideoPurgeService#shred} : destruction des DEK, is_active = false en une requête par lot,
+ * .enc mis en file de suppression différée. En cas d'échec, l'ordre reste actif : il est rechargé et retraité.
+ *
+ * Un seul réplica purge à la fois : le leader de la tâche {@value #JOB_NAME} (bail job_leases). Le bail est
+ * renouvelé au rythme des battements des tâches (app.jobs.heartbeat-ms) ; les ticks et chargements ne font que
+ * vérifier localement la détention du bail. Un nouveau jeton de fencing (bail pris ou repris) déclenche un
+ * chargement immédiat, sans attendre le prochain chargement périodique.
+ */
+@Component
+@ConditionalOnProperty(name = "app.video.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiredVideoReaper {
+
+    public static final String JOB_NAME = "video-reaper";
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredVideoReaper.class);
+
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final VideoPurgeService purgeService;
+    private final JobLeaseService leases;
+    private final HierarchicalTimingWheel<ExpiryEntry> wheel;
+    private final Set<Integer> scheduled = ConcurrentHashMap.newKeySet();
+    private final List<ExpiryEntry> pending = new ArrayList<>();
+    private final long horizonMs;
+    private final int batchSize;
+    private final int maxScheduled;
+    // Jeton du bail lors du dernier chargement (0 : pas leader)
+    private long loadedToken;
+
+    private final Counter reclaimedBytes;
+    private final Counter reapedOrders;
+    private final Timer lag;
+
+    public ExpiredVideoReaper(SpringDataSignatureTransactionRepository sigRepo,
+                              VideoPurgeService purgeService,
+                              JobLeaseService leases,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.video.reaper.tick-ms:1000}") long tickMs,
+                              @Value("${app.video.reaper.horizon-ms:600000}") long horizonMs,
+                              @Value("${app.video.reaper.batch-size:200}") int batchSize,
+                              @Value("${app.video.reaper.max-scheduled:100000}") int maxScheduled) {
+        this.sigRepo = sigRepo;
+        this.purgeService = purgeService;
+        this.leases = leases;
+        this.horizonMs = horizonMs;
+        this.batchSize = batchSize;
+        this.maxScheduled = maxScheduled;
+        // 3 niveaux de 64 cases : jusqu'à 64^3 ticks (~3 jours à 1 s), au-delà liste de débordement
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, 64, 3, System.currentTimeMillis());
+        this.reclaimedBytes = Counter.builder("video.reaper.reclaimed").baseUnit("bytes").register(meterRegistry);
+        this.reapedOrders = Counter.builder("video.reaper.reaped").baseUnit("orders").register(meterRegistry);
+        this.lag = Timer.builder("video.reaper.lag").description("Retard entre expired_video et la purge effective")
+                .register(meterRegistry);
+        Gauge.builder("video.reaper.scheduled", wheel, HierarchicalTimingWheel::size).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:5000}", initialDelay = 5000)
+    public void scheduledLease() {
+        try {
+            OptionalLong token = leases.acquireOrRenew(JOB_NAME);
+            if (token.isEmpty()) {
+                loadedToken = 0;
+                return;
+            }
+            if (token.getAsLong() != loadedToken) {
+                // Leadership prise : les échéances de l'horizon sont chargées tout de suite
+                loadUpcoming(System.currentTimeMillis());
+                loadedToken = token.getAsLong();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Renouvellement du bail {} impossible : {}", JOB_NAME, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.video.reaper.load-interval-ms:60000}", initialDelay = 5000)
+    public void scheduledLoad() {
+        try {
+            if (!leases.isLeader(JOB_NAME)) return;
+            loadUpcoming(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Chargement des vidéos à expirer impossible : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.video.reaper.tick-ms:1000}", initialDelay = 5000)
+    public void scheduledTick() {
+        try {
+            if (!leases.isLeader(JOB_NAME)) return;
+            tick(System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Purge des vidéos expirées impossible : {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            leases.release(JOB_NAME);
+        } catch (RuntimeException e) {
+            log.warn("Libération du bail {} impossible : {}", JOB_NAME, e.getMessage());
+        }
+    }
+
+    /**
+     * Charge dans la roue les ordres actifs expirant avant nowMs + horizon. Retourne le nombre d'ordres ajoutés.
+     */
+    public int loadUpcoming(long nowMs) {
+        LocalDateTime until = toLocal(nowMs + horizonMs);
+        int added = 0;
+        int afterId = 0;
+        while (scheduled.size() < maxScheduled) {
+            List<SignatureTransactionJpaEntity> page = sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(
+                    until, afterId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) break;
+            for (SignatureTransactionJpaEntity e : page) {
+                afterId = e.getId();
+                if (scheduled.add(e.getId())) {
+                    long deadline = e.getExpiredVideo().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    wheel.add(new ExpiryEntry(e.getId(), e.getPathVideo(), deadline), deadline);
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Fait avancer la roue jusqu'à nowMs et purge les ordres arrivés à échéance. Retourne le nombre d'ordres purgés.
+     */
+    public synchronized int tick(long nowMs) throws IOException {
+        pending.addAll(wheel.advance(nowMs));
+        int reaped = 0;
+        while (!pending.isEmpty()) {
+            List<ExpiryEntry> batch = new ArrayList<>(pending.subList(0, Math.min(batchSize, pending.size())));
+            reapBatch(batch, nowMs);
+            pending.subList(0, batch.size()).clear();
+            reaped += batch.size();
+        }
+        return reaped;
+    }
+
+    private void reapBatch(List<ExpiryEntry> batch, long nowMs) throws IOException {
+        List<VideoPurgeService.PurgeTarget> targets = new ArrayList<>(batch.size());
+        for (ExpiryEntry e : batch) {
+            targets.add(new VideoPurgeService.PurgeTarget(e.orderId(), e.pathVideo()));
+        }
+        reclaimedBytes.increment(purgeService.shred(targets));
+        for (ExpiryEntry e : batch) {
+            scheduled.remove(e.orderId());
+            lag.record(Math.max(0, nowMs - e.deadlineMs()), TimeUnit.MILLISECONDS);
+        }
+        reapedOrders.increment(batch.size());
+    }
+
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    private static LocalDateTime toLocal(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    record ExpiryEntry(Integer orderId, String pathVideo, long deadlineMs) {}
+}
@@ -0,0 +1,124 @@
+package com.example.auth.order.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Roue temporelle hiérarchique (Varghese &amp; Lauck) : ajout en O(1), expiration en O(1) amorti par élément,
+ * quel que soit le nombre d'échéances en attente.
+ *
+ * Le niveau L compte wheelSize cases de tickMs * wheelSize^L millisecondes. Un élément est rangé au niveau le plus
+ * bas qui couvre son échéance ; quand le temps franchit une case d'un niveau supérieur, son contenu redescend
+ * (cascade). Les échéances au-delà du dernier niveau attendent dans une liste de débordement.
+ *
+ * Non thread-safe en soi : les méthodes publiques sont synchronisées.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] span;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    private final List<Entry<T>> ready = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Paramètres de roue invalides");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.span = new long[levelCount + 1];
+        long s = 1;
+        for (int l = 0; l <= levelCount; l++) {
+            span[l] = s;
+            s = Math.multiplyExact(s, wheelSize);
+        }
+        for (int l = 0; l < levelCount; l++) {
+            List<Entry<T>>[] buckets = new List[wheelSize];
+            for (int i = 0; i < wheelSize; i++) buckets[i] = new ArrayList<>();
+            levels.add(buckets);
+        }
+        this.currentTick = Math.floorDiv(startMs, tickMs);
+    }
+
+    /**
+     * Programme item pour deadlineMs. Une échéance déjà passée sera rendue au prochain {@link #advance(long)}.
+     */
+    public synchronized void add(T item, long deadlineMs) {
+        // Arrondi au tick supérieur : un élément n'est jamais rendu avant son échéance
+        insert(new Entry<>(item, deadlineMs, -Math.floorDiv(-deadlineMs, tickMs)));
+        size++;
+    }
+
+    /**
+     * Fait avancer la roue jusqu'à nowMs et retourne les éléments arrivés à échéance.
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long target = Math.floorDiv(nowMs, tickMs);
+        drainReady(expired);
+        while (currentTick < target) {
+            currentTick++;
+            // Cascade des niveaux supérieurs dont une case commence à ce tick
+            if (currentTick % span[levels.size()] == 0 && !overflow.isEmpty()) {
+                List<Entry<T>> again = new ArrayList<>(overflow);
+                overflow.clear();
+                again.forEach(this::insert);
+            }
+            for (int l = levels.size() - 1; l >= 1; l--) {
+                if (currentTick % span[l] == 0) {
+                    List<Entry<T>> bucket = levels.get(l)[(int) ((currentTick / span[l]) % wheelSize)];
+                    if (!bucket.isEmpty()) {
+                        List<Entry<T>> again = new ArrayList<>(bucket);
+                        bucket.clear();
+                        again.forEach(this::insert);
+                    }
+                }
+            }
+            List<Entry<T>> due = levels.get(0)[(int) (currentTick % wheelSize)];
+            for (Entry<T> e : due) expired.add(e.item());
+            size -= due.size();
+            due.clear();
+            drainReady(expired);
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Date (ms) jusqu'à laquelle la roue a avancé.
+     */
+    public synchronized long currentTimeMs() {
+        return currentTick * tickMs;
+    }
+
+    private void insert(Entry<T> e) {
+        if (e.tick() <= currentTick) {
+            ready.add(e);
+            return;
+        }
+        for (int l = 0; l < levels.size(); l++) {
+            // Même case au niveau l+1 que le temps courant : l'élément tombe dans la roue du niveau l
+            if (e.tick() / span[l + 1] == currentTick / span[l + 1]) {
+                levels.get(l)[(int) ((e.tick() / span[l]) % wheelSize)].add(e);
+                return;
+            }
+        }
+        overflow.add(e);
+    }
+
+    private void drainReady(List<T> out) {
+        for (Entry<T> e : ready) out.add(e.item());
+        size -= ready.size();
+        ready.clear();
+    }
+
+    private record Entry<T>(T item, long deadlineMs, long tick) {}
+}
@@ -0,0 +1,46 @@
+package com.example.auth.order.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyJpaEntity, Long> {
+
+    Optional<IdempotencyKeyJpaEntity> findByUserIdAndIdemKey(Integer userId, String idemKey);
+
+    /** Reprend une clé dont le marqueur est abandonné ou la réponse expirée. Retourne 1 en cas de succès. */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKeyJpaEntity k set k.status = 'IN_PROGRESS', k.fingerprint = :fingerprint, "
+            + "k.httpStatus = null, k.responseBody = null, k.location = null, k.lockedUntil = :lockedUntil, "
+            + "k.expiresAt = :expiresAt where k.id = :id and ((k.status = 'IN_PROGRESS' and k.lockedUntil < :now) "
+            + "or k.expiresAt < :now)")
+    int takeOver(@Param("id") Long id, @Param("fingerprint") String fingerprint, @Param("lockedUntil") LocalDateTime lockedUntil,
+                 @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /** Enregistre la réponse d'une clé encore en cours. */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKeyJpaEntity k set k.status = 'COMPLETED', k.httpStatus = :httpStatus, "
+            + "k.responseBody = :body, k.location = :location where k.id = :id and k.status = 'IN_PROGRESS'")
+    int complete(@Param("id") Long id, @Param("httpStatus") int httpStatus, @Param("body") String body,
+                 @Param("location") String location);
+
+    /** Libère le marqueur d'une exécution en échec (la requête pourra être rejouée). */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyJpaEntity k where k.id = :id and k.status = 'IN_PROGRESS'")
+    int release(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyJpaEntity k where k.expiresAt < :now and (k.status = 'COMPLETED' or k.lockedUntil < :now)")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
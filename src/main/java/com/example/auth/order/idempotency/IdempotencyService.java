@@ -0,0 +1,341 @@
+package com.example.auth.order.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * En-tête Idempotency-Key des créations d'ordres : une requête rejouée avec la même clé (reprise après timeout)
+ * reçoit la réponse de la première exécution au lieu de relancer chiffrement, signature et création.
+ *
+ * Les réponses sont gardées en table (idempotency_keys, app.orders.idempotency.ttl-hours) et dans un cache LRU
+ * local ; un rejeu coûte une lecture. Un doublon concurrent attend la fin de la première exécution : sur le
+ * même réplica via un marqueur en mémoire, sur un autre via le marqueur IN_PROGRESS de la table (interrogé
+ * périodiquement), puis 409 au-delà de app.orders.idempotency.wait-ms. Les réponses 5xx, 409 et 429 ne sont pas
+ * conservées : la requête peut être réessayée. Une réponse 202 (?async=true) est conservée comme les autres :
+ * order_jobs garde le traitement au moins aussi longtemps que la clé, son Location rejoué mène donc depuis
+ * n'importe quel réplica à l'issue finale (ids créés ou erreur). Métrique : order.idempotency{result}.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long POLL_MS = 100;
+
+    private final IdempotencyKeyRepository repo;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final long ttlHours;
+    private final long lockMs;
+    private final long waitMs;
+    private final Map<String, Stored> completed;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository repo,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.orders.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.orders.idempotency.lock-ms:300000}") long lockMs,
+                              @Value("${app.orders.idempotency.wait-ms:30000}") long waitMs,
+                              @Value("${app.orders.idempotency.cache-size:10000}") int cacheSize) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttlHours = Math.max(1, ttlHours);
+        this.lockMs = Math.max(1000, lockMs);
+        this.waitMs = Math.max(0, waitMs);
+        int capacity = Math.max(1, cacheSize);
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Exécute action une seule fois pour (userId, key) ; les appels suivants rejouent sa réponse
+     * (en-tête Idempotent-Replayed). fingerprint : empreinte des paramètres (voir {@link #fingerprint}),
+     * 422 si la clé a déjà servi à une requête différente.
+     */
+    public ResponseEntity<?> execute(Integer userId, String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (!isValidKey(key)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key invalide (1 à 128 caractères ASCII imprimables)."));
+        }
+        String id = userId + ":" + key;
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            Stored cached = cached(id);
+            if (cached != null) {
+                return replay(cached, fingerprint);
+            }
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(id, mine);
+            if (running == null) {
+                try {
+                    return executeOwned(userId, key, id, fingerprint, action, deadline);
+                } finally {
+                    inFlight.remove(id, mine);
+                    mine.complete(null);
+                }
+            }
+            // Doublon concurrent sur ce réplica : attendre la première exécution, puis relire le cache
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return conflict();
+            }
+            try {
+                running.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return conflict();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return conflict();
+            } catch (ExecutionException ignored) {
+                // Le marqueur est toujours complété normalement
+            }
+        }
+    }
+
+    private ResponseEntity<?> executeOwned(Integer userId, String key, String id, String fingerprint,
+                                           Supplier<ResponseEntity<?>> action, long deadline) {
+        Claim claim;
+        try {
+            claim = claim(userId, key, fingerprint, deadline);
+        } catch (DataAccessException e) {
+            // Table indisponible : seul le marqueur local protège contre les doublons
+            log.warn("Clés d'idempotence indisponibles, exécution sans persistance : {}", e.getMessage());
+            ResponseEntity<?> r = action.get();
+            Stored s = storable(r) ? toStored(fingerprint, r) : null;
+            if (s != null) {
+                cache(id, s);
+            }
+            return r;
+        }
+        if (claim.stored() != null) {
+            cache(id, claim.stored());
+            return replay(claim.stored(), fingerprint);
+        }
+        if (claim.rowId() == null) {
+            return conflict();
+        }
+
+        ResponseEntity<?> r;
+        try {
+            r = action.get();
+        } catch (RuntimeException e) {
+            release(claim.rowId());
+            throw e;
+        }
+        Stored s = storable(r) ? toStored(fingerprint, r) : null;
+        if (s == null) {
+            release(claim.rowId());
+            return r;
+        }
+        try {
+            repo.complete(claim.rowId(), s.status(), s.body(), s.location());
+        } catch (DataAccessException e) {
+            log.warn("Réponse de la clé d'idempotence {} non enregistrée : {}", claim.rowId(), e.getMessage());
+        }
+        cache(id, s);
+        meterRegistry.counter("order.idempotency", "result", "executed").increment();
+        return r;
+    }
+
+    /**
+     * Pose le marqueur IN_PROGRESS, ou retourne la réponse déjà enregistrée. Si un autre réplica exécute
+     * la même clé, attend sa réponse jusqu'à deadline (Claim vide ensuite).
+     */
+    private Claim claim(Integer userId, String key, String fingerprint, long deadline) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            IdempotencyKeyJpaEntity row = new IdempotencyKeyJpaEntity();
+            row.setUserId(userId);
+            row.setIdemKey(key);
+            row.setFingerprint(fingerprint);
+            row.setStatus(IdempotencyKeyJpaEntity.IN_PROGRESS);
+            row.setLockedUntil(now.plusNanos(lockMs * 1_000_000));
+            row.setExpiresAt(now.plusHours(ttlHours));
+            try {
+                return new Claim(repo.save(row).getId(), null);
+            } catch (DataIntegrityViolationException e) {
+                // Clé existante
+            }
+            IdempotencyKeyJpaEntity existing = repo.findByUserIdAndIdemKey(userId, key).orElse(null);
+            if (existing == null) {
+                continue;
+            }
+            boolean expired = existing.getExpiresAt().isBefore(now);
+            if (IdempotencyKeyJpaEntity.COMPLETED.equals(existing.getStatus()) && !expired) {
+                return new Claim(null, new Stored(existing.getFingerprint(), existing.getHttpStatus(),
+                        existing.getResponseBody(), existing.getLocation(), existing.getExpiresAt()));
+            }
+            if (expired || existing.getLockedUntil().isBefore(now)) {
+                if (repo.takeOver(existing.getId(), fingerprint, row.getLockedUntil(), row.getExpiresAt(), now) == 1) {
+                    return new Claim(existing.getId(), null);
+                }
+                continue;
+            }
+            // En cours sur un autre réplica
+            if (System.currentTimeMillis() >= deadline) {
+                return new Claim(null, null);
+            }
+            try {
+                Thread.sleep(POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Claim(null, null);
+            }
+        }
+    }
+
+    private void release(Long rowId) {
+        try {
+            repo.release(rowId);
+        } catch (DataAccessException e) {
+            log.warn("Marqueur d'idempotence {} non libéré (repris après expiration) : {}", rowId, e.getMessage());
+        }
+    }
+
+    /** Supprime les clés expirées. */
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.sweep-ms:3600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        try {
+            int n = repo.deleteExpired(LocalDateTime.now());
+            if (n > 0) {
+                log.info("{} clé(s) d'idempotence expirée(s) supprimée(s)", n);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Purge des clés d'idempotence impossible : {}", e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> replay(Stored s, String fingerprint) {
+        if (!s.fingerprint().equals(fingerprint)) {
+            meterRegistry.counter("order.idempotency", "result", "mismatch").increment();
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Idempotency-Key déjà utilisée pour une requête différente."));
+        }
+        meterRegistry.counter("order.idempotency", "result", "replayed").increment();
+        ResponseEntity.BodyBuilder b = ResponseEntity.status(s.status()).header(REPLAYED_HEADER, "true");
+        if (s.location() != null) {
+            b.header(HttpHeaders.LOCATION, s.location());
+        }
+        if (s.body() == null) {
+            return b.build();
+        }
+        try {
+            return b.body(objectMapper.readValue(s.body(), Object.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Réponse enregistrée illisible.", e);
+        }
+    }
+
+    private ResponseEntity<?> conflict() {
+        meterRegistry.counter("order.idempotency", "result", "conflict").increment();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Requête avec la même Idempotency-Key en cours : réessayez."));
+    }
+
+    private static boolean storable(ResponseEntity<?> r) {
+        int status = r.getStatusCode().value();
+        return status < 500 && status != 409 && status != 429;
+    }
+
+    private Stored toStored(String fingerprint, ResponseEntity<?> r) {
+        String body;
+        try {
+            body = r.getBody() != null ? objectMapper.writeValueAsString(r.getBody()) : null;
+        } catch (JsonProcessingException e) {
+            log.warn("Réponse non sérialisable, non conservée : {}", e.getMessage());
+            return null;
+        }
+        return new Stored(fingerprint, r.getStatusCode().value(), body, r.getHeaders().getFirst(HttpHeaders.LOCATION),
+                LocalDateTime.now().plusHours(ttlHours));
+    }
+
+    private Stored cached(String id) {
+        synchronized (completed) {
+            Stored s = completed.get(id);
+            if (s != null && s.expiresAt().isBefore(LocalDateTime.now())) {
+                completed.remove(id);
+                return null;
+            }
+            return s;
+        }
+    }
+
+    private void cache(String id, Stored s) {
+        synchronized (completed) {
+            completed.put(id, s);
+        }
+    }
+
+    private static boolean isValidKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x21 || c > 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Empreinte SHA-256 (hex) des paramètres d'une requête (null et "" sont distincts). */
+    public static String fingerprint(String... parts) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String p : parts) {
+                if (p == null) {
+                    md.update((byte) 0);
+                } else {
+                    md.update((byte) 1);
+                    byte[] b = p.getBytes(StandardCharsets.UTF_8);
+                    md.update(ByteBuffer.allocate(4).putInt(b.length).array());
+                    md.update(b);
+                }
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** rowId : marqueur posé par cet appel ; stored : réponse déjà enregistrée ; les deux null : en cours ailleurs. */
+    private record Claim(Long rowId, Stored stored) {}
+
+    private record Stored(String fingerprint, int status, String body, String location, LocalDateTime expiresAt) {}
+}
@@ -0,0 +1,64 @@
+package com.example.auth.order.keys;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU borné de KEK en clair. Les tableaux sont mis à zéro à l'éviction et au vidage ;
+ * {@link #get} retourne une copie, que l'appelant doit effacer après usage.
+ */
+public class KekCache {
+
+    private final LinkedHashMap<String, byte[]> entries;
+
+    public KekCache(int maxEntries) {
+        int max = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                if (size() > max) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Copie de la KEK en cache, ou null. */
+    public synchronized byte[] get(String kekId) {
+        byte[] kek = entries.get(kekId);
+        return kek != null ? kek.clone() : null;
+    }
+
+    /** Met en cache une copie de la KEK. */
+    public synchronized void put(String kekId, byte[] kek) {
+        byte[] previous = entries.put(kekId, kek.clone());
+        if (previous != null) {
+            Arrays.fill(previous, (byte) 0);
+        }
+    }
+
+    /** Efface et retire une entrée. */
+    public synchronized void remove(String kekId) {
+        byte[] previous = entries.remove(kekId);
+        if (previous != null) {
+            Arrays.fill(previous, (byte) 0);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Efface et retire toutes les KEK. */
+    public synchronized void clear() {
+        Iterator<byte[]> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Arrays.fill(it.next(), (byte) 0);
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.auth.order.keys;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Clé de chiffrement de clés (KEK) d'une période (table video_keks).
+ * Les DEK des vidéos créées pendant la période sont chiffrés localement avec cette KEK ;
+ * la KEK elle-même n'est stockée que chiffrée par Vault Transit (clé video-dek).
+ */
+@Entity
+@Table(name = "video_keks")
+public class VideoKekJpaEntity {
+
+    // k<début de période en secondes epoch>
+    @Id
+    @Column(name = "id", length = 32)
+    private String id;
+
+    @Column(name = "wrapped_kek", nullable = false, columnDefinition = "text")
+    private String wrappedKek;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters & Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getWrappedKek() {
+        return wrappedKek;
+    }
+
+    public void setWrappedKek(String wrappedKek) {
+        this.wrappedKek = wrappedKek;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.auth.order.keys;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface VideoKekRepository extends JpaRepository<VideoKekJpaEntity, String> {
+
+    /** Insère la KEK de la période si aucun réplica ne l'a encore créée. Retourne 0 si elle existe déjà. */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO video_keks (id, wrapped_kek, created_at) VALUES (:id, :wrapped, NOW(3))",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("wrapped") String wrappedKek);
+
+    @Transactional
+    @Modifying
+    @Query("update VideoKekJpaEntity k set k.wrappedKek = :wrapped where k.id = :id")
+    int updateWrapped(@Param("id") String id, @Param("wrapped") String wrappedKek);
+}
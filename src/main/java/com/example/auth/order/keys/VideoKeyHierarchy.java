@@ -0,0 +1,203 @@
+package com.example.auth.order.keys;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Chiffrement des DEK vidéo.
+ *
+ * Sans hiérarchie (app.vault.kek.enabled=false), chaque DEK est chiffré par Vault Transit (vault:vN:...) :
+ * un appel réseau par création et par validation. Avec la hiérarchie, les DEK sont chiffrés localement
+ * (AES-GCM) par la KEK de la période en cours (kek:&lt;id&gt;:...), et seule la KEK passe par Vault.
+ * Les KEK en clair restent dans un cache LRU borné ({@link KekCache}) : un appel Vault par KEK et par réplica.
+ *
+ * Le déchiffrement accepte toujours les deux formats : les DEK existants restent lisibles.
+ * Détruire un .dek détruit toujours la vidéo (crypto-shredding), quel que soit le format.
+ */
+@Service
+public class VideoKeyHierarchy {
+
+    public static final String KEK_PREFIX = "kek:";
+
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int KEK_LENGTH = 32;
+
+    private final UserKeyVaultPort vaultPort;
+    private final VideoKekRepository kekRepo;
+    private final String dekKeyName;
+    private final boolean enabled;
+    private final long periodSeconds;
+    private final KekCache cache;
+    private final SecureRandom rng = new SecureRandom();
+    private final Object loadLock = new Object();
+    private final Counter hits;
+    private final Counter misses;
+
+    public VideoKeyHierarchy(UserKeyVaultPort vaultPort,
+                             VideoKekRepository kekRepo,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.vault.video-dek-key:video-dek}") String dekKeyName,
+                             @Value("${app.vault.kek.enabled:false}") boolean enabled,
+                             @Value("${app.vault.kek.period-hours:24}") long periodHours,
+                             @Value("${app.vault.kek.cache-size:64}") int cacheSize) {
+        this.vaultPort = vaultPort;
+        this.kekRepo = kekRepo;
+        this.dekKeyName = dekKeyName;
+        this.enabled = enabled;
+        this.periodSeconds = Math.max(1, periodHours) * 3600;
+        this.cache = new KekCache(cacheSize);
+        this.hits = Counter.builder("vault.kek.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("vault.kek.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("vault.kek.cache.size", cache, KekCache::size).register(meterRegistry);
+    }
+
+    /** Chiffre un DEK : par la KEK de la période si la hiérarchie est active, sinon par Vault. */
+    public String wrapDek(byte[] dek) throws GeneralSecurityException {
+        if (!enabled) {
+            return vaultPort.encryptDek(dekKeyName, dek);
+        }
+        String kekId = periodId(Instant.now());
+        byte[] kek = kek(kekId, true);
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            rng.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(kek, "AES"), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(kekId.getBytes(StandardCharsets.UTF_8));
+            byte[] ct = cipher.doFinal(dek);
+            byte[] out = new byte[iv.length + ct.length];
+            System.arraycopy(iv, 0, out, 0, iv.length);
+            System.arraycopy(ct, 0, out, iv.length, ct.length);
+            return KEK_PREFIX + kekId + ":" + Base64.getEncoder().encodeToString(out);
+        } finally {
+            Arrays.fill(kek, (byte) 0);
+        }
+    }
+
+    /** Déchiffre un DEK, au format kek:... (KEK en cache) ou vault:vN:... (appel Vault). */
+    public byte[] unwrapDek(String wrapped) throws GeneralSecurityException {
+        if (!wrapped.startsWith(KEK_PREFIX)) {
+            return vaultPort.decryptDek(dekKeyName, wrapped);
+        }
+        int sep = wrapped.indexOf(':', KEK_PREFIX.length());
+        if (sep < 0) {
+            throw new IllegalStateException("DEK chiffré mal formé.");
+        }
+        String kekId = wrapped.substring(KEK_PREFIX.length(), sep);
+        byte[] raw = Base64.getDecoder().decode(wrapped.substring(sep + 1));
+        if (raw.length <= GCM_IV_LENGTH) {
+            throw new IllegalStateException("DEK chiffré mal formé.");
+        }
+        byte[] kek = kek(kekId, false);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(kek, "AES"),
+                    new GCMParameterSpec(GCM_TAG_LENGTH, raw, 0, GCM_IV_LENGTH));
+            cipher.updateAAD(kekId.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(raw, GCM_IV_LENGTH, raw.length - GCM_IV_LENGTH);
+        } finally {
+            Arrays.fill(kek, (byte) 0);
+        }
+    }
+
+    /**
+     * Rechiffre par Vault (rewrap) les KEK encore sur une version de clé antérieure à targetVersion.
+     * Retourne le nombre de KEK rechiffrées.
+     */
+    public int rewrapStaleKeks(int targetVersion) {
+        List<VideoKekJpaEntity> stale = new ArrayList<>();
+        for (VideoKekJpaEntity k : kekRepo.findAll()) {
+            int v = transitVersionOf(k.getWrappedKek());
+            if (v >= 0 && v < targetVersion) stale.add(k);
+        }
+        if (stale.isEmpty()) return 0;
+        List<String> result = vaultPort.rewrapDeks(dekKeyName, stale.stream().map(VideoKekJpaEntity::getWrappedKek).toList());
+        int done = 0;
+        for (int i = 0; i < stale.size(); i++) {
+            if (result.get(i) != null) {
+                done += kekRepo.updateWrapped(stale.get(i).getId(), result.get(i));
+            }
+        }
+        return done;
+    }
+
+    @PreDestroy
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Identifiant de la KEK couvrant l'instant donné : k&lt;début de période en secondes epoch&gt;. */
+    String periodId(Instant at) {
+        long start = Math.floorDiv(at.getEpochSecond(), periodSeconds) * periodSeconds;
+        return "k" + start;
+    }
+
+    /** Copie de la KEK (à effacer par l'appelant). create : créer la KEK si elle n'existe pas encore. */
+    private byte[] kek(String kekId, boolean create) {
+        byte[] kek = cache.get(kekId);
+        if (kek != null) {
+            hits.increment();
+            return kek;
+        }
+        synchronized (loadLock) {
+            kek = cache.get(kekId);
+            if (kek != null) {
+                hits.increment();
+                return kek;
+            }
+            misses.increment();
+            VideoKekJpaEntity row = kekRepo.findById(kekId).orElse(null);
+            if (row == null) {
+                if (!create) {
+                    throw new IllegalStateException("KEK introuvable : " + kekId);
+                }
+                byte[] fresh = new byte[KEK_LENGTH];
+                rng.nextBytes(fresh);
+                if (kekRepo.insertIfAbsent(kekId, vaultPort.encryptDek(dekKeyName, fresh)) == 1) {
+                    cache.put(kekId, fresh);
+                    return fresh;
+                }
+                // Créée en même temps par un autre réplica : on utilise la sienne
+                Arrays.fill(fresh, (byte) 0);
+                row = kekRepo.findById(kekId).orElseThrow(() -> new IllegalStateException("KEK introuvable : " + kekId));
+            }
+            kek = vaultPort.decryptDek(dekKeyName, row.getWrappedKek());
+            cache.put(kekId, kek);
+            return kek;
+        }
+    }
+
+    /** Version de clé d'un ciphertext Transit (vault:vN:...), ou -1 si le format est autre. */
+    public static int transitVersionOf(String ciphertext) {
+        if (ciphertext == null || !ciphertext.startsWith("vault:v")) return -1;
+        int end = ciphertext.indexOf(':', 7);
+        if (end < 0) return -1;
+        try {
+            return Integer.parseInt(ciphertext.substring(7, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.auth.order.purge;
+
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.order.storage.VideoStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suppression physique, en arrière-plan, des .enc dont le DEK a été détruit (file video_deletion_queue).
+ *
+ * Tourne sur un thread de priorité minimale, sur le seul leader de {@value #JOB_NAME}, et limite le nombre
+ * de suppressions par seconde : les I/O de suppression ne concurrencent pas le trafic utilisateur.
+ * Le bail est renouvelé à chaque page et la vidange s'arrête dès qu'il est perdu : une file plus longue que
+ * le bail n'est jamais vidée par deux réplicas à la fois.
+ */
+@Component
+@ConditionalOnProperty(name = "app.video.purge.deleter.enabled", havingValue = "true", matchIfMissing = true)
+public class LazyVideoDeleter {
+
+    public static final String JOB_NAME = "video-lazy-delete";
+
+    private static final Logger log = LoggerFactory.getLogger(LazyVideoDeleter.class);
+
+    private final VideoDeletionRepository deletionRepo;
+    private final VideoStore videoStore;
+    private final JobLeaseService leases;
+    private final int batchSize;
+    private final long pauseNanos;
+    private final long retryDelayMs;
+    private final ExecutorService executor;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final Counter reclaimedBytes;
+    private final Counter deleted;
+
+    public LazyVideoDeleter(VideoDeletionRepository deletionRepo,
+                            VideoStore videoStore,
+                            JobLeaseService leases,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.video.purge.batch-size:100}") int batchSize,
+                            @Value("${app.video.purge.deletes-per-second:20}") int deletesPerSecond,
+                            @Value("${app.video.purge.retry-delay-ms:300000}") long retryDelayMs) {
+        this.deletionRepo = deletionRepo;
+        this.videoStore = videoStore;
+        this.leases = leases;
+        this.batchSize = batchSize;
+        this.pauseNanos = deletesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / deletesPerSecond : 0;
+        this.retryDelayMs = retryDelayMs;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "video-lazy-delete");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        this.reclaimedBytes = Counter.builder("video.purge.reclaimed").baseUnit("bytes").register(meterRegistry);
+        this.deleted = Counter.builder("video.purge.deleted").baseUnit("objects").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.video.purge.interval-ms:10000}", initialDelay = 10000)
+    public void scheduledDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                log.warn("Suppression différée des vidéos impossible : {}", e.getMessage());
+            } finally {
+                draining.set(false);
+            }
+        });
+    }
+
+    /**
+     * Vide la file (objets dont le recul est écoulé) dans le thread courant, tant que ce réplica est leader.
+     * Retourne le nombre d'objets supprimés.
+     */
+    public int drain() {
+        int total = 0;
+        while (!Thread.currentThread().isInterrupted() && leases.acquireOrRenew(JOB_NAME).isPresent()) {
+            List<VideoDeletionJpaEntity> page = deletionRepo.findByNotBeforeLessThanEqualOrderByIdAsc(
+                    LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (page.isEmpty()) break;
+            List<Long> done = new ArrayList<>(page.size());
+            List<VideoDeletionJpaEntity> retry = new ArrayList<>();
+            for (VideoDeletionJpaEntity d : page) {
+                try {
+                    long size = videoStore.exists(d.getObjectId()) ? videoStore.size(d.getObjectId()) : 0;
+                    if (videoStore.delete(d.getObjectId())) {
+                        reclaimedBytes.increment(size);
+                        deleted.increment();
+                    }
+                    done.add(d.getId());
+                } catch (IOException | RuntimeException e) {
+                    d.setAttempts(d.getAttempts() + 1);
+                    d.setNotBefore(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryDelayMs * d.getAttempts())));
+                    retry.add(d);
+                    log.warn("Suppression de {} en échec (tentative {}) : {}", d.getObjectId(), d.getAttempts(), e.getMessage());
+                }
+                // Bail perdu en cours de page (pause GC, base lente) : le reste est laissé au nouveau leader
+                if (!pace() || !leases.isLeader(JOB_NAME)) break;
+            }
+            deletionRepo.deleteAllByIdInBatch(done);
+            deletionRepo.saveAll(retry);
+            total += done.size();
+        }
+        return total;
+    }
+
+    private boolean pace() {
+        if (pauseNanos == 0) return true;
+        try {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.auth.order.purge;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Objet du store vidéo en attente de suppression physique (file video_deletion_queue).
+ * Le DEK correspondant est déjà détruit : le contenu est irrécupérable, seule la place disque reste à libérer.
+ */
+@Entity
+@Table(
+    name = "video_deletion_queue",
+    indexes = {
+        @Index(name = "idx_deletion_not_before", columnList = "not_before")
+    }
+)
+public class VideoDeletionJpaEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "object_id", nullable = false, length = 200)
+    private String objectId;
+
+    @Column(name = "order_id")
+    private Integer orderId;
+
+    @Column(name = "enqueued_at", nullable = false)
+    private LocalDateTime enqueuedAt;
+
+    // Pas de nouvelle tentative avant cette date (recul après échec)
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @PrePersist
+    public void prePersist() {
+        if (enqueuedAt == null) {
+            enqueuedAt = LocalDateTime.now();
+        }
+        if (notBefore == null) {
+            notBefore = enqueuedAt;
+        }
+    }
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getObjectId() {
+        return objectId;
+    }
+
+    public void setObjectId(String objectId) {
+        this.objectId = objectId;
+    }
+
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Integer orderId) {
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(LocalDateTime enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    public LocalDateTime getNotBefore() {
+        return notBefore;
+    }
+
+    public void setNotBefore(LocalDateTime notBefore) {
+        this.notBefore = notBefore;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.auth.order.purge;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VideoDeletionRepository extends JpaRepository<VideoDeletionJpaEntity, Long> {
+
+    /** Prochain lot d'objets à supprimer (recul écoulé), dans l'ordre d'arrivée. */
+    List<VideoDeletionJpaEntity> findByNotBeforeLessThanEqualOrderByIdAsc(LocalDateTime now, Pageable pageable);
+}
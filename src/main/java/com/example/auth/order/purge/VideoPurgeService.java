@@ -0,0 +1,129 @@
+package com.example.auth.order.purge;
+
+import com.example.auth.inscription.ports.out.UserVideoPurgePort;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.cache.DecryptedVideoCache;
+import com.example.auth.order.dedup.VideoBlobService;
+import com.example.auth.order.storage.VideoStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Purge par destruction de clé (crypto-shredding).
+ *
+ * 1) is_active = false sur les ordres concernés.
+ * 2) Suppression du DEK chiffré (.dek, quelques centaines d'octets) : la vidéo devient irrécupérable immédiatement.
+ * 3) Le .enc (volumineux) est mis en file et supprimé plus tard par {@link LazyVideoDeleter}.
+ *
+ * Une vidéo dédupliquée partagée par plusieurs ordres ({@link VideoBlobService}) n'est détruite qu'avec la
+ * libération de sa dernière référence ; avant, seul l'ordre purgé est désactivé.
+ *
+ * Toutes les étapes sont idempotentes : une purge interrompue peut être relancée.
+ */
+@Service
+public class VideoPurgeService implements UserVideoPurgePort {
+
+    static final int BATCH = 200;
+
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final VideoDeletionRepository deletionRepo;
+    private final VideoStore videoStore;
+    private final VideoBlobService blobService;
+    private final DecryptedVideoCache plainCache;
+    private final Counter shredded;
+
+    public VideoPurgeService(SpringDataSignatureTransactionRepository sigRepo,
+                             VideoDeletionRepository deletionRepo,
+                             VideoStore videoStore,
+                             VideoBlobService blobService,
+                             DecryptedVideoCache plainCache,
+                             MeterRegistry meterRegistry) {
+        this.sigRepo = sigRepo;
+        this.deletionRepo = deletionRepo;
+        this.videoStore = videoStore;
+        this.blobService = blobService;
+        this.plainCache = plainCache;
+        this.shredded = Counter.builder("video.purge.shredded").baseUnit("orders").register(meterRegistry);
+    }
+
+    /**
+     * Purge un ordre, à la demande de son expéditeur.
+     */
+    public void purgeOrder(Integer orderId, Integer userId) throws IOException {
+        SignatureTransactionJpaEntity order = sigRepo.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Ordre introuvable"));
+        if (userId == null || !userId.equals(order.getUserId())) {
+            throw new IllegalArgumentException("Seul l'expéditeur peut supprimer cet ordre.");
+        }
+        shred(List.of(new PurgeTarget(order.getId(), order.getPathVideo())));
+    }
+
+    @Override
+    public int purgeUserVideos(Integer userId) {
+        int purged = 0;
+        int afterId = 0;
+        while (true) {
+            List<SignatureTransactionJpaEntity> page = sigRepo.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                    userId, afterId, PageRequest.of(0, BATCH));
+            if (page.isEmpty()) break;
+            List<PurgeTarget> targets = new ArrayList<>(page.size());
+            for (SignatureTransactionJpaEntity e : page) {
+                targets.add(new PurgeTarget(e.getId(), e.getPathVideo()));
+                afterId = e.getId();
+            }
+            try {
+                shred(targets);
+            } catch (IOException e) {
+                throw new IllegalStateException("Purge des vidéos impossible : " + e.getMessage(), e);
+            }
+            purged += targets.size();
+        }
+        return purged;
+    }
+
+    /**
+     * Détruit les DEK, efface les clairs en cache, désactive les ordres et met les .enc en file de suppression.
+     * Retourne la taille totale des .enc mis en file (place libérée à terme).
+     */
+    public long shred(List<PurgeTarget> targets) throws IOException {
+        if (targets.isEmpty()) return 0;
+        List<Integer> ids = new ArrayList<>(targets.size());
+        List<PurgeTarget> destroyed = new ArrayList<>(targets.size());
+        for (PurgeTarget t : targets) {
+            ids.add(t.orderId());
+            plainCache.invalidate(t.orderId());
+            if (!blobService.stillReferencedAfterRelease(t.orderId(), VideoStore.objectIdOf(t.pathVideo()))) {
+                destroyed.add(t);
+            }
+        }
+        // Désactivation avant destruction du DEK : un rewrap concurrent qui réécrit le .dek après sa suppression
+        // voit alors l'ordre inactif et efface sa copie (DekRewrapJob)
+        sigRepo.deactivateByIdIn(ids);
+
+        long pendingBytes = 0;
+        List<VideoDeletionJpaEntity> queued = new ArrayList<>(destroyed.size());
+        for (PurgeTarget t : destroyed) {
+            String encId = VideoStore.objectIdOf(t.pathVideo());
+            videoStore.delete(VideoStore.dekIdOf(encId));
+            if (videoStore.exists(encId)) {
+                pendingBytes += videoStore.size(encId);
+                VideoDeletionJpaEntity d = new VideoDeletionJpaEntity();
+                d.setObjectId(encId);
+                d.setOrderId(t.orderId());
+                queued.add(d);
+            }
+        }
+        deletionRepo.saveAll(queued);
+        shredded.increment(ids.size());
+        return pendingBytes;
+    }
+
+    public record PurgeTarget(Integer orderId, String pathVideo) {}
+}
@@ -0,0 +1,81 @@
+package com.example.auth.order.receipt;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Reçu de validation d'un ordre (table validation_receipts) : enregistré à la première validation réussie
+ * (déchiffrement et signature vérifiés). Les validations suivantes s'appuient sur le reçu et sur l'empreinte
+ * du fichier chiffré au lieu de revérifier la signature par Vault.
+ */
+@Entity
+@Table(name = "validation_receipts")
+public class ValidationReceiptJpaEntity {
+
+    @Id
+    @Column(name = "order_id")
+    private Integer orderId;
+
+    // SHA-256 (hex) du clair dont la signature a été vérifiée
+    @Column(name = "video_hash", nullable = false, length = 64)
+    private String videoHash;
+
+    // SHA-256 (hex) du fichier chiffré au moment de la vérification
+    @Column(name = "ciphertext_sha256", nullable = false, length = 64)
+    private String ciphertextSha256;
+
+    // Version de la clé de signature Transit (vault:vN:...), -1 si inconnue
+    @Column(name = "key_version", nullable = false)
+    private int keyVersion;
+
+    @Column(name = "validated_at", nullable = false)
+    private LocalDateTime validatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (validatedAt == null) {
+            validatedAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters & Setters
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Integer orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getVideoHash() {
+        return videoHash;
+    }
+
+    public void setVideoHash(String videoHash) {
+        this.videoHash = videoHash;
+    }
+
+    public String getCiphertextSha256() {
+        return ciphertextSha256;
+    }
+
+    public void setCiphertextSha256(String ciphertextSha256) {
+        this.ciphertextSha256 = ciphertextSha256;
+    }
+
+    public int getKeyVersion() {
+        return keyVersion;
+    }
+
+    public void setKeyVersion(int keyVersion) {
+        this.keyVersion = keyVersion;
+    }
+
+    public LocalDateTime getValidatedAt() {
+        return validatedAt;
+    }
+
+    public void setValidatedAt(LocalDateTime validatedAt) {
+        this.validatedAt = validatedAt;
+    }
+}
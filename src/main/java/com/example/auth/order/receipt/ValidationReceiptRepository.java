@@ -0,0 +1,8 @@
+package com.example.auth.order.receipt;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ValidationReceiptRepository extends JpaRepository<ValidationReceiptJpaEntity, Integer> {
+}
@@ -0,0 +1,138 @@
+package com.example.auth.order.receipt;
+
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Reçus de validation : enregistrement en base et jeton signé (JWT HS256) vérifiable hors ligne.
+ *
+ * Claims du jeton : sub = id de l'ordre, typ = {@value #TOKEN_TYPE}, vh = SHA-256 du clair vérifié,
+ * ch = SHA-256 du fichier chiffré, kv = version de la clé de signature, iat = date de validation,
+ * exp = expiration de la vidéo. La clé est dédiée aux reçus (app.receipts.secret, ou dérivée de
+ * auth.jwt.secret) : un reçu ne peut pas servir de jeton d'authentification.
+ */
+@Service
+public class ValidationReceiptService {
+
+    public static final String TOKEN_TYPE = "validation-receipt";
+
+    private static final Logger log = LoggerFactory.getLogger(ValidationReceiptService.class);
+
+    private final ValidationReceiptRepository receiptRepo;
+    private final SecretKey key;
+
+    public ValidationReceiptService(ValidationReceiptRepository receiptRepo,
+                                    @Value("${app.receipts.secret:}") String receiptSecret,
+                                    @Value("${auth.jwt.secret}") String jwtSecret) {
+        this.receiptRepo = receiptRepo;
+        this.key = Keys.hmacShaKeyFor(receiptSecret != null && !receiptSecret.isBlank()
+                ? requireLength(receiptSecret.getBytes(StandardCharsets.UTF_8))
+                : derive(jwtSecret));
+    }
+
+    /** Reçu de l'ordre ; vide aussi si la table est indisponible (la validation complète reste possible). */
+    public Optional<ValidationReceiptJpaEntity> find(Integer orderId) {
+        try {
+            return receiptRepo.findById(orderId);
+        } catch (DataAccessException e) {
+            log.warn("Lecture du reçu de l'ordre #{} impossible : {}", orderId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Enregistre (ou remplace) le reçu d'un ordre dont la signature vient d'être vérifiée.
+     * Un échec d'enregistrement n'empêche pas la validation : le reçu est alors seulement émis.
+     */
+    public ValidationReceiptJpaEntity record(SignatureTransactionJpaEntity order, String ciphertextSha256) {
+        ValidationReceiptJpaEntity r = new ValidationReceiptJpaEntity();
+        r.setOrderId(order.getId());
+        r.setVideoHash(order.getVideoHash());
+        r.setCiphertextSha256(ciphertextSha256);
+        r.setKeyVersion(VideoKeyHierarchy.transitVersionOf(order.getSignature()));
+        r.setValidatedAt(LocalDateTime.now());
+        try {
+            return receiptRepo.save(r);
+        } catch (DataAccessException e) {
+            log.warn("Enregistrement du reçu de l'ordre #{} impossible : {}", order.getId(), e.getMessage());
+            return r;
+        }
+    }
+
+    /** Vrai si le reçu couvre encore l'ordre tel qu'il est enregistré (même hash, même signature). */
+    public boolean matches(ValidationReceiptJpaEntity receipt, SignatureTransactionJpaEntity order) {
+        return receipt.getVideoHash() != null && receipt.getVideoHash().equalsIgnoreCase(order.getVideoHash())
+                && receipt.getKeyVersion() == VideoKeyHierarchy.transitVersionOf(order.getSignature());
+    }
+
+    /** Jeton signé du reçu. */
+    public String token(ValidationReceiptJpaEntity receipt, LocalDateTime expiresAt) {
+        var builder = Jwts.builder()
+                .subject(String.valueOf(receipt.getOrderId()))
+                .claim("typ", TOKEN_TYPE)
+                .claim("vh", receipt.getVideoHash())
+                .claim("ch", receipt.getCiphertextSha256())
+                .claim("kv", receipt.getKeyVersion())
+                .issuedAt(toDate(receipt.getValidatedAt()));
+        if (expiresAt != null) {
+            builder.expiration(toDate(expiresAt));
+        }
+        return builder.signWith(key).compact();
+    }
+
+    /**
+     * Vérifie un jeton de reçu (signature, type, expiration). Lève IllegalArgumentException s'il est invalide.
+     */
+    public Claims verify(String token) {
+        try {
+            Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+            if (!TOKEN_TYPE.equals(claims.get("typ", String.class))) {
+                throw new IllegalArgumentException("Jeton de reçu invalide.");
+            }
+            return claims;
+        } catch (JwtException e) {
+            throw new IllegalArgumentException("Jeton de reçu invalide.", e);
+        }
+    }
+
+    private static Date toDate(LocalDateTime t) {
+        return Date.from(t.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static byte[] requireLength(byte[] secret) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("Le secret des reçus doit faire au moins 32 octets (HS256)");
+        }
+        return secret;
+    }
+
+    /** Clé dérivée : HMAC-SHA256(auth.jwt.secret, "validation-receipt"). */
+    private static byte[] derive(String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(requireLength(jwtSecret.getBytes(StandardCharsets.UTF_8)), "HmacSHA256"));
+            return mac.doFinal(TOKEN_TYPE.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
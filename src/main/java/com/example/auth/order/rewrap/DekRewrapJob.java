@@ -0,0 +1,201 @@
+package com.example.auth.order.rewrap;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.jobs.service.ShardedJob;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import com.example.auth.order.storage.VideoStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rechiffrement des DEK après rotation de la clé Transit video-dek, réparti entre réplicas ({@link ShardedJob}).
+ *
+ * Parcourt les ordres actifs par plages d'ids ; les .dek encore chiffrés avec une version antérieure à
+ * latest_version sont envoyés à Transit rewrap par lots (batch_input), puis remplacés dans le store
+ * (écriture atomique). Le DEK en clair ne sort jamais de Vault. La progression est enregistrée après chaque
+ * page (job_shards) : une exécution interrompue reprend où elle s'était arrêtée, et une relance ne traite que
+ * les DEK restés sur une ancienne version. Le parallélisme est celui des workers (app.jobs.workers) de chaque
+ * réplica, un appel Vault à la fois par worker.
+ *
+ * Les KEK de période (hiérarchie de clés, video_keks) sont rechiffrées au lancement par le leader ; les DEK
+ * qu'elles protègent (format kek:...) ne dépendent pas de la version de la clé Transit.
+ *
+ * À lancer après la rotation : POST /api/admin/jobs/{@value #JOB_NAME}/run.
+ */
+@Component
+@ConditionalOnProperty(name = "app.vault.rewrap.enabled", havingValue = "true", matchIfMissing = true)
+public class DekRewrapJob implements ShardedJob {
+
+    public static final String JOB_NAME = "video-dek-rewrap";
+
+    static final int PAGE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(DekRewrapJob.class);
+
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final VideoStore videoStore;
+    private final UserKeyVaultPort vaultPort;
+    private final VideoKeyHierarchy keyHierarchy;
+    private final int batchSize;
+    private final Duration interval;
+    private final Counter rewrapped;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    @Value("${app.vault.video-dek-key:video-dek}")
+    private String videoDekKeyName = "video-dek";
+
+    public DekRewrapJob(SpringDataSignatureTransactionRepository sigRepo,
+                        VideoStore videoStore,
+                        UserKeyVaultPort vaultPort,
+                        VideoKeyHierarchy keyHierarchy,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.vault.rewrap.batch-size:250}") int batchSize,
+                        @Value("${app.vault.rewrap.interval-hours:0}") long intervalHours) {
+        this.sigRepo = sigRepo;
+        this.videoStore = videoStore;
+        this.vaultPort = vaultPort;
+        this.keyHierarchy = keyHierarchy;
+        this.batchSize = Math.max(1, batchSize);
+        this.interval = intervalHours > 0 ? Duration.ofHours(intervalHours) : null;
+        this.rewrapped = Counter.builder("video.rewrap.rewrapped").baseUnit("keys").register(meterRegistry);
+        this.failed = Counter.builder("video.rewrap.failed").baseUnit("keys").register(meterRegistry);
+        this.batchTimer = Timer.builder("video.rewrap.batch").description("Durée d'un appel Transit rewrap par lot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return JOB_NAME;
+    }
+
+    @Override
+    public Duration interval() {
+        return interval;
+    }
+
+    @Override
+    public long shardSize() {
+        return 20_000;
+    }
+
+    @Override
+    public IdRange plan() {
+        // KEK de période (quelques lignes) : rechiffrées par le leader ; les DEK kek:... n'ont pas à l'être
+        int keks = keyHierarchy.rewrapStaleKeks(vaultPort.latestKeyVersion(videoDekKeyName));
+        if (keks > 0) {
+            log.info("{} KEK rechiffrées sur la dernière version de {}", keks, videoDekKeyName);
+        }
+        return sigRepo.findTopByOrderByIdDesc()
+                .map(last -> new IdRange(1, (long) last.getId() + 1))
+                .orElse(null);
+    }
+
+    @Override
+    public long process(ShardContext shard) throws IOException {
+        int target = vaultPort.latestKeyVersion(videoDekKeyName);
+        int cursor = (int) shard.cursor();
+        int to = (int) shard.to();
+        while (cursor < to) {
+            List<SignatureTransactionJpaEntity> page = sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(
+                    cursor, to, PageRequest.of(0, PAGE));
+            if (page.isEmpty()) break;
+            // Un blob dédupliqué est partagé par plusieurs ordres : son DEK n'est rechiffré qu'une fois.
+            // path_video d'origine conservés (chemins absolus hérités compris) pour le contrôle des ordres actifs
+            Map<String, Set<String>> pathsByEncId = new LinkedHashMap<>();
+            for (SignatureTransactionJpaEntity order : page) {
+                pathsByEncId.computeIfAbsent(VideoStore.objectIdOf(order.getPathVideo()), k -> new HashSet<>())
+                        .add(order.getPathVideo());
+                cursor = order.getId() + 1;
+            }
+            long done = rewrapPage(pathsByEncId, target);
+            if (!shard.checkpoint(cursor, done)) {
+                // Part reprise par un autre réplica
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private long rewrapPage(Map<String, Set<String>> pathsByEncId, int target) throws IOException {
+        List<String> stale = new ArrayList<>();
+        List<String> ciphertexts = new ArrayList<>();
+        for (String encId : pathsByEncId.keySet()) {
+            String dekId = VideoStore.dekIdOf(encId);
+            String wrapped;
+            try {
+                wrapped = new String(videoStore.get(dekId), StandardCharsets.UTF_8).trim();
+            } catch (NoSuchFileException e) {
+                // Purgé entre-temps (crypto-shredding)
+                continue;
+            }
+            int version = VideoKeyHierarchy.transitVersionOf(wrapped);
+            if (version < 0 || version >= target) continue;
+            stale.add(encId);
+            ciphertexts.add(wrapped);
+        }
+        long done = 0;
+        for (int i = 0; i < stale.size(); i += batchSize) {
+            int end = Math.min(stale.size(), i + batchSize);
+            done += rewrapBatch(stale.subList(i, end), ciphertexts.subList(i, end), pathsByEncId);
+        }
+        return done;
+    }
+
+    private long rewrapBatch(List<String> encIds, List<String> ciphertexts, Map<String, Set<String>> pathsByEncId)
+            throws IOException {
+        long start = System.nanoTime();
+        List<String> result = vaultPort.rewrapDeks(videoDekKeyName, ciphertexts);
+        batchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        List<String> written = new ArrayList<>(encIds.size());
+        for (int i = 0; i < encIds.size(); i++) {
+            String ct = result.get(i);
+            if (ct == null) {
+                failed.increment();
+                log.warn("Rewrap du DEK de {} refusé par Vault", encIds.get(i));
+                continue;
+            }
+            videoStore.put(VideoStore.dekIdOf(encIds.get(i)), ct.getBytes(StandardCharsets.UTF_8));
+            written.add(encIds.get(i));
+        }
+        if (written.isEmpty()) return 0;
+        // Une purge concurrente a pu détruire le DEK entre la lecture et l'écriture : il ne doit pas être recréé.
+        // La purge désactive les ordres avant de supprimer le .dek : un ordre encore actif ici n'a pas été purgé.
+        // Requête sur les path_video réels : un ordre au chemin absolu hérité ne correspond pas à son identifiant
+        Set<String> paths = new HashSet<>();
+        for (String encId : written) {
+            paths.addAll(pathsByEncId.get(encId));
+        }
+        Set<String> live = new HashSet<>(sigRepo.findActivePathVideos(paths));
+        long done = 0;
+        for (String encId : written) {
+            if (pathsByEncId.get(encId).stream().anyMatch(live::contains)) {
+                done++;
+            } else {
+                videoStore.delete(VideoStore.dekIdOf(encId));
+            }
+        }
+        rewrapped.increment(done);
+        return done;
+    }
+}
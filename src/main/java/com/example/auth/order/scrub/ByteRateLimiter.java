@@ -0,0 +1,51 @@
+package com.example.auth.order.scrub;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seau à jetons en octets par seconde, partagé par les threads d'un réplica.
+ * La capacité (rafale maximale) vaut une seconde de débit.
+ */
+public class ByteRateLimiter {
+
+    private final long bytesPerSecond;
+    private double available;
+    private long lastRefillNanos;
+
+    /**
+     * @param bytesPerSecond débit maximal ; 0 ou moins pour ne pas limiter
+     */
+    public ByteRateLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.available = Math.max(0, bytesPerSecond);
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Réserve bytes octets, en attendant si le budget est épuisé. Une demande supérieure à la capacité
+     * est servie en mettant le budget en négatif (dette remboursée par les appels suivants).
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0 || bytes <= 0) return;
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            available -= bytes;
+            waitNanos = available >= 0 ? 0 : (long) (-available * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double earned = (now - lastRefillNanos) * (double) bytesPerSecond / TimeUnit.SECONDS.toNanos(1);
+        available = Math.min(bytesPerSecond, available + earned);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.auth.order.scrub;
+
+import com.example.auth.audit.service.AuditLogService;
+import com.example.auth.jobs.service.ShardedJob;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.storage.VideoStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vérification d'intégrité du stockage en arrière-plan, répartie entre réplicas ({@link ShardedJob}).
+ *
+ * Parcourt signature_transactions par plages d'ids et, pour chaque ordre actif, vérifie que le .enc et le .dek
+ * existent, que la taille du .enc correspond à ciphertext_size et que son SHA-256 correspond à ciphertext_sha256.
+ * Le contrôle porte sur le fichier chiffré (IV, ciphertext et tag GCM) : aucun appel à Vault n'est nécessaire.
+ * Les lectures sont limitées par un budget en octets par seconde et par réplica ; le parallélisme est celui
+ * des workers de l'ordonnanceur (app.jobs.workers).
+ *
+ * Chaque anomalie est comptée (video.scrub.problems) et journalisée dans l'audit (STORAGE_SCRUB_*).
+ */
+@Component
+@ConditionalOnProperty(name = "app.video.scrub.enabled", havingValue = "true", matchIfMissing = true)
+public class StorageScrubber implements ShardedJob {
+
+    public static final String JOB_NAME = "video-scrub";
+
+    static final int PAGE = 100;
+    static final int CHUNK = 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(StorageScrubber.class);
+
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final VideoStore videoStore;
+    private final AuditLogService auditLogService;
+    private final ByteRateLimiter budget;
+    private final MeterRegistry meterRegistry;
+    private final Duration interval;
+    private final Counter checked;
+    private final Counter bytesRead;
+
+    public StorageScrubber(SpringDataSignatureTransactionRepository sigRepo,
+                           VideoStore videoStore,
+                           AuditLogService auditLogService,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.video.scrub.bytes-per-second:20971520}") long bytesPerSecond,
+                           @Value("${app.video.scrub.interval-hours:24}") long intervalHours) {
+        this.sigRepo = sigRepo;
+        this.videoStore = videoStore;
+        this.auditLogService = auditLogService;
+        this.budget = new ByteRateLimiter(bytesPerSecond);
+        this.meterRegistry = meterRegistry;
+        this.interval = intervalHours > 0 ? Duration.ofHours(intervalHours) : null;
+        this.checked = Counter.builder("video.scrub.checked").baseUnit("orders").register(meterRegistry);
+        this.bytesRead = Counter.builder("video.scrub.read").baseUnit("bytes").register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return JOB_NAME;
+    }
+
+    @Override
+    public Duration interval() {
+        return interval;
+    }
+
+    @Override
+    public long shardSize() {
+        return 5_000;
+    }
+
+    @Override
+    public IdRange plan() {
+        return sigRepo.findTopByOrderByIdDesc()
+                .map(last -> new IdRange(1, (long) last.getId() + 1))
+                .orElse(null);
+    }
+
+    @Override
+    public long process(ShardContext shard) throws InterruptedException {
+        int cursor = (int) shard.cursor();
+        int to = (int) shard.to();
+        long sinceCheckpoint = 0;
+        while (cursor < to) {
+            List<SignatureTransactionJpaEntity> page = sigRepo.findByIdGreaterThanEqualAndIdLessThanOrderByIdAsc(
+                    cursor, to, PageRequest.of(0, PAGE));
+            if (page.isEmpty()) break;
+            for (SignatureTransactionJpaEntity order : page) {
+                if (order.isActive()) {
+                    Problem p = check(order);
+                    if (p != null) report(order, p);
+                    checked.increment();
+                    sinceCheckpoint++;
+                }
+                cursor = order.getId() + 1;
+            }
+            if (!shard.checkpoint(cursor, sinceCheckpoint)) {
+                // Part reprise par un autre réplica
+                return 0;
+            }
+            sinceCheckpoint = 0;
+        }
+        return sinceCheckpoint;
+    }
+
+    /**
+     * Vérifie un ordre. Retourne null s'il est sain.
+     */
+    public Problem check(SignatureTransactionJpaEntity order) throws InterruptedException {
+        String encId = VideoStore.objectIdOf(order.getPathVideo());
+        String dekId = VideoStore.dekIdOf(encId);
+        try {
+            if (!videoStore.exists(encId)) {
+                return new Problem("missing_enc", encId + " introuvable");
+            }
+            if (!videoStore.exists(dekId) || videoStore.size(dekId) == 0) {
+                return new Problem("missing_dek", dekId + " introuvable ou vide");
+            }
+            long size = videoStore.size(encId);
+            if (order.getCiphertextSize() != null && size != order.getCiphertextSize()) {
+                return new Problem("size_mismatch", encId + " : " + size + " octets, " + order.getCiphertextSize() + " attendus");
+            }
+            if (order.getCiphertextSha256() != null) {
+                String actual = sha256(encId, size);
+                if (!actual.equalsIgnoreCase(order.getCiphertextSha256())) {
+                    return new Problem("checksum_mismatch", encId + " : SHA-256 différent de ciphertext_sha256");
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return new Problem("read_error", encId + " : " + e.getMessage());
+        }
+    }
+
+    private String sha256(String objectId, long size) throws IOException, InterruptedException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (long offset = 0; offset < size; offset += CHUNK) {
+            int len = (int) Math.min(CHUNK, size - offset);
+            budget.acquire(len);
+            byte[] chunk = videoStore.getRange(objectId, offset, len);
+            if (chunk.length != len) {
+                throw new IOException("lecture tronquée à l'offset " + offset);
+            }
+            md.update(chunk);
+            bytesRead.increment(len);
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private void report(SignatureTransactionJpaEntity order, Problem p) {
+        Counter.builder("video.scrub.problems").tag("kind", p.kind()).register(meterRegistry).increment();
+        log.warn("Intégrité : ordre #{} {} ({})", order.getId(), p.kind(), p.detail());
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("kind", p.kind());
+        metadata.put("pathVideo", order.getPathVideo());
+        try {
+            auditLogService.logAction(null, p.auditAction(), "signature_transactions", order.getId(),
+                    "Contrôle d'intégrité : " + p.detail(), metadata, null);
+        } catch (RuntimeException e) {
+            log.warn("Journalisation de l'anomalie impossible : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param kind missing_enc, missing_dek, size_mismatch, checksum_mismatch ou read_error
+     */
+    public record Problem(String kind, String detail) {
+
+        /** Fichier absent : STORAGE_SCRUB_ORPHAN (ordre sans objet) ; sinon STORAGE_SCRUB_CORRUPT. */
+        public String auditAction() {
+            return kind.startsWith("missing") ? "STORAGE_SCRUB_ORPHAN" : "STORAGE_SCRUB_CORRUPT";
+        }
+    }
+}
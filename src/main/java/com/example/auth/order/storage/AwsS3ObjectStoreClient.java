@@ -0,0 +1,154 @@
+package com.example.auth.order.storage;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * {@link ObjectStoreClient} basé sur le SDK AWS v2. Fonctionne aussi avec tout service compatible S3
+ * (MinIO, Ceph...) via app.video.s3.endpoint.
+ */
+public class AwsS3ObjectStoreClient implements ObjectStoreClient {
+
+    private final S3Client s3;
+    private final String bucket;
+
+    public AwsS3ObjectStoreClient(S3Client s3, String bucket) {
+        this.s3 = s3;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void putObject(String key, byte[] data) throws IOException {
+        try {
+            s3.putObject(PutObjectRequest.builder().bucket(bucket).key(key).build(), RequestBody.fromBytes(data));
+        } catch (S3Exception e) {
+            throw new IOException("S3 putObject a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public byte[] getObject(String key, Long start, Long endInclusive) throws IOException {
+        GetObjectRequest.Builder req = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (start != null) {
+            req.range("bytes=" + start + "-" + (endInclusive != null ? endInclusive : ""));
+        }
+        try {
+            ResponseBytes<GetObjectResponse> bytes = s3.getObjectAsBytes(req.build());
+            return bytes.asByteArray();
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (S3Exception e) {
+            throw new IOException("S3 getObject a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public OptionalLong headObject(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return OptionalLong.of(head.contentLength());
+        } catch (NoSuchKeyException e) {
+            return OptionalLong.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return OptionalLong.empty();
+            throw new IOException("S3 headObject a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public boolean deleteObject(String key) throws IOException {
+        if (headObject(key).isEmpty()) {
+            return false;
+        }
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (S3Exception e) {
+            throw new IOException("S3 deleteObject a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public String createMultipartUpload(String key) throws IOException {
+        try {
+            return s3.createMultipartUpload(CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build()).uploadId();
+        } catch (S3Exception e) {
+            throw new IOException("S3 createMultipartUpload a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, byte[] data) throws IOException {
+        try {
+            UploadPartRequest req = UploadPartRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber)
+                    .contentLength((long) data.length)
+                    .build();
+            return s3.uploadPart(req, RequestBody.fromBytes(data)).eTag();
+        } catch (S3Exception e) {
+            throw new IOException("S3 uploadPart " + partNumber + " a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts) throws IOException {
+        List<software.amazon.awssdk.services.s3.model.CompletedPart> s3Parts = parts.stream()
+                .map(p -> software.amazon.awssdk.services.s3.model.CompletedPart.builder()
+                        .partNumber(p.partNumber()).eTag(p.etag()).build())
+                .toList();
+        try {
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(s3Parts).build())
+                    .build());
+        } catch (S3Exception e) {
+            throw new IOException("S3 completeMultipartUpload a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        try {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+        } catch (S3Exception e) {
+            throw new IOException("S3 abortMultipartUpload a échoué pour: " + key, e);
+        }
+    }
+
+    @Override
+    public void listObjects(String prefix, ObjectListener listener) throws IOException {
+        ListObjectsV2Request req = ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).maxKeys(1000).build();
+        try {
+            // Le paginateur ne demande la page suivante (continuation token) qu'une fois la précédente consommée
+            for (ListObjectsV2Response page : s3.listObjectsV2Paginator(req)) {
+                for (S3Object o : page.contents()) {
+                    listener.onObject(o.key(), o.size(), o.lastModified());
+                }
+            }
+        } catch (S3Exception e) {
+            throw new IOException("S3 listObjectsV2 a échoué pour le préfixe: " + prefix, e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.auth.order.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Doublure locale de S3 : même sémantique que {@link AwsS3ObjectStoreClient} (multipart, ETag, GET de plages),
+ * mais les objets sont de simples fichiers sous un répertoire. Sert aux tests et au développement sans S3.
+ * Plusieurs processus partageant le même répertoire (ex: volume monté) voient les mêmes objets.
+ */
+public class LocalObjectStoreClient implements ObjectStoreClient {
+
+    private static final String MULTIPART_DIR = ".multipart";
+
+    private final Path root;
+
+    public LocalObjectStoreClient(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void putObject(String key, byte[] data) throws IOException {
+        Path target = objectPath(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".upload-" + UUID.randomUUID());
+        try {
+            Files.write(tmp, data, StandardOpenOption.CREATE_NEW);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public byte[] getObject(String key, Long start, Long endInclusive) throws IOException {
+        Path p = objectPath(key);
+        if (!Files.isRegularFile(p)) {
+            throw new NoSuchFileException(key);
+        }
+        if (start == null) {
+            return Files.readAllBytes(p);
+        }
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            long last = endInclusive == null ? ch.size() - 1 : Math.min(endInclusive, ch.size() - 1);
+            if (start > last) {
+                throw new IOException("Plage non satisfaisable pour: " + key);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) (last - start + 1));
+            long pos = start;
+            while (buf.hasRemaining()) {
+                int n = ch.read(buf, pos);
+                if (n < 0) break;
+                pos += n;
+            }
+            return buf.array();
+        }
+    }
+
+    @Override
+    public OptionalLong headObject(String key) throws IOException {
+        Path p = objectPath(key);
+        return Files.isRegularFile(p) ? OptionalLong.of(Files.size(p)) : OptionalLong.empty();
+    }
+
+    @Override
+    public boolean deleteObject(String key) throws IOException {
+        return Files.deleteIfExists(objectPath(key));
+    }
+
+    @Override
+    public String createMultipartUpload(String key) throws IOException {
+        objectPath(key);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Files.createDirectories(uploadDir(uploadId));
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, byte[] data) throws IOException {
+        Path dir = uploadDir(uploadId);
+        if (!Files.isDirectory(dir)) {
+            throw new NoSuchFileException("Upload inconnu: " + uploadId);
+        }
+        if (partNumber < 1 || partNumber > 10_000) {
+            throw new IOException("Numéro de part invalide: " + partNumber);
+        }
+        Files.write(dir.resolve(String.valueOf(partNumber)), data);
+        return etag(data);
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts) throws IOException {
+        Path dir = uploadDir(uploadId);
+        if (!Files.isDirectory(dir)) {
+            throw new NoSuchFileException("Upload inconnu: " + uploadId);
+        }
+        Path target = objectPath(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".upload-" + uploadId);
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            int previous = 0;
+            for (CompletedPart part : parts) {
+                if (part.partNumber() <= previous) {
+                    throw new IOException("Les parts doivent être triées par numéro croissant");
+                }
+                previous = part.partNumber();
+                byte[] data = Files.readAllBytes(dir.resolve(String.valueOf(part.partNumber())));
+                if (!etag(data).equals(part.etag())) {
+                    throw new IOException("ETag invalide pour la part " + part.partNumber());
+                }
+                out.write(data);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        abortMultipartUpload(key, uploadId);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        Path dir = uploadDir(uploadId);
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> parts = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) parts::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Override
+    public void listObjects(String prefix, ObjectListener listener) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        Path multipart = root.resolve(MULTIPART_DIR);
+        // Files.walk parcourt l'arborescence en flux (DirectoryStream), sans construire la liste complète
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.startsWith(multipart) || !Files.isRegularFile(p) || p.getFileName().toString().contains(".upload-")) {
+                    continue;
+                }
+                String key = root.relativize(p).toString().replace('\\', '/');
+                if (!key.startsWith(prefix)) continue;
+                long size;
+                Instant lastModified;
+                try {
+                    size = Files.size(p);
+                    lastModified = Files.getLastModifiedTime(p).toInstant();
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                listener.onObject(key, size, lastModified);
+            }
+        }
+    }
+
+    private Path objectPath(String key) {
+        Path p = root.resolve(key).normalize();
+        if (key.isBlank() || !p.startsWith(root) || p.startsWith(root.resolve(MULTIPART_DIR))) {
+            throw new IllegalArgumentException("Clé d'objet invalide : " + key);
+        }
+        return p;
+    }
+
+    private Path uploadDir(String uploadId) {
+        if (!uploadId.matches("[0-9a-f]{32}")) {
+            throw new IllegalArgumentException("uploadId invalide : " + uploadId);
+        }
+        return root.resolve(MULTIPART_DIR).resolve(uploadId);
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
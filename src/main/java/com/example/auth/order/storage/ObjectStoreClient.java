@@ -0,0 +1,50 @@
+package com.example.auth.order.storage;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Sous-ensemble de l'API S3 utilisé par {@link ObjectStoreVideoStore}.
+ * Implémenté par {@link AwsS3ObjectStoreClient} (S3, MinIO, Azure via passerelle S3...)
+ * et par {@link LocalObjectStoreClient} (répertoire local, pour les tests et le développement).
+ */
+public interface ObjectStoreClient {
+
+    void putObject(String key, byte[] data) throws IOException;
+
+    /**
+     * Lit l'objet, ou la plage [start, endInclusive] si start n'est pas null.
+     * Lance NoSuchFileException si l'objet n'existe pas.
+     */
+    byte[] getObject(String key, Long start, Long endInclusive) throws IOException;
+
+    /** Taille de l'objet, vide s'il n'existe pas. */
+    OptionalLong headObject(String key) throws IOException;
+
+    /** Retourne false si l'objet n'existait pas. */
+    boolean deleteObject(String key) throws IOException;
+
+    /** Démarre un envoi multipart, retourne l'uploadId. */
+    String createMultipartUpload(String key) throws IOException;
+
+    /** Envoie une part (numérotée à partir de 1), retourne son ETag. */
+    String uploadPart(String key, String uploadId, int partNumber, byte[] data) throws IOException;
+
+    void completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts) throws IOException;
+
+    void abortMultipartUpload(String key, String uploadId) throws IOException;
+
+    /**
+     * Parcourt en flux les objets dont la clé commence par prefix (ListObjectsV2 paginé : une page à la fois en mémoire).
+     */
+    void listObjects(String prefix, ObjectListener listener) throws IOException;
+
+    @FunctionalInterface
+    interface ObjectListener {
+        void onObject(String key, long size, Instant lastModified) throws IOException;
+    }
+
+    record CompletedPart(int partNumber, String etag) {}
+}
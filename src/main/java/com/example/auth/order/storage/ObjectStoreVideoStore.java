@@ -0,0 +1,180 @@
+package com.example.auth.order.storage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * {@link VideoStore} sur un stockage objet compatible S3, partagé par tous les réplicas :
+ * n'importe quel réplica peut valider un ordre créé par un autre.
+ *
+ * Au-delà de partSize, les écritures passent par un envoi multipart et les lectures par des GET
+ * de plages ; les parts sont transférées en parallèle sur l'exécuteur fourni.
+ */
+public class ObjectStoreVideoStore implements VideoStore {
+
+    /** Taille minimale d'une part S3 (hors dernière part). */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final ObjectStoreClient client;
+    private final String keyPrefix;
+    private final int partSize;
+    private final ExecutorService transferExecutor;
+
+    public ObjectStoreVideoStore(ObjectStoreClient client, String keyPrefix, int partSize, ExecutorService transferExecutor) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Taille de part invalide : " + partSize);
+        }
+        this.client = client;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.partSize = partSize;
+        this.transferExecutor = transferExecutor;
+    }
+
+    @Override
+    public void put(String objectId, byte[] data) throws IOException {
+        String key = key(objectId);
+        if (data.length <= partSize) {
+            client.putObject(key, data);
+            return;
+        }
+        String uploadId = client.createMultipartUpload(key);
+        try {
+            List<Future<ObjectStoreClient.CompletedPart>> futures = new ArrayList<>();
+            int partNumber = 1;
+            for (int off = 0; off < data.length; off += partSize, partNumber++) {
+                final int n = partNumber;
+                final byte[] part = Arrays.copyOfRange(data, off, Math.min(data.length, off + partSize));
+                futures.add(transferExecutor.submit(() -> new ObjectStoreClient.CompletedPart(n, uploadPartUnchecked(key, uploadId, n, part))));
+            }
+            List<ObjectStoreClient.CompletedPart> parts = new ArrayList<>(futures.size());
+            for (Future<ObjectStoreClient.CompletedPart> f : futures) {
+                parts.add(await(f));
+            }
+            parts.sort(Comparator.comparingInt(ObjectStoreClient.CompletedPart::partNumber));
+            client.completeMultipartUpload(key, uploadId, parts);
+        } catch (IOException | RuntimeException e) {
+            try {
+                client.abortMultipartUpload(key, uploadId);
+            } catch (IOException abortError) {
+                e.addSuppressed(abortError);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] get(String objectId) throws IOException {
+        String key = key(objectId);
+        long size = client.headObject(key).orElseThrow(() -> new NoSuchFileException(objectId));
+        if (size <= partSize) {
+            return client.getObject(key, null, null);
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Objet trop volumineux pour être chargé en mémoire : " + objectId);
+        }
+        byte[] out = new byte[(int) size];
+        List<Future<?>> futures = new ArrayList<>();
+        for (long off = 0; off < size; off += partSize) {
+            final long start = off;
+            final long end = Math.min(size, off + partSize) - 1;
+            futures.add(transferExecutor.submit(() -> {
+                byte[] chunk = getObjectUnchecked(key, start, end);
+                System.arraycopy(chunk, 0, out, (int) start, chunk.length);
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            await(f);
+        }
+        return out;
+    }
+
+    @Override
+    public byte[] getRange(String objectId, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Plage invalide : offset=" + offset + " length=" + length);
+        }
+        String key = key(objectId);
+        long size = client.headObject(key).orElseThrow(() -> new NoSuchFileException(objectId));
+        if (length == 0 || offset >= size) {
+            return new byte[0];
+        }
+        return client.getObject(key, offset, Math.min(size, offset + length) - 1);
+    }
+
+    @Override
+    public boolean delete(String objectId) throws IOException {
+        return client.deleteObject(key(objectId));
+    }
+
+    @Override
+    public boolean exists(String objectId) {
+        try {
+            return client.headObject(key(objectId)).isPresent();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long size(String objectId) throws IOException {
+        OptionalLong size = client.headObject(key(objectId));
+        return size.orElseThrow(() -> new NoSuchFileException(objectId));
+    }
+
+    @Override
+    public void forEachObject(ObjectVisitor visitor) throws IOException {
+        client.listObjects(keyPrefix, (key, size, lastModified) -> {
+            String objectId = key.substring(keyPrefix.length());
+            // Clés hors du schéma (sous-« répertoires », objets étrangers au service) ignorées
+            if (VideoStore.OBJECT_ID.matcher(objectId).matches() && !objectId.contains("..")) {
+                visitor.visit(objectId, lastModified);
+            }
+        });
+    }
+
+    private String key(String objectId) {
+        return keyPrefix + VideoStore.requireValidId(objectId);
+    }
+
+    private String uploadPartUnchecked(String key, String uploadId, int partNumber, byte[] data) {
+        try {
+            return client.uploadPart(key, uploadId, partNumber, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] getObjectUnchecked(String key, long start, long end) {
+        try {
+            return client.getObject(key, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T await(Future<T> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transfert interrompu");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException u) throw u.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException r) throw r;
+            throw new IOException(cause);
+        }
+    }
+}
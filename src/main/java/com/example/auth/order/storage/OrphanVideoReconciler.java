@@ -0,0 +1,254 @@
+package com.example.auth.order.storage;
+
+import com.example.auth.jobs.service.ShardedJob;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suppression des fichiers orphelins : .enc/.dek écrits par createOrder sans que l'ordre n'ait été enregistré
+ * (arrêt brutal ou erreur BDD entre l'écriture et sigRepo.save).
+ *
+ * Le store est parcouru en flux ({@link VideoStore#forEachObject}) ; les identifiants plus anciens que le délai
+ * de grâce sont regroupés par lots de {@value #BATCH} et comparés à path_video en une requête IN par lot.
+ * La mémoire utilisée est bornée par la taille d'un lot, quel que soit le nombre de fichiers.
+ * Seuls les objets .enc et .enc.dek sont concernés. Les vidéos en file de suppression différée restent
+ * référencées par leur ordre (désactivé) et ne sont donc pas vues comme orphelines.
+ *
+ * L'exécution planifiée passe par {@link com.example.auth.jobs.service.JobCoordinator} : une seule part, donc
+ * un seul réplica par exécution, et l'intervalle est compté depuis la dernière planification commune. Le listing
+ * ne se découpe pas par plages d'ids : la part couvre tout le store et sa réclamation est prolongée à chaque lot ;
+ * si elle est perdue, le parcours s'arrête avant toute nouvelle suppression.
+ */
+@Component
+public class OrphanVideoReconciler implements ShardedJob {
+
+    public static final String JOB_NAME = "video-orphan-reconcile";
+
+    static final int BATCH = 500;
+
+    private final VideoStore videoStore;
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final Duration grace;
+    private final Duration interval;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Counter scannedCounter;
+    private final Counter orphanCounter;
+    private volatile ReconcileReport lastReport = ReconcileReport.empty();
+
+    public OrphanVideoReconciler(VideoStore videoStore,
+                                 SpringDataSignatureTransactionRepository sigRepo,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.video.reconcile.grace-hours:24}") long graceHours,
+                                 @Value("${app.video.reconcile.enabled:true}") boolean scheduled,
+                                 @Value("${app.video.reconcile.interval-ms:21600000}") long intervalMs) {
+        this.videoStore = videoStore;
+        this.sigRepo = sigRepo;
+        this.grace = Duration.ofHours(Math.max(1, graceHours));
+        this.interval = scheduled && intervalMs > 0 ? Duration.ofMillis(intervalMs) : null;
+        this.scannedCounter = Counter.builder("video.reconcile.scanned").baseUnit("objects").register(meterRegistry);
+        this.orphanCounter = Counter.builder("video.reconcile.orphans").baseUnit("objects").register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return JOB_NAME;
+    }
+
+    @Override
+    public Duration interval() {
+        return interval;
+    }
+
+    /** Une seule part [0, 1) : tout le store. */
+    @Override
+    public IdRange plan() {
+        return new IdRange(0, 1);
+    }
+
+    @Override
+    public long process(ShardContext shard) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Réconciliation déjà en cours sur ce réplica.");
+        }
+        Progress p = new Progress(LocalDateTime.now(), false);
+        try {
+            reconcile(p, shard);
+        } catch (ShardLost e) {
+            lastReport = lastReport.failed("Part reprise par un autre réplica : réconciliation interrompue.");
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            lastReport = lastReport.failed(e.getMessage());
+            throw e;
+        } finally {
+            running.set(false);
+        }
+        if (lastReport.error() != null) {
+            // Part en échec : l'anomalie remonte dans l'avancement des tâches
+            throw new IllegalStateException(lastReport.error());
+        }
+        return p.sinceCheckpoint;
+    }
+
+    /**
+     * Lance la réconciliation dans un thread d'arrière-plan. Retourne false si elle est déjà en cours.
+     *
+     * @param dryRun compter les orphelins sans les supprimer
+     */
+    public boolean start(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                reconcile(dryRun);
+            } catch (IOException | RuntimeException e) {
+                lastReport = lastReport.failed(e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }, "video-orphan-reconcile");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ReconcileReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Exécute la réconciliation dans le thread courant.
+     */
+    public ReconcileReport reconcile(boolean dryRun) throws IOException {
+        reconcile(new Progress(LocalDateTime.now(), dryRun), null);
+        return lastReport;
+    }
+
+    private void reconcile(Progress p, ShardContext shard) throws IOException {
+        if (sigRepo.existsByPathVideoContaining("/")) {
+            // Des chemins absolus ne correspondraient à aucun identifiant : tout serait vu comme orphelin
+            lastReport = ReconcileReport.empty().failed("path_video contient encore des chemins absolus : lancer d'abord la migration (reshard).");
+            return;
+        }
+        Instant cutoff = Instant.now().minus(grace);
+        lastReport = p.report(null);
+        Map<String, List<String>> batch = new LinkedHashMap<>();
+        videoStore.forEachObject((objectId, lastModified) -> {
+            p.scanned++;
+            p.sinceCheckpoint++;
+            scannedCounter.increment();
+            if (p.scanned % BATCH == 0) {
+                checkpoint(p, shard);
+            }
+            String videoId = videoIdOf(objectId);
+            if (videoId == null) {
+                p.ignored++;
+                return;
+            }
+            if (lastModified.isAfter(cutoff)) {
+                p.recent++;
+                return;
+            }
+            batch.computeIfAbsent(videoId, k -> new ArrayList<>(2)).add(objectId);
+            if (batch.size() >= BATCH) {
+                flush(batch, p, shard);
+            }
+        });
+        flush(batch, p, shard);
+        lastReport = p.report(LocalDateTime.now());
+    }
+
+    private void flush(Map<String, List<String>> batch, Progress p, ShardContext shard) throws IOException {
+        if (batch.isEmpty()) return;
+        // Réclamation vérifiée juste avant de supprimer : un réplica qui a perdu la part ne supprime plus rien
+        checkpoint(p, shard);
+        Set<String> referenced = new HashSet<>(sigRepo.findExistingPathVideos(batch.keySet()));
+        for (Map.Entry<String, List<String>> e : batch.entrySet()) {
+            if (referenced.contains(e.getKey())) continue;
+            for (String objectId : e.getValue()) {
+                if (p.dryRun || videoStore.delete(objectId)) {
+                    p.orphans++;
+                    orphanCounter.increment();
+                }
+            }
+        }
+        batch.clear();
+        lastReport = p.report(null);
+    }
+
+    private static void checkpoint(Progress p, ShardContext shard) {
+        if (shard == null) return;
+        if (!shard.checkpoint(shard.from(), p.sinceCheckpoint)) {
+            throw new ShardLost();
+        }
+        p.sinceCheckpoint = 0;
+    }
+
+    /** Identifiant de la vidéo (.enc) à laquelle appartient l'objet, ou null pour un objet d'un autre type. */
+    static String videoIdOf(String objectId) {
+        if (objectId.endsWith(".enc")) return objectId;
+        if (objectId.endsWith(".enc.dek")) return objectId.substring(0, objectId.length() - ".dek".length());
+        return null;
+    }
+
+    private static final class Progress {
+        final LocalDateTime startedAt;
+        final boolean dryRun;
+        long scanned;
+        long recent;
+        long ignored;
+        long orphans;
+        long sinceCheckpoint;
+
+        Progress(LocalDateTime startedAt, boolean dryRun) {
+            this.startedAt = startedAt;
+            this.dryRun = dryRun;
+        }
+
+        ReconcileReport report(LocalDateTime finishedAt) {
+            return new ReconcileReport(startedAt, finishedAt, dryRun, scanned, recent, ignored, orphans, null);
+        }
+    }
+
+    /** Réclamation de la part perdue (expirée puis reprise par un autre réplica). */
+    private static final class ShardLost extends RuntimeException {
+        ShardLost() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * @param orphans objets orphelins supprimés (ou qui l'auraient été, en dryRun)
+     */
+    public record ReconcileReport(LocalDateTime startedAt, LocalDateTime finishedAt, boolean dryRun,
+                                  long scanned, long recent, long ignored, long orphans, String error) {
+
+        static ReconcileReport empty() {
+            return new ReconcileReport(null, null, false, 0, 0, 0, 0, null);
+        }
+
+        ReconcileReport failed(String message) {
+            return new ReconcileReport(startedAt, LocalDateTime.now(), dryRun, scanned, recent, ignored, orphans, message);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.auth.order.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Stockage disque réparti en sous-répertoires hachés sur deux niveaux de 256 entrées :
+ * root/ab/cd/objectId, avec ab et cd les deux premiers octets du SHA-256 de l'identifiant.
+ * Un répertoire contient ainsi quelques dizaines de fichiers même avec des millions d'objets.
+ *
+ * Les objets de l'ancien format plat (root/objectId) restent lisibles tant que
+ * {@link VideoStoreResharder} ne les a pas déplacés.
+ */
+public class ShardedFileSystemVideoStore implements VideoStore {
+
+    private static final String TMP_MARKER = ".tmp-";
+
+    private final Path root;
+
+    public ShardedFileSystemVideoStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void put(String objectId, byte[] data) throws IOException {
+        Path target = shardedPath(objectId);
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(objectId + TMP_MARKER + UUID.randomUUID().toString().replace("-", ""));
+        try {
+            Files.write(tmp, data, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        // Une copie plate antérieure serait désormais périmée
+        Files.deleteIfExists(flatPath(objectId));
+    }
+
+    @Override
+    public byte[] get(String objectId) throws IOException {
+        return Files.readAllBytes(locate(objectId));
+    }
+
+    @Override
+    public byte[] getRange(String objectId, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Plage invalide : offset=" + offset + " length=" + length);
+        }
+        try (FileChannel ch = FileChannel.open(locate(objectId), StandardOpenOption.READ)) {
+            long available = Math.max(0, ch.size() - offset);
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(length, available));
+            long pos = offset;
+            while (buf.hasRemaining()) {
+                int n = ch.read(buf, pos);
+                if (n < 0) break;
+                pos += n;
+            }
+            return buf.array();
+        }
+    }
+
+    @Override
+    public boolean delete(String objectId) throws IOException {
+        boolean sharded = Files.deleteIfExists(shardedPath(objectId));
+        boolean flat = Files.deleteIfExists(flatPath(objectId));
+        return sharded || flat;
+    }
+
+    @Override
+    public boolean exists(String objectId) {
+        try {
+            locate(objectId);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long size(String objectId) throws IOException {
+        return Files.size(locate(objectId));
+    }
+
+    /**
+     * Copie un fichier existant dans le store (écriture en flux, sans le charger en mémoire).
+     */
+    @Override
+    public void importFile(String objectId, Path source) throws IOException {
+        Path target = shardedPath(objectId);
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(objectId + TMP_MARKER + UUID.randomUUID().toString().replace("-", ""));
+        try {
+            Files.copy(source, tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Fichier contenant l'objet. Lance NoSuchFileException si absent.
+     */
+    public Path pathOf(String objectId) throws NoSuchFileException {
+        return locate(objectId);
+    }
+
+    /**
+     * Parcourt en flux les objets rangés dans l'arborescence répartie (root/ab/cd/*), répertoire par répertoire,
+     * puis les objets de l'ancien format plat : la mémoire utilisée ne dépend pas du nombre d'objets.
+     */
+    @Override
+    public void forEachObject(ObjectVisitor visitor) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        try (DirectoryStream<Path> level1 = Files.newDirectoryStream(root, ShardedFileSystemVideoStore::isShardDir)) {
+            for (Path d1 : level1) {
+                try (DirectoryStream<Path> level2 = Files.newDirectoryStream(d1, ShardedFileSystemVideoStore::isShardDir)) {
+                    for (Path d2 : level2) {
+                        try (DirectoryStream<Path> files = Files.newDirectoryStream(d2, Files::isRegularFile)) {
+                            for (Path f : files) {
+                                visitFile(f, visitor);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        try (DirectoryStream<Path> flat = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path f : flat) {
+                visitFile(f, visitor);
+            }
+        }
+    }
+
+    private static void visitFile(Path f, ObjectVisitor visitor) throws IOException {
+        String name = f.getFileName().toString();
+        if (isTemporary(name) || !OBJECT_ID.matcher(name).matches()) {
+            return;
+        }
+        Instant lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(f).toInstant();
+        } catch (NoSuchFileException e) {
+            // Supprimé pendant le parcours
+            return;
+        }
+        visitor.visit(name, lastModified);
+    }
+
+    /**
+     * Emplacement cible (réparti) d'un objet, qu'il existe ou non.
+     */
+    public Path shardedPath(String objectId) {
+        VideoStore.requireValidId(objectId);
+        byte[] h = sha256(objectId);
+        return root.resolve(hex(h[0])).resolve(hex(h[1])).resolve(objectId);
+    }
+
+    Path flatPath(String objectId) {
+        return root.resolve(VideoStore.requireValidId(objectId));
+    }
+
+    private static boolean isShardDir(Path p) {
+        return Files.isDirectory(p) && p.getFileName().toString().matches("[0-9a-f]{2}");
+    }
+
+    static boolean isTemporary(String fileName) {
+        return fileName.contains(TMP_MARKER);
+    }
+
+    /**
+     * Cherche d'abord l'emplacement réparti, puis l'ancien emplacement plat, puis de nouveau l'emplacement
+     * réparti : un déplacement concurrent par le resharder ne peut donc pas faire disparaître l'objet.
+     */
+    private Path locate(String objectId) throws NoSuchFileException {
+        Path sharded = shardedPath(objectId);
+        if (Files.isRegularFile(sharded)) return sharded;
+        Path flat = flatPath(objectId);
+        if (Files.isRegularFile(flat)) return flat;
+        if (Files.isRegularFile(sharded)) return sharded;
+        throw new NoSuchFileException(objectId);
+    }
+
+    private static byte[] sha256(String s) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte b) {
+        return String.format("%02x", b);
+    }
+}
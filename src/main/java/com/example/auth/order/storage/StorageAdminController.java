@@ -0,0 +1,138 @@
+package com.example.auth.order.storage;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Administration du stockage vidéo. Réservé aux administrateurs (JWT requis).
+ */
+@RestController
+@RequestMapping("/api/admin/storage")
+public class StorageAdminController {
+
+    private final VideoStoreResharder resharder;
+    private final OrphanVideoReconciler reconciler;
+    private final VideoStore videoStore;
+    private final SpringDataUsersRepository userRepo;
+
+    public StorageAdminController(VideoStoreResharder resharder, OrphanVideoReconciler reconciler,
+                                  VideoStore videoStore, SpringDataUsersRepository userRepo) {
+        this.resharder = resharder;
+        this.reconciler = reconciler;
+        this.videoStore = videoStore;
+        this.userRepo = userRepo;
+    }
+
+    /**
+     * POST /api/admin/storage/reshard : lance la migration du répertoire plat vers l'arborescence répartie.
+     */
+    @PostMapping("/reshard")
+    public ResponseEntity<?> startReshard(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        if (!resharder.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Migration déjà en cours"));
+        }
+        return ResponseEntity.accepted().body(Map.of("running", true));
+    }
+
+    /**
+     * GET /api/admin/storage/reshard : état de la dernière migration.
+     */
+    @GetMapping("/reshard")
+    public ResponseEntity<?> reshardStatus(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        return ResponseEntity.ok(Map.of("running", resharder.isRunning(), "report", resharder.getLastReport()));
+    }
+
+    /**
+     * POST /api/admin/storage/reconcile?dryRun=true : lance la suppression des fichiers orphelins
+     * (.enc/.dek sans ordre associé). dryRun : compter sans supprimer.
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<?> startReconcile(@RequestAttribute("userId") Integer userId,
+                                            @RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        if (!reconciler.start(dryRun)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Réconciliation déjà en cours"));
+        }
+        return ResponseEntity.accepted().body(Map.of("running", true, "dryRun", dryRun));
+    }
+
+    /**
+     * GET /api/admin/storage/reconcile : état de la dernière réconciliation.
+     */
+    @GetMapping("/reconcile")
+    public ResponseEntity<?> reconcileStatus(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        return ResponseEntity.ok(Map.of("running", reconciler.isRunning(), "report", reconciler.getLastReport()));
+    }
+
+    /**
+     * GET /api/admin/storage/stats : débit, latence et espace libre par racine (store striped).
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        if (!(videoStore instanceof StripedVideoStore striped)) {
+            return ResponseEntity.ok(Map.of("roots", List.of()));
+        }
+        List<StripedVideoStore.RootStats> roots = striped.getRoots().stream().map(StripedVideoStore.StripeRoot::stats).toList();
+        return ResponseEntity.ok(Map.of("roots", roots, "rebalancing", striped.isRebalancing(),
+                "lastRebalance", striped.getLastRebalance()));
+    }
+
+    /**
+     * POST /api/admin/storage/roots {"path": "/mnt/nvme2/videos"} : ajoute une racine au store striped
+     * et lance le rééquilibrage en ligne.
+     */
+    @PostMapping("/roots")
+    public ResponseEntity<?> addRoot(@RequestAttribute("userId") Integer userId, @RequestBody AddRootRequest req) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+        }
+        if (!(videoStore instanceof StripedVideoStore striped)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Le store vidéo configuré n'est pas striped"));
+        }
+        if (req == null || req.path() == null || req.path().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "path requis"));
+        }
+        try {
+            if (!striped.addRoot(Paths.get(req.path().trim()))) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Racine déjà présente"));
+            }
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Racine inaccessible : " + e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(Map.of("rebalancing", striped.isRebalancing()));
+    }
+
+    public record AddRootRequest(String path) {}
+
+    private boolean isAdmin(Integer userId) {
+        return userId != null && userRepo.findById(userId).map(UsersJpaEntity::isAdmin).orElse(false);
+    }
+}
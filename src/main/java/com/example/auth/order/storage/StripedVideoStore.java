@@ -0,0 +1,409 @@
+package com.example.auth.order.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link VideoStore} réparti sur plusieurs répertoires racines (typiquement un par volume NVMe),
+ * chacun organisé comme un {@link ShardedFileSystemVideoStore}.
+ *
+ * Placement :
+ * - HASH : hachage cohérent (anneau avec {@value #VIRTUAL_NODES} nœuds virtuels par racine) ; ajouter une racine
+ *   ne déplace qu'environ 1/N des objets, via {@link #addRoot(Path)} et un rééquilibrage en ligne ;
+ * - BALANCED : la racine ayant le plus d'espace libre rapporté au nombre d'E/S en cours ; une nouvelle racine
+ *   attire naturellement les écritures, aucun déplacement n'est nécessaire.
+ *
+ * Avec copies = 2, chaque objet est écrit sur deux racines distinctes ; la lecture passe par la copie la moins
+ * chargée et bascule sur l'autre en cas d'erreur. Les lectures sondent toutes les racines en dernier recours :
+ * un objet reste lisible pendant un rééquilibrage.
+ */
+public class StripedVideoStore implements VideoStore {
+
+    public enum Placement { HASH, BALANCED }
+
+    static final int VIRTUAL_NODES = 128;
+
+    private final Placement placement;
+    private final int copies;
+    private final MeterRegistry registry;
+    private final AtomicBoolean rebalancing = new AtomicBoolean(false);
+
+    private volatile List<StripeRoot> roots;
+    private volatile NavigableMap<Long, StripeRoot> ring;
+    private volatile RebalanceReport lastRebalance = new RebalanceReport(null, null, 0, 0, null);
+
+    public StripedVideoStore(List<Path> rootPaths, Placement placement, int copies, MeterRegistry registry) {
+        if (rootPaths.isEmpty()) {
+            throw new IllegalArgumentException("Au moins une racine de stockage est requise");
+        }
+        if (copies < 1 || copies > 2 || copies > rootPaths.size()) {
+            throw new IllegalArgumentException("Nombre de copies invalide : " + copies);
+        }
+        this.placement = placement;
+        this.copies = copies;
+        this.registry = registry;
+        List<StripeRoot> list = new ArrayList<>();
+        for (Path p : rootPaths) {
+            list.add(new StripeRoot(p, registry));
+        }
+        this.roots = List.copyOf(list);
+        this.ring = buildRing(this.roots);
+    }
+
+    @Override
+    public void put(String objectId, byte[] data) throws IOException {
+        List<StripeRoot> targets = targetsFor(objectId);
+        for (StripeRoot r : targets) {
+            r.timed("write", () -> {
+                r.store.put(objectId, data);
+                return null;
+            });
+            r.bytesWritten.increment(data.length);
+        }
+        // Une version antérieure placée ailleurs (autre politique, racine ajoutée...) serait périmée
+        for (StripeRoot r : roots) {
+            if (!targets.contains(r) && r.store.exists(objectId)) {
+                r.store.delete(objectId);
+            }
+        }
+    }
+
+    @Override
+    public byte[] get(String objectId) throws IOException {
+        IOException last = null;
+        for (StripeRoot r : readOrder(objectId)) {
+            if (!r.store.exists(objectId)) continue;
+            try {
+                byte[] data = r.timed("read", () -> r.store.get(objectId));
+                r.bytesRead.increment(data.length);
+                return data;
+            } catch (NoSuchFileException e) {
+                // supprimé ou déplacé entre-temps : racine suivante
+            } catch (IOException e) {
+                last = e;
+            }
+        }
+        if (last != null) throw last;
+        throw new NoSuchFileException(objectId);
+    }
+
+    /**
+     * Parcourt chaque racine tour à tour. Avec copies=2, un objet est visité une fois par copie.
+     */
+    @Override
+    public void forEachObject(ObjectVisitor visitor) throws IOException {
+        for (StripeRoot r : roots) {
+            r.store.forEachObject(visitor);
+        }
+    }
+
+    @Override
+    public byte[] getRange(String objectId, long offset, int length) throws IOException {
+        IOException last = null;
+        for (StripeRoot r : readOrder(objectId)) {
+            if (!r.store.exists(objectId)) continue;
+            try {
+                byte[] data = r.timed("read", () -> r.store.getRange(objectId, offset, length));
+                r.bytesRead.increment(data.length);
+                return data;
+            } catch (NoSuchFileException e) {
+                // racine suivante
+            } catch (IOException e) {
+                last = e;
+            }
+        }
+        if (last != null) throw last;
+        throw new NoSuchFileException(objectId);
+    }
+
+    @Override
+    public boolean delete(String objectId) throws IOException {
+        boolean deleted = false;
+        for (StripeRoot r : roots) {
+            deleted |= r.timed("delete", () -> r.store.delete(objectId));
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean exists(String objectId) {
+        for (StripeRoot r : roots) {
+            if (r.store.exists(objectId)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long size(String objectId) throws IOException {
+        for (StripeRoot r : readOrder(objectId)) {
+            if (r.store.exists(objectId)) {
+                try {
+                    return r.store.size(objectId);
+                } catch (NoSuchFileException e) {
+                    // racine suivante
+                }
+            }
+        }
+        throw new NoSuchFileException(objectId);
+    }
+
+    public List<StripeRoot> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Ajoute une racine à chaud. En placement HASH, lance le rééquilibrage en arrière-plan.
+     * La racine doit aussi être ajoutée à app.video.striped.roots pour être conservée au redémarrage.
+     */
+    public synchronized boolean addRoot(Path path) throws IOException {
+        Path normalized = path.toAbsolutePath().normalize();
+        for (StripeRoot r : roots) {
+            if (r.path.equals(normalized)) return false;
+        }
+        Files.createDirectories(normalized);
+        List<StripeRoot> list = new ArrayList<>(roots);
+        list.add(new StripeRoot(normalized, registry));
+        roots = List.copyOf(list);
+        ring = buildRing(roots);
+        if (placement == Placement.HASH) {
+            startRebalance();
+        }
+        return true;
+    }
+
+    public boolean startRebalance() {
+        if (!rebalancing.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                rebalance();
+            } catch (IOException e) {
+                lastRebalance = lastRebalance.failed(e.getMessage());
+            } finally {
+                rebalancing.set(false);
+            }
+        }, "video-stripe-rebalance");
+        t.setDaemon(true);
+        t.start();
+        return true;
+    }
+
+    public boolean isRebalancing() {
+        return rebalancing.get();
+    }
+
+    public RebalanceReport getLastRebalance() {
+        return lastRebalance;
+    }
+
+    /**
+     * Déplace vers leurs racines cibles les objets qui ne sont plus à leur place (placement HASH).
+     * Chaque objet est copié puis supprimé de la source : il reste lisible à tout instant.
+     */
+    public RebalanceReport rebalance() throws IOException {
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong moved = new AtomicLong();
+        RebalanceReport report = new RebalanceReport(LocalDateTime.now(), null, 0, 0, null);
+        lastRebalance = report;
+        for (StripeRoot source : roots) {
+            source.store.forEachObject((objectId, lastModified) -> {
+                scanned.incrementAndGet();
+                List<StripeRoot> targets = targetsFor(objectId);
+                if (targets.contains(source)) return;
+                Path file;
+                try {
+                    file = source.store.pathOf(objectId);
+                } catch (NoSuchFileException e) {
+                    return;
+                }
+                for (StripeRoot t : targets) {
+                    if (!t.store.exists(objectId)) {
+                        t.timed("write", () -> {
+                            t.store.importFile(objectId, file);
+                            return null;
+                        });
+                        t.bytesWritten.increment(Files.size(t.store.pathOf(objectId)));
+                    }
+                }
+                if (!source.store.delete(objectId)) {
+                    // Supprimé pendant la copie : ne pas ressusciter l'objet
+                    for (StripeRoot t : targets) t.store.delete(objectId);
+                    return;
+                }
+                moved.incrementAndGet();
+                if (moved.get() % 100 == 0) {
+                    lastRebalance = new RebalanceReport(report.startedAt(), null, scanned.get(), moved.get(), null);
+                }
+            });
+        }
+        RebalanceReport done = new RebalanceReport(report.startedAt(), LocalDateTime.now(), scanned.get(), moved.get(), null);
+        lastRebalance = done;
+        return done;
+    }
+
+    /**
+     * Racines sur lesquelles l'objet doit être écrit.
+     */
+    List<StripeRoot> targetsFor(String objectId) {
+        if (placement == Placement.BALANCED) {
+            return roots.stream()
+                    .sorted(Comparator.comparingDouble(StripeRoot::placementScore).reversed())
+                    .limit(copies)
+                    .toList();
+        }
+        return ringTargets(objectId);
+    }
+
+    private List<StripeRoot> ringTargets(String objectId) {
+        NavigableMap<Long, StripeRoot> r = ring;
+        List<StripeRoot> out = new ArrayList<>(copies);
+        long h = hash(objectId);
+        for (StripeRoot candidate : r.tailMap(h, true).values()) {
+            if (!out.contains(candidate)) out.add(candidate);
+            if (out.size() == copies) return out;
+        }
+        for (StripeRoot candidate : r.values()) {
+            if (!out.contains(candidate)) out.add(candidate);
+            if (out.size() == copies) return out;
+        }
+        return out;
+    }
+
+    /**
+     * Ordre de lecture : racines cibles (la moins chargée d'abord), puis toutes les autres.
+     */
+    private List<StripeRoot> readOrder(String objectId) {
+        List<StripeRoot> preferred = new ArrayList<>(placement == Placement.HASH ? ringTargets(objectId) : List.of());
+        preferred.sort(Comparator.comparingInt(r -> r.inflight.get()));
+        List<StripeRoot> rest = new ArrayList<>(roots);
+        rest.removeAll(preferred);
+        rest.sort(Comparator.comparingInt(r -> r.inflight.get()));
+        preferred.addAll(rest);
+        return preferred;
+    }
+
+    private static NavigableMap<Long, StripeRoot> buildRing(List<StripeRoot> roots) {
+        NavigableMap<Long, StripeRoot> r = new TreeMap<>();
+        for (StripeRoot root : roots) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                r.put(hash(root.path + "#" + i), root);
+            }
+        }
+        return r;
+    }
+
+    private static long hash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) h = (h << 8) | (d[i] & 0xff);
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Une racine de stockage et ses métriques (débit, latence, E/S en cours, espace libre).
+     */
+    public static final class StripeRoot {
+
+        private final Path path;
+        private final ShardedFileSystemVideoStore store;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final Counter bytesRead;
+        private final Counter bytesWritten;
+        private final Map<String, Timer> timers;
+
+        StripeRoot(Path path, MeterRegistry registry) {
+            this.store = new ShardedFileSystemVideoStore(path);
+            this.path = store.getRoot();
+            String tag = this.path.toString();
+            this.bytesRead = Counter.builder("video.store.root.bytes").tag("root", tag).tag("direction", "read")
+                    .baseUnit("bytes").register(registry);
+            this.bytesWritten = Counter.builder("video.store.root.bytes").tag("root", tag).tag("direction", "write")
+                    .baseUnit("bytes").register(registry);
+            this.timers = Map.of(
+                    "read", Timer.builder("video.store.root.latency").tag("root", tag).tag("op", "read").register(registry),
+                    "write", Timer.builder("video.store.root.latency").tag("root", tag).tag("op", "write").register(registry),
+                    "delete", Timer.builder("video.store.root.latency").tag("root", tag).tag("op", "delete").register(registry));
+            Gauge.builder("video.store.root.inflight", inflight, AtomicInteger::get).tag("root", tag).register(registry);
+            Gauge.builder("video.store.root.usable", this, StripeRoot::usableSpace).tag("root", tag).baseUnit("bytes")
+                    .register(registry);
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public double usableSpace() {
+            try {
+                return Files.getFileStore(Files.isDirectory(path) ? path : path.getParent()).getUsableSpace();
+            } catch (IOException | NullPointerException e) {
+                return 0;
+            }
+        }
+
+        double placementScore() {
+            return usableSpace() / (1 + inflight.get());
+        }
+
+        public RootStats stats() {
+            Timer read = timers.get("read");
+            Timer write = timers.get("write");
+            return new RootStats(path.toString(), (long) usableSpace(), inflight.get(),
+                    (long) bytesRead.count(), (long) bytesWritten.count(),
+                    read.count(), read.mean(TimeUnit.MILLISECONDS),
+                    write.count(), write.mean(TimeUnit.MILLISECONDS));
+        }
+
+        private <T> T timed(String op, IoCall<T> call) throws IOException {
+            inflight.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                return call.run();
+            } finally {
+                timers.get(op).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                inflight.decrementAndGet();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoCall<T> {
+        T run() throws IOException;
+    }
+
+    public record RootStats(String root, long usableBytes, int inflight, long bytesRead, long bytesWritten,
+                            long reads, double meanReadMs, long writes, double meanWriteMs) {}
+
+    public record RebalanceReport(LocalDateTime startedAt, LocalDateTime finishedAt,
+                                  long objectsScanned, long objectsMoved, String error) {
+
+        RebalanceReport failed(String message) {
+            return new RebalanceReport(startedAt, LocalDateTime.now(), objectsScanned, objectsMoved, message);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.auth.order.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * Port de stockage des vidéos chiffrées (.enc) et de leurs DEK chiffrés (.dek).
+ * Les objets sont adressés par un identifiant logique (ex: "2_1769421541876_88e7....enc"), jamais par un chemin :
+ * c'est cet identifiant qui est enregistré dans signature_transactions.path_video.
+ */
+public interface VideoStore {
+
+    /** Identifiant logique autorisé : un simple nom de fichier, sans séparateur ni "..". */
+    Pattern OBJECT_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,254}");
+
+    /** Écrit (ou remplace) l'objet de façon atomique. */
+    void put(String objectId, byte[] data) throws IOException;
+
+    /** Écrit (ou remplace) l'objet à partir d'un fichier local. Par défaut, le fichier est lu en mémoire. */
+    default void importFile(String objectId, Path source) throws IOException {
+        put(objectId, Files.readAllBytes(source));
+    }
+
+    /** Lit l'objet entier. Lance NoSuchFileException si absent. */
+    byte[] get(String objectId) throws IOException;
+
+    /** Lit au plus length octets à partir de offset. Lance NoSuchFileException si absent. */
+    byte[] getRange(String objectId, long offset, int length) throws IOException;
+
+    /** Supprime l'objet. Retourne false s'il n'existait pas. */
+    boolean delete(String objectId) throws IOException;
+
+    boolean exists(String objectId);
+
+    /** Taille de l'objet en octets. Lance NoSuchFileException si absent. */
+    long size(String objectId) throws IOException;
+
+    /**
+     * Parcourt en flux tous les objets du store, dans un ordre non spécifié, sans charger la liste en mémoire.
+     * Les fichiers temporaires des écritures en cours sont exclus.
+     */
+    void forEachObject(ObjectVisitor visitor) throws IOException;
+
+    @FunctionalInterface
+    interface ObjectVisitor {
+        void visit(String objectId, Instant lastModified) throws IOException;
+    }
+
+    /**
+     * Vérifie qu'un identifiant logique est sûr (pas de traversée de répertoire).
+     */
+    static String requireValidId(String objectId) {
+        if (objectId == null || !OBJECT_ID.matcher(objectId).matches() || objectId.contains("..")) {
+            throw new IllegalArgumentException("Identifiant d'objet vidéo invalide : " + objectId);
+        }
+        return objectId;
+    }
+
+    /**
+     * Identifiant logique d'une valeur path_video. Les anciens ordres stockent un chemin absolu
+     * (ex: /app/data/videos/2_..._abc.enc) : seul le nom de fichier est conservé.
+     */
+    static String objectIdOf(String pathVideo) {
+        if (pathVideo == null) {
+            throw new IllegalArgumentException("Identifiant d'objet vidéo invalide : null");
+        }
+        if (pathVideo.indexOf('/') >= 0 || pathVideo.indexOf('\\') >= 0) {
+            return Paths.get(pathVideo.replace('\\', '/')).getFileName().toString();
+        }
+        return pathVideo;
+    }
+
+    /** Identifiant logique du DEK chiffré associé à une vidéo. */
+    static String dekIdOf(String videoObjectId) {
+        return videoObjectId + ".dek";
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.auth.order.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Choix de l'implémentation de {@link VideoStore} via app.video.store :
+ * - filesystem (défaut) : disque local réparti, un seul réplica ;
+ * - striped : plusieurs disques locaux (app.video.striped.roots), un seul réplica ;
+ * - s3 : stockage objet partagé, requis dès que plusieurs réplicas tournent.
+ */
+@Configuration
+public class VideoStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.video.store", havingValue = "filesystem", matchIfMissing = true)
+    public VideoStore videoStore(@Value("${app.video.storage-path:./data/videos}") String storagePath) {
+        return new ShardedFileSystemVideoStore(Paths.get(storagePath));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.video.store", havingValue = "striped")
+    public VideoStore stripedVideoStore(@Value("${app.video.striped.roots}") String roots,
+                                        @Value("${app.video.striped.placement:hash}") String placement,
+                                        @Value("${app.video.striped.copies:1}") int copies,
+                                        MeterRegistry meterRegistry) {
+        List<Path> paths = Arrays.stream(roots.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Paths::get)
+                .toList();
+        StripedVideoStore.Placement p = StripedVideoStore.Placement.valueOf(placement.trim().toUpperCase(Locale.ROOT));
+        return new StripedVideoStore(paths, p, copies, meterRegistry);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.video.store", havingValue = "s3")
+    static class ObjectStoreConfig {
+
+        @Bean(destroyMethod = "shutdown")
+        ExecutorService videoTransferExecutor(@Value("${app.video.s3.parallelism:4}") int parallelism) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+                Thread t = new Thread(r, "video-s3-transfer-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Client S3 réel, ou doublure sur disque si app.video.s3.local-root est renseigné.
+         */
+        @Bean
+        ObjectStoreClient objectStoreClient(@Value("${app.video.s3.bucket:}") String bucket,
+                                            @Value("${app.video.s3.region:eu-west-1}") String region,
+                                            @Value("${app.video.s3.endpoint:}") String endpoint,
+                                            @Value("${app.video.s3.local-root:}") String localRoot) {
+            if (!localRoot.isBlank()) {
+                return new LocalObjectStoreClient(Paths.get(localRoot));
+            }
+            if (bucket.isBlank()) {
+                throw new IllegalStateException("app.video.s3.bucket est requis quand app.video.store=s3");
+            }
+            S3ClientBuilder builder = S3Client.builder().region(Region.of(region));
+            if (!endpoint.isBlank()) {
+                // Service compatible S3 (MinIO...) : adressage par chemin
+                builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+            }
+            return new AwsS3ObjectStoreClient(builder.build(), bucket);
+        }
+
+        @Bean
+        VideoStore videoStore(ObjectStoreClient client, ExecutorService videoTransferExecutor,
+                              @Value("${app.video.s3.key-prefix:videos/}") String keyPrefix,
+                              @Value("${app.video.s3.part-size:8388608}") int partSize) {
+            if (partSize < ObjectStoreVideoStore.MIN_PART_SIZE) {
+                throw new IllegalStateException("app.video.s3.part-size doit être d'au moins 5 Mo (minimum S3)");
+            }
+            return new ObjectStoreVideoStore(client, keyPrefix, partSize, videoTransferExecutor);
+        }
+    }
+}
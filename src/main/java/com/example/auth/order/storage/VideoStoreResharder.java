@@ -0,0 +1,171 @@
+package com.example.auth.order.storage;
+
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Migration en ligne de l'ancien répertoire plat vers l'arborescence répartie de {@link ShardedFileSystemVideoStore}.
+ *
+ * 1) Déplace chaque fichier root/objectId vers root/ab/cd/objectId (renommage atomique, lecture en flux du répertoire).
+ * 2) Remplace les chemins absolus de path_video par l'identifiant logique, par pages de {@value #DB_BATCH}.
+ *
+ * Le service reste disponible pendant l'opération : le store lit indifféremment les deux emplacements.
+ */
+@Component
+public class VideoStoreResharder {
+
+    static final int DB_BATCH = 500;
+
+    private final VideoStore videoStore;
+    private final SpringDataSignatureTransactionRepository sigRepo;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile ReshardReport lastReport = ReshardReport.empty();
+
+    public VideoStoreResharder(VideoStore videoStore, SpringDataSignatureTransactionRepository sigRepo) {
+        this.videoStore = videoStore;
+        this.sigRepo = sigRepo;
+    }
+
+    /**
+     * Lance la migration dans un thread d'arrière-plan. Retourne false si une migration est déjà en cours.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                reshard();
+            } catch (IOException | RuntimeException e) {
+                lastReport = lastReport.failed(e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }, "video-reshard");
+        t.setDaemon(true);
+        t.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ReshardReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Exécute la migration dans le thread courant.
+     */
+    public ReshardReport reshard() throws IOException {
+        if (!(videoStore instanceof ShardedFileSystemVideoStore sharded)) {
+            lastReport = ReshardReport.empty().failed("Le store vidéo configuré n'est pas un stockage disque réparti.");
+            return lastReport;
+        }
+        ReshardReport report = new ReshardReport(LocalDateTime.now(), null, 0, 0, 0, 0, null);
+        lastReport = report;
+        report = moveFlatFiles(sharded, report);
+        report = rewritePaths(report);
+        report = report.finished();
+        lastReport = report;
+        return report;
+    }
+
+    private ReshardReport moveFlatFiles(ShardedFileSystemVideoStore store, ReshardReport report) throws IOException {
+        Path root = store.getRoot();
+        if (!Files.isDirectory(root)) {
+            return report;
+        }
+        long moved = 0;
+        long skipped = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path p : dir) {
+                String name = p.getFileName().toString();
+                if (ShardedFileSystemVideoStore.isTemporary(name) || !VideoStore.OBJECT_ID.matcher(name).matches()) {
+                    skipped++;
+                    continue;
+                }
+                Path target = store.shardedPath(name);
+                Files.createDirectories(target.getParent());
+                try {
+                    if (Files.exists(target)) {
+                        throw new FileAlreadyExistsException(target.toString());
+                    }
+                    // Sans REPLACE_EXISTING : ne jamais écraser une version réécrite entre-temps
+                    Files.move(p, target);
+                    moved++;
+                } catch (FileAlreadyExistsException e) {
+                    // Déjà migré : l'emplacement réparti fait foi, la copie plate est périmée
+                    Files.deleteIfExists(p);
+                    skipped++;
+                } catch (NoSuchFileException e) {
+                    skipped++;
+                }
+                if ((moved + skipped) % DB_BATCH == 0) {
+                    lastReport = report.withFiles(moved, skipped);
+                }
+            }
+        }
+        return report.withFiles(moved, skipped);
+    }
+
+    private ReshardReport rewritePaths(ReshardReport report) {
+        int afterId = 0;
+        long scanned = 0;
+        long rewritten = 0;
+        while (true) {
+            List<SignatureTransactionJpaEntity> page = sigRepo.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, DB_BATCH));
+            if (page.isEmpty()) break;
+            for (SignatureTransactionJpaEntity e : page) {
+                scanned++;
+                String objectId = VideoStore.objectIdOf(e.getPathVideo());
+                if (!objectId.equals(e.getPathVideo())) {
+                    sigRepo.updatePathVideo(e.getId(), objectId);
+                    rewritten++;
+                }
+                afterId = e.getId();
+            }
+            report = report.withRows(scanned, rewritten);
+            lastReport = report;
+        }
+        return report;
+    }
+
+    public record ReshardReport(LocalDateTime startedAt, LocalDateTime finishedAt,
+                                long filesMoved, long filesSkipped,
+                                long rowsScanned, long rowsRewritten, String error) {
+
+        static ReshardReport empty() {
+            return new ReshardReport(null, null, 0, 0, 0, 0, null);
+        }
+
+        ReshardReport withFiles(long moved, long skipped) {
+            return new ReshardReport(startedAt, finishedAt, moved, skipped, rowsScanned, rowsRewritten, error);
+        }
+
+        ReshardReport withRows(long scanned, long rewritten) {
+            return new ReshardReport(startedAt, finishedAt, filesMoved, filesSkipped, scanned, rewritten, error);
+        }
+
+        ReshardReport finished() {
+            return new ReshardReport(startedAt, LocalDateTime.now(), filesMoved, filesSkipped, rowsScanned, rowsRewritten, error);
+        }
+
+        ReshardReport failed(String message) {
+            return new ReshardReport(startedAt, LocalDateTime.now(), filesMoved, filesSkipped, rowsScanned, rowsRewritten, message);
+        }
+    }
+}
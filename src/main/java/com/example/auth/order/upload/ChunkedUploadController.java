@@ -0,0 +1,159 @@
+package com.example.auth.order.upload;
+
+import com.example.auth.audit.service.AuditLogService;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.order.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upload reprenable par segments :
+ * POST /api/orders/uploads (transaction_send_to, montant, video_name, size) ouvre la session ;
+ * PUT /api/orders/uploads/{id}/chunks/{index} (corps binaire, en-tête X-Chunk-Sha256) envoie un segment ;
+ * GET /api/orders/uploads/{id} donne les segments reçus (reprise) ;
+ * POST /api/orders/uploads/{id}/complete crée les ordres (une nouvelle tentative rejoue les mêmes ids) ;
+ * DELETE /api/orders/uploads/{id} abandonne.
+ */
+@RestController
+@RequestMapping("/api/orders/uploads")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService uploadService;
+    private final SpringDataUsersRepository userRepo;
+    private final AuditLogService auditLogService;
+
+    public ChunkedUploadController(ChunkedUploadService uploadService, SpringDataUsersRepository userRepo,
+                                   AuditLogService auditLogService) {
+        this.uploadService = uploadService;
+        this.userRepo = userRepo;
+        this.auditLogService = auditLogService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> open(
+            @RequestAttribute("userId") Integer userId,
+            @RequestParam("transaction_send_to") List<String> recipients,
+            @RequestParam("montant") String montantStr,
+            @RequestParam("video_name") String videoName,
+            @RequestParam("size") long size) {
+
+        if (videoName == null || videoName.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "video_name requis"));
+        }
+        BigDecimal montant;
+        try {
+            montant = new BigDecimal(montantStr.trim());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Montant invalide"));
+        }
+        try {
+            UploadSessionJpaEntity s = uploadService.open(userId, recipients, montant, videoName.trim(), size);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                    "id", s.getId(),
+                    "chunkSize", s.getChunkSize(),
+                    "chunkCount", s.getChunkCount(),
+                    "expiresAt", s.getExpiresAt().toString()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Erreur de chiffrement"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    @PutMapping(value = "/{id}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> putChunk(
+            @RequestAttribute("userId") Integer userId,
+            @PathVariable("id") String id,
+            @PathVariable("index") int index,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String sha256,
+            HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(toBody(uploadService.putChunk(userId, id, index, request.getInputStream(), sha256)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Erreur de chiffrement"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@RequestAttribute("userId") Integer userId, @PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok(toBody(uploadService.status(userId, id)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@RequestAttribute("userId") Integer userId, @PathVariable("id") String id,
+                                      HttpServletRequest request) {
+        try {
+            ChunkedUploadService.Completion c = uploadService.complete(userId, id);
+            if (c.state() == ChunkedUploadService.Completion.State.IN_PROGRESS) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Finalisation de l'upload en cours."));
+            }
+            OrderService.CreateOrdersResult r = c.orders();
+            if (c.state() == ChunkedUploadService.Completion.State.REPLAYED) {
+                // Nouvelle tentative d'une finalisation réussie : mêmes ids, déjà journalisés
+                return ResponseEntity.ok(Map.of("ids", r.ids(), "steps", r.steps()));
+            }
+
+            String actorName = userRepo.findById(userId).map(u -> u.getName() != null ? u.getName() : "").orElse("");
+            for (int i = 0; i < r.ids().size(); i++) {
+                String message = String.format("%s a créé un ordre pour %s (envoi par segments)",
+                        actorName.isEmpty() ? "Utilisateur #" + userId : actorName, r.recipients().get(i));
+                auditLogService.logAction(userId, "TX_CREATED", "signature_transactions", r.ids().get(i), message, request);
+            }
+            return ResponseEntity.ok(Map.of("ids", r.ids(), "steps", r.steps()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        } catch (GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Erreur de chiffrement ou signature"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@RequestAttribute("userId") Integer userId, @PathVariable("id") String id) {
+        try {
+            uploadService.abort(userId, id);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    private static Map<String, Object> toBody(ChunkedUploadService.UploadStatus s) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", s.id());
+        body.put("state", s.state());
+        body.put("size", s.totalSize());
+        body.put("chunkSize", s.chunkSize());
+        body.put("chunkCount", s.chunkCount());
+        body.put("received", s.received());
+        body.put("complete", s.complete());
+        body.put("expiresAt", s.expiresAt().toString());
+        return body;
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.auth.order.upload;
+
+import com.example.auth.order.OrderService;
+import com.example.auth.order.keys.KekCache;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import com.example.auth.order.storage.VideoStore;
+import com.example.auth.profiling.VideoCryptoEvent;
+import com.example.auth.profiling.VideoStorageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Upload reprenable d'une vidéo par segments : ouverture d'une session, envoi des segments (en parallèle,
+ * dans n'importe quel ordre, chacun avec son SHA-256), puis finalisation.
+ *
+ * Chaque segment est chiffré à réception ({@link SealedSegments}) et écrit dans le store partagé, un objet
+ * par segment : n'importe quel réplica peut recevoir un segment ou finaliser la session, sans routage collant.
+ * La finalisation calcule la racine à partir des empreintes déjà vérifiées, assemble les segments scellés dans un
+ * fichier temporaire local (app.uploads.staging-path), l'importe dans le store, signe la racine et insère les ordres.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int CLEANUP_BATCH = 100;
+
+    private final UploadSessionRepository sessionRepo;
+    private final UploadChunkRepository chunkRepo;
+    private final OrderService orderService;
+    private final VideoKeyHierarchy keyHierarchy;
+    private final VideoStore videoStore;
+    private final Path stagingRoot;
+    private final int chunkSize;
+    private final long maxVideoBytes;
+    private final long sessionTtlHours;
+    private final KekCache deks = new KekCache(64);
+    private final SecureRandom rng = new SecureRandom();
+    private final Counter chunksReceived;
+
+    public ChunkedUploadService(UploadSessionRepository sessionRepo,
+                                UploadChunkRepository chunkRepo,
+                                OrderService orderService,
+                                VideoKeyHierarchy keyHierarchy,
+                                VideoStore videoStore,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.uploads.staging-path:./data/uploads}") String stagingPath,
+                                @Value("${app.uploads.chunk-size:8388608}") int chunkSize,
+                                @Value("${app.uploads.max-video-bytes:104857600}") long maxVideoBytes,
+                                @Value("${app.uploads.session-ttl-hours:24}") long sessionTtlHours) {
+        this.sessionRepo = sessionRepo;
+        this.chunkRepo = chunkRepo;
+        this.orderService = orderService;
+        this.keyHierarchy = keyHierarchy;
+        this.videoStore = videoStore;
+        this.stagingRoot = Paths.get(stagingPath).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.maxVideoBytes = maxVideoBytes;
+        this.sessionTtlHours = Math.max(1, sessionTtlHours);
+        this.chunksReceived = Counter.builder("upload.chunks.received").register(meterRegistry);
+    }
+
+    /**
+     * Ouvre une session pour une vidéo de totalSize octets. Le DEK est généré et chiffré (Vault ou KEK) dès maintenant.
+     */
+    public UploadSessionJpaEntity open(Integer userId, List<String> recipients, BigDecimal montant, String videoName,
+                                       long totalSize) throws IOException, GeneralSecurityException {
+        List<String> sendTo = orderService.requireSendable(userId, recipients);
+        if (totalSize <= 0 || totalSize > maxVideoBytes) {
+            throw new IllegalArgumentException("Taille de vidéo invalide (maximum " + maxVideoBytes + " octets).");
+        }
+        SealedSegments.Header header = SealedSegments.newHeader(totalSize, chunkSize, rng);
+        byte[] dek = new byte[32];
+        rng.nextBytes(dek);
+        try {
+            UploadSessionJpaEntity s = new UploadSessionJpaEntity();
+            s.setId(UUID.randomUUID().toString().replace("-", ""));
+            s.setUserId(userId);
+            s.setRecipients(String.join("\n", sendTo));
+            s.setMontant(montant);
+            s.setVideoName(videoName);
+            s.setTotalSize(totalSize);
+            s.setChunkSize(header.chunkSize());
+            s.setChunkCount(header.chunkCount());
+            s.setNoncePrefix(HexFormat.of().formatHex(header.noncePrefix()));
+            s.setEncryptedDek(keyHierarchy.wrapDek(dek));
+            s.setCreatedAt(LocalDateTime.now());
+            s.setExpiresAt(s.getCreatedAt().plusHours(sessionTtlHours));
+
+            sessionRepo.save(s);
+            deks.put(s.getId(), dek);
+            return s;
+        } finally {
+            Arrays.fill(dek, (byte) 0);
+        }
+    }
+
+    /**
+     * Reçoit le segment index (exactement la taille attendue) et son SHA-256 (hexadécimal), le chiffre et l'écrit
+     * dans le store. Renvoyer un segment déjà reçu avec le même contenu est sans effet ; avec un autre contenu, refusé.
+     * Retourne l'état de la session.
+     */
+    public UploadStatus putChunk(Integer userId, String sessionId, int index, InputStream body, String sha256Hex)
+            throws IOException, GeneralSecurityException {
+        UploadSessionJpaEntity s = requireSession(userId, sessionId);
+        if (!UploadSessionJpaEntity.STATUS_OPEN.equals(s.getStatus())) {
+            throw new IllegalArgumentException("Session d'upload déjà finalisée.");
+        }
+        SealedSegments.Header header = headerOf(s);
+        if (index < 0 || index >= header.chunkCount()) {
+            throw new IllegalArgumentException("Index de segment invalide : " + index);
+        }
+        int expected = header.chunkLength(index);
+        byte[] chunk = body.readNBytes(expected + 1);
+        if (chunk.length != expected) {
+            throw new IllegalArgumentException("Taille du segment " + index + " invalide (attendu : " + expected + " octets).");
+        }
+        String sha = sha256Hex(chunk);
+        if (sha256Hex == null || !sha.equalsIgnoreCase(sha256Hex.trim())) {
+            throw new IllegalArgumentException("Somme de contrôle du segment " + index + " invalide.");
+        }
+
+        UploadChunkJpaEntity reserved = reserve(sessionId, index, sha);
+        byte[] dek = dekOf(s);
+        try {
+            VideoCryptoEvent sealEvent = VideoCryptoEvent.begin("seal", sessionId, 0, chunk.length);
+            byte[] sealed = SealedSegments.seal(dek, header, index, chunk);
+            sealEvent.commit();
+            VideoStorageEvent writeEvent = VideoStorageEvent.begin("write_chunk", sessionId, 0);
+            // Écriture atomique et partagée : un segment acquitté survit à l'arrêt du réplica qui l'a reçu
+            videoStore.put(segmentId(sessionId, index), sealed);
+            writeEvent.bytes = sealed.length;
+            writeEvent.commit();
+        } finally {
+            Arrays.fill(dek, (byte) 0);
+            Arrays.fill(chunk, (byte) 0);
+        }
+        if (!reserved.isStored()) {
+            chunkRepo.markStored(reserved.getId());
+        }
+        chunksReceived.increment();
+        return status(userId, sessionId);
+    }
+
+    /** État de la session : découpage et index des segments déjà écrits (pour reprendre l'envoi). */
+    public UploadStatus status(Integer userId, String sessionId) {
+        UploadSessionJpaEntity s = requireSession(userId, sessionId);
+        List<Integer> received = new ArrayList<>();
+        for (UploadChunkJpaEntity c : chunkRepo.findBySessionIdOrderByChunkIndexAsc(sessionId)) {
+            if (c.isStored()) {
+                received.add(c.getChunkIndex());
+            }
+        }
+        return new UploadStatus(s.getId(), s.getStatus(), s.getTotalSize(), s.getChunkSize(), s.getChunkCount(), received,
+                s.getExpiresAt());
+    }
+
+    /**
+     * Finalise la session : tous les segments doivent avoir été écrits. Crée un ordre par destinataire.
+     * La finalisation est réservée (OPEN -> FINALIZING) avant tout effet : une requête concurrente obtient
+     * {@link Completion.State#IN_PROGRESS}, et une nouvelle tentative après succès rejoue les ids enregistrés
+     * ({@link Completion.State#REPLAYED}) sans créer d'autres ordres.
+     */
+    public Completion complete(Integer userId, String sessionId) throws IOException, GeneralSecurityException {
+        UploadSessionJpaEntity s = requireSession(userId, sessionId);
+        boolean claimed = UploadSessionJpaEntity.STATUS_OPEN.equals(s.getStatus()) && sessionRepo.transition(sessionId,
+                UploadSessionJpaEntity.STATUS_OPEN, UploadSessionJpaEntity.STATUS_FINALIZING) == 1;
+        if (!claimed) {
+            return alreadyClaimed(userId, sessionId);
+        }
+        OrderService.CreateOrdersResult result;
+        try {
+            result = finalise(userId, s);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            // Aucun ordre créé : la session peut être finalisée de nouveau
+            sessionRepo.transition(sessionId, UploadSessionJpaEntity.STATUS_FINALIZING,
+                    UploadSessionJpaEntity.STATUS_OPEN);
+            throw e;
+        }
+        String orderIds = result.ids().stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            if (sessionRepo.markCompleted(sessionId, orderIds) == 0) {
+                log.warn("Session d'upload {} : ids des ordres non enregistrés", sessionId);
+            }
+            release(s);
+        } catch (IOException | RuntimeException e) {
+            // Les ordres sont créés : la session restante sera supprimée à son expiration
+            log.warn("Nettoyage de la session d'upload {} impossible : {}", sessionId, e.getMessage());
+        }
+        return new Completion(Completion.State.CREATED, result);
+    }
+
+    private Completion alreadyClaimed(Integer userId, String sessionId) {
+        UploadSessionJpaEntity s = requireSession(userId, sessionId);
+        if (!UploadSessionJpaEntity.STATUS_COMPLETED.equals(s.getStatus()) || s.getOrderIds() == null) {
+            return new Completion(Completion.State.IN_PROGRESS, null);
+        }
+        List<Integer> ids = Arrays.stream(s.getOrderIds().split(",")).map(Integer::valueOf).toList();
+        List<String> recipients = List.of(s.getRecipients().split("\n"));
+        return new Completion(Completion.State.REPLAYED,
+                new OrderService.CreateOrdersResult(ids, recipients, List.of("Envoi déjà finalisé")));
+    }
+
+    private OrderService.CreateOrdersResult finalise(Integer userId, UploadSessionJpaEntity s)
+            throws IOException, GeneralSecurityException {
+        String sessionId = s.getId();
+        SealedSegments.Header header = headerOf(s);
+        List<UploadChunkJpaEntity> chunks = chunkRepo.findBySessionIdOrderByChunkIndexAsc(sessionId);
+        List<byte[]> hashes = new ArrayList<>(header.chunkCount());
+        for (UploadChunkJpaEntity c : chunks) {
+            if (c.isStored() && c.getChunkIndex() == hashes.size()) {
+                hashes.add(HexFormat.of().parseHex(c.getSha256()));
+            }
+        }
+        if (hashes.size() != header.chunkCount()) {
+            throw new IllegalArgumentException("Segments manquants : " + (header.chunkCount() - hashes.size())
+                    + " sur " + header.chunkCount() + ".");
+        }
+        byte[] root = SealedSegments.root(header, hashes);
+
+        String encObjectId = s.getUserId() + "_" + System.currentTimeMillis() + "_" + sessionId + SealedSegments.SUFFIX;
+        Path staging = stagingFile(sessionId);
+        String ciphertextSha256;
+        try {
+            ciphertextSha256 = assemble(s, header, staging);
+            VideoStorageEvent importEvent = VideoStorageEvent.begin("import", encObjectId, 0);
+            importEvent.bytes = header.fileSize();
+            videoStore.importFile(encObjectId, staging);
+            importEvent.commit();
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+        videoStore.put(VideoStore.dekIdOf(encObjectId), s.getEncryptedDek().getBytes(StandardCharsets.UTF_8));
+        try {
+            return orderService.createOrdersFromSealed(userId, List.of(s.getRecipients().split("\n")), s.getMontant(),
+                    s.getVideoName(), root, encObjectId, header.fileSize(), ciphertextSha256);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            videoStore.delete(VideoStore.dekIdOf(encObjectId));
+            videoStore.delete(encObjectId);
+            throw e;
+        }
+    }
+
+    /**
+     * Écrit en-tête et segments scellés dans le fichier local target, dans l'ordre des index.
+     * Retourne le SHA-256 (hexadécimal) du fichier écrit.
+     */
+    private String assemble(UploadSessionJpaEntity s, SealedSegments.Header header, Path target)
+            throws IOException, GeneralSecurityException {
+        Files.createDirectories(stagingRoot);
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (FileChannel ch = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(ch, md, header.encode());
+            for (int i = 0; i < header.chunkCount(); i++) {
+                byte[] sealed;
+                try {
+                    sealed = videoStore.get(segmentId(s.getId(), i));
+                } catch (NoSuchFileException e) {
+                    throw new IllegalStateException("Segment " + i + " introuvable dans le stockage.");
+                }
+                if (sealed.length != header.chunkLength(i) + SealedSegments.TAG_LENGTH) {
+                    throw new IllegalStateException("Segment " + i + " corrompu dans le stockage (taille).");
+                }
+                write(ch, md, sealed);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static void write(FileChannel ch, MessageDigest md, byte[] data) throws IOException {
+        md.update(data);
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    /** Abandonne la session et efface ses segments. Refusé pendant une finalisation. */
+    public void abort(Integer userId, String sessionId) throws IOException {
+        UploadSessionJpaEntity s = requireSession(userId, sessionId);
+        if (UploadSessionJpaEntity.STATUS_FINALIZING.equals(s.getStatus())) {
+            throw new IllegalStateException("Finalisation de l'upload en cours.");
+        }
+        discard(s);
+    }
+
+    /**
+     * Supprime les sessions expirées (lignes et segments du store partagé, donc quel que soit le réplica qui les a
+     * reçus ; suppressions idempotentes) puis les fichiers d'assemblage de ce réplica laissés par un arrêt brutal.
+     */
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-ms:600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        List<UploadSessionJpaEntity> expired = sessionRepo.findByExpiresAtBefore(LocalDateTime.now(),
+                PageRequest.of(0, CLEANUP_BATCH));
+        for (UploadSessionJpaEntity s : expired) {
+            try {
+                discard(s);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Suppression de la session d'upload {} impossible : {}", s.getId(), e.getMessage());
+            }
+        }
+        purgeLocalStaging();
+    }
+
+    private void purgeLocalStaging() {
+        if (!Files.isDirectory(stagingRoot)) {
+            return;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minusSeconds(sessionTtlHours * 3600));
+        try (Stream<Path> files = Files.list(stagingRoot)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().endsWith(".upload") && Files.getLastModifiedTime(p).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Nettoyage du répertoire d'assemblage {} impossible : {}", stagingRoot, e.getMessage());
+        }
+    }
+
+    private void discard(UploadSessionJpaEntity s) throws IOException {
+        release(s);
+        sessionRepo.deleteById(s.getId());
+    }
+
+    /** Efface le DEK en mémoire et les segments (objets et lignes) ; la ligne de session reste. */
+    private void release(UploadSessionJpaEntity s) throws IOException {
+        deks.remove(s.getId());
+        for (int i = 0; i < s.getChunkCount(); i++) {
+            videoStore.delete(segmentId(s.getId(), i));
+        }
+        chunkRepo.deleteBySessionId(s.getId());
+    }
+
+    /**
+     * Réserve le contenu du segment. Lève si l'index a déjà été reçu avec un autre contenu : le nonce étant dérivé
+     * de l'index, chiffrer un autre clair à la même place réutiliserait le nonce.
+     */
+    private UploadChunkJpaEntity reserve(String sessionId, int index, String sha) {
+        UploadChunkJpaEntity existing = chunkRepo.findBySessionIdAndChunkIndex(sessionId, index).orElse(null);
+        if (existing == null) {
+            UploadChunkJpaEntity c = new UploadChunkJpaEntity();
+            c.setSessionId(sessionId);
+            c.setChunkIndex(index);
+            c.setSha256(sha);
+            try {
+                return chunkRepo.save(c);
+            } catch (DataIntegrityViolationException e) {
+                // Envoi concurrent du même index
+                existing = chunkRepo.findBySessionIdAndChunkIndex(sessionId, index).orElseThrow(() -> e);
+            }
+        }
+        if (!existing.getSha256().equalsIgnoreCase(sha)) {
+            throw new IllegalArgumentException("Segment " + index + " déjà reçu avec un contenu différent.");
+        }
+        return existing;
+    }
+
+    private UploadSessionJpaEntity requireSession(Integer userId, String sessionId) {
+        UploadSessionJpaEntity s = sessionId == null ? null : sessionRepo.findById(sessionId).orElse(null);
+        if (s == null || !s.getUserId().equals(userId) || s.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Session d'upload introuvable ou expirée.");
+        }
+        return s;
+    }
+
+    /** DEK en clair de la session (copie à effacer par l'appelant) ; déchiffré une fois puis gardé en mémoire. */
+    private byte[] dekOf(UploadSessionJpaEntity s) throws GeneralSecurityException {
+        byte[] dek = deks.get(s.getId());
+        if (dek == null) {
+            dek = keyHierarchy.unwrapDek(s.getEncryptedDek());
+            deks.put(s.getId(), dek);
+        }
+        return dek;
+    }
+
+    private static SealedSegments.Header headerOf(UploadSessionJpaEntity s) {
+        return new SealedSegments.Header(s.getChunkSize(), s.getChunkCount(), s.getTotalSize(),
+                HexFormat.of().parseHex(s.getNoncePrefix()));
+    }
+
+    /** Objet du store contenant le segment scellé index de la session. */
+    static String segmentId(String sessionId, int index) {
+        return VideoStore.requireValidId("upload_" + sessionId + "_" + index + ".part");
+    }
+
+    private Path stagingFile(String sessionId) {
+        return stagingRoot.resolve(VideoStore.requireValidId(sessionId) + ".upload");
+    }
+
+    private static String sha256Hex(byte[] data) throws GeneralSecurityException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    /** state : statut de la session ; received : index des segments écrits, dans l'ordre. */
+    public record UploadStatus(String id, String state, long totalSize, int chunkSize, int chunkCount,
+                               List<Integer> received, LocalDateTime expiresAt) {
+
+        public boolean complete() {
+            return received.size() == chunkCount;
+        }
+    }
+
+    /** Résultat de {@link #complete} ; orders est null si une autre requête finalise la session. */
+    public record Completion(State state, OrderService.CreateOrdersResult orders) {
+
+        public enum State { CREATED, REPLAYED, IN_PROGRESS }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.auth.order.upload;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Format des vidéos envoyées par segments (objets {@value #SUFFIX}) : chaque segment est chiffré
+ * indépendamment, dès sa réception, et peut donc arriver dans n'importe quel ordre.
+ *
+ * Fichier : en-tête (29 octets) || segment 0 || segment 1 || ... ; le segment i est placé à un offset fixe
+ * et vaut AES-GCM(DEK, nonce = préfixe (8) || i (4), AAD = en-tête || i (4)) : un segment ne peut être
+ * ni déplacé, ni rejoué dans une autre vidéo, ni tronqué sans échec du tag.
+ * En-tête : "MSEG" || version (1) || taille de segment (4) || nombre de segments (4) || taille du clair (8)
+ * || préfixe de nonce (8).
+ *
+ * La vidéo est signée par sa racine : SHA-256(en-tête || SHA-256(segment 0 en clair) || ...),
+ * calculable sans relire le clair dans l'ordre.
+ */
+public final class SealedSegments {
+
+    /** Suffixe des objets au format segmenté (se termine par .enc comme les vidéos chiffrées d'un seul bloc). */
+    public static final String SUFFIX = ".seg.enc";
+    public static final int HEADER_LENGTH = 29;
+    public static final int TAG_LENGTH = 16;
+
+    private static final byte[] MAGIC = "MSEG".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final int NONCE_PREFIX_LENGTH = 8;
+
+    private SealedSegments() {
+    }
+
+    public static boolean isSealed(String objectId) {
+        return objectId != null && objectId.endsWith(SUFFIX);
+    }
+
+    /** En-tête d'une nouvelle vidéo de totalSize octets découpée en segments de chunkSize octets. */
+    public static Header newHeader(long totalSize, int chunkSize, SecureRandom rng) {
+        if (totalSize <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Taille de vidéo ou de segment invalide.");
+        }
+        long count = (totalSize + chunkSize - 1) / chunkSize;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trop de segments.");
+        }
+        byte[] prefix = new byte[NONCE_PREFIX_LENGTH];
+        rng.nextBytes(prefix);
+        return new Header(chunkSize, (int) count, totalSize, prefix);
+    }
+
+    /** Chiffre le segment index (taille exacte attendue : {@link Header#chunkLength}). */
+    public static byte[] seal(byte[] dek, Header header, int index, byte[] chunk) throws GeneralSecurityException {
+        if (chunk.length != header.chunkLength(index)) {
+            throw new IllegalArgumentException("Taille du segment " + index + " invalide.");
+        }
+        return cipher(Cipher.ENCRYPT_MODE, dek, header, index).doFinal(chunk);
+    }
+
+    /**
+     * Déchiffre et authentifie tous les segments. withRoot : calcule aussi la racine signée
+     * (SHA-256 de chaque segment en clair).
+     */
+    public static Opened open(byte[] dek, byte[] raw, boolean withRoot) throws GeneralSecurityException {
+        Header header = Header.parse(raw);
+        if (raw.length != header.fileSize()) {
+            throw new IllegalStateException("Fichier vidéo corrompu (taille).");
+        }
+        byte[] plain = new byte[(int) header.totalSize()];
+        MessageDigest root = withRoot ? sha256() : null;
+        if (root != null) {
+            root.update(header.encode());
+        }
+        int plainOffset = 0;
+        for (int i = 0; i < header.chunkCount(); i++) {
+            int sealedLength = header.chunkLength(i) + TAG_LENGTH;
+            int n = cipher(Cipher.DECRYPT_MODE, dek, header, i)
+                    .doFinal(raw, (int) header.segmentOffset(i), sealedLength, plain, plainOffset);
+            if (root != null) {
+                MessageDigest chunk = sha256();
+                chunk.update(plain, plainOffset, n);
+                root.update(chunk.digest());
+            }
+            plainOffset += n;
+        }
+        return new Opened(plain, root != null ? root.digest() : null);
+    }
+
+    /** Racine signée, à partir des SHA-256 des segments en clair (dans l'ordre des index). */
+    public static byte[] root(Header header, List<byte[]> chunkHashes) {
+        if (chunkHashes.size() != header.chunkCount()) {
+            throw new IllegalArgumentException("Nombre de segments invalide.");
+        }
+        MessageDigest md = sha256();
+        md.update(header.encode());
+        for (byte[] h : chunkHashes) {
+            md.update(h);
+        }
+        return md.digest();
+    }
+
+    private static Cipher cipher(int mode, byte[] dek, Header header, int index) throws GeneralSecurityException {
+        if (index < 0 || index >= header.chunkCount()) {
+            throw new IllegalArgumentException("Index de segment invalide : " + index);
+        }
+        byte[] nonce = ByteBuffer.allocate(12).put(header.noncePrefix()).putInt(index).array();
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, new SecretKeySpec(dek, "AES"), new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(header.encode());
+        cipher.updateAAD(ByteBuffer.allocate(4).putInt(index).array());
+        return cipher;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** plain : vidéo en clair ; root : racine signée (null si non demandée). */
+    public record Opened(byte[] plain, byte[] root) {}
+
+    public record Header(int chunkSize, int chunkCount, long totalSize, byte[] noncePrefix) {
+
+        public static Header parse(byte[] raw) {
+            if (raw.length < HEADER_LENGTH || !Arrays.equals(Arrays.copyOf(raw, MAGIC.length), MAGIC)) {
+                throw new IllegalStateException("Fichier vidéo corrompu (en-tête).");
+            }
+            ByteBuffer b = ByteBuffer.wrap(raw, MAGIC.length, HEADER_LENGTH - MAGIC.length);
+            if (b.get() != VERSION) {
+                throw new IllegalStateException("Fichier vidéo corrompu (version).");
+            }
+            int chunkSize = b.getInt();
+            int chunkCount = b.getInt();
+            long totalSize = b.getLong();
+            byte[] prefix = new byte[NONCE_PREFIX_LENGTH];
+            b.get(prefix);
+            if (chunkSize <= 0 || chunkCount <= 0 || totalSize <= 0 || totalSize > Integer.MAX_VALUE - 8
+                    || (totalSize + chunkSize - 1) / chunkSize != chunkCount) {
+                throw new IllegalStateException("Fichier vidéo corrompu (en-tête).");
+            }
+            return new Header(chunkSize, chunkCount, totalSize, prefix);
+        }
+
+        public byte[] encode() {
+            return ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put(VERSION).putInt(chunkSize).putInt(chunkCount)
+                    .putLong(totalSize).put(noncePrefix).array();
+        }
+
+        /** Taille en clair du segment index (le dernier peut être plus court). */
+        public int chunkLength(int index) {
+            if (index < 0 || index >= chunkCount) {
+                throw new IllegalArgumentException("Index de segment invalide : " + index);
+            }
+            return index < chunkCount - 1 ? chunkSize : (int) (totalSize - (long) chunkSize * (chunkCount - 1));
+        }
+
+        /** Position du segment chiffré index dans le fichier. */
+        public long segmentOffset(int index) {
+            return HEADER_LENGTH + (long) index * (chunkSize + TAG_LENGTH);
+        }
+
+        /** Taille totale du fichier chiffré. */
+        public long fileSize() {
+            return HEADER_LENGTH + totalSize + (long) chunkCount * TAG_LENGTH;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.auth.order.upload;
+
+import jakarta.persistence.*;
+
+/**
+ * Segment reçu d'une session d'upload (table upload_chunks). La ligne est créée avant l'écriture du segment
+ * chiffré et réserve son contenu (sha256) : un même index ne peut jamais être chiffré avec un autre clair
+ * (nonce dérivé de l'index). stored passe à vrai une fois le segment écrit.
+ */
+@Entity
+@Table(
+    name = "upload_chunks",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_chunk", columnNames = {"session_id", "chunk_index"})
+    }
+)
+public class UploadChunkJpaEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false, length = 32)
+    private String sessionId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "stored", nullable = false)
+    private boolean stored;
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public void setChunkIndex(int chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    public void setStored(boolean stored) {
+        this.stored = stored;
+    }
+}
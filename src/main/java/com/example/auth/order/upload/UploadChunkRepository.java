@@ -0,0 +1,29 @@
+package com.example.auth.order.upload;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadChunkRepository extends JpaRepository<UploadChunkJpaEntity, Long> {
+
+    Optional<UploadChunkJpaEntity> findBySessionIdAndChunkIndex(String sessionId, int chunkIndex);
+
+    List<UploadChunkJpaEntity> findBySessionIdOrderByChunkIndexAsc(String sessionId);
+
+    @Transactional
+    @Modifying
+    @Query("update UploadChunkJpaEntity c set c.stored = true where c.id = :id")
+    int markStored(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UploadChunkJpaEntity c where c.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,184 @@
+package com.example.auth.order.upload;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Session d'upload par segments (table upload_sessions) : paramètres de l'ordre à créer, découpage et
+ * DEK chiffré (Vault ou KEK) de la vidéo. Les segments scellés sont des objets du store partagé : la session
+ * n'est liée à aucun réplica.
+ * Statut : OPEN (réception des segments) -> FINALIZING (finalisation réservée par une requête) -> COMPLETED
+ * (ids des ordres créés conservés jusqu'à l'expiration, pour rejouer la réponse).
+ */
+@Entity
+@Table(
+    name = "upload_sessions",
+    indexes = {
+        @Index(name = "idx_upload_session_expires", columnList = "expires_at")
+    }
+)
+public class UploadSessionJpaEntity {
+
+    public static final String STATUS_OPEN = "OPEN";
+    public static final String STATUS_FINALIZING = "FINALIZING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(name = "id", length = 32)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    // Destinataires, un par ligne
+    @Column(name = "recipients", nullable = false, columnDefinition = "TEXT")
+    private String recipients;
+
+    @Column(name = "montant", nullable = false, precision = 10, scale = 2)
+    private BigDecimal montant;
+
+    @Column(name = "video_name", nullable = false, length = 255)
+    private String videoName;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "chunk_count", nullable = false)
+    private int chunkCount;
+
+    @Column(name = "nonce_prefix", nullable = false, length = 16)
+    private String noncePrefix;
+
+    @Column(name = "encrypted_dek", nullable = false, columnDefinition = "TEXT")
+    private String encryptedDek;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status = STATUS_OPEN;
+
+    // Ids des ordres créés (séparés par des virgules, dans l'ordre des destinataires), une fois finalisée
+    @Column(name = "order_ids", columnDefinition = "TEXT")
+    private String orderIds;
+
+    // Getters & Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getRecipients() {
+        return recipients;
+    }
+
+    public void setRecipients(String recipients) {
+        this.recipients = recipients;
+    }
+
+    public BigDecimal getMontant() {
+        return montant;
+    }
+
+    public void setMontant(BigDecimal montant) {
+        this.montant = montant;
+    }
+
+    public String getVideoName() {
+        return videoName;
+    }
+
+    public void setVideoName(String videoName) {
+        this.videoName = videoName;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public String getNoncePrefix() {
+        return noncePrefix;
+    }
+
+    public void setNoncePrefix(String noncePrefix) {
+        this.noncePrefix = noncePrefix;
+    }
+
+    public String getEncryptedDek() {
+        return encryptedDek;
+    }
+
+    public void setEncryptedDek(String encryptedDek) {
+        this.encryptedDek = encryptedDek;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(String orderIds) {
+        this.orderIds = orderIds;
+    }
+}
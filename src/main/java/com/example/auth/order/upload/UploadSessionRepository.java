@@ -0,0 +1,32 @@
+package com.example.auth.order.upload;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSessionJpaEntity, String> {
+
+    /** Sessions expirées, par pages. */
+    List<UploadSessionJpaEntity> findByExpiresAtBefore(LocalDateTime before, Pageable pageable);
+
+    /** Passe la session de from à to ; 0 si elle n'est plus dans l'état from (requête concurrente). */
+    @Transactional
+    @Modifying
+    @Query("update UploadSessionJpaEntity s set s.status = :to where s.id = :id and s.status = :from")
+    int transition(@Param("id") String id, @Param("from") String from, @Param("to") String to);
+
+    /** Termine une finalisation réservée en conservant les ids des ordres créés. */
+    @Transactional
+    @Modifying
+    @Query("update UploadSessionJpaEntity s set s.status = 'COMPLETED', s.orderIds = :orderIds "
+            + "where s.id = :id and s.status = 'FINALIZING'")
+    int markCompleted(@Param("id") String id, @Param("orderIds") String orderIds);
+}
@@ -0,0 +1,37 @@
+package com.example.auth.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Événement JFR : insertion d'un log d'audit (lecture de l'acteur + INSERT). */
+@Name("com.example.auth.AuditInsert")
+@Label("Insertion audit")
+@Category({"Moustass", "Audit"})
+@StackTrace(false)
+public class AuditInsertEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Entité")
+    public String entity;
+
+    @Label("Id entité")
+    public int entityId;
+
+    @Label("Utilisateur")
+    public int userId;
+
+    public static AuditInsertEvent begin(String action, String entity, Integer entityId, Integer userId) {
+        AuditInsertEvent e = new AuditInsertEvent();
+        e.action = action;
+        e.entity = entity;
+        e.entityId = entityId != null ? entityId : 0;
+        e.userId = userId != null ? userId : 0;
+        e.begin();
+        return e;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.auth.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Enregistrement JFR à la demande, sans agent externe : un seul enregistrement à la fois, borné en durée
+ * (app.profiling.max-duration-seconds) et en taille (app.profiling.max-size-bytes). Le fichier .jfr est écrit
+ * dans app.profiling.dir à l'arrêt, ou automatiquement à l'échéance de la durée ; seul le dernier est conservé.
+ *
+ * Les événements com.example.auth.* (hachage, chiffrement, Vault, E/S vidéo, audit) sont actifs quelle que
+ * soit la configuration choisie : default (surcoût ~1 %) ou profile (échantillonnage plus fin).
+ *
+ * Le fichier est téléchargeable par l'API d'administration : les événements qui recopient l'environnement,
+ * les propriétés système et la ligne de commande de la JVM (VAULT_TOKEN, DB_PASSWORD, JWT_SECRET,
+ * RECEIPT_SECRET...) sont désactivés.
+ */
+@Service
+public class JfrRecordingService {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrRecordingService.class);
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+    private static final List<String> SECRET_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path dir;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+
+    private Recording current;
+    private Path currentFile;
+    private Path lastFile;
+
+    public JfrRecordingService(@Value("${app.profiling.dir:${java.io.tmpdir}/moustass-jfr}") String dir,
+                               @Value("${app.profiling.max-duration-seconds:600}") long maxDurationSeconds,
+                               @Value("${app.profiling.max-size-bytes:268435456}") long maxSizeBytes) {
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.maxDuration = Duration.ofSeconds(Math.max(1, maxDurationSeconds));
+        this.maxSizeBytes = Math.max(1024 * 1024, maxSizeBytes);
+    }
+
+    /**
+     * Démarre un enregistrement. duration : null ou au-delà du maximum = durée maximale.
+     * Lève IllegalStateException si un enregistrement est déjà en cours, IllegalArgumentException si la
+     * configuration est inconnue.
+     */
+    public synchronized Map<String, Object> start(String settings, Duration duration) throws IOException {
+        String name = settings == null || settings.isBlank() ? "default" : settings.trim();
+        if (!SETTINGS.contains(name)) {
+            throw new IllegalArgumentException("Configuration JFR inconnue : " + name + " (default ou profile).");
+        }
+        if (isRunning()) {
+            throw new IllegalStateException("Un enregistrement JFR est déjà en cours.");
+        }
+        Duration bounded = duration == null || duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0
+                ? maxDuration : duration;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(name);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Configuration JFR illisible : " + name);
+        }
+        closeCurrent();
+        deleteLast();
+
+        Files.createDirectories(dir);
+        Path file = dir.resolve("moustass-" + FILE_TIME.format(Instant.now()) + ".jfr");
+        Recording recording = new Recording(configuration);
+        recording.setName("moustass-" + name);
+        recording.setToDisk(true);
+        recording.setMaxSize(maxSizeBytes);
+        recording.setDuration(bounded);
+        // Écrit aussi le fichier si la durée expire sans appel à stop()
+        recording.setDestination(file);
+        SECRET_EVENTS.forEach(recording::disable);
+        recording.start();
+        current = recording;
+        currentFile = file;
+        log.info("Enregistrement JFR démarré ({}, {} s max) : {}", name, bounded.toSeconds(), file);
+        return status();
+    }
+
+    /** Arrête l'enregistrement en cours et écrit le fichier. Lève IllegalStateException s'il n'y en a pas. */
+    public synchronized Map<String, Object> stop() {
+        if (!isRunning()) {
+            throw new IllegalStateException("Aucun enregistrement JFR en cours.");
+        }
+        current.stop();
+        closeCurrent();
+        log.info("Enregistrement JFR arrêté : {}", lastFile);
+        return status();
+    }
+
+    /** État : running, settings, startedAt, duration (s), file, fileSize. */
+    public synchronized Map<String, Object> status() {
+        if (current != null && !isRunning()) {
+            // Arrêté par l'échéance de sa durée : le fichier est déjà écrit
+            closeCurrent();
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("running", current != null);
+        if (current != null) {
+            body.put("name", current.getName());
+            body.put("startedAt", current.getStartTime() != null ? current.getStartTime().toString() : null);
+            body.put("duration", current.getDuration() != null ? current.getDuration().toSeconds() : null);
+            body.put("maxSize", current.getMaxSize());
+        }
+        Optional<Path> file = lastFile();
+        body.put("file", file.map(p -> p.getFileName().toString()).orElse(null));
+        body.put("fileSize", file.map(JfrRecordingService::sizeOf).orElse(null));
+        return body;
+    }
+
+    /** Dernier fichier .jfr écrit (absent si aucun, ou si un enregistrement est en cours). */
+    public synchronized Optional<Path> lastFile() {
+        if (current != null && !isRunning()) {
+            closeCurrent();
+        }
+        return current == null && lastFile != null && Files.isRegularFile(lastFile) ? Optional.of(lastFile) : Optional.empty();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private boolean isRunning() {
+        return current != null && (current.getState() == RecordingState.RUNNING || current.getState() == RecordingState.DELAYED);
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            current.close();
+            lastFile = currentFile;
+            current = null;
+            currentFile = null;
+        }
+    }
+
+    private void deleteLast() {
+        if (lastFile != null) {
+            try {
+                Files.deleteIfExists(lastFile);
+            } catch (IOException e) {
+                log.warn("Suppression de l'ancien enregistrement JFR impossible : {}", e.getMessage());
+            }
+            lastFile = null;
+        }
+    }
+
+    private static Long sizeOf(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
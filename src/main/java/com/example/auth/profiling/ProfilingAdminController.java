@@ -0,0 +1,105 @@
+package com.example.auth.profiling;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Profilage JFR en production. Réservé aux administrateurs (JWT requis).
+ * POST /api/admin/profiling/recording (settings=default|profile, duration en secondes) démarre ;
+ * POST /api/admin/profiling/recording/stop arrête ; GET /api/admin/profiling/recording donne l'état ;
+ * GET /api/admin/profiling/recording/file télécharge le dernier fichier .jfr.
+ */
+@RestController
+@RequestMapping("/api/admin/profiling/recording")
+@ConditionalOnProperty(name = "app.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingAdminController {
+
+    private final JfrRecordingService recordings;
+    private final SpringDataUsersRepository userRepo;
+
+    public ProfilingAdminController(JfrRecordingService recordings, SpringDataUsersRepository userRepo) {
+        this.recordings = recordings;
+        this.userRepo = userRepo;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestAttribute("userId") Integer userId,
+                                   @RequestParam(value = "settings", required = false) String settings,
+                                   @RequestParam(value = "duration", required = false) Long durationSeconds) {
+        if (!isAdmin(userId)) {
+            return forbidden();
+        }
+        try {
+            Duration duration = durationSeconds != null ? Duration.ofSeconds(durationSeconds) : null;
+            return ResponseEntity.status(HttpStatus.CREATED).body(recordings.start(settings, duration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage() != null ? e.getMessage() : "Erreur serveur"));
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<?> stop(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return forbidden();
+        }
+        try {
+            return ResponseEntity.ok(recordings.stop());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> status(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(recordings.status());
+    }
+
+    @GetMapping("/file")
+    public ResponseEntity<?> download(@RequestAttribute("userId") Integer userId) {
+        if (!isAdmin(userId)) {
+            return forbidden();
+        }
+        Optional<Path> file = recordings.lastFile();
+        if (file.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Aucun enregistrement JFR disponible."));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.get().getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file.get()));
+    }
+
+    private static ResponseEntity<?> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Accès réservé aux administrateurs"));
+    }
+
+    private boolean isAdmin(Integer userId) {
+        return userId != null && userRepo.findById(userId).map(UsersJpaEntity::isAdmin).orElse(false);
+    }
+}
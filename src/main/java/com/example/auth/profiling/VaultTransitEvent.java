@@ -0,0 +1,34 @@
+package com.example.auth.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Événement JFR : appel Vault Transit (sign, verify, encrypt_dek...). */
+@Name("com.example.auth.VaultTransit")
+@Label("Appel Vault Transit")
+@Category({"Moustass", "Vault"})
+@StackTrace(false)
+public class VaultTransitEvent extends Event {
+
+    @Label("Opération")
+    public String operation;
+
+    @Label("Clé")
+    public String keyName;
+
+    @Label("Résultat")
+    @Description("success, error ou invalid")
+    public String outcome;
+
+    public static VaultTransitEvent begin(String operation, String keyName) {
+        VaultTransitEvent e = new VaultTransitEvent();
+        e.operation = operation;
+        e.keyName = keyName;
+        e.begin();
+        return e;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.auth.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Événement JFR : chiffrement ou déchiffrement AES-GCM d'une vidéo (ou d'un segment). */
+@Name("com.example.auth.VideoCrypto")
+@Label("Chiffrement vidéo")
+@Category({"Moustass", "Crypto"})
+@Description("AES-GCM : encrypt, decrypt ou seal (segment d'un upload reprenable)")
+@StackTrace(false)
+public class VideoCryptoEvent extends Event {
+
+    @Label("Opération")
+    public String operation;
+
+    @Label("Objet")
+    public String objectId;
+
+    @Label("Ordre")
+    public int orderId;
+
+    @Label("Octets")
+    @DataAmount
+    public long bytes;
+
+    public static VideoCryptoEvent begin(String operation, String objectId, int orderId, long bytes) {
+        VideoCryptoEvent e = new VideoCryptoEvent();
+        e.operation = operation;
+        e.objectId = objectId;
+        e.orderId = orderId;
+        e.bytes = bytes;
+        e.begin();
+        return e;
+    }
+}
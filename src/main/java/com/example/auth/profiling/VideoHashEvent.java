@@ -0,0 +1,43 @@
+package com.example.auth.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Événement JFR : SHA-256 d'une vidéo (clair avant signature, ou fichier chiffré pour l'empreinte). */
+@Name("com.example.auth.VideoHash")
+@Label("Hachage vidéo")
+@Category({"Moustass", "Crypto"})
+@Description("SHA-256 d'une vidéo en clair ou chiffrée")
+@StackTrace(false)
+public class VideoHashEvent extends Event {
+
+    @Label("Flux")
+    public String flow;
+
+    @Label("Cible")
+    @Description("plain ou ciphertext")
+    public String target;
+
+    @Label("Ordre")
+    public int orderId;
+
+    @Label("Octets")
+    @DataAmount
+    public long bytes;
+
+    /** Démarre l'événement ; {@link #commit()} l'enregistre si JFR l'a activé (sinon coût quasi nul). */
+    public static VideoHashEvent begin(String flow, String target, int orderId, long bytes) {
+        VideoHashEvent e = new VideoHashEvent();
+        e.flow = flow;
+        e.target = target;
+        e.orderId = orderId;
+        e.bytes = bytes;
+        e.begin();
+        return e;
+    }
+}
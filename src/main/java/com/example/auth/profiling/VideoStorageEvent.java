@@ -0,0 +1,40 @@
+package com.example.auth.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Événement JFR : lecture ou écriture d'une vidéo chiffrée (store vidéo ou fichier d'upload). */
+@Name("com.example.auth.VideoStorage")
+@Label("E/S vidéo")
+@Category({"Moustass", "Stockage"})
+@Description("read, write, write_chunk ou import d'une vidéo chiffrée")
+@StackTrace(false)
+public class VideoStorageEvent extends Event {
+
+    @Label("Opération")
+    public String operation;
+
+    @Label("Objet")
+    public String objectId;
+
+    @Label("Ordre")
+    public int orderId;
+
+    @Label("Octets")
+    @DataAmount
+    public long bytes;
+
+    public static VideoStorageEvent begin(String operation, String objectId, int orderId) {
+        VideoStorageEvent e = new VideoStorageEvent();
+        e.operation = operation;
+        e.objectId = objectId;
+        e.orderId = orderId;
+        e.begin();
+        return e;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.auth.tracing;
+
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traceur autonome (hors contexte Spring) exportant chaque span dès sa fin vers exporter : permet de capturer
+ * les traces des services instanciés à la main dans les tests et benchmarks.
+ */
+public final class LocalTracing implements AutoCloseable {
+
+    private final SdkTracerProvider provider;
+    private final Tracer tracer;
+
+    private LocalTracing(SdkTracerProvider provider, Tracer tracer) {
+        this.provider = provider;
+        this.tracer = tracer;
+    }
+
+    public static LocalTracing create(SpanExporter exporter) {
+        SdkTracerProvider provider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        Tracer tracer = new OtelTracer(provider.get("com.example.auth"), new OtelCurrentTraceContext(), event -> { });
+        return new LocalTracing(provider, tracer);
+    }
+
+    public Tracer tracer() {
+        return tracer;
+    }
+
+    @Override
+    public void close() {
+        provider.shutdown().join(5, TimeUnit.SECONDS);
+    }
+}
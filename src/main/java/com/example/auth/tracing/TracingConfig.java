@@ -0,0 +1,31 @@
+package com.example.auth.tracing;
+
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Exporteur local des traces, en plus de l'export OTLP (actif si management.otlp.tracing.endpoint est défini) :
+ * app.tracing.exporter=file écrit les spans dans app.tracing.file (JSON, une ligne par span), memory les garde
+ * en mémoire. Spring Boot ajoute tout bean {@link SpanExporter} au pipeline OpenTelemetry.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "file")
+    public SpanExporter fileSpanExporter(@Value("${app.tracing.file:./data/traces/spans.jsonl}") String file) throws IOException {
+        return new FileSpanExporter(Path.of(file));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "memory")
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${app.tracing.memory-capacity:10000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+}
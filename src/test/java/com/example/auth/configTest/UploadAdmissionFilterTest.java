@@ -0,0 +1,115 @@
+package com.example.auth.configTest;
+
+import com.example.auth.config.UploadAdmissionFilter;
+import com.example.auth.config.UploadBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UploadAdmissionFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private UploadBudget budget;
+    private UploadAdmissionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        budget = new UploadBudget(10 * 1024, registry);
+        filter = new UploadAdmissionFilter(budget, 50, 8 * 1024, 7, registry);
+    }
+
+    @Test
+    void doFilter_shouldReserveDuringRequest_andReleaseAfter() throws Exception {
+        AtomicLong usedDuringChain = new AtomicLong();
+        FilterChain chain = (req, res) -> usedDuringChain.set(budget.usedBytes());
+
+        filter.doFilter(upload(4000), new MockHttpServletResponse(), chain);
+
+        assertEquals(4096, usedDuringChain.get());
+        assertEquals(0, budget.usedBytes());
+        assertEquals(10 * 1024, registry.get("upload.budget.capacity").gauge().value());
+        assertEquals(1.0, registry.get("upload.admission").tag("result", "admitted").counter().count());
+    }
+
+    @Test
+    void doFilter_shouldReturn503WithRetryAfter_whenBudgetExhausted() throws Exception {
+        UploadBudget.Reservation held = budget.tryReserve(8 * 1024, 0);
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(upload(4 * 1024), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("7", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("error"));
+        verify(chain, never()).doFilter(any(), any());
+        assertEquals(8 * 1024, registry.get("upload.budget.used").gauge().value());
+
+        held.close();
+        held.close();
+        filter.doFilter(upload(4 * 1024), new MockHttpServletResponse(), chain);
+        verify(chain).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_shouldReturn413_whenDeclaredLengthExceedsBudget() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(upload(20 * 1024), response, chain);
+
+        assertEquals(413, response.getStatus());
+        verify(chain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_shouldReserveMaxRequestSize_whenLengthUnknown() throws Exception {
+        AtomicLong usedDuringChain = new AtomicLong();
+        MockHttpServletRequest chunked = upload(0);
+        chunked.setContent(null);
+
+        filter.doFilter(chunked, new MockHttpServletResponse(), (req, res) -> usedDuringChain.set(budget.usedBytes()));
+
+        assertEquals(8 * 1024, usedDuringChain.get());
+    }
+
+    @Test
+    void doFilter_shouldIgnoreNonMultipartRequests() throws Exception {
+        budget.tryReserve(10 * 1024, 0);
+        MockHttpServletRequest json = new MockHttpServletRequest("POST", "/api/orders");
+        json.setContentType("application/json");
+        json.setContent(new byte[100]);
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(json, new MockHttpServletResponse(), chain);
+
+        verify(chain).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_shouldReleaseReservation_whenChainThrows() {
+        FilterChain chain = (req, res) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(upload(4000), new MockHttpServletResponse(), chain));
+        assertEquals(0, budget.usedBytes());
+    }
+
+    private static MockHttpServletRequest upload(int length) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContentType("multipart/form-data; boundary=x");
+        request.setContent(new byte[length]);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.auth.inscriptionTest.adapters.out;
+
+import com.example.auth.inscription.adapters.out.InProcessTransitAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessTransitAdapterTest {
+
+    private InProcessTransitAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        adapter = new InProcessTransitAdapter(0, 0, 0, 0);
+    }
+
+    @Test
+    void signAndVerify_shouldRoundTripWithVaultEnvelope() {
+        adapter.createSigningKey("user-1");
+        String input = Base64.getEncoder().encodeToString("hash".getBytes(StandardCharsets.UTF_8));
+
+        String signature = adapter.sign("user-1", input);
+
+        assertTrue(signature.startsWith("vault:v1:"));
+        assertTrue(adapter.verify("user-1", input, signature));
+        assertFalse(adapter.verify("user-1", Base64.getEncoder().encodeToString(new byte[]{1}), signature));
+        assertEquals(32, Base64.getDecoder().decode(adapter.exportPublicKey("user-1")).length);
+    }
+
+    @Test
+    void verify_shouldRejectSignatureFromAnotherKey() {
+        adapter.createSigningKey("alice");
+        adapter.createSigningKey("bob");
+        String input = Base64.getEncoder().encodeToString(new byte[32]);
+
+        assertFalse(adapter.verify("bob", input, adapter.sign("alice", input)));
+    }
+
+    @Test
+    void encryptDek_shouldCreateKeyAndDecrypt() {
+        byte[] dek = new byte[32];
+        Arrays.fill(dek, (byte) 7);
+
+        String ct = adapter.encryptDek("video-dek", dek);
+
+        assertTrue(ct.startsWith("vault:v1:"));
+        assertArrayEquals(dek, adapter.decryptDek("video-dek", ct));
+        assertEquals(1, adapter.latestKeyVersion("video-dek"));
+    }
+
+    @Test
+    void rewrapDeks_shouldMoveToLatestVersionAndReportFailedEntries() {
+        byte[] dek = new byte[32];
+        String v1 = adapter.encryptDek("video-dek", dek);
+        assertEquals(2, adapter.rotateKey("video-dek"));
+
+        List<String> out = adapter.rewrapDeks("video-dek", List.of(v1, "vault:v1:invalide"));
+
+        assertTrue(out.get(0).startsWith("vault:v2:"));
+        assertArrayEquals(dek, adapter.decryptDek("video-dek", out.get(0)));
+        assertArrayEquals(dek, adapter.decryptDek("video-dek", v1));
+        assertNull(out.get(1));
+    }
+
+    @Test
+    void unknownKey_shouldFailLikeVault() {
+        assertThrows(IllegalStateException.class, () -> adapter.sign("absente", "AA=="));
+        assertThrows(IllegalStateException.class, () -> adapter.latestKeyVersion("absente"));
+    }
+
+    @Test
+    void injectedFaults_shouldDelayAndFailCalls() {
+        InProcessTransitAdapter slow = new InProcessTransitAdapter(20, 0, 0, 0);
+        long start = System.nanoTime();
+        slow.createSigningKey("user-1");
+        assertTrue(System.nanoTime() - start >= 20_000_000L);
+
+        InProcessTransitAdapter failing = new InProcessTransitAdapter(0, 0, 1, 42);
+        assertThrows(IllegalStateException.class, () -> failing.createSigningKey("user-1"));
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidErrorRate() {
+        assertThrows(IllegalArgumentException.class, () -> new InProcessTransitAdapter(0, 0, 1.5, 0));
+    }
+}
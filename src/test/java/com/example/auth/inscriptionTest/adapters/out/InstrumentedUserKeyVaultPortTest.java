@@ -0,0 +1,114 @@
+package com.example.auth.inscriptionTest.adapters.out;
+
+import com.example.auth.config.VaultInstrumentationConfig;
+import com.example.auth.inscription.adapters.out.InstrumentedUserKeyVaultPort;
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.tracing.InMemorySpanExporter;
+import com.example.auth.tracing.LocalTracing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InstrumentedUserKeyVaultPortTest {
+
+    private UserKeyVaultPort delegate;
+    private SimpleMeterRegistry registry;
+    private InstrumentedUserKeyVaultPort port;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(UserKeyVaultPort.class);
+        registry = new SimpleMeterRegistry();
+        port = new InstrumentedUserKeyVaultPort(delegate, registry);
+    }
+
+    @Test
+    void sign_shouldDelegateAndRecordSuccess() {
+        when(delegate.sign("user-key", "aGFzaA==")).thenReturn("vault:v1:sig");
+
+        assertEquals("vault:v1:sig", port.sign("user-key", "aGFzaA=="));
+
+        assertEquals(1, registry.get("vault.transit").tag("operation", "sign").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void decryptDek_shouldRecordErrorAndRethrow() {
+        when(delegate.decryptDek(anyString(), anyString())).thenThrow(new IllegalStateException("Vault indisponible"));
+
+        assertThrows(IllegalStateException.class, () -> port.decryptDek("video-dek", "vault:v1:x"));
+
+        assertEquals(1, registry.get("vault.transit").tag("operation", "decrypt_dek").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void verify_shouldTagRejectedSignatureAsInvalid() {
+        when(delegate.verify("k", "in", "bad")).thenReturn(false);
+        when(delegate.verify("k", "in", "good")).thenReturn(true);
+
+        assertFalse(port.verify("k", "in", "bad"));
+        assertTrue(port.verify("k", "in", "good"));
+
+        assertEquals(1, registry.get("vault.transit").tag("operation", "verify").tag("outcome", "invalid").timer().count());
+        assertEquals(1, registry.get("vault.transit").tag("operation", "verify").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void createSigningKeyAndRewrap_shouldDelegate() {
+        when(delegate.rewrapDeks("video-dek", List.of("vault:v1:a"))).thenReturn(List.of("vault:v2:a"));
+
+        port.createSigningKey("user-key");
+        assertEquals(List.of("vault:v2:a"), port.rewrapDeks("video-dek", List.of("vault:v1:a")));
+
+        verify(delegate).createSigningKey("user-key");
+        assertEquals(1, registry.get("vault.transit").tag("operation", "rewrap_deks").timer().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void postProcessor_shouldWrapPortImplementationsOnce() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(registry);
+        ObjectProvider<Tracer> tracerProvider = mock(ObjectProvider.class);
+        when(tracerProvider.getIfAvailable(any())).thenReturn(Tracer.NOOP);
+        BeanPostProcessor bpp = VaultInstrumentationConfig.instrumentedVaultPortPostProcessor(provider, tracerProvider);
+
+        Object wrapped = bpp.postProcessAfterInitialization(delegate, "vaultTransitAdapter");
+        Object other = new Object();
+
+        assertInstanceOf(InstrumentedUserKeyVaultPort.class, wrapped);
+        assertSame(delegate, ((InstrumentedUserKeyVaultPort) wrapped).getDelegate());
+        assertSame(wrapped, bpp.postProcessAfterInitialization(wrapped, "vaultTransitAdapter"));
+        assertSame(other, bpp.postProcessAfterInitialization(other, "other"));
+    }
+
+    @Test
+    void sign_shouldOpenSpanWithKeyName() {
+        InMemorySpanExporter spans = new InMemorySpanExporter(100);
+        try (LocalTracing tracing = LocalTracing.create(spans)) {
+            port = new InstrumentedUserKeyVaultPort(delegate, registry, tracing.tracer());
+            when(delegate.sign("user-key", "aGFzaA==")).thenReturn("vault:v1:sig");
+            when(delegate.decryptDek(anyString(), anyString())).thenThrow(new IllegalStateException("Vault indisponible"));
+
+            port.sign("user-key", "aGFzaA==");
+            assertThrows(IllegalStateException.class, () -> port.decryptDek("video-dek", "vault:v1:x"));
+        }
+
+        List<SpanData> finished = spans.getFinishedSpans();
+        assertEquals(List.of("vault.sign", "vault.decrypt_dek"), finished.stream().map(SpanData::getName).toList());
+        assertEquals("user-key", finished.get(0).getAttributes().get(AttributeKey.stringKey("vault.key")));
+        assertEquals(StatusCode.ERROR, finished.get(1).getStatus().getStatusCode());
+    }
+}
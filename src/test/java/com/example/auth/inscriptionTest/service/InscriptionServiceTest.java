@@ -3,6 +3,7 @@ package com.example.auth.inscriptionTest.service;
 import com.example.auth.inscription.entity.Users;
 import com.example.auth.inscription.ports.out.InscriptionRepository;
 import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.inscription.ports.out.UserVideoPurgePort;
 import com.example.auth.inscription.service.InscriptionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ class InscriptionServiceTest {
     private InscriptionRepository repo;
     private UserKeyVaultPort vault;
     private BCryptPasswordEncoder encoder;
+    private UserVideoPurgePort purgePort;
     private InscriptionService service;
 
     private String password = "PasswordA1";
@@ -26,7 +28,8 @@ class InscriptionServiceTest {
         repo = mock(InscriptionRepository.class);
         vault = mock(UserKeyVaultPort.class);
         encoder = new BCryptPasswordEncoder();
-        service = new InscriptionService(repo, vault, encoder);
+        purgePort = mock(UserVideoPurgePort.class);
+        service = new InscriptionService(repo, vault, encoder, purgePort);
     }
 
     @Test
@@ -123,6 +126,17 @@ class InscriptionServiceTest {
         verify(repo, times(1)).deleteById(userId);
     }
 
+    @Test
+    void deleteUser_shouldPurgeUserVideosBeforeDeletingAccount() {
+        Integer userId = 7;
+
+        service.deleteUser(userId);
+
+        var inOrder = inOrder(purgePort, repo);
+        inOrder.verify(purgePort).purgeUserVideos(7);
+        inOrder.verify(repo).deleteById(7);
+    }
+
     @Test
     void deleteUser_shouldCallRepositoryWithCorrectId() {
         Integer userId = 123;
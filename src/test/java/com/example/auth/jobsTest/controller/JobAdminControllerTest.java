@@ -0,0 +1,77 @@
+package com.example.auth.jobsTest.controller;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.jobs.controller.JobAdminController;
+import com.example.auth.jobs.service.JobCoordinator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JobAdminControllerTest {
+
+    private JobCoordinator coordinator;
+    private JobAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = mock(JobCoordinator.class);
+        SpringDataUsersRepository userRepo = mock(SpringDataUsersRepository.class);
+        controller = new JobAdminController(coordinator, userRepo);
+
+        UsersJpaEntity admin = new UsersJpaEntity();
+        admin.setId(1);
+        admin.setAdmin(true);
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(2);
+        user.setAdmin(false);
+        when(userRepo.findById(1)).thenReturn(Optional.of(admin));
+        when(userRepo.findById(2)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void progress_shouldReturnCoordinatorProgress_forAdmin() {
+        when(coordinator.progress()).thenReturn(List.of());
+
+        ResponseEntity<?> res = controller.progress(1);
+
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(List.of(), res.getBody());
+    }
+
+    @Test
+    void progress_shouldReturn403_forNonAdminOrUnknownUser() {
+        assertEquals(HttpStatus.FORBIDDEN, controller.progress(2).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.progress(99).getStatusCode());
+        verify(coordinator, never()).progress();
+    }
+
+    @Test
+    void run_shouldReturn202_whenJobKnown() {
+        when(coordinator.requestRun("video-orphan-reconcile")).thenReturn(true);
+
+        assertEquals(HttpStatus.ACCEPTED, controller.run(1, "video-orphan-reconcile").getStatusCode());
+        verify(coordinator).requestRun("video-orphan-reconcile");
+    }
+
+    @Test
+    void run_shouldReturn404_whenJobUnknown() {
+        when(coordinator.requestRun("nope")).thenReturn(false);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.run(1, "nope").getStatusCode());
+    }
+
+    @Test
+    void run_shouldReturn403_forNonAdmin() {
+        assertEquals(HttpStatus.FORBIDDEN, controller.run(2, "video-orphan-reconcile").getStatusCode());
+        verify(coordinator, never()).requestRun(anyString());
+    }
+}
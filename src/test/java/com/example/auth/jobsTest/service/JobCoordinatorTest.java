@@ -0,0 +1,215 @@
+package com.example.auth.jobsTest.service;
+
+import com.example.auth.jobs.entity.JobLeaseJpaEntity;
+import com.example.auth.jobs.entity.JobShardJpaEntity;
+import com.example.auth.jobs.repository.JobLeaseRepository;
+import com.example.auth.jobs.repository.JobShardRepository;
+import com.example.auth.jobs.service.JobCoordinator;
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.jobs.service.ShardedJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JobCoordinatorTest {
+
+    private JobLeaseService leases;
+    private JobLeaseRepository leaseRepo;
+    private JobShardRepository shardRepo;
+    private SimpleMeterRegistry registry;
+    private RecordingJob job;
+    private JobCoordinator coordinator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        leases = mock(JobLeaseService.class);
+        leaseRepo = mock(JobLeaseRepository.class);
+        shardRepo = mock(JobShardRepository.class);
+        registry = new SimpleMeterRegistry();
+        job = new RecordingJob();
+        ObjectProvider<ShardedJob> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenAnswer(inv -> Stream.of(job));
+        when(leases.getInstanceId()).thenReturn("node-a");
+        coordinator = new JobCoordinator(provider, leases, leaseRepo, shardRepo, registry, 1, 60_000, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinator.shutdown();
+    }
+
+    @Test
+    void heartbeat_shouldPlanFencedShards_whenLeaderAndRunRequested() {
+        when(leases.acquireOrRenew("test-job")).thenReturn(OptionalLong.of(5));
+        JobLeaseJpaEntity lease = lease(null);
+        lease.setRunRequested(true);
+        when(leaseRepo.findById("test-job")).thenReturn(Optional.of(lease));
+        when(shardRepo.insertFenced(eq("test-job"), eq("node-a"), eq(5L), anyLong(), anyLong())).thenReturn(1);
+
+        coordinator.heartbeat();
+
+        verify(shardRepo).deleteOlderRuns("test-job", 5);
+        verify(shardRepo).insertFenced("test-job", "node-a", 5, 0, 10);
+        verify(shardRepo).insertFenced("test-job", "node-a", 5, 10, 20);
+        verify(shardRepo).insertFenced("test-job", "node-a", 5, 20, 25);
+        verify(leaseRepo).markPlanned("test-job", "node-a", 5);
+    }
+
+    @Test
+    void heartbeat_shouldStopPlanning_whenLeaseLostMidway() {
+        when(leases.acquireOrRenew("test-job")).thenReturn(OptionalLong.of(5));
+        JobLeaseJpaEntity lease = lease(null);
+        lease.setRunRequested(true);
+        when(leaseRepo.findById("test-job")).thenReturn(Optional.of(lease));
+        when(shardRepo.insertFenced(anyString(), anyString(), anyLong(), anyLong(), anyLong())).thenReturn(1, 0);
+
+        coordinator.heartbeat();
+
+        verify(shardRepo, times(2)).insertFenced(anyString(), anyString(), anyLong(), anyLong(), anyLong());
+        verify(leaseRepo, never()).markPlanned(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void heartbeat_shouldNotReplan_whileCurrentRunHasOpenShards() {
+        when(leases.acquireOrRenew("test-job")).thenReturn(OptionalLong.of(6));
+        JobLeaseJpaEntity lease = lease(5L);
+        lease.setRunRequested(true);
+        when(leaseRepo.findById("test-job")).thenReturn(Optional.of(lease));
+        when(shardRepo.countByJobNameAndRunTokenAndStatusIn(eq("test-job"), eq(5L), any())).thenReturn(2L);
+
+        coordinator.heartbeat();
+
+        verify(shardRepo, never()).insertFenced(anyString(), anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void heartbeat_shouldDoNothing_whenNotLeader() {
+        when(leases.acquireOrRenew("test-job")).thenReturn(OptionalLong.empty());
+
+        coordinator.heartbeat();
+
+        verifyNoInteractions(shardRepo);
+    }
+
+    @Test
+    void poll_shouldProcessClaimedShardAndCompleteIt() {
+        when(leaseRepo.findById("test-job")).thenReturn(Optional.of(lease(5L)));
+        when(shardRepo.claimNext(eq("test-job"), eq(5L), anyString(), eq(60_000L))).thenReturn(1, 0);
+        JobShardJpaEntity shard = shard(11L, 0, 10);
+        when(shardRepo.findFirstByJobNameAndOwnerAndStatus(eq("test-job"), anyString(), eq(JobShardJpaEntity.RUNNING)))
+                .thenReturn(Optional.of(shard));
+        when(shardRepo.complete(eq(11L), anyString(), eq(1L), anyLong())).thenReturn(1);
+
+        coordinator.poll();
+
+        verify(shardRepo, timeout(2000)).complete(eq(11L), startsWith("node-a/"), eq(1L), eq(10L));
+        assertEquals(List.of(0L), job.processedFrom);
+    }
+
+    @Test
+    void poll_shouldReleaseShard_whenProcessingFails() {
+        job.failing = true;
+        when(leaseRepo.findById("test-job")).thenReturn(Optional.of(lease(5L)));
+        when(shardRepo.claimNext(eq("test-job"), eq(5L), anyString(), anyLong())).thenReturn(1, 0);
+        when(shardRepo.findFirstByJobNameAndOwnerAndStatus(anyString(), anyString(), anyString()))
+                .thenReturn(Optional.of(shard(12L, 10, 20)));
+
+        coordinator.poll();
+
+        verify(shardRepo, timeout(2000)).fail(eq(12L), anyString(), eq(1L), eq(0L), contains("boom"), eq(3));
+        verify(shardRepo, never()).complete(anyLong(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void requestRun_shouldRejectUnknownJob() {
+        assertFalse(coordinator.requestRun("nope"));
+        assertTrue(coordinator.requestRun("test-job"));
+        verify(leaseRepo).requestRun("test-job");
+    }
+
+    @Test
+    void progress_shouldSummarizeCurrentRun() {
+        JobLeaseJpaEntity lease = lease(5L);
+        lease.setOwner("node-b");
+        when(leaseRepo.findById("test-job")).thenReturn(Optional.of(lease));
+        when(shardRepo.summarize("test-job", 5L)).thenReturn(List.of(
+                new Object[]{JobShardJpaEntity.DONE, 2L, 20L},
+                new Object[]{JobShardJpaEntity.PENDING, 1L, 0L}));
+
+        JobCoordinator.JobProgress p = coordinator.progress().get(0);
+
+        assertEquals("node-b", p.leader());
+        assertEquals(2, p.doneShards());
+        assertEquals(1, p.pendingShards());
+        assertEquals(20, p.processed());
+    }
+
+    private static JobLeaseJpaEntity lease(Long currentRun) {
+        JobLeaseJpaEntity l = new JobLeaseJpaEntity();
+        l.setJobName("test-job");
+        l.setCurrentRun(currentRun);
+        return l;
+    }
+
+    private static JobShardJpaEntity shard(long id, long from, long to) {
+        JobShardJpaEntity s = new JobShardJpaEntity();
+        s.setId(id);
+        s.setJobName("test-job");
+        s.setRangeStart(from);
+        s.setRangeEnd(to);
+        s.setCursorPos(from);
+        s.setClaimToken(1);
+        s.setStatus(JobShardJpaEntity.RUNNING);
+        return s;
+    }
+
+    private static class RecordingJob implements ShardedJob {
+        final List<Long> processedFrom = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean failing;
+
+        @Override
+        public String name() {
+            return "test-job";
+        }
+
+        @Override
+        public Duration interval() {
+            return Duration.ofHours(1);
+        }
+
+        @Override
+        public long shardSize() {
+            return 10;
+        }
+
+        @Override
+        public IdRange plan() {
+            return new IdRange(0, 25);
+        }
+
+        @Override
+        public long process(ShardContext shard) {
+            if (failing) throw new IllegalStateException("boom");
+            processedFrom.add(shard.cursor());
+            return shard.to() - shard.cursor();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.auth.jobsTest.service;
+
+import com.example.auth.jobs.entity.JobLeaseJpaEntity;
+import com.example.auth.jobs.repository.JobLeaseRepository;
+import com.example.auth.jobs.service.JobLeaseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JobLeaseServiceTest {
+
+    private JobLeaseRepository leaseRepo;
+    private SimpleMeterRegistry registry;
+    private JobLeaseService service;
+
+    @BeforeEach
+    void setUp() {
+        leaseRepo = mock(JobLeaseRepository.class);
+        registry = new SimpleMeterRegistry();
+        service = new JobLeaseService(leaseRepo, registry, 30_000, "node-a");
+    }
+
+    @Test
+    void acquireOrRenew_shouldReturnFencingToken_whenLeaseAcquired() {
+        when(leaseRepo.acquire("reaper", "node-a", 30_000)).thenReturn(1);
+        when(leaseRepo.findById("reaper")).thenReturn(Optional.of(lease("reaper", 7)));
+
+        assertEquals(OptionalLong.of(7), service.acquireOrRenew("reaper"));
+        assertTrue(service.isLeader("reaper"));
+        assertEquals(OptionalLong.of(7), service.currentToken("reaper"));
+        assertEquals(1.0, registry.get("jobs.leader").tag("job", "reaper").gauge().value());
+        verify(leaseRepo).insertIfAbsent("reaper");
+    }
+
+    @Test
+    void acquireOrRenew_shouldNotHitDatabase_whileLeaseIsFresh() {
+        when(leaseRepo.acquire("reaper", "node-a", 30_000)).thenReturn(1);
+        when(leaseRepo.findById("reaper")).thenReturn(Optional.of(lease("reaper", 1)));
+
+        service.acquireOrRenew("reaper");
+        service.acquireOrRenew("reaper");
+        service.acquireOrRenew("reaper");
+
+        verify(leaseRepo, times(1)).acquire(anyString(), anyString(), anyLong());
+        verify(leaseRepo, never()).renew(anyString(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void acquireOrRenew_shouldBackOff_whenAnotherReplicaIsLeader() {
+        when(leaseRepo.acquire("reaper", "node-a", 30_000)).thenReturn(0);
+
+        assertTrue(service.acquireOrRenew("reaper").isEmpty());
+        assertTrue(service.acquireOrRenew("reaper").isEmpty());
+
+        assertFalse(service.isLeader("reaper"));
+        verify(leaseRepo, times(1)).acquire(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void release_shouldClearLeadership() {
+        when(leaseRepo.acquire("reaper", "node-a", 30_000)).thenReturn(1);
+        when(leaseRepo.findById("reaper")).thenReturn(Optional.of(lease("reaper", 4)));
+        service.acquireOrRenew("reaper");
+
+        service.release("reaper");
+
+        assertFalse(service.isLeader("reaper"));
+        verify(leaseRepo).release("reaper", "node-a", 4);
+    }
+
+    @Test
+    void constructor_shouldRejectTooShortLease() {
+        assertThrows(IllegalArgumentException.class, () -> new JobLeaseService(leaseRepo, registry, 10, "x"));
+    }
+
+    @Test
+    void instanceId_shouldBeGenerated_whenBlank() {
+        JobLeaseService s = new JobLeaseService(leaseRepo, registry, 30_000, "");
+        assertFalse(s.getInstanceId().isBlank());
+        verify(leaseRepo, never()).renew(anyString(), eq("node-a"), anyLong(), anyLong());
+    }
+
+    private static JobLeaseJpaEntity lease(String job, long token) {
+        JobLeaseJpaEntity l = new JobLeaseJpaEntity();
+        l.setJobName(job);
+        l.setOwner("node-a");
+        l.setFencingToken(token);
+        return l;
+    }
+}
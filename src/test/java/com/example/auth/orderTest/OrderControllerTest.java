@@ -4,15 +4,23 @@ import com.example.auth.audit.service.AuditLogService;
 import com.example.auth.inscription.adapters.out.UsersJpaEntity;
 import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
 import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.models.LoginService;
 import com.example.auth.order.OrderController;
 import com.example.auth.order.OrderService;
+import com.example.auth.order.async.OrderJob;
+import com.example.auth.order.async.OrderJobService;
+import com.example.auth.order.idempotency.IdempotencyService;
+import com.example.auth.order.purge.VideoPurgeService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -20,8 +28,13 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -42,6 +55,19 @@ class OrderControllerTest {
     @MockBean
     AuditLogService auditLogService;
 
+    @MockBean
+    VideoPurgeService videoPurgeService;
+
+    @MockBean
+    OrderJobService orderJobService;
+
+    @MockBean
+    IdempotencyService idempotencyService;
+
+    // Requis par le CommandLineRunner demoLogin de AuthApplication
+    @MockBean
+    LoginService loginService;
+
     @Test
     void create_shouldReturnOk_whenOrderCreatedSuccessfully() throws Exception {
         MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
@@ -454,6 +480,326 @@ class OrderControllerTest {
         );
     }
 
+    @Test
+    void validate_async_shouldKeepOnlyStatusAndReceiptInJobResult() throws Exception {
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(5);
+        user.setName("Bob");
+        when(userRepo.findById(5)).thenReturn(Optional.of(user));
+        when(orderService.validateOrder(eq(123), eq("Bob")))
+            .thenReturn(new OrderService.ValidateOrderResult(true, "AQID", "RECEIPT"));
+        OrderJob job = new OrderJob("job1", 5, OrderJob.Kind.VALIDATE);
+        AtomicReference<Map<String, Object>> result = new AtomicReference<>();
+        when(orderJobService.submit(eq(5), eq(OrderJob.Kind.VALIDATE), any())).thenAnswer(inv -> {
+            OrderJobService.JobBody body = inv.getArgument(2);
+            result.set(body.run(job));
+            return job;
+        });
+        when(orderJobService.retainVideo(eq(job), any())).thenReturn(true);
+
+        mockMvc.perform(post("/api/orders/123/validate")
+                        .param("async", "true")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/orders/jobs/job1"));
+
+        // Le clair n'est pas dans le résultat (enregistré en base) : gardé par le traitement pour une lecture unique
+        assertFalse(result.get().containsKey("videoBase64"));
+        assertEquals("RECEIPT", result.get().get("receipt"));
+        assertEquals("/api/orders/jobs/job1/video", result.get().get("video"));
+        verify(orderJobService).retainVideo(eq(job), aryEq(new byte[]{1, 2, 3}));
+        verify(orderService, times(1)).validateOrder(123, "Bob");
+    }
+
+    @Test
+    void purge_shouldReturn204AndLogPurge_whenSenderDeletesOrder() throws Exception {
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(5);
+        user.setName("Alice");
+        when(userRepo.findById(5)).thenReturn(Optional.of(user));
+
+        mockMvc.perform(delete("/api/orders/123")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isNoContent());
+
+        verify(videoPurgeService).purgeOrder(123, 5);
+        verify(auditLogService).logAction(eq(5), eq("TX_PURGED"), eq("signature_transactions"), eq(123),
+                contains("Alice a supprimé l'ordre #123"), any());
+    }
+
+    @Test
+    void purge_shouldReturn400_whenOrderBelongsToAnotherSender() throws Exception {
+        doThrow(new IllegalArgumentException("Seul l'expéditeur peut supprimer cet ordre."))
+            .when(videoPurgeService).purgeOrder(123, 5);
+
+        mockMvc.perform(delete("/api/orders/123")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Seul l'expéditeur peut supprimer cet ordre."));
+
+        verify(auditLogService, never()).logAction(anyInt(), anyString(), anyString(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void purge_shouldReturn400_whenOrderUnknown() throws Exception {
+        doThrow(new IllegalArgumentException("Ordre introuvable"))
+            .when(videoPurgeService).purgeOrder(999, 5);
+
+        mockMvc.perform(delete("/api/orders/999")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Ordre introuvable"));
+
+        verify(auditLogService, never()).logAction(anyInt(), anyString(), anyString(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void createMulti_shouldAcceptRepeatedRecipients_andAuditEachOrder() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(1);
+        user.setName("Alice");
+        when(userRepo.findById(1)).thenReturn(Optional.of(user));
+        when(orderService.createOrders(eq(1), eq(List.of("Bob", "Carol")), any(BigDecimal.class), eq("clip.mp4"),
+                any(MultipartFile.class)))
+            .thenReturn(new OrderService.CreateOrdersResult(List.of(10, 11), List.of("Bob", "Carol"), List.of("Vidéo chiffrée")));
+
+        mockMvc.perform(multipart("/api/orders/multi")
+                        .file(file)
+                        .param("transaction_send_to", "Bob")
+                        .param("transaction_send_to", "Carol")
+                        .param("montant", "20.00")
+                        .param("video_name", "clip.mp4")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value(10))
+                .andExpect(jsonPath("$.ids[1]").value(11))
+                .andExpect(jsonPath("$.steps[0]").value("Vidéo chiffrée"));
+
+        verify(auditLogService).logAction(eq(1), eq("TX_CREATED"), eq("signature_transactions"), eq(10),
+                contains("pour Bob"), any());
+        verify(auditLogService).logAction(eq(1), eq("TX_CREATED"), eq("signature_transactions"), eq(11),
+                contains("pour Carol"), any());
+    }
+
+    @Test
+    void createMulti_shouldSplitCommaSeparatedRecipients_whenCreatingFromExistingVideo() throws Exception {
+        String hash = "ab".repeat(32);
+        when(orderService.createOrdersFromExisting(eq(1), eq(List.of("Bob", "Carol", "Dave")), any(BigDecimal.class),
+                eq("clip.mp4"), eq(hash)))
+            .thenReturn(new OrderService.CreateOrdersResult(List.of(20, 21, 22), List.of("Bob", "Carol", "Dave"), List.of()));
+
+        mockMvc.perform(multipart("/api/orders/multi")
+                        .param("transaction_send_to", "Bob,Carol,Dave")
+                        .param("montant", "5")
+                        .param("video_name", "clip.mp4")
+                        .param("video_hash", hash)
+                        .requestAttr("userId", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids.length()").value(3));
+
+        verify(auditLogService, times(3)).logAction(eq(1), eq("TX_CREATED"), eq("signature_transactions"), anyInt(),
+                anyString(), any());
+    }
+
+    @Test
+    void createMulti_shouldReturn400_whenNeitherVideoNorHash() throws Exception {
+        mockMvc.perform(multipart("/api/orders/multi")
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "5")
+                        .param("video_name", "clip.mp4")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Fichier vidéo requis"));
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void hasVideo_shouldReportWhetherUserAlreadySentContent() throws Exception {
+        String hash = "cd".repeat(32);
+        when(orderService.hasVideo(5, hash)).thenReturn(true);
+
+        mockMvc.perform(get("/api/orders/videos/" + hash)
+                        .requestAttr("userId", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exists").value(true));
+        mockMvc.perform(get("/api/orders/videos/" + "ef".repeat(32))
+                        .requestAttr("userId", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exists").value(false));
+    }
+
+    @Test
+    void create_async_shouldReturn202WithLocation() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
+        when(orderJobService.submit(eq(1), eq(OrderJob.Kind.CREATE), any()))
+            .thenReturn(new OrderJob("job7", 1, OrderJob.Kind.CREATE));
+
+        mockMvc.perform(multipart("/api/orders")
+                        .file(file)
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "150.50")
+                        .param("video_name", "test-video.mp4")
+                        .param("async", "true")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/orders/jobs/job7"))
+                .andExpect(jsonPath("$.jobId").value("job7"))
+                .andExpect(jsonPath("$.status").value("queued"));
+
+        // La création a lieu dans le traitement, pas pendant la requête
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void create_async_shouldReturn503WithRetryAfter_whenQueueFull() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
+        when(orderJobService.submit(eq(1), eq(OrderJob.Kind.CREATE), any()))
+            .thenThrow(new IllegalStateException("File de traitement pleine : réessayez plus tard."));
+
+        mockMvc.perform(multipart("/api/orders")
+                        .file(file)
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "150.50")
+                        .param("video_name", "test-video.mp4")
+                        .param("async", "true")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.error").value("File de traitement pleine : réessayez plus tard."));
+    }
+
+    @Test
+    void validate_async_shouldReturn503WithRetryAfter_whenQueueFull() throws Exception {
+        when(orderJobService.submit(eq(5), eq(OrderJob.Kind.VALIDATE), any()))
+            .thenThrow(new IllegalStateException("File de traitement pleine : réessayez plus tard."));
+
+        mockMvc.perform(post("/api/orders/123/validate")
+                        .param("async", "true")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+
+        verify(orderService, never()).validateOrder(anyInt(), anyString());
+    }
+
+    @Test
+    void create_shouldRouteThroughIdempotency_whenKeyPresent() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
+        when(orderService.createOrder(eq(1), eq("Bob"), any(BigDecimal.class), eq("test-video.mp4"), any()))
+            .thenReturn(new OrderService.CreateOrderResult(100, List.of()));
+        when(idempotencyService.execute(eq(1), eq("key-1"), anyString(), any()))
+            .thenAnswer(inv -> inv.<Supplier<?>>getArgument(3).get());
+
+        mockMvc.perform(multipart("/api/orders")
+                        .file(file)
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "150.50")
+                        .param("video_name", "test-video.mp4")
+                        .header(IdempotencyService.HEADER, "key-1")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(100));
+
+        verify(idempotencyService).execute(eq(1), eq("key-1"), anyString(), any());
+        verify(orderService).createOrder(eq(1), eq("Bob"), any(BigDecimal.class), eq("test-video.mp4"), any());
+    }
+
+    @Test
+    void create_shouldNotUseIdempotency_whenKeyAbsent() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
+        when(orderService.createOrder(eq(1), eq("Bob"), any(BigDecimal.class), eq("test-video.mp4"), any()))
+            .thenReturn(new OrderService.CreateOrderResult(100, List.of()));
+
+        mockMvc.perform(multipart("/api/orders")
+                        .file(file)
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "150.50")
+                        .param("video_name", "test-video.mp4")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isOk());
+
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    void create_shouldReplayStoredResponse_withoutCreatingAgain() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes());
+        when(idempotencyService.execute(eq(1), eq("key-1"), anyString(), any()))
+            .thenAnswer(inv -> ResponseEntity.ok()
+                .header(IdempotencyService.REPLAYED_HEADER, "true")
+                .body(Map.of("id", 100)));
+
+        mockMvc.perform(multipart("/api/orders")
+                        .file(file)
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "150.50")
+                        .param("video_name", "test-video.mp4")
+                        .header(IdempotencyService.HEADER, "key-1")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"));
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void create_fingerprintShouldChangeWithParameters() throws Exception {
+        ArgumentCaptor<String> fingerprints = ArgumentCaptor.forClass(String.class);
+        when(idempotencyService.execute(eq(1), eq("key-1"), fingerprints.capture(), any()))
+            .thenAnswer(inv -> ResponseEntity.ok(Map.of()));
+
+        for (String montant : new String[] {"150.50", "150.50", "999.00"}) {
+            mockMvc.perform(multipart("/api/orders")
+                            .file(new MockMultipartFile("video", "test.mp4", "video/mp4", "VIDEO_DATA".getBytes()))
+                            .param("transaction_send_to", "Bob")
+                            .param("montant", montant)
+                            .param("video_name", "test-video.mp4")
+                            .header(IdempotencyService.HEADER, "key-1")
+                            .requestAttr("userId", 1))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(multipart("/api/orders")
+                        .file(new MockMultipartFile("video", "other.mp4", "video/mp4", "VIDEO_DATA".getBytes()))
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "150.50")
+                        .param("video_name", "test-video.mp4")
+                        .header(IdempotencyService.HEADER, "key-1")
+                        .requestAttr("userId", 1))
+                .andExpect(status().isOk());
+
+        List<String> fp = fingerprints.getAllValues();
+        assertEquals(fp.get(0), fp.get(1));
+        assertNotEquals(fp.get(0), fp.get(2));
+        assertNotEquals(fp.get(0), fp.get(3));
+    }
+
+    @Test
+    void createMulti_shouldRouteThroughIdempotency_withFingerprintDependingOnRecipients() throws Exception {
+        ArgumentCaptor<String> fingerprints = ArgumentCaptor.forClass(String.class);
+        when(idempotencyService.execute(eq(1), eq("key-2"), fingerprints.capture(), any()))
+            .thenAnswer(inv -> ResponseEntity.ok(Map.of()));
+        String hash = "ab".repeat(32);
+
+        for (String recipients : new String[] {"Bob,Carol", "Bob,Dave"}) {
+            mockMvc.perform(multipart("/api/orders/multi")
+                            .param("transaction_send_to", recipients)
+                            .param("montant", "5")
+                            .param("video_name", "clip.mp4")
+                            .param("video_hash", hash)
+                            .header(IdempotencyService.HEADER, "key-2")
+                            .requestAttr("userId", 1))
+                    .andExpect(status().isOk());
+        }
+
+        assertNotEquals(fingerprints.getAllValues().get(0), fingerprints.getAllValues().get(1));
+        // Une création multiple et une création simple ne partagent jamais d'empreinte
+        assertNotEquals(IdempotencyService.fingerprint("create", "Bob,Carol", "5", "clip.mp4", null, hash, "false"),
+                fingerprints.getAllValues().get(0));
+        verifyNoInteractions(orderService);
+    }
+
     // Helper method
     private SignatureTransactionJpaEntity createOrder(int id, String videoName, String hash) {
         SignatureTransactionJpaEntity order = new SignatureTransactionJpaEntity();
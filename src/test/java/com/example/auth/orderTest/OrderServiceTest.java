@@ -6,11 +6,24 @@ import com.example.auth.inscription.ports.out.UserKeyVaultPort;
 import com.example.auth.login.entity.SignatureTransactionJpaEntity;
 import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
 import com.example.auth.order.OrderService;
+import com.example.auth.order.OrderStageExecutor;
+import com.example.auth.order.cache.DecryptedVideoCache;
+import com.example.auth.order.dedup.VideoBlobJpaEntity;
+import com.example.auth.order.dedup.VideoBlobService;
+import com.example.auth.order.keys.VideoKekRepository;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import com.example.auth.order.receipt.ValidationReceiptJpaEntity;
+import com.example.auth.order.receipt.ValidationReceiptRepository;
+import com.example.auth.order.receipt.ValidationReceiptService;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import com.example.auth.order.storage.VideoStore;
+import com.example.auth.order.upload.SealedSegments;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.crypto.Cipher;
@@ -24,6 +37,8 @@ import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
@@ -31,6 +46,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -39,6 +57,11 @@ class OrderServiceTest {
     private SpringDataSignatureTransactionRepository sigRepo;
     private SpringDataUsersRepository userRepo;
     private UserKeyVaultPort vaultPort;
+    private VideoBlobService blobService;
+    private OrderStageExecutor stages;
+    private ValidationReceiptRepository receiptRepo;
+    private ValidationReceiptService receipts;
+    private DecryptedVideoCache plainCache;
     private OrderService orderService;
 
     @TempDir
@@ -49,11 +72,30 @@ class OrderServiceTest {
         sigRepo = mock(SpringDataSignatureTransactionRepository.class);
         userRepo = mock(SpringDataUsersRepository.class);
         vaultPort = mock(UserKeyVaultPort.class);
-        orderService = new OrderService(sigRepo, userRepo, vaultPort);
-        
-        // Configurer les propriétés
-        ReflectionTestUtils.setField(orderService, "storagePath", tempDir.toString());
-        ReflectionTestUtils.setField(orderService, "videoDekKeyName", "test-dek-key");
+        blobService = mock(VideoBlobService.class);
+        // Premier envoi du contenu : le blob des objets écrits est enregistré
+        when(blobService.register(anyInt(), anyString(), anyString(), anyLong(), anyString(), anyInt()))
+            .thenAnswer(inv -> {
+                VideoBlobJpaEntity b = new VideoBlobJpaEntity();
+                b.setObjectId(inv.getArgument(2));
+                b.setCiphertextSize(inv.getArgument(3));
+                b.setCiphertextSha256(inv.getArgument(4));
+                return b;
+            });
+        VideoKeyHierarchy keyHierarchy = new VideoKeyHierarchy(vaultPort, mock(VideoKekRepository.class),
+            new SimpleMeterRegistry(), "test-dek-key", false, 24, 64);
+        stages = new OrderStageExecutor(new SimpleMeterRegistry(), 4);
+        receiptRepo = mock(ValidationReceiptRepository.class);
+        when(receiptRepo.save(any(ValidationReceiptJpaEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        plainCache = new DecryptedVideoCache(new SimpleMeterRegistry(), false, 1 << 20, 1 << 16, 30);
+        receipts = new ValidationReceiptService(receiptRepo, "", "test-secret-with-at-least-32-characters!!");
+        orderService = new OrderService(sigRepo, userRepo, vaultPort, new ShardedFileSystemVideoStore(tempDir), blobService,
+            keyHierarchy, stages, receipts, plainCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stages.shutdown();
     }
 
     @Test
@@ -91,6 +133,215 @@ class OrderServiceTest {
         verify(sigRepo).save(any(SignatureTransactionJpaEntity.class));
     }
 
+    @Test
+    void createOrder_shouldReuseExistingBlob_whenSameVideoAlreadySent() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        VideoBlobJpaEntity blob = new VideoBlobJpaEntity();
+        blob.setId(7L);
+        blob.setObjectId("1_1_shared.enc");
+        blob.setCiphertextSize(41L);
+        when(blobService.acquire(eq(userId), anyString(), eq(1))).thenReturn(Optional.of(blob));
+        when(sigRepo.save(any(SignatureTransactionJpaEntity.class))).thenAnswer(inv -> {
+            SignatureTransactionJpaEntity e = inv.getArgument(0);
+            e.setId(101);
+            return e;
+        });
+
+        OrderService.CreateOrderResult result = orderService.createOrder(
+            userId, "Carol", BigDecimal.TEN, "v.mp4", createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes()));
+
+        assertEquals(101, result.id());
+        ArgumentCaptor<SignatureTransactionJpaEntity> saved = ArgumentCaptor.forClass(SignatureTransactionJpaEntity.class);
+        verify(sigRepo).save(saved.capture());
+        assertEquals("1_1_shared.enc", saved.getValue().getPathVideo());
+        assertEquals(7L, saved.getValue().getBlobId());
+        verify(vaultPort, never()).encryptDek(anyString(), any());
+        verify(vaultPort).sign(eq("vault-key-alice"), anyString());
+    }
+
+    @Test
+    void createOrder_shouldReleaseBlobReference_whenOrderNotSaved() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        VideoBlobJpaEntity blob = new VideoBlobJpaEntity();
+        blob.setId(7L);
+        blob.setObjectId("1_1_shared.enc");
+        when(blobService.acquire(eq(userId), anyString(), eq(1))).thenReturn(Optional.of(blob));
+        when(sigRepo.save(any(SignatureTransactionJpaEntity.class))).thenThrow(new IllegalStateException("BDD indisponible"));
+
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(
+            userId, "Carol", BigDecimal.TEN, "v.mp4", createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes())));
+        verify(blobService).unref(7L, 1);
+    }
+
+    @Test
+    void createOrders_shouldEncryptOnceAndCreateOneOrderPerRecipient() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.encryptDek(anyString(), any(byte[].class))).thenReturn("vault:v1:ENCRYPTED_DEK");
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        VideoBlobJpaEntity blob = new VideoBlobJpaEntity();
+        blob.setId(9L);
+        when(blobService.register(eq(userId), anyString(), anyString(), anyLong(), anyString(), eq(3)))
+            .thenAnswer(inv -> {
+                blob.setObjectId(inv.getArgument(2));
+                return blob;
+            });
+        when(sigRepo.saveAll(anyList())).thenAnswer(inv -> {
+            List<SignatureTransactionJpaEntity> list = inv.getArgument(0);
+            for (int i = 0; i < list.size(); i++) list.get(i).setId(200 + i);
+            return list;
+        });
+
+        OrderService.CreateOrdersResult result = orderService.createOrders(userId, List.of("Bob", "Carol", " Bob ", "Dave"),
+            BigDecimal.TEN, "v.mp4", createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes()));
+
+        assertEquals(List.of(200, 201, 202), result.ids());
+        assertEquals(List.of("Bob", "Carol", "Dave"), result.recipients());
+        verify(vaultPort, times(1)).encryptDek(anyString(), any(byte[].class));
+        verify(vaultPort, times(1)).sign(anyString(), anyString());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SignatureTransactionJpaEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(sigRepo).saveAll(saved.capture());
+        assertEquals(List.of("Bob", "Carol", "Dave"), saved.getValue().stream().map(SignatureTransactionJpaEntity::getTransactionSendTo).toList());
+        assertEquals(1, saved.getValue().stream().map(SignatureTransactionJpaEntity::getPathVideo).distinct().count());
+        assertTrue(saved.getValue().stream().allMatch(e -> "vault:v1:SIGNATURE".equals(e.getSignature()) && e.getBlobId() == 9L));
+    }
+
+    @Test
+    void createOrders_shouldJoinWinningBlobAndDeleteOwnObjects_whenConcurrentUploadRegisteredFirst() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.encryptDek(anyString(), any(byte[].class))).thenReturn("vault:v1:ENCRYPTED_DEK");
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        VideoBlobJpaEntity winner = new VideoBlobJpaEntity();
+        winner.setId(12L);
+        winner.setObjectId("1_1_winner.enc");
+        winner.setCiphertextSize(41L);
+        // Aucun blob à la recherche, puis l'envoi concurrent enregistre le sien avant nous
+        when(blobService.acquire(eq(userId), anyString(), eq(2)))
+            .thenReturn(Optional.empty(), Optional.of(winner));
+        when(blobService.register(eq(userId), anyString(), anyString(), anyLong(), anyString(), eq(2))).thenReturn(null);
+        when(sigRepo.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        orderService.createOrders(userId, List.of("Bob", "Carol"), BigDecimal.TEN, "v.mp4",
+            createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes()));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SignatureTransactionJpaEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(sigRepo).saveAll(saved.capture());
+        // Les deux destinataires référencent le blob gagnant : la purge de l'un ne détruit pas le DEK de l'autre
+        assertTrue(saved.getValue().stream().allMatch(e -> e.getBlobId() == 12L && "1_1_winner.enc".equals(e.getPathVideo())));
+        try (var files = Files.walk(tempDir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void createOrders_shouldFailAndDeleteOwnObjects_whenConflictingBlobKeepsDying() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.encryptDek(anyString(), any(byte[].class))).thenReturn("vault:v1:ENCRYPTED_DEK");
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        when(blobService.acquire(eq(userId), anyString(), eq(2))).thenReturn(Optional.empty());
+        when(blobService.register(eq(userId), anyString(), anyString(), anyLong(), anyString(), eq(2))).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> orderService.createOrders(userId, List.of("Bob", "Carol"),
+            BigDecimal.TEN, "v.mp4", createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes())));
+
+        verify(sigRepo, never()).saveAll(anyList());
+        try (var files = Files.walk(tempDir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void createOrdersFromSealed_shouldRejectAndDeleteObjects_whenRootAlreadyRegistered() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        Files.write(tempDir.resolve("1_x.seg.enc"), new byte[100]);
+        Files.writeString(tempDir.resolve("1_x.seg.enc.dek"), "vault:v1:DEK");
+        when(blobService.register(eq(userId), anyString(), anyString(), anyLong(), anyString(), eq(2))).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> orderService.createOrdersFromSealed(userId,
+            List.of("Bob", "Carol"), BigDecimal.TEN, "v.mp4", new byte[32], "1_x.seg.enc", 100L, "cs"));
+
+        assertFalse(Files.exists(tempDir.resolve("1_x.seg.enc")));
+        assertFalse(Files.exists(tempDir.resolve("1_x.seg.enc.dek")));
+        verify(blobService, never()).acquire(anyInt(), anyString(), anyInt());
+        verify(sigRepo, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createOrdersFromSealed_shouldKeyBlobByNamespacedRoot_andMarkHashKind() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        byte[] root = new byte[32];
+        Arrays.fill(root, (byte) 0xab);
+        String rootHex = "ab".repeat(32);
+        VideoBlobJpaEntity blob = new VideoBlobJpaEntity();
+        blob.setId(11L);
+        blob.setObjectId("1_x.seg.enc");
+        when(blobService.register(eq(userId), eq("merkle:" + rootHex), eq("1_x.seg.enc"), eq(100L), eq("cs"), eq(1)))
+            .thenReturn(blob);
+        ArgumentCaptor<SignatureTransactionJpaEntity> saved = ArgumentCaptor.forClass(SignatureTransactionJpaEntity.class);
+        when(sigRepo.save(saved.capture())).thenAnswer(inv -> inv.getArgument(0));
+
+        orderService.createOrdersFromSealed(userId, List.of("Bob"), BigDecimal.TEN, "v.mp4", root,
+            "1_x.seg.enc", 100L, "cs");
+
+        // Racine propre à l'envoi (préfixe de nonce) : aucune recherche de blob existant
+        verify(blobService, never()).acquire(anyInt(), anyString(), anyInt());
+        assertEquals(rootHex, saved.getValue().getVideoHash());
+        assertEquals(SignatureTransactionJpaEntity.HASH_KIND_MERKLE, saved.getValue().getVideoHashKind());
+        assertEquals(11L, saved.getValue().getBlobId());
+    }
+
+    @Test
+    void createOrder_shouldMarkPlainSha256HashKind() throws Exception {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        when(vaultPort.encryptDek(anyString(), any(byte[].class))).thenReturn("vault:v1:ENCRYPTED_DEK");
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("vault:v1:SIGNATURE");
+        ArgumentCaptor<SignatureTransactionJpaEntity> saved = ArgumentCaptor.forClass(SignatureTransactionJpaEntity.class);
+        when(sigRepo.save(saved.capture())).thenAnswer(inv -> {
+            SignatureTransactionJpaEntity e = inv.getArgument(0);
+            e.setId(102);
+            return e;
+        });
+
+        orderService.createOrder(userId, "Bob", BigDecimal.TEN, "v.mp4", createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes()));
+
+        assertEquals(SignatureTransactionJpaEntity.HASH_KIND_SHA256, saved.getValue().getVideoHashKind());
+    }
+
+    @Test
+    void createOrders_shouldReject_whenNoRecipient() {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrders(userId, List.of(" "),
+            BigDecimal.TEN, "v.mp4", createMockVideoFile("v.mp4", "VIDEO_CONTENT".getBytes())));
+        verify(vaultPort, never()).encryptDek(anyString(), any());
+    }
+
+    @Test
+    void createOrderFromExisting_shouldReject_whenVideoUnknown() {
+        Integer userId = 1;
+        when(userRepo.findById(userId)).thenReturn(Optional.of(createValidUser(userId, "Alice", false)));
+        String hash = "a".repeat(64);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+            orderService.createOrderFromExisting(userId, "Carol", BigDecimal.TEN, "v.mp4", hash));
+        assertTrue(ex.getMessage().contains("Vidéo inconnue"));
+        verify(sigRepo, never()).save(any());
+    }
+
     @Test
     void createOrder_shouldThrowException_whenUserNotFound() {
         when(userRepo.findById(999)).thenReturn(Optional.empty());
@@ -184,8 +435,59 @@ class OrderServiceTest {
 
         orderService.createOrder(1, "Bob", BigDecimal.valueOf(100), "video.mp4", video);
 
-        // Vérifier que des fichiers ont été créés dans tempDir
-        assertTrue(Files.list(tempDir).count() >= 2); // .enc et .dek
+        // Vérifier que des fichiers ont été créés dans tempDir (sous-répertoires répartis)
+        assertTrue(Files.walk(tempDir).filter(Files::isRegularFile).count() >= 2); // .enc et .dek
+    }
+
+    @Test
+    void createOrder_shouldStoreLogicalObjectIdInPathVideo() throws Exception {
+        UsersJpaEntity user = createValidUser(1, "Alice", false);
+        MultipartFile video = createMockVideoFile("test.mp4", "DATA".getBytes());
+
+        when(userRepo.findById(1)).thenReturn(Optional.of(user));
+        when(vaultPort.encryptDek(anyString(), any())).thenReturn("enc_dek");
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("sig");
+        when(sigRepo.save(any())).thenAnswer(inv -> {
+            SignatureTransactionJpaEntity e = inv.getArgument(0);
+            e.setId(11);
+            return e;
+        });
+
+        orderService.createOrder(1, "Bob", BigDecimal.TEN, "video.mp4", video);
+
+        ArgumentCaptor<SignatureTransactionJpaEntity> captor = ArgumentCaptor.forClass(SignatureTransactionJpaEntity.class);
+        verify(sigRepo).save(captor.capture());
+        String pathVideo = captor.getValue().getPathVideo();
+        assertFalse(pathVideo.contains("/"));
+        assertTrue(pathVideo.endsWith(".enc"));
+        assertTrue(Files.exists(new ShardedFileSystemVideoStore(tempDir).shardedPath(pathVideo)));
+        assertTrue(Files.exists(new ShardedFileSystemVideoStore(tempDir).shardedPath(VideoStore.dekIdOf(pathVideo))));
+    }
+
+    @Test
+    void createOrder_shouldRecordCiphertextFingerprint() throws Exception {
+        UsersJpaEntity user = createValidUser(1, "Alice", false);
+        MultipartFile video = createMockVideoFile("test.mp4", "DATA".getBytes());
+
+        when(userRepo.findById(1)).thenReturn(Optional.of(user));
+        when(vaultPort.encryptDek(anyString(), any())).thenReturn("enc_dek");
+        when(vaultPort.sign(anyString(), anyString())).thenReturn("sig");
+        when(sigRepo.save(any())).thenAnswer(inv -> {
+            SignatureTransactionJpaEntity e = inv.getArgument(0);
+            e.setId(12);
+            return e;
+        });
+
+        orderService.createOrder(1, "Bob", BigDecimal.TEN, "video.mp4", video);
+
+        ArgumentCaptor<SignatureTransactionJpaEntity> captor = ArgumentCaptor.forClass(SignatureTransactionJpaEntity.class);
+        verify(sigRepo).save(captor.capture());
+        byte[] stored = new ShardedFileSystemVideoStore(tempDir).get(captor.getValue().getPathVideo());
+        assertEquals(stored.length, captor.getValue().getCiphertextSize());
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(stored);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) hex.append(String.format("%02x", b));
+        assertEquals(hex.toString(), captor.getValue().getCiphertextSha256());
     }
 
     @Test
@@ -289,6 +591,36 @@ class OrderServiceTest {
         assertTrue(ex.getMessage().contains("ne vous est pas destiné"));
     }
 
+    @Test
+    void validateOrder_shouldThrowException_whenVideoExpired() {
+        SignatureTransactionJpaEntity order = new SignatureTransactionJpaEntity();
+        order.setId(1);
+        order.setTransactionSendTo("Bob");
+        order.setPathVideo("2_1_abc.enc");
+        order.setExpiredVideo(java.time.LocalDateTime.now().minusMinutes(1));
+
+        when(sigRepo.findById(1)).thenReturn(Optional.of(order));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+            orderService.validateOrder(1, "Bob")
+        );
+        assertTrue(ex.getMessage().contains("expirée"));
+        verifyNoInteractions(vaultPort);
+    }
+
+    @Test
+    void validateOrder_shouldThrowException_whenOrderInactive() {
+        SignatureTransactionJpaEntity order = new SignatureTransactionJpaEntity();
+        order.setId(1);
+        order.setTransactionSendTo("Bob");
+        order.setPathVideo("2_1_abc.enc");
+        order.setActive(false);
+
+        when(sigRepo.findById(1)).thenReturn(Optional.of(order));
+
+        assertThrows(IllegalStateException.class, () -> orderService.validateOrder(1, "Bob"));
+    }
+
     @Test
     void validateOrder_shouldSucceed_whenAllConditionsMet() throws Exception {
         // Setup: Create a valid order with encrypted video
@@ -350,6 +682,102 @@ class OrderServiceTest {
         assertArrayEquals(originalVideo, decodedVideo);
     }
 
+    @Test
+    void validateOrder_shouldSkipSignatureCheck_whenReceiptMatches() throws Exception {
+        SignatureTransactionJpaEntity order = encryptedOrder(101, "RECEIPT_VIDEO".getBytes());
+        when(userRepo.findById(1)).thenReturn(Optional.of(createValidUser(1, "Alice", false)));
+        when(vaultPort.verify(eq("vault-key-alice"), anyString(), eq("vault:v1:SIGNATURE"))).thenReturn(true);
+
+        OrderService.ValidateOrderResult first = orderService.validateOrder(101, "Bob");
+        ArgumentCaptor<ValidationReceiptJpaEntity> saved = ArgumentCaptor.forClass(ValidationReceiptJpaEntity.class);
+        verify(receiptRepo).save(saved.capture());
+        when(receiptRepo.findById(101)).thenReturn(Optional.of(saved.getValue()));
+
+        OrderService.ValidateOrderResult second = orderService.validateOrder(101, "Bob");
+
+        assertArrayEquals("RECEIPT_VIDEO".getBytes(), Base64.getDecoder().decode(second.videoBase64()));
+        assertEquals("101", receipts.verify(first.receipt()).getSubject());
+        assertEquals("101", receipts.verify(second.receipt()).getSubject());
+        verify(vaultPort, times(1)).verify(anyString(), anyString(), anyString());
+        verify(receiptRepo, times(1)).save(any(ValidationReceiptJpaEntity.class));
+    }
+
+    @Test
+    void validateOrder_shouldServeReplayFromPlainCache_withoutVaultOrDisk() throws Exception {
+        DecryptedVideoCache cache = new DecryptedVideoCache(new SimpleMeterRegistry(), true, 1 << 20, 1 << 16, 30);
+        OrderService cached = new OrderService(sigRepo, userRepo, vaultPort, new ShardedFileSystemVideoStore(tempDir),
+            blobService, new VideoKeyHierarchy(vaultPort, mock(VideoKekRepository.class), new SimpleMeterRegistry(),
+                "test-dek-key", false, 24, 8), stages, receipts, cache);
+        SignatureTransactionJpaEntity order = encryptedOrder(103, "REPLAYED_VIDEO".getBytes());
+        when(userRepo.findById(1)).thenReturn(Optional.of(createValidUser(1, "Alice", false)));
+        when(vaultPort.verify(eq("vault-key-alice"), anyString(), eq("vault:v1:SIGNATURE"))).thenReturn(true);
+
+        cached.validateOrder(103, "Bob");
+        Files.delete(Path.of(order.getPathVideo()));
+        OrderService.ValidateOrderResult replay = cached.validateOrder(103, " Bob ");
+
+        assertArrayEquals("REPLAYED_VIDEO".getBytes(), Base64.getDecoder().decode(replay.videoBase64()));
+        assertEquals("103", receipts.verify(replay.receipt()).getSubject());
+        verify(vaultPort, times(1)).decryptDek(anyString(), anyString());
+        verify(vaultPort, times(1)).verify(anyString(), anyString(), anyString());
+        assertThrows(IllegalArgumentException.class, () -> cached.validateOrder(103, "Mallory"));
+    }
+
+    @Test
+    void validateOrder_shouldVerifySignature_whenCiphertextChangedSinceReceipt() throws Exception {
+        SignatureTransactionJpaEntity order = encryptedOrder(102, "RECEIPT_VIDEO".getBytes());
+        ValidationReceiptJpaEntity stale = new ValidationReceiptJpaEntity();
+        stale.setOrderId(102);
+        stale.setVideoHash(order.getVideoHash());
+        stale.setCiphertextSha256("0".repeat(64));
+        stale.setKeyVersion(1);
+        stale.setValidatedAt(LocalDateTime.now());
+        when(receiptRepo.findById(102)).thenReturn(Optional.of(stale));
+        when(userRepo.findById(1)).thenReturn(Optional.of(createValidUser(1, "Alice", false)));
+        when(vaultPort.verify(eq("vault-key-alice"), anyString(), eq("vault:v1:SIGNATURE"))).thenReturn(false);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.validateOrder(102, "Bob"));
+
+        assertEquals("Vidéo corrompue.", ex.getMessage());
+        verify(receiptRepo, never()).save(any(ValidationReceiptJpaEntity.class));
+    }
+
+    @Test
+    void validateOrder_shouldVerifyRootSignature_forSealedSegmentVideo() throws Exception {
+        byte[] video = new byte[2500];
+        new SecureRandom().nextBytes(video);
+        byte[] dek = new byte[32];
+        new SecureRandom().nextBytes(dek);
+        SealedSegments.Header header = SealedSegments.newHeader(video.length, 1000, new SecureRandom());
+        byte[] file = new byte[(int) header.fileSize()];
+        System.arraycopy(header.encode(), 0, file, 0, SealedSegments.HEADER_LENGTH);
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < header.chunkCount(); i++) {
+            byte[] chunk = Arrays.copyOfRange(video, i * 1000, i * 1000 + header.chunkLength(i));
+            hashes.add(MessageDigest.getInstance("SHA-256").digest(chunk));
+            byte[] sealed = SealedSegments.seal(dek, header, i, chunk);
+            System.arraycopy(sealed, 0, file, (int) header.segmentOffset(i), sealed.length);
+        }
+        String rootBase64 = Base64.getEncoder().encodeToString(SealedSegments.root(header, hashes));
+        Files.write(tempDir.resolve("104_video.seg.enc"), file);
+        Files.writeString(tempDir.resolve("104_video.seg.enc.dek"), "vault:v1:DEK_104");
+        SignatureTransactionJpaEntity order = new SignatureTransactionJpaEntity();
+        order.setId(104);
+        order.setUserId(1);
+        order.setTransactionSendTo("Bob");
+        order.setPathVideo("104_video.seg.enc");
+        order.setSignature("vault:v1:SIGNATURE");
+        when(sigRepo.findById(104)).thenReturn(Optional.of(order));
+        when(userRepo.findById(1)).thenReturn(Optional.of(createValidUser(1, "Alice", false)));
+        when(vaultPort.decryptDek(anyString(), eq("vault:v1:DEK_104"))).thenReturn(dek);
+        when(vaultPort.verify("vault-key-alice", rootBase64, "vault:v1:SIGNATURE")).thenReturn(true);
+
+        OrderService.ValidateOrderResult result = orderService.validateOrder(104, "Bob");
+
+        assertArrayEquals(video, Base64.getDecoder().decode(result.videoBase64()));
+    }
+
     @Test
     void validateOrder_shouldThrowException_whenVideoFileNotFound() {
         SignatureTransactionJpaEntity order = new SignatureTransactionJpaEntity();
@@ -769,4 +1197,33 @@ class OrderServiceTest {
         }
         return mock;
     }
+
+    /** Ordre Alice -> Bob dont la vidéo est chiffrée dans le store (DEK en clair renvoyé par Vault). */
+    private SignatureTransactionJpaEntity encryptedOrder(int id, byte[] video) throws Exception {
+        byte[] dek = new byte[32];
+        byte[] iv = new byte[12];
+        SecureRandom rng = new SecureRandom();
+        rng.nextBytes(dek);
+        rng.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(dek, "AES"), new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(video);
+        byte[] fileContent = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, fileContent, 0, iv.length);
+        System.arraycopy(encrypted, 0, fileContent, iv.length, encrypted.length);
+        Path videoPath = tempDir.resolve(id + "_video.enc");
+        Files.write(videoPath, fileContent);
+        Files.writeString(tempDir.resolve(id + "_video.enc.dek"), "vault:v1:DEK_" + id);
+        when(vaultPort.decryptDek(anyString(), eq("vault:v1:DEK_" + id))).thenReturn(dek);
+
+        SignatureTransactionJpaEntity order = new SignatureTransactionJpaEntity();
+        order.setId(id);
+        order.setUserId(1);
+        order.setTransactionSendTo("Bob");
+        order.setPathVideo(videoPath.toString());
+        order.setSignature("vault:v1:SIGNATURE");
+        order.setVideoHash("ab".repeat(32));
+        when(sigRepo.findById(id)).thenReturn(Optional.of(order));
+        return order;
+    }
 }
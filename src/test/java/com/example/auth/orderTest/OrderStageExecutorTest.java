@@ -0,0 +1,147 @@
+package com.example.auth.orderTest;
+
+import com.example.auth.order.OrderStageExecutor;
+import com.example.auth.tracing.InMemorySpanExporter;
+import com.example.auth.tracing.LocalTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStageExecutorTest {
+
+    private SimpleMeterRegistry registry;
+    private OrderStageExecutor stages;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stages = new OrderStageExecutor(registry, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stages.shutdown();
+    }
+
+    @Test
+    void supply_shouldRunStagesConcurrentlyAndRecordTimers() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CompletableFuture<String> a = stages.supply("create", "sign", () -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return "A";
+        });
+        CompletableFuture<String> b = stages.supply("create", "wrap_dek", () -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return "B";
+        });
+
+        assertEquals("A", OrderStageExecutor.await(a));
+        assertEquals("B", OrderStageExecutor.await(b));
+        assertEquals(1, registry.get("order.stage").tag("flow", "create").tag("stage", "sign").timer().count());
+        assertEquals(1, registry.get("order.stage").tag("stage", "wrap_dek").timer().count());
+    }
+
+    @Test
+    void await_shouldRethrowOriginalCheckedException() {
+        CompletableFuture<byte[]> f = stages.supply("validate", "read_enc", () -> {
+            throw new NoSuchFileException("x.enc");
+        });
+
+        assertThrows(NoSuchFileException.class, () -> OrderStageExecutor.await(f));
+    }
+
+    @Test
+    void await_shouldRethrowRuntimeException() {
+        CompletableFuture<Object> f = stages.supply("validate", "load_sender", () -> {
+            throw new IllegalStateException("Expéditeur introuvable");
+        });
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> OrderStageExecutor.await(f));
+        assertEquals("Expéditeur introuvable", ex.getMessage());
+    }
+
+    @Test
+    void run_shouldTimeStageInCallerThread() throws Exception {
+        assertThrows(IOException.class, () -> stages.run("create", "write_dek", () -> {
+            throw new IOException("disque plein");
+        }));
+
+        assertEquals(1, registry.get("order.stage").tag("stage", "write_dek").timer().count());
+    }
+
+    @Test
+    void stages_shouldTagOutcomeAndCountBytes() throws Exception {
+        stages.run("create", "encrypt", () -> "ok");
+        assertThrows(IllegalStateException.class, () -> OrderStageExecutor.await(stages.supply("create", "sign", () -> {
+            throw new IllegalStateException("Vault indisponible");
+        })));
+        stages.record("create", "total", 1_000_000, false);
+        stages.bytes("create", "hash", 1024);
+        stages.bytes("create", "hash", 512);
+
+        assertEquals(1, registry.get("order.stage").tag("stage", "encrypt").tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("order.stage").tag("stage", "sign").tag("outcome", "error").timer().count());
+        assertEquals(1, registry.get("order.stage").tag("stage", "total").tag("outcome", "error").timer().count());
+        assertEquals(1536.0, registry.get("order.stage.bytes").tag("flow", "create").tag("stage", "hash").counter().count());
+    }
+
+    @Test
+    void flow_shouldParentStageSpansIncludingPoolStages() throws Exception {
+        InMemorySpanExporter exporter = new InMemorySpanExporter(100);
+        try (LocalTracing tracing = LocalTracing.create(exporter)) {
+            OrderStageExecutor traced = new OrderStageExecutor(registry, tracing.tracer(), 2);
+            try {
+                traced.flow("validate", () -> {
+                    traced.tag("order.id", 42);
+                    CompletableFuture<String> dek = traced.supply("validate", "unwrap_dek", () -> "k");
+                    traced.run("validate", "decrypt", () -> "v");
+                    return OrderStageExecutor.await(dek);
+                });
+            } finally {
+                traced.shutdown();
+            }
+        }
+
+        Map<String, SpanData> byName = exporter.getFinishedSpans().stream()
+                .collect(Collectors.toMap(SpanData::getName, s -> s));
+        SpanData root = byName.get("order.validate");
+        assertNotNull(root);
+        assertEquals(42L, root.getAttributes().get(AttributeKey.longKey("order.id")));
+        assertEquals(root.getSpanId(), byName.get("order.validate.unwrap_dek").getParentSpanId());
+        assertEquals(root.getSpanId(), byName.get("order.validate.decrypt").getParentSpanId());
+        assertEquals(1, registry.get("order.stage").tag("stage", "total").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void withListener_shouldNotifyStagesLaunchedFromCallerThread() throws Exception {
+        List<String> completed = new CopyOnWriteArrayList<>();
+        String result = stages.withListener((flow, stage, nanos) -> completed.add(flow + ":" + stage), () -> {
+            CompletableFuture<String> a = stages.supply("validate", "decrypt_dek", () -> "A");
+            String b = stages.run("validate", "read_enc", () -> "B");
+            return OrderStageExecutor.await(a) + b;
+        });
+
+        assertEquals("AB", result);
+        assertTrue(completed.containsAll(List.of("validate:decrypt_dek", "validate:read_enc")));
+        // Hors withListener : plus de notification
+        stages.run("validate", "verify", () -> "C");
+        assertEquals(2, completed.size());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.auth.orderTest.async;
+
+import com.example.auth.login.models.LoginService;
+import com.example.auth.order.async.OrderJob;
+import com.example.auth.order.async.OrderJobController;
+import com.example.auth.order.async.OrderJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = OrderJobController.class, excludeAutoConfiguration = SecurityAutoConfiguration.class)
+class OrderJobControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    OrderJobService jobService;
+
+    // Requis par le CommandLineRunner demoLogin de AuthApplication
+    @MockBean
+    LoginService loginService;
+
+    @Test
+    void status_shouldReturnSnapshot_whenJobBelongsToUser() throws Exception {
+        OrderJob job = new OrderJob("job1", 5, OrderJob.Kind.CREATE);
+        when(jobService.find(5, "job1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/orders/jobs/job1")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("job1"))
+                .andExpect(jsonPath("$.kind").value("create"))
+                .andExpect(jsonPath("$.status").value("queued"));
+    }
+
+    @Test
+    void status_shouldReturn404_whenJobBelongsToAnotherUser() throws Exception {
+        // find() filtre par propriétaire : le traitement d'un autre utilisateur est introuvable
+        when(jobService.find(6, "job1")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/orders/jobs/job1")
+                        .requestAttr("userId", 6))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Traitement introuvable ou expiré."));
+    }
+
+    @Test
+    void events_shouldStreamJobProgress() throws Exception {
+        OrderJob job = new OrderJob("job1", 5, OrderJob.Kind.VALIDATE);
+        when(jobService.find(5, "job1")).thenReturn(Optional.of(job));
+        SseEmitter emitter = new SseEmitter();
+        when(jobService.subscribe(job)).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/api/orders/jobs/job1/events")
+                        .requestAttr("userId", 5))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("done").data(Map.of("status", "succeeded")));
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("event:done")))
+                .andExpect(content().string(containsString("succeeded")));
+    }
+
+    @Test
+    void video_shouldReturnVideoOnce() throws Exception {
+        when(jobService.takeVideo(5, "job1"))
+                .thenReturn(new OrderJobService.VideoFetch(OrderJobService.VideoState.READY, new byte[]{1, 2, 3}))
+                .thenReturn(new OrderJobService.VideoFetch(OrderJobService.VideoState.GONE, null));
+
+        mockMvc.perform(get("/api/orders/jobs/job1/video")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.videoBase64").value("AQID"));
+        mockMvc.perform(get("/api/orders/jobs/job1/video")
+                        .requestAttr("userId", 5))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.error").value("Vidéo déjà récupérée ou expirée : relancer la validation."));
+    }
+
+    @Test
+    void video_shouldMapPendingElsewhereAndUnknown() throws Exception {
+        when(jobService.takeVideo(5, "run")).thenReturn(new OrderJobService.VideoFetch(OrderJobService.VideoState.PENDING, null));
+        when(jobService.takeVideo(5, "far")).thenReturn(new OrderJobService.VideoFetch(OrderJobService.VideoState.ELSEWHERE, null));
+        when(jobService.takeVideo(5, "nope")).thenReturn(new OrderJobService.VideoFetch(OrderJobService.VideoState.NOT_FOUND, null));
+
+        mockMvc.perform(get("/api/orders/jobs/run/video").requestAttr("userId", 5))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/orders/jobs/far/video").requestAttr("userId", 5))
+                .andExpect(status().is(421));
+        mockMvc.perform(get("/api/orders/jobs/nope/video").requestAttr("userId", 5))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Traitement introuvable ou expiré."));
+    }
+
+    @Test
+    void events_shouldReturn404_whenJobUnknown() throws Exception {
+        when(jobService.find(5, "nope")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/orders/jobs/nope/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .requestAttr("userId", 5))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Traitement introuvable ou expiré."));
+
+        verify(jobService, never()).subscribe(any());
+    }
+}
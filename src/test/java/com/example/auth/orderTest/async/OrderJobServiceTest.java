@@ -0,0 +1,256 @@
+package com.example.auth.orderTest.async;
+
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.order.OrderStageExecutor;
+import com.example.auth.order.async.OrderJob;
+import com.example.auth.order.async.OrderJobJpaEntity;
+import com.example.auth.order.async.OrderJobRepository;
+import com.example.auth.order.async.OrderJobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderJobServiceTest {
+
+    private SimpleMeterRegistry registry;
+    private OrderStageExecutor stages;
+    private OrderJobRepository repo;
+    private OrderJobService jobs;
+    private OrderJobService otherReplica;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stages = new OrderStageExecutor(registry, 2);
+        repo = mock(OrderJobRepository.class);
+        jobs = newService("node-a");
+        otherReplica = newService("node-b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+        otherReplica.shutdown();
+        stages.shutdown();
+    }
+
+    private OrderJobService newService(String instanceId) {
+        JobLeaseService leases = mock(JobLeaseService.class);
+        when(leases.getInstanceId()).thenReturn(instanceId);
+        return new OrderJobService(stages, repo, new ObjectMapper(), leases, registry,
+                1, 3, 10, 600000, 1000, 1, 24, 1024);
+    }
+
+    @Test
+    void submit_shouldRunValidationBeforeQueuedCreations() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        OrderJob blocker = jobs.submit(1, OrderJob.Kind.CREATE, j -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Map.of();
+        });
+        awaitStatus(blocker, OrderJob.Status.RUNNING);
+
+        OrderJob create = jobs.submit(1, OrderJob.Kind.CREATE, j -> {
+            order.add("create");
+            return Map.of();
+        });
+        OrderJob validate = jobs.submit(2, OrderJob.Kind.VALIDATE, j -> {
+            order.add("validate");
+            return Map.of();
+        });
+        release.countDown();
+
+        awaitFinished(create);
+        awaitFinished(validate);
+        assertEquals(List.of("validate", "create"), order);
+    }
+
+    @Test
+    void submit_shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderJob blocker = jobs.submit(1, OrderJob.Kind.CREATE, j -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Map.of();
+        });
+        awaitStatus(blocker, OrderJob.Status.RUNNING);
+        for (int i = 0; i < 3; i++) {
+            jobs.submit(1, OrderJob.Kind.CREATE, j -> Map.of());
+        }
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> jobs.submit(1, OrderJob.Kind.CREATE, j -> Map.of()));
+        assertTrue(ex.getMessage().contains("pleine"));
+        assertEquals(1.0, registry.get("order.jobs.rejected").tag("kind", "create").counter().count());
+        assertEquals(3.0, registry.get("order.jobs.queued").tag("kind", "create").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void execute_shouldRecordStagesAndResult() throws Exception {
+        OrderJob job = jobs.submit(1, OrderJob.Kind.VALIDATE, j -> {
+            stages.run("validate", "read_enc", () -> "x");
+            String dek = OrderStageExecutor.await(stages.supply("validate", "decrypt_dek", () -> "k"));
+            return Map.of("success", true, "dek", dek);
+        });
+
+        awaitFinished(job);
+        Map<String, Object> snapshot = job.snapshot(true);
+        assertEquals("succeeded", snapshot.get("status"));
+        assertEquals(List.of("read_enc", "decrypt_dek"), snapshot.get("stages"));
+        assertEquals(Map.of("success", true, "dek", "k"), snapshot.get("result"));
+        assertFalse(job.snapshot(false).containsKey("result"));
+        assertEquals(1, registry.get("order.jobs.duration").tag("kind", "validate").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void execute_shouldMapBusinessErrorsTo400AndOthersTo500() throws Exception {
+        OrderJob rejected = jobs.submit(1, OrderJob.Kind.VALIDATE, j -> {
+            throw new IllegalArgumentException("Ordre non trouvé");
+        });
+        OrderJob crypto = jobs.submit(1, OrderJob.Kind.VALIDATE, j -> {
+            throw new GeneralSecurityException("tag mismatch");
+        });
+
+        awaitFinished(rejected);
+        awaitFinished(crypto);
+        assertEquals(OrderJob.Status.FAILED, rejected.getStatus());
+        assertEquals(400, rejected.getErrorStatus());
+        assertEquals("Ordre non trouvé", rejected.snapshot(false).get("error"));
+        assertEquals(500, crypto.getErrorStatus());
+        assertEquals("Erreur de chiffrement ou signature", crypto.snapshot(false).get("error"));
+    }
+
+    @Test
+    void find_shouldOnlyReturnOwnJobs() throws Exception {
+        OrderJob job = jobs.submit(1, OrderJob.Kind.CREATE, j -> Map.of());
+
+        assertTrue(jobs.find(1, job.getId()).isPresent());
+        assertTrue(jobs.find(2, job.getId()).isEmpty());
+        assertTrue(jobs.find(1, "inconnu").isEmpty());
+        awaitFinished(job);
+    }
+
+    @Test
+    void find_shouldReadFinalStateFromDatabase_onAnotherReplica() throws Exception {
+        OrderJob job = jobs.submit(1, OrderJob.Kind.CREATE, j -> {
+            stages.run("create", "write_enc", () -> "x");
+            return Map.of("ids", List.of(7, 8));
+        });
+        awaitFinished(job);
+        OrderJobJpaEntity row = lastSaved(3);
+        assertEquals("SUCCEEDED", row.getStatus());
+        assertEquals("node-a", row.getOwner());
+        // Conservé au-delà de la clé d'idempotence (24 h) qui rejoue la réponse 202
+        assertTrue(row.getExpiresAt().isAfter(row.getSubmittedAt().plusHours(24)));
+        when(repo.findById(job.getId())).thenReturn(Optional.of(row));
+
+        OrderJob copy = otherReplica.find(1, job.getId()).orElseThrow();
+        Map<String, Object> snapshot = copy.snapshot(true);
+        assertEquals("succeeded", snapshot.get("status"));
+        assertEquals(List.of("write_enc"), snapshot.get("stages"));
+        assertEquals(Map.of("ids", List.of(7, 8)), snapshot.get("result"));
+        assertTrue(otherReplica.find(2, job.getId()).isEmpty());
+    }
+
+    @Test
+    void find_shouldKeepLocalTracking_whenDatabaseIsDown() throws Exception {
+        when(repo.save(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        OrderJob job = jobs.submit(1, OrderJob.Kind.CREATE, j -> Map.of());
+
+        awaitFinished(job);
+        assertEquals(OrderJob.Status.SUCCEEDED, job.getStatus());
+        assertSame(job, jobs.find(1, job.getId()).orElseThrow());
+    }
+
+    @Test
+    void takeVideo_shouldServeTheVideoOnce_andWipeIt() throws Exception {
+        byte[] plain = {1, 2, 3};
+        CountDownLatch release = new CountDownLatch(1);
+        OrderJob job = jobs.submit(1, OrderJob.Kind.VALIDATE, j -> {
+            assertTrue(jobs.retainVideo(j, plain));
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Map.of("success", true);
+        });
+        awaitStatus(job, OrderJob.Status.RUNNING);
+        assertEquals(OrderJobService.VideoState.PENDING, jobs.takeVideo(1, job.getId()).state());
+        release.countDown();
+        awaitFinished(job);
+
+        assertArrayEquals(new byte[3], plain);
+        assertEquals(OrderJobService.VideoState.NOT_FOUND, jobs.takeVideo(2, job.getId()).state());
+        OrderJobService.VideoFetch fetch = jobs.takeVideo(1, job.getId());
+        assertEquals(OrderJobService.VideoState.READY, fetch.state());
+        assertArrayEquals(new byte[]{1, 2, 3}, fetch.video());
+        assertEquals(OrderJobService.VideoState.GONE, jobs.takeVideo(1, job.getId()).state());
+        assertEquals(0.0, registry.get("order.jobs.video.bytes").gauge().value());
+    }
+
+    @Test
+    void takeVideo_shouldPointToTheExecutingReplica_whenAskedElsewhere() throws Exception {
+        OrderJob job = jobs.submit(1, OrderJob.Kind.VALIDATE, j -> {
+            jobs.retainVideo(j, new byte[]{1});
+            return Map.of("success", true);
+        });
+        awaitFinished(job);
+        OrderJobJpaEntity row = lastSaved(3);
+        when(repo.findById(job.getId())).thenReturn(Optional.of(row));
+
+        assertEquals(OrderJobService.VideoState.ELSEWHERE, otherReplica.takeVideo(1, job.getId()).state());
+        assertEquals(OrderJobService.VideoState.NOT_FOUND, otherReplica.takeVideo(2, job.getId()).state());
+        assertEquals(OrderJobService.VideoState.READY, jobs.takeVideo(1, job.getId()).state());
+    }
+
+    @Test
+    void retainVideo_shouldRefuseBeyondBudget_andWipeTheArray() throws Exception {
+        byte[] plain = new byte[2048];
+        plain[0] = 9;
+        OrderJob job = jobs.submit(1, OrderJob.Kind.VALIDATE, j -> Map.of("kept", jobs.retainVideo(j, plain)));
+
+        awaitFinished(job);
+        assertEquals(Map.of("kept", false), job.snapshot(true).get("result"));
+        assertEquals(0, plain[0]);
+        assertEquals(OrderJobService.VideoState.GONE, jobs.takeVideo(1, job.getId()).state());
+    }
+
+    /** Dernier état enregistré, une fois les saves de soumission, démarrage et fin effectués. */
+    private OrderJobJpaEntity lastSaved(int saves) {
+        ArgumentCaptor<OrderJobJpaEntity> captor = ArgumentCaptor.forClass(OrderJobJpaEntity.class);
+        verify(repo, timeout(5000).atLeast(saves)).save(captor.capture());
+        List<OrderJobJpaEntity> rows = captor.getAllValues();
+        return rows.get(rows.size() - 1);
+    }
+
+    private static void awaitStatus(OrderJob job, OrderJob.Status status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(status, job.getStatus());
+    }
+
+    private static void awaitFinished(OrderJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(job.isFinished());
+    }
+}
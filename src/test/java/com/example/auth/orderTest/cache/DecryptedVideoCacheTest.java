@@ -0,0 +1,105 @@
+package com.example.auth.orderTest.cache;
+
+import com.example.auth.order.cache.DecryptedVideoCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecryptedVideoCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private DecryptedVideoCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new DecryptedVideoCache(registry, true, 300, 200, 30);
+    }
+
+    @Test
+    void get_shouldReturnCopy_forSameRecipientOnly() {
+        byte[] plain = "VIDEO".getBytes();
+        cache.put(1, "Bob", plain, null, null);
+        plain[0] = 'X';
+
+        assertArrayEquals("VIDEO".getBytes(), cache.get(1, "Bob").orElseThrow().plain());
+        assertTrue(cache.get(1, "Mallory").isEmpty());
+        assertEquals(1.0, registry.get("video.plain_cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("video.plain_cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed_whenTotalExceeded() {
+        cache.put(1, "Alice", new byte[100], null, null);
+        cache.put(2, "Bob", new byte[100], null, null);
+        cache.put(3, "Carol", new byte[100], null, null);
+        cache.get(1, "Alice");
+
+        cache.put(4, "Dave", new byte[100], null, null);
+
+        assertTrue(cache.get(2, "Bob").isEmpty());
+        assertTrue(cache.get(1, "Alice").isPresent());
+        assertEquals(300, cache.totalBytes());
+        assertEquals(1.0, registry.get("video.plain_cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void put_shouldEvictRecipientsOwnEntriesFirst_whenUserCapExceeded() {
+        cache.put(1, "Bob", new byte[100], null, null);
+        cache.put(2, "Alice", new byte[50], null, null);
+        cache.put(3, "Bob", new byte[100], null, null);
+
+        cache.put(4, "Bob", new byte[100], null, null);
+
+        assertTrue(cache.get(1, "Bob").isEmpty());
+        assertTrue(cache.get(2, "Alice").isPresent());
+        assertTrue(cache.get(3, "Bob").isPresent());
+        assertEquals(250, cache.totalBytes());
+    }
+
+    @Test
+    void put_shouldSkipVideosLargerThanUserCap() {
+        cache.put(1, "Bob", new byte[201], null, null);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void entries_shouldNotOutliveVideoExpiry() {
+        cache.put(1, "Bob", new byte[10], null, LocalDateTime.now().minusSeconds(1));
+        cache.put(2, "Bob", new byte[10], null, LocalDateTime.now().minusSeconds(1));
+        cache.put(3, "Bob", new byte[10], null, LocalDateTime.now().plusDays(1));
+
+        assertTrue(cache.get(1, "Bob").isEmpty());
+        cache.evictExpired();
+
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.totalBytes());
+    }
+
+    @Test
+    void invalidateAndClear_shouldReleaseEverything() {
+        cache.put(1, "Bob", new byte[10], null, null);
+        cache.put(2, "Bob", new byte[10], null, null);
+
+        cache.invalidate(1);
+        assertTrue(cache.get(1, "Bob").isEmpty());
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.totalBytes());
+    }
+
+    @Test
+    void disabledCache_shouldStoreNothing() {
+        DecryptedVideoCache disabled = new DecryptedVideoCache(registry, false, 300, 200, 30);
+        disabled.put(1, "Bob", new byte[10], null, null);
+
+        assertTrue(disabled.get(1, "Bob").isEmpty());
+        assertEquals(0, disabled.size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.auth.orderTest.dedup;
+
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.dedup.VideoBlobJpaEntity;
+import com.example.auth.order.dedup.VideoBlobRepository;
+import com.example.auth.order.dedup.VideoBlobService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class VideoBlobServiceTest {
+
+    private VideoBlobRepository blobRepo;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private VideoBlobService service;
+
+    @BeforeEach
+    void setUp() {
+        blobRepo = mock(VideoBlobRepository.class);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        service = new VideoBlobService(blobRepo, sigRepo, new SimpleMeterRegistry());
+    }
+
+    private VideoBlobJpaEntity blob(long id, String objectId) {
+        VideoBlobJpaEntity b = new VideoBlobJpaEntity();
+        b.setId(id);
+        b.setObjectId(objectId);
+        return b;
+    }
+
+    @Test
+    void acquire_shouldReturnEmpty_whenNoLiveBlob() {
+        when(blobRepo.incrementLive(1, "ab", 1)).thenReturn(0);
+
+        assertTrue(service.acquire(1, "AB", 1).isEmpty());
+        verify(blobRepo, never()).findByUserIdAndContentHash(any(), any());
+    }
+
+    @Test
+    void register_shouldReturnNull_whenConcurrentUploadWon() {
+        when(blobRepo.save(any())).thenThrow(new DataIntegrityViolationException("uk_blob_user_hash"));
+
+        assertNull(service.register(1, "ab", "1_1_a.enc", 10, "cd", 1));
+    }
+
+    @Test
+    void release_shouldKeepFiles_whileOtherReferencesRemain() {
+        when(blobRepo.findByObjectId("1_1_a.enc")).thenReturn(Optional.of(blob(5, "1_1_a.enc")));
+        when(sigRepo.detachBlob(10, 5L)).thenReturn(1);
+        when(blobRepo.deleteIfUnreferenced(5L)).thenReturn(0);
+
+        assertTrue(service.stillReferencedAfterRelease(10, "1_1_a.enc"));
+        verify(blobRepo).decrement(5L);
+    }
+
+    @Test
+    void release_shouldDecrementOnlyOnce_whenPurgeIsRetried() {
+        when(blobRepo.findByObjectId("1_1_a.enc")).thenReturn(Optional.of(blob(5, "1_1_a.enc")));
+        when(sigRepo.detachBlob(10, 5L)).thenReturn(0);
+        when(blobRepo.deleteIfUnreferenced(5L)).thenReturn(0);
+
+        assertTrue(service.stillReferencedAfterRelease(10, "1_1_a.enc"));
+        verify(blobRepo, never()).decrement(any());
+    }
+
+    @Test
+    void release_shouldAllowDestruction_onLastReference() {
+        when(blobRepo.findByObjectId("1_1_a.enc")).thenReturn(Optional.of(blob(5, "1_1_a.enc")));
+        when(sigRepo.detachBlob(10, 5L)).thenReturn(1);
+        when(blobRepo.deleteIfUnreferenced(5L)).thenReturn(1);
+
+        assertFalse(service.stillReferencedAfterRelease(10, "1_1_a.enc"));
+    }
+
+    @Test
+    void release_shouldAllowDestruction_whenObjectNotDeduplicated() {
+        when(blobRepo.findByObjectId("1_1_a.enc")).thenReturn(Optional.empty());
+
+        assertFalse(service.stillReferencedAfterRelease(10, "1_1_a.enc"));
+    }
+}
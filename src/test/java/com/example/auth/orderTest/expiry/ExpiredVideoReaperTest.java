@@ -0,0 +1,197 @@
+package com.example.auth.orderTest.expiry;
+
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.cache.DecryptedVideoCache;
+import com.example.auth.order.dedup.VideoBlobService;
+import com.example.auth.order.expiry.ExpiredVideoReaper;
+import com.example.auth.order.purge.VideoDeletionJpaEntity;
+import com.example.auth.order.purge.VideoDeletionRepository;
+import com.example.auth.order.purge.VideoPurgeService;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExpiredVideoReaperTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private VideoDeletionRepository deletionRepo;
+    private JobLeaseService leases;
+    private SimpleMeterRegistry registry;
+    private ExpiredVideoReaper reaper;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        deletionRepo = mock(VideoDeletionRepository.class);
+        leases = mock(JobLeaseService.class);
+        registry = new SimpleMeterRegistry();
+        VideoPurgeService purgeService = new VideoPurgeService(sigRepo, deletionRepo, store, mock(VideoBlobService.class),
+                mock(DecryptedVideoCache.class), registry);
+        reaper = new ExpiredVideoReaper(sigRepo, purgeService, leases, registry, 1000, 600_000, 2, 1000);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void tick_shouldShredDekAndDeactivateOrdersOnceExpired() throws Exception {
+        store.put("1_1_a.enc", new byte[100]);
+        store.put("1_1_a.enc.dek", new byte[20]);
+        store.put("1_1_b.enc", new byte[50]);
+        store.put("1_1_b.enc.dek", new byte[10]);
+        SignatureTransactionJpaEntity a = order(1, "1_1_a.enc", now + 5_000);
+        SignatureTransactionJpaEntity b = order(2, "1_1_b.enc", now + 120_000);
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(a, b));
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(2), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(2, reaper.loadUpcoming(now));
+        assertEquals(2, reaper.scheduledCount());
+
+        assertEquals(0, reaper.tick(now + 1_000));
+        assertTrue(store.exists("1_1_a.enc"));
+
+        assertEquals(1, reaper.tick(now + 6_000));
+        // DEK détruit immédiatement, .enc laissé au suppresseur différé
+        assertFalse(store.exists("1_1_a.enc.dek"));
+        assertTrue(store.exists("1_1_a.enc"));
+        assertTrue(store.exists("1_1_b.enc.dek"));
+        verify(sigRepo).deactivateByIdIn(List.of(1));
+        @SuppressWarnings("unchecked")
+        org.mockito.ArgumentCaptor<List<VideoDeletionJpaEntity>> queued = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(deletionRepo).saveAll(queued.capture());
+        assertEquals("1_1_a.enc", queued.getValue().get(0).getObjectId());
+        assertEquals(100.0, registry.get("video.reaper.reclaimed").counter().count());
+        assertEquals(1, registry.get("video.reaper.lag").timer().count());
+
+        assertEquals(1, reaper.tick(now + 121_000));
+        assertFalse(store.exists("1_1_b.enc.dek"));
+        assertEquals(150.0, registry.get("video.reaper.reclaimed").counter().count());
+        assertEquals(0, reaper.scheduledCount());
+    }
+
+    @Test
+    void loadUpcoming_shouldNotScheduleTheSameOrderTwice() {
+        SignatureTransactionJpaEntity a = order(1, "1_1_a.enc", now + 5_000);
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(a));
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(1), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(1, reaper.loadUpcoming(now));
+        assertEquals(0, reaper.loadUpcoming(now + 60_000));
+        assertEquals(1, reaper.scheduledCount());
+    }
+
+    @Test
+    void tick_shouldDeactivateInChunksOfBatchSize() throws Exception {
+        List<SignatureTransactionJpaEntity> orders = List.of(
+                order(1, "1_1_a.enc", now - 1_000),
+                order(2, "1_1_b.enc", now - 1_000),
+                order(3, "1_1_c.enc", now - 1_000));
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class)))
+                .thenReturn(orders);
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(3), any(Pageable.class)))
+                .thenReturn(List.of());
+        reaper.loadUpcoming(now);
+
+        assertEquals(3, reaper.tick(now + 1_000));
+
+        @SuppressWarnings("unchecked")
+        var captor = org.mockito.ArgumentCaptor.forClass(Collection.class);
+        verify(sigRepo, times(2)).deactivateByIdIn(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).size());
+        assertEquals(1, captor.getAllValues().get(1).size());
+    }
+
+    @Test
+    void scheduledTasks_shouldDoNothing_whenNotLeader() {
+        when(leases.acquireOrRenew(ExpiredVideoReaper.JOB_NAME)).thenReturn(OptionalLong.empty());
+        when(leases.isLeader(ExpiredVideoReaper.JOB_NAME)).thenReturn(false);
+
+        reaper.scheduledLease();
+        reaper.scheduledLoad();
+        reaper.scheduledTick();
+
+        verifyNoInteractions(sigRepo);
+    }
+
+    @Test
+    void scheduledTick_shouldOnlyCheckLeaseLocally() {
+        when(leases.isLeader(ExpiredVideoReaper.JOB_NAME)).thenReturn(true);
+
+        for (int i = 0; i < 10; i++) {
+            reaper.scheduledTick();
+        }
+
+        // Le bail n'est renouvelé qu'au rythme des battements, pas à chaque tick
+        verify(leases, never()).acquireOrRenew(any());
+        verify(leases, times(10)).isLeader(ExpiredVideoReaper.JOB_NAME);
+    }
+
+    @Test
+    void scheduledLease_shouldLoadOrders_onlyWhenLeadershipIsGained() {
+        when(leases.acquireOrRenew(ExpiredVideoReaper.JOB_NAME))
+                .thenReturn(OptionalLong.of(3), OptionalLong.of(3), OptionalLong.empty(), OptionalLong.of(4));
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(order(1, "1_1_a.enc", now + 5_000)));
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(1), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        reaper.scheduledLease();
+        assertEquals(1, reaper.scheduledCount());
+        // Renouvellement du même bail : pas de rechargement
+        reaper.scheduledLease();
+        verify(sigRepo, times(1)).findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class));
+
+        // Bail perdu puis repris (nouveau jeton de fencing) : rechargement immédiat
+        reaper.scheduledLease();
+        reaper.scheduledLease();
+        verify(sigRepo, times(2)).findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class));
+    }
+
+    @Test
+    void scheduledLoad_shouldLoadOrders_whenLeader() {
+        when(leases.isLeader(ExpiredVideoReaper.JOB_NAME)).thenReturn(true);
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(order(1, "1_1_a.enc", now + 5_000)));
+        when(sigRepo.findByActiveTrueAndExpiredVideoBeforeAndIdGreaterThanOrderByIdAsc(any(), eq(1), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        reaper.scheduledLoad();
+
+        assertEquals(1, reaper.scheduledCount());
+    }
+
+    private static SignatureTransactionJpaEntity order(int id, String pathVideo, long expiresAtMs) {
+        SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
+        e.setId(id);
+        e.setPathVideo(pathVideo);
+        e.setExpiredVideo(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMs), ZoneId.systemDefault()));
+        e.setActive(true);
+        return e;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.auth.orderTest.expiry;
+
+import com.example.auth.order.expiry.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advance_shouldReturnItemsOnlyOnceTheirDeadlineIsReached() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 3, 0);
+        wheel.add("a", 25);
+        wheel.add("b", 95);
+
+        assertTrue(wheel.advance(20).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(30));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(100));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_shouldCascadeFromUpperLevelsAndOverflow() {
+        // Niveau 0 : 8 x 10 ms, niveau 1 : 8 x 80 ms -> au-delà de 640 ms, liste de débordement
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 0);
+        wheel.add(1, 500);
+        wheel.add(2, 5_000);
+
+        assertTrue(wheel.advance(490).isEmpty());
+        assertEquals(List.of(1), wheel.advance(510));
+        assertTrue(wheel.advance(4_990).isEmpty());
+        assertEquals(List.of(2), wheel.advance(5_000));
+    }
+
+    @Test
+    void add_shouldReturnPastDeadlinesOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 1_000);
+        wheel.add("late", 500);
+
+        assertEquals(List.of("late"), wheel.advance(1_000));
+    }
+
+    @Test
+    void advance_shouldNeverReturnItemsEarlyOrLoseThem() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 16, 3, 0);
+        Random rnd = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = rnd.nextInt(100_000);
+            wheel.add(deadline, deadline);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        for (long now = 0; now <= 100_000; now += 370) {
+            for (Long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "échéance " + deadline + " rendue à " + now);
+                assertTrue(deadline > now - 370 - 10, "échéance " + deadline + " rendue en retard à " + now);
+                seen.add(deadline);
+            }
+        }
+        seen.addAll(wheel.advance(100_010));
+        assertEquals(2_000, seen.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.auth.orderTest.idempotency;
+
+import com.example.auth.order.idempotency.IdempotencyKeyJpaEntity;
+import com.example.auth.order.idempotency.IdempotencyKeyRepository;
+import com.example.auth.order.idempotency.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyKeyRepository repo;
+    private SimpleMeterRegistry registry;
+    private IdempotencyService service;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(IdempotencyKeyRepository.class);
+        when(repo.save(any(IdempotencyKeyJpaEntity.class))).thenAnswer(inv -> {
+            IdempotencyKeyJpaEntity e = inv.getArgument(0);
+            e.setId(7L);
+            return e;
+        });
+        registry = new SimpleMeterRegistry();
+        service = newService();
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(repo, new ObjectMapper(), registry, 24, 300000, 2000, 100);
+    }
+
+    private ResponseEntity<?> created() {
+        int n = runs.incrementAndGet();
+        return ResponseEntity.ok(Map.of("id", 100 + n, "steps", List.of("Vidéo chiffrée")));
+    }
+
+    @Test
+    void execute_shouldRunOnceAndReplayStoredResponse() {
+        String fp = IdempotencyService.fingerprint("create", "Bob", "10");
+
+        ResponseEntity<?> first = service.execute(1, "k-1", fp, this::created);
+        ResponseEntity<?> second = service.execute(1, "k-1", fp, this::created);
+
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(repo).complete(eq(7L), eq(200), contains("\"id\":101"), isNull());
+        verify(repo, times(1)).save(any());
+        assertEquals(1.0, registry.get("order.idempotency").tag("result", "replayed").counter().count());
+    }
+
+    @Test
+    void execute_shouldRejectSameKeyForDifferentRequest() {
+        service.execute(1, "k-1", IdempotencyService.fingerprint("create", "Bob", "10"), this::created);
+
+        ResponseEntity<?> r = service.execute(1, "k-1", IdempotencyService.fingerprint("create", "Bob", "11"), this::created);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, r.getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_shouldScopeKeysPerUser() {
+        String fp = IdempotencyService.fingerprint("create", "Bob", "10");
+        service.execute(1, "k-1", fp, this::created);
+        service.execute(2, "k-1", fp, this::created);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_shouldReplayResponseStoredByAnotherReplica() {
+        String fp = IdempotencyService.fingerprint("create", "Bob", "10");
+        IdempotencyKeyJpaEntity row = new IdempotencyKeyJpaEntity();
+        row.setId(3L);
+        row.setFingerprint(fp);
+        row.setStatus(IdempotencyKeyJpaEntity.COMPLETED);
+        row.setHttpStatus(202);
+        row.setResponseBody("{\"jobId\":\"abc\"}");
+        row.setLocation("/api/orders/jobs/abc");
+        row.setLockedUntil(LocalDateTime.now().minusMinutes(1));
+        row.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(repo.save(any(IdempotencyKeyJpaEntity.class))).thenThrow(new DataIntegrityViolationException("uk"));
+        when(repo.findByUserIdAndIdemKey(1, "k-1")).thenReturn(Optional.of(row));
+
+        ResponseEntity<?> r = service.execute(1, "k-1", fp, this::created);
+
+        assertEquals(0, runs.get());
+        assertEquals(HttpStatus.ACCEPTED, r.getStatusCode());
+        assertEquals(Map.of("jobId", "abc"), r.getBody());
+        assertEquals("/api/orders/jobs/abc", r.getHeaders().getLocation().toString());
+    }
+
+    @Test
+    void execute_shouldTakeOverAbandonedMarker() {
+        String fp = IdempotencyService.fingerprint("create", "Bob", "10");
+        IdempotencyKeyJpaEntity row = new IdempotencyKeyJpaEntity();
+        row.setId(3L);
+        row.setFingerprint(fp);
+        row.setStatus(IdempotencyKeyJpaEntity.IN_PROGRESS);
+        row.setLockedUntil(LocalDateTime.now().minusMinutes(1));
+        row.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(repo.save(any(IdempotencyKeyJpaEntity.class))).thenThrow(new DataIntegrityViolationException("uk"));
+        when(repo.findByUserIdAndIdemKey(1, "k-1")).thenReturn(Optional.of(row));
+        when(repo.takeOver(eq(3L), eq(fp), any(), any(), any())).thenReturn(1);
+
+        ResponseEntity<?> r = service.execute(1, "k-1", fp, this::created);
+
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.OK, r.getStatusCode());
+        verify(repo).complete(eq(3L), eq(200), anyString(), isNull());
+    }
+
+    @Test
+    void execute_shouldAnswer409WhileAnotherReplicaRunsTheKey() {
+        service = new IdempotencyService(repo, new ObjectMapper(), registry, 24, 300000, 150, 100);
+        IdempotencyKeyJpaEntity row = new IdempotencyKeyJpaEntity();
+        row.setId(3L);
+        row.setFingerprint("x");
+        row.setStatus(IdempotencyKeyJpaEntity.IN_PROGRESS);
+        row.setLockedUntil(LocalDateTime.now().plusMinutes(5));
+        row.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(repo.save(any(IdempotencyKeyJpaEntity.class))).thenThrow(new DataIntegrityViolationException("uk"));
+        when(repo.findByUserIdAndIdemKey(1, "k-1")).thenReturn(Optional.of(row));
+
+        ResponseEntity<?> r = service.execute(1, "k-1", "x", this::created);
+
+        assertEquals(HttpStatus.CONFLICT, r.getStatusCode());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void execute_shouldNotKeepServerErrors() {
+        String fp = IdempotencyService.fingerprint("create", "Bob", "10");
+        ResponseEntity<?> failed = service.execute(1, "k-1", fp,
+                () -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Vault indisponible")));
+        ResponseEntity<?> retried = service.execute(1, "k-1", fp, this::created);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals(1, runs.get());
+        verify(repo).release(7L);
+    }
+
+    @Test
+    void execute_shouldMakeConcurrentDuplicateWaitForFirstExecution() throws Exception {
+        String fp = IdempotencyService.fingerprint("create", "Bob", "10");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() -> service.execute(1, "k-1", fp, () -> {
+            started.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return created();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ResponseEntity<?>> second = CompletableFuture.supplyAsync(() -> service.execute(1, "k-1", fp, this::created));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS).getBody(), second.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, runs.get());
+        assertEquals("true", second.get().getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_shouldRejectInvalidKey() {
+        ResponseEntity<?> r = service.execute(1, "clé avec espaces", "x", this::created);
+
+        assertEquals(HttpStatus.BAD_REQUEST, r.getStatusCode());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void fingerprint_shouldDistinguishNullFromEmptyAndBoundaries() {
+        assertNotEquals(IdempotencyService.fingerprint("a", null), IdempotencyService.fingerprint("a", ""));
+        assertNotEquals(IdempotencyService.fingerprint("ab", "c"), IdempotencyService.fingerprint("a", "bc"));
+        assertEquals(IdempotencyService.fingerprint("a", "b"), IdempotencyService.fingerprint("a", "b"));
+    }
+}
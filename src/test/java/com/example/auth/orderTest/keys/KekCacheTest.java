@@ -0,0 +1,44 @@
+package com.example.auth.orderTest.keys;
+
+import com.example.auth.order.keys.KekCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KekCacheTest {
+
+    @Test
+    void get_shouldReturnCopy() {
+        KekCache cache = new KekCache(2);
+        cache.put("k1", new byte[]{1, 2});
+
+        byte[] copy = cache.get("k1");
+        copy[0] = 9;
+
+        assertArrayEquals(new byte[]{1, 2}, cache.get("k1"));
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed() {
+        KekCache cache = new KekCache(2);
+        cache.put("k1", new byte[]{1});
+        cache.put("k2", new byte[]{2});
+        cache.get("k1");
+        cache.put("k3", new byte[]{3});
+
+        assertNotNull(cache.get("k1"));
+        assertNull(cache.get("k2"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void clear_shouldEmptyCache() {
+        KekCache cache = new KekCache(2);
+        cache.put("k1", new byte[]{1});
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("k1"));
+    }
+}
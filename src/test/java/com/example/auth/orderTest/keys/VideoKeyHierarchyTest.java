@@ -0,0 +1,134 @@
+package com.example.auth.orderTest.keys;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.order.keys.VideoKekJpaEntity;
+import com.example.auth.order.keys.VideoKekRepository;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VideoKeyHierarchyTest {
+
+    private UserKeyVaultPort vaultPort;
+    private VideoKekRepository kekRepo;
+    private SimpleMeterRegistry registry;
+    private final Map<String, String> rows = new HashMap<>();
+    private final Map<String, byte[]> vault = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        vaultPort = mock(UserKeyVaultPort.class);
+        kekRepo = mock(VideoKekRepository.class);
+        registry = new SimpleMeterRegistry();
+        // Vault simulé : le "ciphertext" est une référence vers le clair
+        when(vaultPort.encryptDek(eq("video-dek"), any(byte[].class))).thenAnswer(inv -> {
+            String ct = "vault:v1:" + vault.size();
+            vault.put(ct, ((byte[]) inv.getArgument(1)).clone());
+            return ct;
+        });
+        when(vaultPort.decryptDek(eq("video-dek"), anyString())).thenAnswer(inv -> vault.get(inv.<String>getArgument(1)).clone());
+        when(kekRepo.insertIfAbsent(anyString(), anyString())).thenAnswer(inv ->
+                rows.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null ? 1 : 0);
+        when(kekRepo.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<String>getArgument(0))).map(w -> {
+            VideoKekJpaEntity k = new VideoKekJpaEntity();
+            k.setId(inv.getArgument(0));
+            k.setWrappedKek(w);
+            return k;
+        }));
+    }
+
+    private VideoKeyHierarchy hierarchy(boolean enabled) {
+        return new VideoKeyHierarchy(vaultPort, kekRepo, registry, "video-dek", enabled, 24, 8);
+    }
+
+    @Test
+    void wrapDek_shouldCallVaultPerDek_whenHierarchyDisabled() throws Exception {
+        VideoKeyHierarchy keys = hierarchy(false);
+
+        String wrapped = keys.wrapDek(new byte[32]);
+
+        assertTrue(wrapped.startsWith("vault:v1:"));
+        assertArrayEquals(new byte[32], keys.unwrapDek(wrapped));
+    }
+
+    @Test
+    void wrapDek_shouldUseOneVaultCallPerPeriod_whenHierarchyEnabled() throws Exception {
+        VideoKeyHierarchy keys = hierarchy(true);
+        byte[] dek1 = new byte[32];
+        byte[] dek2 = new byte[32];
+        dek1[0] = 1;
+        dek2[0] = 2;
+
+        String w1 = keys.wrapDek(dek1);
+        String w2 = keys.wrapDek(dek2);
+
+        assertTrue(w1.startsWith("kek:k"));
+        assertArrayEquals(dek1, keys.unwrapDek(w1));
+        assertArrayEquals(dek2, keys.unwrapDek(w2));
+        verify(vaultPort, times(1)).encryptDek(anyString(), any());
+        verify(vaultPort, never()).decryptDek(anyString(), anyString());
+    }
+
+    @Test
+    void unwrapDek_shouldUnwrapKekOnceOnOtherReplica() throws Exception {
+        String w1 = hierarchy(true).wrapDek(new byte[32]);
+        String w2 = hierarchy(true).wrapDek(new byte[32]);
+        VideoKeyHierarchy replica = hierarchy(true);
+        clearInvocations(vaultPort);
+
+        replica.unwrapDek(w1);
+        replica.unwrapDek(w2);
+
+        verify(vaultPort, times(1)).decryptDek(anyString(), anyString());
+    }
+
+    @Test
+    void unwrapDek_shouldStillAcceptLegacyVaultFormat() throws Exception {
+        VideoKeyHierarchy keys = hierarchy(true);
+        doReturn(new byte[]{7}).when(vaultPort).decryptDek("video-dek", "vault:v3:legacy");
+
+        assertArrayEquals(new byte[]{7}, keys.unwrapDek("vault:v3:legacy"));
+    }
+
+    @Test
+    void unwrapDek_shouldRejectTamperedDek() throws Exception {
+        VideoKeyHierarchy keys = hierarchy(true);
+        String wrapped = keys.wrapDek(new byte[32]);
+        String tampered = wrapped.substring(0, wrapped.length() - 4) + (wrapped.endsWith("AAAA") ? "BBBB" : "AAAA");
+
+        assertThrows(GeneralSecurityException.class, () -> keys.unwrapDek(tampered));
+    }
+
+    @Test
+    void rewrapStaleKeks_shouldOnlyRewrapOldVersions() {
+        VideoKekJpaEntity old = new VideoKekJpaEntity();
+        old.setId("k1");
+        old.setWrappedKek("vault:v1:a");
+        VideoKekJpaEntity current = new VideoKekJpaEntity();
+        current.setId("k2");
+        current.setWrappedKek("vault:v2:b");
+        when(kekRepo.findAll()).thenReturn(List.of(old, current));
+        when(vaultPort.rewrapDeks("video-dek", List.of("vault:v1:a"))).thenReturn(List.of("vault:v2:a"));
+        when(kekRepo.updateWrapped("k1", "vault:v2:a")).thenReturn(1);
+
+        assertEquals(1, hierarchy(true).rewrapStaleKeks(2));
+        verify(kekRepo, never()).updateWrapped(eq("k2"), anyString());
+    }
+
+    @Test
+    void transitVersionOf_shouldParsePrefix() {
+        assertEquals(12, VideoKeyHierarchy.transitVersionOf("vault:v12:abc"));
+        assertEquals(-1, VideoKeyHierarchy.transitVersionOf("kek:k1:abc"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.auth.orderTest.purge;
+
+import com.example.auth.jobs.service.JobLeaseService;
+import com.example.auth.order.purge.LazyVideoDeleter;
+import com.example.auth.order.purge.VideoDeletionJpaEntity;
+import com.example.auth.order.purge.VideoDeletionRepository;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import com.example.auth.order.storage.VideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LazyVideoDeleterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VideoDeletionRepository deletionRepo;
+    private JobLeaseService leases;
+    private SimpleMeterRegistry registry;
+    private LazyVideoDeleter deleter;
+
+    @BeforeEach
+    void setUp() {
+        deletionRepo = mock(VideoDeletionRepository.class);
+        leases = mock(JobLeaseService.class);
+        registry = new SimpleMeterRegistry();
+        when(leases.acquireOrRenew(LazyVideoDeleter.JOB_NAME)).thenReturn(OptionalLong.of(1));
+        when(leases.isLeader(LazyVideoDeleter.JOB_NAME)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (deleter != null) deleter.shutdown();
+    }
+
+    @Test
+    void drain_shouldDeleteQueuedObjectsAndRemoveRows() throws Exception {
+        ShardedFileSystemVideoStore store = new ShardedFileSystemVideoStore(tempDir);
+        store.put("1_1_a.enc", new byte[300]);
+        deleter = new LazyVideoDeleter(deletionRepo, store, leases, registry, 100, 0, 1000);
+        when(deletionRepo.findByNotBeforeLessThanEqualOrderByIdAsc(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, "1_1_a.enc"), row(2L, "1_1_gone.enc")), List.of());
+
+        assertEquals(2, deleter.drain());
+
+        assertFalse(store.exists("1_1_a.enc"));
+        verify(deletionRepo).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertEquals(300.0, registry.get("video.purge.reclaimed").counter().count());
+        assertEquals(1.0, registry.get("video.purge.deleted").counter().count());
+    }
+
+    @Test
+    void drain_shouldBackOff_whenDeletionFails() throws Exception {
+        VideoStore store = mock(VideoStore.class);
+        when(store.delete(anyString())).thenThrow(new IOException("disque indisponible"));
+        deleter = new LazyVideoDeleter(deletionRepo, store, leases, registry, 100, 0, 1000);
+        VideoDeletionJpaEntity r = row(1L, "1_1_a.enc");
+        when(deletionRepo.findByNotBeforeLessThanEqualOrderByIdAsc(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(r), List.of());
+
+        assertEquals(0, deleter.drain());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VideoDeletionJpaEntity>> retried = ArgumentCaptor.forClass(List.class);
+        verify(deletionRepo).saveAll(retried.capture());
+        assertEquals(1, retried.getValue().get(0).getAttempts());
+        assertTrue(retried.getValue().get(0).getNotBefore().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void scheduledDrain_shouldSkip_whenNotLeader() {
+        deleter = new LazyVideoDeleter(deletionRepo, mock(VideoStore.class), leases, registry, 100, 0, 1000);
+        when(leases.acquireOrRenew(LazyVideoDeleter.JOB_NAME)).thenReturn(OptionalLong.empty());
+
+        deleter.scheduledDrain();
+
+        verify(leases, timeout(2000)).acquireOrRenew(LazyVideoDeleter.JOB_NAME);
+        verifyNoInteractions(deletionRepo);
+    }
+
+    @Test
+    void drain_shouldStop_whenLeaseIsLostBetweenPages() throws Exception {
+        VideoStore store = mock(VideoStore.class);
+        when(store.delete(anyString())).thenReturn(true);
+        deleter = new LazyVideoDeleter(deletionRepo, store, leases, registry, 100, 0, 1000);
+        when(leases.acquireOrRenew(LazyVideoDeleter.JOB_NAME)).thenReturn(OptionalLong.of(1), OptionalLong.empty());
+        when(deletionRepo.findByNotBeforeLessThanEqualOrderByIdAsc(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, "1_1_a.enc")), List.of(row(2L, "1_1_b.enc")));
+
+        assertEquals(1, deleter.drain());
+
+        verify(deletionRepo, times(1)).findByNotBeforeLessThanEqualOrderByIdAsc(any(LocalDateTime.class), any(Pageable.class));
+        verify(store, never()).delete("1_1_b.enc");
+    }
+
+    @Test
+    void drain_shouldStopMidPage_whenLeaseExpiresLocally() throws Exception {
+        VideoStore store = mock(VideoStore.class);
+        when(store.delete(anyString())).thenReturn(true);
+        deleter = new LazyVideoDeleter(deletionRepo, store, leases, registry, 100, 0, 1000);
+        when(leases.acquireOrRenew(LazyVideoDeleter.JOB_NAME)).thenReturn(OptionalLong.of(1), OptionalLong.empty());
+        when(leases.isLeader(LazyVideoDeleter.JOB_NAME)).thenReturn(false);
+        when(deletionRepo.findByNotBeforeLessThanEqualOrderByIdAsc(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, "1_1_a.enc"), row(2L, "1_1_b.enc")));
+
+        assertEquals(1, deleter.drain());
+
+        verify(deletionRepo).deleteAllByIdInBatch(List.of(1L));
+        verify(store, never()).delete("1_1_b.enc");
+    }
+
+    private static VideoDeletionJpaEntity row(Long id, String objectId) {
+        VideoDeletionJpaEntity d = new VideoDeletionJpaEntity();
+        d.setId(id);
+        d.setObjectId(objectId);
+        d.setNotBefore(LocalDateTime.now().minusSeconds(1));
+        return d;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.auth.orderTest.purge;
+
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.cache.DecryptedVideoCache;
+import com.example.auth.order.dedup.VideoBlobService;
+import com.example.auth.order.purge.VideoDeletionJpaEntity;
+import com.example.auth.order.purge.VideoDeletionRepository;
+import com.example.auth.order.purge.VideoPurgeService;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class VideoPurgeServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private VideoDeletionRepository deletionRepo;
+    private VideoBlobService blobService;
+    private DecryptedVideoCache plainCache;
+    private VideoPurgeService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        deletionRepo = mock(VideoDeletionRepository.class);
+        blobService = mock(VideoBlobService.class);
+        plainCache = mock(DecryptedVideoCache.class);
+        service = new VideoPurgeService(sigRepo, deletionRepo, store, blobService, plainCache, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void purgeOrder_shouldKeepSharedBlob_whileOtherOrdersReferenceIt() throws Exception {
+        store.put("3_1_a.enc", new byte[1000]);
+        store.put("3_1_a.enc.dek", "vault:v1:x".getBytes());
+        when(sigRepo.findById(10)).thenReturn(Optional.of(order(10, 3, "3_1_a.enc")));
+        when(blobService.stillReferencedAfterRelease(10, "3_1_a.enc")).thenReturn(true);
+
+        service.purgeOrder(10, 3);
+
+        assertTrue(store.exists("3_1_a.enc.dek"));
+        assertTrue(store.exists("3_1_a.enc"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VideoDeletionJpaEntity>> queued = ArgumentCaptor.forClass(List.class);
+        verify(deletionRepo).saveAll(queued.capture());
+        assertTrue(queued.getValue().isEmpty());
+        verify(sigRepo).deactivateByIdIn(List.of(10));
+    }
+
+    @Test
+    void purgeOrder_shouldDestroyDekAndQueueCiphertext() throws Exception {
+        store.put("3_1_a.enc", new byte[1000]);
+        store.put("3_1_a.enc.dek", "vault:v1:x".getBytes());
+        when(sigRepo.findById(10)).thenReturn(Optional.of(order(10, 3, "3_1_a.enc")));
+
+        service.purgeOrder(10, 3);
+
+        assertFalse(store.exists("3_1_a.enc.dek"));
+        assertTrue(store.exists("3_1_a.enc"));
+        verify(plainCache).invalidate(10);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VideoDeletionJpaEntity>> queued = ArgumentCaptor.forClass(List.class);
+        verify(deletionRepo).saveAll(queued.capture());
+        assertEquals(1, queued.getValue().size());
+        assertEquals("3_1_a.enc", queued.getValue().get(0).getObjectId());
+        assertEquals(10, queued.getValue().get(0).getOrderId());
+        verify(sigRepo).deactivateByIdIn(List.of(10));
+    }
+
+    @Test
+    void shred_shouldDeactivateOrdersBeforeDestroyingDek() throws Exception {
+        store.put("3_1_a.enc.dek", "vault:v1:x".getBytes());
+        when(sigRepo.deactivateByIdIn(List.of(1))).thenAnswer(inv -> {
+            // Un rewrap concurrent doit voir l'ordre inactif avant que le .dek ne disparaisse
+            assertTrue(store.exists("3_1_a.enc.dek"));
+            return 1;
+        });
+
+        service.shred(List.of(new VideoPurgeService.PurgeTarget(1, "3_1_a.enc")));
+
+        verify(sigRepo).deactivateByIdIn(List.of(1));
+        assertFalse(store.exists("3_1_a.enc.dek"));
+    }
+
+    @Test
+    void purgeOrder_shouldRefuse_whenCallerIsNotSender() {
+        when(sigRepo.findById(10)).thenReturn(Optional.of(order(10, 3, "3_1_a.enc")));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.purgeOrder(10, 4));
+        assertTrue(ex.getMessage().contains("expéditeur"));
+        verifyNoInteractions(deletionRepo);
+    }
+
+    @Test
+    void purgeOrder_shouldThrow_whenOrderNotFound() {
+        when(sigRepo.findById(99)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.purgeOrder(99, 3));
+    }
+
+    @Test
+    void purgeUserVideos_shouldShredEveryPage() throws Exception {
+        store.put("3_1_a.enc", new byte[10]);
+        store.put("3_1_a.enc.dek", new byte[5]);
+        store.put("3_2_b.enc.dek", new byte[5]);
+        when(sigRepo.findByUserIdAndIdGreaterThanOrderByIdAsc(eq(3), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(order(1, 3, "3_1_a.enc"), order(2, 3, "3_2_b.enc")));
+        when(sigRepo.findByUserIdAndIdGreaterThanOrderByIdAsc(eq(3), eq(2), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(2, service.purgeUserVideos(3));
+
+        assertFalse(store.exists("3_1_a.enc.dek"));
+        assertFalse(store.exists("3_2_b.enc.dek"));
+        verify(sigRepo).deactivateByIdIn(List.of(1, 2));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VideoDeletionJpaEntity>> queued = ArgumentCaptor.forClass(List.class);
+        verify(deletionRepo).saveAll(queued.capture());
+        // .enc absent pour l'ordre 2 : rien à mettre en file
+        assertEquals(1, queued.getValue().size());
+    }
+
+    @Test
+    void shred_shouldBeIdempotent() throws Exception {
+        store.put("3_1_a.enc", new byte[10]);
+        store.put("3_1_a.enc.dek", new byte[5]);
+        List<VideoPurgeService.PurgeTarget> targets = List.of(new VideoPurgeService.PurgeTarget(1, "3_1_a.enc"));
+
+        assertEquals(10, service.shred(targets));
+        assertEquals(10, service.shred(targets));
+        assertFalse(store.exists("3_1_a.enc.dek"));
+    }
+
+    private static SignatureTransactionJpaEntity order(int id, int userId, String pathVideo) {
+        SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
+        e.setId(id);
+        e.setUserId(userId);
+        e.setPathVideo(pathVideo);
+        return e;
+    }
+}
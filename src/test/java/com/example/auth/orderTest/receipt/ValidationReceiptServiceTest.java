@@ -0,0 +1,96 @@
+package com.example.auth.orderTest.receipt;
+
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.order.receipt.ValidationReceiptJpaEntity;
+import com.example.auth.order.receipt.ValidationReceiptRepository;
+import com.example.auth.order.receipt.ValidationReceiptService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ValidationReceiptServiceTest {
+
+    private static final String JWT_SECRET = "test-secret-with-at-least-32-characters!!";
+
+    private ValidationReceiptRepository repo;
+    private ValidationReceiptService service;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ValidationReceiptRepository.class);
+        when(repo.save(any(ValidationReceiptJpaEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        service = new ValidationReceiptService(repo, "", JWT_SECRET);
+    }
+
+    @Test
+    void token_shouldRoundTripClaims() {
+        ValidationReceiptJpaEntity r = service.record(order("vault:v3:sig"), "cd".repeat(32));
+
+        Claims claims = service.verify(service.token(r, LocalDateTime.now().plusDays(1)));
+
+        assertEquals("7", claims.getSubject());
+        assertEquals("ab".repeat(32), claims.get("vh", String.class));
+        assertEquals("cd".repeat(32), claims.get("ch", String.class));
+        assertEquals(3, claims.get("kv", Integer.class));
+    }
+
+    @Test
+    void verify_shouldRejectAuthTokensAndTamperedOrExpiredReceipts() {
+        String authToken = Jwts.builder().subject("7")
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8))).compact();
+        assertThrows(IllegalArgumentException.class, () -> service.verify(authToken));
+
+        ValidationReceiptJpaEntity r = service.record(order("vault:v1:sig"), "cd".repeat(32));
+        String token = service.token(r, LocalDateTime.now().plusDays(1));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThrows(IllegalArgumentException.class, () -> service.verify(tampered));
+
+        String expired = service.token(r, LocalDateTime.now().minusMinutes(1));
+        assertThrows(IllegalArgumentException.class, () -> service.verify(expired));
+    }
+
+    @Test
+    void matches_shouldRequireSameHashAndKeyVersion() {
+        ValidationReceiptJpaEntity r = service.record(order("vault:v1:sig"), "cd".repeat(32));
+
+        assertTrue(service.matches(r, order("vault:v1:other")));
+        assertFalse(service.matches(r, order("vault:v2:sig")));
+        SignatureTransactionJpaEntity rehashed = order("vault:v1:sig");
+        rehashed.setVideoHash("ef".repeat(32));
+        assertFalse(service.matches(r, rehashed));
+    }
+
+    @Test
+    void repositoryFailures_shouldNotBlockValidation() {
+        when(repo.findById(7)).thenThrow(new DataAccessResourceFailureException("down"));
+        when(repo.save(any(ValidationReceiptJpaEntity.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertEquals(Optional.empty(), service.find(7));
+        ValidationReceiptJpaEntity r = service.record(order("vault:v1:sig"), "cd".repeat(32));
+        assertEquals(7, r.getOrderId());
+    }
+
+    @Test
+    void constructor_shouldRejectShortReceiptSecret() {
+        assertThrows(IllegalArgumentException.class, () -> new ValidationReceiptService(repo, "short", JWT_SECRET));
+    }
+
+    private static SignatureTransactionJpaEntity order(String signature) {
+        SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
+        e.setId(7);
+        e.setVideoHash("ab".repeat(32));
+        e.setSignature(signature);
+        return e;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.auth.orderTest.rewrap;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.jobs.service.ShardedJob;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.cache.DecryptedVideoCache;
+import com.example.auth.order.dedup.VideoBlobService;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import com.example.auth.order.purge.VideoDeletionRepository;
+import com.example.auth.order.purge.VideoPurgeService;
+import com.example.auth.order.rewrap.DekRewrapJob;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DekRewrapJobTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private UserKeyVaultPort vaultPort;
+    private SimpleMeterRegistry registry;
+    private DekRewrapJob job;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        vaultPort = mock(UserKeyVaultPort.class);
+        registry = new SimpleMeterRegistry();
+        job = new DekRewrapJob(sigRepo, store, vaultPort, mock(VideoKeyHierarchy.class), registry, 2, 0);
+        when(vaultPort.latestKeyVersion("video-dek")).thenReturn(2);
+        when(vaultPort.rewrapDeks(eq("video-dek"), anyList())).thenAnswer(inv -> {
+            List<String> in = inv.getArgument(1);
+            return in.stream().map(ct -> ct.replace("vault:v1:", "vault:v2:")).toList();
+        });
+    }
+
+    @Test
+    void process_shouldRewrapOnlyStaleDeksInBatches() throws Exception {
+        store.put("1_1_a.enc.dek", "vault:v1:A".getBytes());
+        store.put("1_2_b.enc.dek", "vault:v2:B".getBytes());
+        store.put("1_3_c.enc.dek", "vault:v1:C".getBytes());
+        store.put("1_4_d.enc.dek", "vault:v1:D".getBytes());
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(1), eq(10), any(Pageable.class)))
+                .thenReturn(List.of(order(1, "1_1_a.enc"), order(2, "1_2_b.enc"), order(3, "1_3_c.enc"),
+                        order(4, "1_4_d.enc"), order(5, "1_1_a.enc")));
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(6), eq(10), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(sigRepo.findActivePathVideos(anyCollection())).thenAnswer(inv -> new ArrayList<>(inv.<List<String>>getArgument(0)));
+        FakeShard shard = new FakeShard(1, 10);
+
+        job.process(shard);
+
+        assertEquals("vault:v2:A", new String(store.get("1_1_a.enc.dek")));
+        assertEquals("vault:v2:B", new String(store.get("1_2_b.enc.dek")));
+        assertEquals("vault:v2:C", new String(store.get("1_3_c.enc.dek")));
+        assertEquals("vault:v2:D", new String(store.get("1_4_d.enc.dek")));
+        // 3 DEK obsolètes (le blob partagé par les ordres 1 et 5 une seule fois), lots de 2
+        verify(vaultPort, times(2)).rewrapDeks(eq("video-dek"), anyList());
+        assertEquals(List.of(6L), shard.checkpoints);
+        assertEquals(3, shard.processed);
+        assertEquals(3.0, registry.counter("video.rewrap.rewrapped").count());
+    }
+
+    @Test
+    void process_shouldNotResurrectDekPurgedDuringRewrap() throws Exception {
+        store.put("1_1_a.enc.dek", "vault:v1:A".getBytes());
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(1), eq(10), any(Pageable.class)))
+                .thenReturn(List.of(order(1, "1_1_a.enc")));
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(2), eq(10), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(sigRepo.findActivePathVideos(anyCollection())).thenReturn(List.of());
+
+        job.process(new FakeShard(1, 10));
+
+        assertFalse(store.exists("1_1_a.enc.dek"));
+    }
+
+    @Test
+    void process_shouldKeepOldDek_whenVaultRejectsEntry() throws Exception {
+        store.put("1_1_a.enc.dek", "vault:v1:A".getBytes());
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(1), eq(10), any(Pageable.class)))
+                .thenReturn(List.of(order(1, "1_1_a.enc")));
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(2), eq(10), any(Pageable.class)))
+                .thenReturn(List.of());
+        List<String> rejected = new ArrayList<>();
+        rejected.add(null);
+        when(vaultPort.rewrapDeks(eq("video-dek"), anyList())).thenReturn(rejected);
+
+        job.process(new FakeShard(1, 10));
+
+        assertEquals("vault:v1:A", new String(store.get("1_1_a.enc.dek")));
+        assertEquals(1.0, registry.counter("video.rewrap.failed").count());
+    }
+
+    @Test
+    void process_shouldKeepRewrappedDek_whenPathVideoIsLegacyAbsolutePath() throws Exception {
+        store.put("1_1_a.enc.dek", "vault:v1:A".getBytes());
+        String legacy = "/var/moustass/videos/1_1_a.enc";
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(1), eq(10), any(Pageable.class)))
+                .thenReturn(List.of(order(1, legacy)));
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(2), eq(10), any(Pageable.class)))
+                .thenReturn(List.of());
+        // Comme la base : seules les valeurs exactes de path_video correspondent
+        when(sigRepo.findActivePathVideos(anyCollection())).thenAnswer(inv ->
+                inv.<java.util.Collection<String>>getArgument(0).stream().filter(legacy::equals).toList());
+
+        job.process(new FakeShard(1, 10));
+
+        assertEquals("vault:v2:A", new String(store.get("1_1_a.enc.dek")));
+        assertEquals(1.0, registry.counter("video.rewrap.rewrapped").count());
+    }
+
+    @Test
+    void process_shouldNotResurrectDek_whenPurgeDeletesItBetweenReadAndWrite() throws Exception {
+        store.put("3_1_a.enc.dek", "vault:v1:A".getBytes());
+        SignatureTransactionJpaEntity order = order(1, "3_1_a.enc");
+        order.setUserId(3);
+        Set<String> active = ConcurrentHashMap.newKeySet();
+        active.add("3_1_a.enc");
+        when(sigRepo.findById(1)).thenReturn(Optional.of(order));
+        when(sigRepo.deactivateByIdIn(List.of(1))).thenAnswer(inv -> {
+            active.remove("3_1_a.enc");
+            return 1;
+        });
+        when(sigRepo.findActivePathVideos(anyCollection())).thenAnswer(inv ->
+                inv.<java.util.Collection<String>>getArgument(0).stream().filter(active::contains).toList());
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(1), eq(10), any(Pageable.class)))
+                .thenReturn(List.of(order));
+        when(sigRepo.findByActiveTrueAndIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(2), eq(10), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // 1) le rewrap lit le .dek et attend ; 2) la purge supprime le .dek ; 3) le rewrap écrit et contrôle ;
+        // 4) la purge termine
+        CountDownLatch dekRead = new CountDownLatch(1);
+        CountDownLatch dekDeleted = new CountDownLatch(1);
+        when(vaultPort.rewrapDeks(eq("video-dek"), anyList())).thenAnswer(inv -> {
+            dekRead.countDown();
+            assertTrue(dekDeleted.await(5, TimeUnit.SECONDS));
+            return List.of("vault:v2:A");
+        });
+        CompletableFuture<Void> rewrap = CompletableFuture.runAsync(() -> {
+            try {
+                job.process(new FakeShard(1, 10));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(dekRead.await(5, TimeUnit.SECONDS));
+        ShardedFileSystemVideoStore purgeStore = new ShardedFileSystemVideoStore(tempDir) {
+            @Override
+            public boolean delete(String objectId) throws java.io.IOException {
+                boolean deleted = super.delete(objectId);
+                if (objectId.endsWith(".dek")) {
+                    dekDeleted.countDown();
+                    rewrap.join();
+                }
+                return deleted;
+            }
+        };
+        VideoPurgeService purge = new VideoPurgeService(sigRepo, mock(VideoDeletionRepository.class), purgeStore,
+                mock(VideoBlobService.class), mock(DecryptedVideoCache.class), new SimpleMeterRegistry());
+
+        purge.purgeOrder(1, 3);
+
+        rewrap.get(5, TimeUnit.SECONDS);
+        assertFalse(store.exists("3_1_a.enc.dek"));
+    }
+
+    private static SignatureTransactionJpaEntity order(int id, String pathVideo) {
+        SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
+        e.setId(id);
+        e.setPathVideo(pathVideo);
+        e.setActive(true);
+        return e;
+    }
+
+    private static class FakeShard implements ShardedJob.ShardContext {
+        final long from;
+        final long to;
+        final List<Long> checkpoints = new ArrayList<>();
+        long processed;
+
+        FakeShard(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public long from() {
+            return from;
+        }
+
+        @Override
+        public long to() {
+            return to;
+        }
+
+        @Override
+        public long cursor() {
+            return from;
+        }
+
+        @Override
+        public long claimToken() {
+            return 1;
+        }
+
+        @Override
+        public boolean checkpoint(long cursor, long processedSinceLastCheckpoint) {
+            checkpoints.add(cursor);
+            processed += processedSinceLastCheckpoint;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.auth.orderTest.scrub;
+
+import com.example.auth.order.scrub.ByteRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRateLimiterTest {
+
+    @Test
+    void acquire_shouldNotWait_withinBurstCapacity() throws Exception {
+        ByteRateLimiter limiter = new ByteRateLimiter(1_000_000);
+        long start = System.nanoTime();
+
+        limiter.acquire(500_000);
+
+        assertTrue(System.nanoTime() - start < 100_000_000L);
+    }
+
+    @Test
+    void acquire_shouldThrottle_onceBudgetIsExhausted() throws Exception {
+        ByteRateLimiter limiter = new ByteRateLimiter(10_000);
+        limiter.acquire(10_000);
+        long start = System.nanoTime();
+
+        limiter.acquire(2_000);
+
+        // 2 000 octets à 10 000 o/s : environ 200 ms
+        assertTrue(System.nanoTime() - start >= 150_000_000L);
+    }
+
+    @Test
+    void acquire_shouldNeverWait_whenUnlimited() throws Exception {
+        ByteRateLimiter limiter = new ByteRateLimiter(0);
+        long start = System.nanoTime();
+
+        limiter.acquire(Long.MAX_VALUE);
+
+        assertTrue(System.nanoTime() - start < 100_000_000L);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.auth.orderTest.scrub;
+
+import com.example.auth.audit.service.AuditLogService;
+import com.example.auth.jobs.service.ShardedJob;
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.scrub.StorageScrubber;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class StorageScrubberTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private AuditLogService auditLogService;
+    private SimpleMeterRegistry registry;
+    private StorageScrubber scrubber;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        auditLogService = mock(AuditLogService.class);
+        registry = new SimpleMeterRegistry();
+        scrubber = new StorageScrubber(sigRepo, store, auditLogService, registry, 0, 24);
+    }
+
+    @Test
+    void check_shouldAcceptHealthyOrder() throws Exception {
+        byte[] enc = "IV-CIPHERTEXT-TAG".getBytes();
+        store.put("1_1_a.enc", enc);
+        store.put("1_1_a.enc.dek", "vault:v1:x".getBytes());
+
+        assertNull(scrubber.check(order(1, "1_1_a.enc", enc)));
+    }
+
+    @Test
+    void check_shouldDetectMissingFiles() throws Exception {
+        byte[] enc = "data".getBytes();
+        assertEquals("missing_enc", scrubber.check(order(1, "1_1_a.enc", enc)).kind());
+
+        store.put("1_1_a.enc", enc);
+        assertEquals("missing_dek", scrubber.check(order(1, "1_1_a.enc", enc)).kind());
+    }
+
+    @Test
+    void check_shouldDetectSizeAndChecksumMismatch() throws Exception {
+        byte[] enc = "original".getBytes();
+        store.put("1_1_a.enc.dek", "vault:v1:x".getBytes());
+
+        store.put("1_1_a.enc", "shorter".getBytes());
+        assertEquals("size_mismatch", scrubber.check(order(1, "1_1_a.enc", enc)).kind());
+
+        store.put("1_1_a.enc", "ORIGINAL".getBytes());
+        StorageScrubber.Problem p = scrubber.check(order(1, "1_1_a.enc", enc));
+        assertEquals("checksum_mismatch", p.kind());
+        assertEquals("STORAGE_SCRUB_CORRUPT", p.auditAction());
+    }
+
+    @Test
+    void check_shouldSkipChecksum_forLegacyOrdersWithoutFingerprint() throws Exception {
+        store.put("1_1_a.enc", "x".getBytes());
+        store.put("1_1_a.enc.dek", "d".getBytes());
+        SignatureTransactionJpaEntity legacy = order(1, "1_1_a.enc", null);
+
+        assertNull(scrubber.check(legacy));
+    }
+
+    @Test
+    void process_shouldWalkShardCheckpointAndReportProblems() throws Exception {
+        byte[] enc = "good".getBytes();
+        store.put("1_1_a.enc", enc);
+        store.put("1_1_a.enc.dek", "d".getBytes());
+        SignatureTransactionJpaEntity inactive = order(3, "1_3_c.enc", enc);
+        inactive.setActive(false);
+        when(sigRepo.findByIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(1), eq(10), any(Pageable.class)))
+                .thenReturn(List.of(order(1, "1_1_a.enc", enc), order(2, "1_2_b.enc", enc), inactive));
+        when(sigRepo.findByIdGreaterThanEqualAndIdLessThanOrderByIdAsc(eq(4), eq(10), any(Pageable.class)))
+                .thenReturn(List.of());
+        FakeShard shard = new FakeShard(1, 10);
+
+        scrubber.process(shard);
+
+        assertEquals(List.of(4L), shard.checkpoints);
+        assertEquals(2, shard.processed);
+        assertEquals(1.0, registry.get("video.scrub.problems").tag("kind", "missing_enc").counter().count());
+        verify(auditLogService).logAction(isNull(), eq("STORAGE_SCRUB_ORPHAN"), eq("signature_transactions"), eq(2),
+                anyString(), anyMap(), isNull());
+    }
+
+    @Test
+    void plan_shouldCoverAllIds() {
+        SignatureTransactionJpaEntity last = order(42, "x.enc", null);
+        when(sigRepo.findTopByOrderByIdDesc()).thenReturn(Optional.of(last));
+
+        assertEquals(new ShardedJob.IdRange(1, 43), scrubber.plan());
+    }
+
+    private static SignatureTransactionJpaEntity order(int id, String pathVideo, byte[] enc) {
+        SignatureTransactionJpaEntity e = new SignatureTransactionJpaEntity();
+        e.setId(id);
+        e.setPathVideo(pathVideo);
+        e.setActive(true);
+        if (enc != null) {
+            e.setCiphertextSize((long) enc.length);
+            e.setCiphertextSha256(sha256(enc));
+        }
+        return e;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class FakeShard implements ShardedJob.ShardContext {
+        final long from;
+        final long to;
+        final List<Long> checkpoints = new ArrayList<>();
+        long processed;
+
+        FakeShard(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public long from() {
+            return from;
+        }
+
+        @Override
+        public long to() {
+            return to;
+        }
+
+        @Override
+        public long cursor() {
+            return from;
+        }
+
+        @Override
+        public long claimToken() {
+            return 1;
+        }
+
+        @Override
+        public boolean checkpoint(long cursor, long processedSinceLastCheckpoint) {
+            checkpoints.add(cursor);
+            processed += processedSinceLastCheckpoint;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.order.storage.LocalObjectStoreClient;
+import com.example.auth.order.storage.ObjectStoreClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalObjectStoreClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalObjectStoreClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new LocalObjectStoreClient(tempDir);
+    }
+
+    @Test
+    void putObject_thenGetObject_shouldRoundTrip() throws Exception {
+        client.putObject("videos/a.enc", "CONTENT".getBytes());
+
+        assertArrayEquals("CONTENT".getBytes(), client.getObject("videos/a.enc", null, null));
+        assertEquals(7, client.headObject("videos/a.enc").getAsLong());
+    }
+
+    @Test
+    void getObject_shouldHonourByteRange() throws Exception {
+        client.putObject("k", "0123456789".getBytes());
+
+        assertArrayEquals("234".getBytes(), client.getObject("k", 2L, 4L));
+        assertArrayEquals("789".getBytes(), client.getObject("k", 7L, 100L));
+        assertThrows(IOException.class, () -> client.getObject("k", 50L, 60L));
+    }
+
+    @Test
+    void getObject_shouldThrowNoSuchFile_whenMissing() throws Exception {
+        assertThrows(NoSuchFileException.class, () -> client.getObject("missing", null, null));
+        assertTrue(client.headObject("missing").isEmpty());
+        assertFalse(client.deleteObject("missing"));
+    }
+
+    @Test
+    void multipartUpload_shouldAssemblePartsInOrder() throws Exception {
+        String uploadId = client.createMultipartUpload("big");
+        String e2 = client.uploadPart("big", uploadId, 2, "WORLD".getBytes());
+        String e1 = client.uploadPart("big", uploadId, 1, "HELLO ".getBytes());
+
+        client.completeMultipartUpload("big", uploadId, List.of(
+                new ObjectStoreClient.CompletedPart(1, e1),
+                new ObjectStoreClient.CompletedPart(2, e2)));
+
+        assertArrayEquals("HELLO WORLD".getBytes(), client.getObject("big", null, null));
+    }
+
+    @Test
+    void completeMultipartUpload_shouldRejectWrongEtag() throws Exception {
+        String uploadId = client.createMultipartUpload("big");
+        client.uploadPart("big", uploadId, 1, "DATA".getBytes());
+
+        assertThrows(IOException.class, () -> client.completeMultipartUpload("big", uploadId,
+                List.of(new ObjectStoreClient.CompletedPart(1, "\"bad\""))));
+        assertTrue(client.headObject("big").isEmpty());
+    }
+
+    @Test
+    void abortMultipartUpload_shouldDiscardParts() throws Exception {
+        String uploadId = client.createMultipartUpload("big");
+        client.uploadPart("big", uploadId, 1, "DATA".getBytes());
+
+        client.abortMultipartUpload("big", uploadId);
+
+        assertThrows(NoSuchFileException.class, () -> client.uploadPart("big", uploadId, 2, "X".getBytes()));
+    }
+
+    @Test
+    void putObject_shouldRejectKeysOutsideRoot() {
+        assertThrows(IllegalArgumentException.class, () -> client.putObject("../escape", new byte[1]));
+    }
+
+    @Test
+    void listObjects_shouldReturnKeysUnderPrefix() throws Exception {
+        client.putObject("videos/a.enc", "AA".getBytes());
+        client.putObject("videos/b.enc", "B".getBytes());
+        client.putObject("other/c.enc", "C".getBytes());
+
+        Map<String, Long> listed = new HashMap<>();
+        client.listObjects("videos/", (key, size, lastModified) -> listed.put(key, size));
+
+        assertEquals(Map.of("videos/a.enc", 2L, "videos/b.enc", 1L), listed);
+    }
+}
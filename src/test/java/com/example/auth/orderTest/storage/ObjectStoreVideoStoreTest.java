@@ -0,0 +1,127 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.order.storage.LocalObjectStoreClient;
+import com.example.auth.order.storage.ObjectStoreClient;
+import com.example.auth.order.storage.ObjectStoreVideoStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ObjectStoreVideoStoreTest {
+
+    private static final int PART_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private LocalObjectStoreClient client;
+    private ObjectStoreVideoStore store;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        client = spy(new LocalObjectStoreClient(tempDir));
+        store = new ObjectStoreVideoStore(client, "videos/", PART_SIZE, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void put_shouldUseSinglePut_forSmallObjects() throws Exception {
+        store.put("a.enc", "SMALL".getBytes());
+
+        verify(client).putObject("videos/a.enc", "SMALL".getBytes());
+        verify(client, never()).createMultipartUpload(anyString());
+        assertArrayEquals("SMALL".getBytes(), store.get("a.enc"));
+    }
+
+    @Test
+    void put_shouldUseParallelMultipart_forLargeObjects() throws Exception {
+        byte[] data = randomBytes(PART_SIZE * 3 + 17);
+
+        store.put("big.enc", data);
+
+        verify(client).createMultipartUpload("videos/big.enc");
+        verify(client, times(4)).uploadPart(eq("videos/big.enc"), anyString(), anyInt(), any());
+        assertEquals(data.length, store.size("big.enc"));
+        assertArrayEquals(data, store.get("big.enc"));
+        // get() d'un gros objet passe par des GET de plages
+        verify(client, times(4)).getObject(eq("videos/big.enc"), anyLong(), anyLong());
+    }
+
+    @Test
+    void put_shouldAbortMultipart_whenPartFails() throws Exception {
+        doThrow(new IOException("boom")).when(client).uploadPart(anyString(), anyString(), eq(2), any());
+
+        assertThrows(IOException.class, () -> store.put("big.enc", randomBytes(PART_SIZE * 2 + 1)));
+
+        verify(client).abortMultipartUpload(eq("videos/big.enc"), anyString());
+        verify(client, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+        assertFalse(store.exists("big.enc"));
+    }
+
+    @Test
+    void getRange_shouldIssueRangedGet() throws Exception {
+        store.put("a.enc", "0123456789".getBytes());
+
+        assertArrayEquals("3456".getBytes(), store.getRange("a.enc", 3, 4));
+        assertArrayEquals("89".getBytes(), store.getRange("a.enc", 8, 10));
+        assertEquals(0, store.getRange("a.enc", 42, 3).length);
+    }
+
+    @Test
+    void delete_andExists_shouldReflectObjectState() throws Exception {
+        store.put("a.enc", "X".getBytes());
+
+        assertTrue(store.exists("a.enc"));
+        assertTrue(store.delete("a.enc"));
+        assertFalse(store.exists("a.enc"));
+        assertThrows(NoSuchFileException.class, () -> store.get("a.enc"));
+    }
+
+    @Test
+    void twoReplicas_shouldSeeEachOthersObjects() throws Exception {
+        ObjectStoreClient otherReplicaClient = new LocalObjectStoreClient(tempDir);
+        ObjectStoreVideoStore otherReplica = new ObjectStoreVideoStore(otherReplicaClient, "videos/", PART_SIZE, executor);
+        byte[] data = randomBytes(PART_SIZE * 2);
+
+        store.put("shared.enc", data);
+
+        assertArrayEquals(data, otherReplica.get("shared.enc"));
+    }
+
+    private static byte[] randomBytes(int n) {
+        byte[] b = new byte[n];
+        new Random(42).nextBytes(b);
+        return b;
+    }
+
+    @Test
+    void forEachObject_shouldStripKeyPrefix() throws Exception {
+        store.put("a.enc", "A".getBytes());
+        client.putObject("other/x.enc", "X".getBytes());
+
+        List<String> ids = new ArrayList<>();
+        store.forEachObject((id, lastModified) -> ids.add(id));
+
+        assertEquals(List.of("a.enc"), ids);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.jobs.service.ShardedJob;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.storage.OrphanVideoReconciler;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrphanVideoReconcilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private SimpleMeterRegistry registry;
+    private OrphanVideoReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        registry = new SimpleMeterRegistry();
+        reconciler = new OrphanVideoReconciler(store, sigRepo, registry, 24, true, 21600000);
+        when(sigRepo.findExistingPathVideos(anyCollection())).thenAnswer(inv -> {
+            Collection<String> ids = inv.getArgument(0);
+            return ids.stream().filter(id -> id.startsWith("kept")).toList();
+        });
+    }
+
+    private void putOld(String objectId) throws Exception {
+        store.put(objectId, "X".getBytes());
+        Files.setLastModifiedTime(store.shardedPath(objectId), FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+    }
+
+    @Test
+    void reconcile_shouldDeleteOldUnreferencedEncAndDek() throws Exception {
+        putOld("kept_1.enc");
+        putOld("kept_1.enc.dek");
+        putOld("orphan_1.enc");
+        putOld("orphan_1.enc.dek");
+
+        OrphanVideoReconciler.ReconcileReport report = reconciler.reconcile(false);
+
+        assertEquals(4, report.scanned());
+        assertEquals(2, report.orphans());
+        assertTrue(store.exists("kept_1.enc"));
+        assertTrue(store.exists("kept_1.enc.dek"));
+        assertFalse(store.exists("orphan_1.enc"));
+        assertFalse(store.exists("orphan_1.enc.dek"));
+        assertEquals(2.0, registry.counter("video.reconcile.orphans").count());
+    }
+
+    @Test
+    void reconcile_shouldKeepFilesYoungerThanGracePeriod() throws Exception {
+        store.put("orphan_2.enc", "X".getBytes());
+
+        OrphanVideoReconciler.ReconcileReport report = reconciler.reconcile(false);
+
+        assertEquals(1, report.recent());
+        assertEquals(0, report.orphans());
+        assertTrue(store.exists("orphan_2.enc"));
+    }
+
+    @Test
+    void reconcile_shouldOnlyCount_inDryRun() throws Exception {
+        putOld("orphan_3.enc");
+
+        OrphanVideoReconciler.ReconcileReport report = reconciler.reconcile(true);
+
+        assertEquals(1, report.orphans());
+        assertTrue(store.exists("orphan_3.enc"));
+    }
+
+    @Test
+    void reconcile_shouldIgnoreUnknownObjectTypes() throws Exception {
+        putOld("orphan_4.bin");
+
+        OrphanVideoReconciler.ReconcileReport report = reconciler.reconcile(false);
+
+        assertEquals(1, report.ignored());
+        assertTrue(store.exists("orphan_4.bin"));
+        verify(sigRepo, never()).findExistingPathVideos(anyCollection());
+    }
+
+    @Test
+    void reconcile_shouldAbort_whenAbsolutePathsRemain() throws Exception {
+        putOld("orphan_5.enc");
+        when(sigRepo.existsByPathVideoContaining("/")).thenReturn(true);
+
+        OrphanVideoReconciler.ReconcileReport report = reconciler.reconcile(false);
+
+        assertNotNull(report.error());
+        assertTrue(store.exists("orphan_5.enc"));
+    }
+
+    @Test
+    void reconcile_shouldQueryReferencesInBatches() throws Exception {
+        for (int i = 0; i < 501; i++) {
+            putOld("orphan_b" + i + ".enc");
+        }
+
+        reconciler.reconcile(true);
+
+        verify(sigRepo, times(2)).findExistingPathVideos(anyCollection());
+    }
+
+    @Test
+    void plan_shouldCoverTheWholeStoreInOneShard() {
+        assertEquals(new ShardedJob.IdRange(0, 1), reconciler.plan());
+        assertEquals(Duration.ofHours(6), reconciler.interval());
+        assertNull(new OrphanVideoReconciler(store, sigRepo, registry, 24, false, 21600000).interval());
+    }
+
+    @Test
+    void process_shouldDeleteOrphans_whileShardIsHeld() throws Exception {
+        putOld("orphan_6.enc");
+        ShardedJob.ShardContext shard = mock(ShardedJob.ShardContext.class);
+        when(shard.checkpoint(anyLong(), anyLong())).thenReturn(true);
+
+        assertEquals(0, reconciler.process(shard));
+
+        assertFalse(store.exists("orphan_6.enc"));
+        verify(shard).checkpoint(0L, 1L);
+        assertEquals(1, reconciler.getLastReport().orphans());
+    }
+
+    @Test
+    void process_shouldStopDeleting_whenShardIsLost() throws Exception {
+        putOld("orphan_7.enc");
+        ShardedJob.ShardContext shard = mock(ShardedJob.ShardContext.class);
+        when(shard.checkpoint(anyLong(), anyLong())).thenReturn(false);
+
+        assertEquals(0, reconciler.process(shard));
+
+        assertTrue(store.exists("orphan_7.enc"));
+        verify(sigRepo, never()).findExistingPathVideos(anyCollection());
+        assertNotNull(reconciler.getLastReport().error());
+        assertFalse(reconciler.isRunning());
+    }
+
+    @Test
+    void process_shouldFailShard_whenAbsolutePathsRemain() {
+        when(sigRepo.existsByPathVideoContaining("/")).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> reconciler.process(mock(ShardedJob.ShardContext.class)));
+    }
+}
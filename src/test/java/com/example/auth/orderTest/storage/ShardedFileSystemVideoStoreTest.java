@@ -0,0 +1,121 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import com.example.auth.order.storage.VideoStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedFileSystemVideoStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+    }
+
+    @Test
+    void put_shouldWriteIntoTwoLevelShardDirectory() throws Exception {
+        store.put("1_123_abc.enc", "DATA".getBytes());
+
+        Path p = store.shardedPath("1_123_abc.enc");
+        assertTrue(Files.exists(p));
+        // root/ab/cd/objectId
+        assertEquals(tempDir.toAbsolutePath().normalize(), p.getParent().getParent().getParent());
+        assertEquals(2, p.getParent().getFileName().toString().length());
+        assertEquals(2, p.getParent().getParent().getFileName().toString().length());
+    }
+
+    @Test
+    void get_shouldReturnWrittenBytes() throws Exception {
+        store.put("video.enc", "HELLO".getBytes());
+
+        assertArrayEquals("HELLO".getBytes(), store.get("video.enc"));
+        assertEquals(5, store.size("video.enc"));
+        assertTrue(store.exists("video.enc"));
+    }
+
+    @Test
+    void put_shouldReplaceExistingObject() throws Exception {
+        store.put("video.enc", "OLD".getBytes());
+        store.put("video.enc", "NEW_CONTENT".getBytes());
+
+        assertArrayEquals("NEW_CONTENT".getBytes(), store.get("video.enc"));
+    }
+
+    @Test
+    void getRange_shouldReturnRequestedSlice() throws Exception {
+        store.put("video.enc", "0123456789".getBytes());
+
+        assertArrayEquals("345".getBytes(), store.getRange("video.enc", 3, 3));
+        assertArrayEquals("89".getBytes(), store.getRange("video.enc", 8, 10));
+        assertEquals(0, store.getRange("video.enc", 20, 5).length);
+    }
+
+    @Test
+    void get_shouldReadLegacyFlatFile() throws Exception {
+        Files.write(tempDir.resolve("legacy.enc"), "LEGACY".getBytes());
+
+        assertTrue(store.exists("legacy.enc"));
+        assertArrayEquals("LEGACY".getBytes(), store.get("legacy.enc"));
+    }
+
+    @Test
+    void get_shouldThrow_whenObjectMissing() {
+        assertFalse(store.exists("missing.enc"));
+        assertThrows(NoSuchFileException.class, () -> store.get("missing.enc"));
+        assertThrows(NoSuchFileException.class, () -> store.size("missing.enc"));
+    }
+
+    @Test
+    void delete_shouldRemoveShardedAndFlatCopies() throws Exception {
+        store.put("video.enc", "DATA".getBytes());
+        Files.write(tempDir.resolve("video.enc"), "FLAT".getBytes());
+
+        assertTrue(store.delete("video.enc"));
+        assertFalse(store.exists("video.enc"));
+        assertFalse(store.delete("video.enc"));
+    }
+
+    @Test
+    void put_shouldRejectPathTraversal() {
+        assertThrows(IllegalArgumentException.class, () -> store.put("../evil.enc", new byte[1]));
+        assertThrows(IllegalArgumentException.class, () -> store.put("a/b.enc", new byte[1]));
+        assertThrows(IllegalArgumentException.class, () -> store.put(".hidden", new byte[1]));
+    }
+
+    @Test
+    void objectIdOf_shouldStripLegacyAbsolutePath() {
+        assertEquals("2_1_abc.enc", VideoStore.objectIdOf("/app/data/videos/2_1_abc.enc"));
+        assertEquals("2_1_abc.enc", VideoStore.objectIdOf("C:\\data\\videos\\2_1_abc.enc"));
+        assertEquals("2_1_abc.enc", VideoStore.objectIdOf("2_1_abc.enc"));
+        assertEquals("2_1_abc.enc.dek", VideoStore.dekIdOf("2_1_abc.enc"));
+    }
+
+    @Test
+    void forEachObject_shouldListShardedAndLegacyFiles() throws Exception {
+        store.put("1_1_a.enc", "A".getBytes());
+        store.put("1_1_a.enc.dek", "K".getBytes());
+        Files.write(tempDir.resolve("legacy.enc"), "L".getBytes());
+
+        Set<String> ids = new HashSet<>();
+        store.forEachObject((id, lastModified) -> {
+            assertNotNull(lastModified);
+            ids.add(id);
+        });
+
+        assertEquals(Set.of("1_1_a.enc", "1_1_a.enc.dek", "legacy.enc"), ids);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.order.storage.OrphanVideoReconciler;
+import com.example.auth.order.storage.StorageAdminController;
+import com.example.auth.order.storage.VideoStore;
+import com.example.auth.order.storage.VideoStoreResharder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StorageAdminControllerTest {
+
+    private VideoStoreResharder resharder;
+    private OrphanVideoReconciler reconciler;
+    private SpringDataUsersRepository userRepo;
+    private StorageAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        resharder = mock(VideoStoreResharder.class);
+        reconciler = mock(OrphanVideoReconciler.class);
+        userRepo = mock(SpringDataUsersRepository.class);
+        controller = new StorageAdminController(resharder, reconciler, mock(VideoStore.class), userRepo);
+
+        UsersJpaEntity admin = new UsersJpaEntity();
+        admin.setId(1);
+        admin.setAdmin(true);
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(2);
+        user.setAdmin(false);
+        when(userRepo.findById(1)).thenReturn(Optional.of(admin));
+        when(userRepo.findById(2)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void startReshard_shouldReturn202_forAdmin() {
+        when(resharder.start()).thenReturn(true);
+
+        ResponseEntity<?> res = controller.startReshard(1);
+
+        assertEquals(HttpStatus.ACCEPTED, res.getStatusCode());
+        verify(resharder).start();
+    }
+
+    @Test
+    void startReshard_shouldReturn409_whenAlreadyRunning() {
+        when(resharder.start()).thenReturn(false);
+
+        assertEquals(HttpStatus.CONFLICT, controller.startReshard(1).getStatusCode());
+    }
+
+    @Test
+    void startReshard_shouldReturn403_forNonAdmin() {
+        ResponseEntity<?> res = controller.startReshard(2);
+
+        assertEquals(HttpStatus.FORBIDDEN, res.getStatusCode());
+        verify(resharder, never()).start();
+    }
+
+    @Test
+    void reshardStatus_shouldReturnReport_forAdmin() {
+        when(resharder.getLastReport()).thenReturn(new VideoStoreResharder.ReshardReport(null, null, 3, 0, 0, 0, null));
+
+        ResponseEntity<?> res = controller.reshardStatus(1);
+
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+    }
+
+    @Test
+    void startReconcile_shouldPassDryRun_forAdmin() {
+        when(reconciler.start(true)).thenReturn(true);
+
+        assertEquals(HttpStatus.ACCEPTED, controller.startReconcile(1, true).getStatusCode());
+        verify(reconciler).start(true);
+    }
+
+    @Test
+    void startReconcile_shouldReturn403_forNonAdmin() {
+        assertEquals(HttpStatus.FORBIDDEN, controller.startReconcile(2, false).getStatusCode());
+        verifyNoInteractions(reconciler);
+    }
+}
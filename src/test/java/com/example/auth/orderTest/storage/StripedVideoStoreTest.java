@@ -0,0 +1,135 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import com.example.auth.order.storage.StripedVideoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedVideoStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry registry;
+    private Path root0;
+    private Path root1;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        root0 = tempDir.resolve("nvme0");
+        root1 = tempDir.resolve("nvme1");
+    }
+
+    @Test
+    void put_shouldSpreadObjectsAcrossRoots_withHashPlacement() throws Exception {
+        StripedVideoStore store = new StripedVideoStore(List.of(root0, root1), StripedVideoStore.Placement.HASH, 1, registry);
+
+        for (int i = 0; i < 50; i++) {
+            store.put("obj" + i + ".enc", ("DATA" + i).getBytes());
+        }
+
+        long on0 = countFiles(root0);
+        long on1 = countFiles(root1);
+        assertEquals(50, on0 + on1);
+        assertTrue(on0 > 0 && on1 > 0, "les deux racines doivent recevoir des objets");
+        for (int i = 0; i < 50; i++) {
+            assertArrayEquals(("DATA" + i).getBytes(), store.get("obj" + i + ".enc"));
+        }
+    }
+
+    @Test
+    void put_shouldMirrorOnTwoRoots_andReadSurviveLossOfOneCopy() throws Exception {
+        StripedVideoStore store = new StripedVideoStore(List.of(root0, root1), StripedVideoStore.Placement.HASH, 2, registry);
+
+        store.put("a.enc", "MIRRORED".getBytes());
+
+        assertEquals(1, countFiles(root0));
+        assertEquals(1, countFiles(root1));
+        new ShardedFileSystemVideoStore(root0).delete("a.enc");
+        assertArrayEquals("MIRRORED".getBytes(), store.get("a.enc"));
+        assertArrayEquals("MIRR".getBytes(), store.getRange("a.enc", 0, 4));
+    }
+
+    @Test
+    void delete_shouldRemoveAllCopies() throws Exception {
+        StripedVideoStore store = new StripedVideoStore(List.of(root0, root1), StripedVideoStore.Placement.HASH, 2, registry);
+        store.put("a.enc", "X".getBytes());
+
+        assertTrue(store.delete("a.enc"));
+
+        assertFalse(store.exists("a.enc"));
+        assertThrows(NoSuchFileException.class, () -> store.get("a.enc"));
+    }
+
+    @Test
+    void addRoot_shouldRebalanceObjectsOnline() throws Exception {
+        StripedVideoStore store = new StripedVideoStore(List.of(root0), StripedVideoStore.Placement.HASH, 1, registry);
+        for (int i = 0; i < 60; i++) {
+            store.put("obj" + i + ".enc", ("DATA" + i).getBytes());
+        }
+
+        Path root2 = tempDir.resolve("nvme2");
+        assertTrue(store.addRoot(root2));
+        while (store.isRebalancing()) {
+            Thread.sleep(10);
+        }
+
+        StripedVideoStore.RebalanceReport report = store.getLastRebalance();
+        assertNull(report.error());
+        assertTrue(report.objectsMoved() > 0);
+        assertEquals(60 - report.objectsMoved(), countFiles(root0));
+        assertEquals(report.objectsMoved(), countFiles(root2));
+        for (int i = 0; i < 60; i++) {
+            assertArrayEquals(("DATA" + i).getBytes(), store.get("obj" + i + ".enc"));
+        }
+        assertFalse(store.addRoot(root2));
+    }
+
+    @Test
+    void put_shouldPreferRootWithMostFreeSpace_withBalancedPlacement() throws Exception {
+        StripedVideoStore store = new StripedVideoStore(List.of(root0, root1), StripedVideoStore.Placement.BALANCED, 1, registry);
+
+        store.put("a.enc", "X".getBytes());
+
+        assertTrue(store.exists("a.enc"));
+        assertEquals(1, countFiles(root0) + countFiles(root1));
+    }
+
+    @Test
+    void stats_shouldExposePerRootThroughputAndLatency() throws Exception {
+        StripedVideoStore store = new StripedVideoStore(List.of(root0), StripedVideoStore.Placement.HASH, 1, registry);
+        store.put("a.enc", "12345".getBytes());
+        store.get("a.enc");
+
+        StripedVideoStore.RootStats stats = store.getRoots().get(0).stats();
+
+        assertEquals(5, stats.bytesWritten());
+        assertEquals(5, stats.bytesRead());
+        assertEquals(1, stats.reads());
+        assertEquals(1, stats.writes());
+        assertNotNull(registry.find("video.store.root.latency").tag("op", "read").timer());
+    }
+
+    @Test
+    void constructor_shouldRejectMoreCopiesThanRoots() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new StripedVideoStore(List.of(root0), StripedVideoStore.Placement.HASH, 2, registry));
+    }
+
+    private static long countFiles(Path root) throws Exception {
+        if (!Files.exists(root)) return 0;
+        try (var s = Files.walk(root)) {
+            return s.filter(Files::isRegularFile).count();
+        }
+    }
+}
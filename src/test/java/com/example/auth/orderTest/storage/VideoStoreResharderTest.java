@@ -0,0 +1,110 @@
+package com.example.auth.orderTest.storage;
+
+import com.example.auth.login.entity.SignatureTransactionJpaEntity;
+import com.example.auth.login.ports.SpringDataSignatureTransactionRepository;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import com.example.auth.order.storage.VideoStore;
+import com.example.auth.order.storage.VideoStoreResharder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class VideoStoreResharderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedFileSystemVideoStore store;
+    private SpringDataSignatureTransactionRepository sigRepo;
+    private VideoStoreResharder resharder;
+
+    @BeforeEach
+    void setUp() {
+        store = new ShardedFileSystemVideoStore(tempDir);
+        sigRepo = mock(SpringDataSignatureTransactionRepository.class);
+        resharder = new VideoStoreResharder(store, sigRepo);
+        when(sigRepo.findByIdGreaterThanOrderByIdAsc(any(), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    @Test
+    void reshard_shouldMoveFlatFilesIntoShards() throws Exception {
+        Files.write(tempDir.resolve("1_1_a.enc"), "A".getBytes());
+        Files.write(tempDir.resolve("1_1_a.enc.dek"), "vault:v1:A".getBytes());
+
+        VideoStoreResharder.ReshardReport report = resharder.reshard();
+
+        assertEquals(2, report.filesMoved());
+        assertFalse(Files.exists(tempDir.resolve("1_1_a.enc")));
+        assertTrue(Files.exists(store.shardedPath("1_1_a.enc")));
+        assertArrayEquals("vault:v1:A".getBytes(), store.get("1_1_a.enc.dek"));
+        assertNotNull(report.finishedAt());
+        assertNull(report.error());
+    }
+
+    @Test
+    void reshard_shouldKeepShardedCopy_whenAlreadyMigrated() throws Exception {
+        store.put("1_1_a.enc", "NEW".getBytes());
+        Files.write(tempDir.resolve("1_1_a.enc"), "OLD".getBytes());
+
+        VideoStoreResharder.ReshardReport report = resharder.reshard();
+
+        assertEquals(0, report.filesMoved());
+        assertEquals(1, report.filesSkipped());
+        assertArrayEquals("NEW".getBytes(), Files.readAllBytes(store.shardedPath("1_1_a.enc")));
+    }
+
+    @Test
+    void reshard_shouldRewriteAbsolutePathsToObjectIds() throws Exception {
+        SignatureTransactionJpaEntity legacy = new SignatureTransactionJpaEntity();
+        legacy.setId(1);
+        legacy.setPathVideo("/app/data/videos/1_1_a.enc");
+        SignatureTransactionJpaEntity current = new SignatureTransactionJpaEntity();
+        current.setId(2);
+        current.setPathVideo("1_2_b.enc");
+
+        when(sigRepo.findByIdGreaterThanOrderByIdAsc(eq(0), any(Pageable.class))).thenReturn(List.of(legacy, current));
+        when(sigRepo.findByIdGreaterThanOrderByIdAsc(eq(2), any(Pageable.class))).thenReturn(List.of());
+
+        VideoStoreResharder.ReshardReport report = resharder.reshard();
+
+        assertEquals(2, report.rowsScanned());
+        assertEquals(1, report.rowsRewritten());
+        verify(sigRepo).updatePathVideo(1, "1_1_a.enc");
+        verify(sigRepo, never()).updatePathVideo(eq(2), any());
+    }
+
+    @Test
+    void reshard_shouldFail_whenStoreIsNotSharded() throws Exception {
+        VideoStoreResharder other = new VideoStoreResharder(mock(VideoStore.class), sigRepo);
+
+        VideoStoreResharder.ReshardReport report = other.reshard();
+
+        assertNotNull(report.error());
+    }
+
+    @Test
+    void start_shouldRecordFailure_whenDatabaseErrorKillsTheRun() throws Exception {
+        when(sigRepo.findByIdGreaterThanOrderByIdAsc(any(), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("connexion perdue"));
+
+        assertTrue(resharder.start());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (resharder.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(resharder.isRunning());
+        assertEquals("connexion perdue", resharder.getLastReport().error());
+        assertNotNull(resharder.getLastReport().finishedAt());
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.auth.orderTest.upload;
+
+import com.example.auth.audit.service.AuditLogService;
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.login.models.LoginService;
+import com.example.auth.order.OrderService;
+import com.example.auth.order.upload.ChunkedUploadController;
+import com.example.auth.order.upload.ChunkedUploadService;
+import com.example.auth.order.upload.UploadSessionJpaEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = ChunkedUploadController.class, excludeAutoConfiguration = SecurityAutoConfiguration.class)
+class ChunkedUploadControllerTest {
+
+    private static final LocalDateTime EXPIRES = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    ChunkedUploadService uploadService;
+
+    @MockBean
+    SpringDataUsersRepository userRepo;
+
+    @MockBean
+    AuditLogService auditLogService;
+
+    // Requis par le CommandLineRunner demoLogin de AuthApplication
+    @MockBean
+    LoginService loginService;
+
+    @Test
+    void open_shouldReturn201WithSessionLayout() throws Exception {
+        UploadSessionJpaEntity s = new UploadSessionJpaEntity();
+        s.setId("abc");
+        s.setChunkSize(1000);
+        s.setChunkCount(3);
+        s.setExpiresAt(EXPIRES);
+        when(uploadService.open(eq(3), eq(List.of("Bob", "Carol")), eq(new BigDecimal("10.00")), eq("clip.mp4"), eq(2500L)))
+            .thenReturn(s);
+
+        mockMvc.perform(post("/api/orders/uploads")
+                        .param("transaction_send_to", "Bob", "Carol")
+                        .param("montant", "10.00")
+                        .param("video_name", " clip.mp4 ")
+                        .param("size", "2500")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value("abc"))
+                .andExpect(jsonPath("$.chunkSize").value(1000))
+                .andExpect(jsonPath("$.chunkCount").value(3));
+    }
+
+    @Test
+    void open_shouldReturn400_whenMontantInvalid() throws Exception {
+        mockMvc.perform(post("/api/orders/uploads")
+                        .param("transaction_send_to", "Bob")
+                        .param("montant", "abc")
+                        .param("video_name", "clip.mp4")
+                        .param("size", "2500")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Montant invalide"));
+
+        verifyNoInteractions(uploadService);
+    }
+
+    @Test
+    void putChunk_shouldReturnStatus_whenChunkAccepted() throws Exception {
+        when(uploadService.putChunk(eq(3), eq("abc"), eq(1), any(InputStream.class), eq("00ff")))
+            .thenReturn(new ChunkedUploadService.UploadStatus("abc", UploadSessionJpaEntity.STATUS_OPEN, 2500, 1000, 3,
+                List.of(0, 1), EXPIRES));
+
+        mockMvc.perform(put("/api/orders/uploads/abc/chunks/1")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[1000])
+                        .header("X-Chunk-Sha256", "00ff")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("OPEN"))
+                .andExpect(jsonPath("$.received[1]").value(1))
+                .andExpect(jsonPath("$.complete").value(false));
+    }
+
+    @Test
+    void putChunk_shouldReturn400_whenChecksumInvalid() throws Exception {
+        when(uploadService.putChunk(eq(3), eq("abc"), eq(0), any(InputStream.class), eq("bad")))
+            .thenThrow(new IllegalArgumentException("Somme de contrôle du segment 0 invalide."));
+
+        mockMvc.perform(put("/api/orders/uploads/abc/chunks/0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[1000])
+                        .header("X-Chunk-Sha256", "bad")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Somme de contrôle du segment 0 invalide."));
+    }
+
+    @Test
+    void putChunk_shouldReturn400_whenSizeInvalid() throws Exception {
+        when(uploadService.putChunk(eq(3), eq("abc"), eq(0), any(InputStream.class), anyString()))
+            .thenThrow(new IllegalArgumentException("Taille du segment 0 invalide (attendu : 1000 octets)."));
+
+        mockMvc.perform(put("/api/orders/uploads/abc/chunks/0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[10])
+                        .header("X-Chunk-Sha256", "00ff")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Taille du segment 0 invalide (attendu : 1000 octets)."));
+    }
+
+    @Test
+    void status_shouldReturn404_whenSessionUnknown() throws Exception {
+        when(uploadService.status(3, "nope"))
+            .thenThrow(new IllegalArgumentException("Session d'upload introuvable ou expirée."));
+
+        mockMvc.perform(get("/api/orders/uploads/nope")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void complete_shouldCreateOrdersAndAuditEach() throws Exception {
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(3);
+        user.setName("Alice");
+        when(userRepo.findById(3)).thenReturn(Optional.of(user));
+        when(uploadService.complete(3, "abc")).thenReturn(new ChunkedUploadService.Completion(
+            ChunkedUploadService.Completion.State.CREATED,
+            new OrderService.CreateOrdersResult(List.of(42, 43), List.of("Bob", "Carol"), List.of("Vidéo chiffrée (segments)"))));
+
+        mockMvc.perform(post("/api/orders/uploads/abc/complete")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value(42))
+                .andExpect(jsonPath("$.ids[1]").value(43));
+
+        verify(auditLogService).logAction(eq(3), eq("TX_CREATED"), eq("signature_transactions"), eq(42),
+                contains("pour Bob"), any());
+        verify(auditLogService).logAction(eq(3), eq("TX_CREATED"), eq("signature_transactions"), eq(43),
+                contains("pour Carol"), any());
+    }
+
+    @Test
+    void complete_shouldReplayIdsWithoutAuditing_whenRetried() throws Exception {
+        when(uploadService.complete(3, "abc")).thenReturn(new ChunkedUploadService.Completion(
+            ChunkedUploadService.Completion.State.REPLAYED,
+            new OrderService.CreateOrdersResult(List.of(42), List.of("Bob"), List.of("Envoi déjà finalisé"))));
+
+        mockMvc.perform(post("/api/orders/uploads/abc/complete")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value(42));
+
+        verifyNoInteractions(auditLogService);
+    }
+
+    @Test
+    void complete_shouldReturn409_whenAnotherRequestIsFinalising() throws Exception {
+        when(uploadService.complete(3, "abc")).thenReturn(new ChunkedUploadService.Completion(
+            ChunkedUploadService.Completion.State.IN_PROGRESS, null));
+
+        mockMvc.perform(post("/api/orders/uploads/abc/complete")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isConflict());
+
+        verifyNoInteractions(auditLogService);
+    }
+
+    @Test
+    void complete_shouldReturn400_whenChunksMissing() throws Exception {
+        when(uploadService.complete(3, "abc"))
+            .thenThrow(new IllegalArgumentException("Segments manquants : 1 sur 3."));
+
+        mockMvc.perform(post("/api/orders/uploads/abc/complete")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Segments manquants : 1 sur 3."));
+    }
+
+    @Test
+    void abort_shouldReturn204_thenConflictOr404() throws Exception {
+        mockMvc.perform(delete("/api/orders/uploads/abc")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isNoContent());
+        verify(uploadService).abort(3, "abc");
+
+        doThrow(new IllegalStateException("Finalisation de l'upload en cours.")).when(uploadService).abort(3, "busy");
+        mockMvc.perform(delete("/api/orders/uploads/busy")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isConflict());
+
+        doThrow(new IllegalArgumentException("Session d'upload introuvable ou expirée.")).when(uploadService).abort(3, "nope");
+        mockMvc.perform(delete("/api/orders/uploads/nope")
+                        .requestAttr("userId", 3))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.auth.orderTest.upload;
+
+import com.example.auth.inscription.ports.out.UserKeyVaultPort;
+import com.example.auth.order.OrderService;
+import com.example.auth.order.keys.VideoKekRepository;
+import com.example.auth.order.keys.VideoKeyHierarchy;
+import com.example.auth.order.storage.ShardedFileSystemVideoStore;
+import com.example.auth.order.upload.ChunkedUploadService;
+import com.example.auth.order.upload.SealedSegments;
+import com.example.auth.order.upload.UploadChunkJpaEntity;
+import com.example.auth.order.upload.UploadChunkRepository;
+import com.example.auth.order.upload.UploadSessionJpaEntity;
+import com.example.auth.order.upload.UploadSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, UploadSessionJpaEntity> sessions = new HashMap<>();
+    private final List<UploadChunkJpaEntity> chunks = new ArrayList<>();
+    private UploadSessionRepository sessionRepo;
+    private UploadChunkRepository chunkRepo;
+    private VideoKeyHierarchy keyHierarchy;
+    private UserKeyVaultPort vaultPort;
+    private OrderService orderService;
+    private ShardedFileSystemVideoStore store;
+    private ChunkedUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepo = mock(UploadSessionRepository.class);
+        when(sessionRepo.save(any())).thenAnswer(inv -> {
+            UploadSessionJpaEntity s = inv.getArgument(0);
+            sessions.put(s.getId(), s);
+            return s;
+        });
+        when(sessionRepo.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(sessions.get(inv.<String>getArgument(0))));
+        doAnswer(inv -> sessions.remove(inv.<String>getArgument(0))).when(sessionRepo).deleteById(anyString());
+        when(sessionRepo.transition(anyString(), anyString(), anyString())).thenAnswer(inv -> {
+            UploadSessionJpaEntity s = sessions.get(inv.<String>getArgument(0));
+            if (s == null || !s.getStatus().equals(inv.getArgument(1))) {
+                return 0;
+            }
+            s.setStatus(inv.getArgument(2));
+            return 1;
+        });
+        when(sessionRepo.markCompleted(anyString(), anyString())).thenAnswer(inv -> {
+            UploadSessionJpaEntity s = sessions.get(inv.<String>getArgument(0));
+            if (s == null || !UploadSessionJpaEntity.STATUS_FINALIZING.equals(s.getStatus())) {
+                return 0;
+            }
+            s.setStatus(UploadSessionJpaEntity.STATUS_COMPLETED);
+            s.setOrderIds(inv.getArgument(1));
+            return 1;
+        });
+
+        chunkRepo = mock(UploadChunkRepository.class);
+        when(chunkRepo.save(any())).thenAnswer(inv -> {
+            UploadChunkJpaEntity c = inv.getArgument(0);
+            c.setId((long) chunks.size() + 1);
+            chunks.add(c);
+            return c;
+        });
+        when(chunkRepo.findBySessionIdAndChunkIndex(anyString(), anyInt())).thenAnswer(inv -> chunks.stream()
+                .filter(c -> c.getSessionId().equals(inv.getArgument(0)) && c.getChunkIndex() == inv.<Integer>getArgument(1))
+                .findFirst());
+        when(chunkRepo.findBySessionIdOrderByChunkIndexAsc(anyString())).thenAnswer(inv -> chunks.stream()
+                .filter(c -> c.getSessionId().equals(inv.getArgument(0)))
+                .sorted((a, b) -> Integer.compare(a.getChunkIndex(), b.getChunkIndex()))
+                .toList());
+        when(chunkRepo.markStored(anyLong())).thenAnswer(inv -> {
+            chunks.stream().filter(c -> c.getId().equals(inv.getArgument(0))).forEach(c -> c.setStored(true));
+            return 1;
+        });
+        when(chunkRepo.deleteBySessionId(anyString())).thenAnswer(inv -> {
+            chunks.removeIf(c -> c.getSessionId().equals(inv.getArgument(0)));
+            return 1;
+        });
+
+        vaultPort = mock(UserKeyVaultPort.class);
+        when(vaultPort.encryptDek(anyString(), any())).thenAnswer(inv ->
+                "vault:v1:" + Base64.getEncoder().encodeToString(inv.<byte[]>getArgument(1)));
+        when(vaultPort.decryptDek(anyString(), anyString())).thenAnswer(inv ->
+                Base64.getDecoder().decode(inv.<String>getArgument(1).substring("vault:v1:".length())));
+        keyHierarchy = new VideoKeyHierarchy(vaultPort, mock(VideoKekRepository.class),
+                new SimpleMeterRegistry(), "video-dek", false, 24, 8);
+
+        orderService = mock(OrderService.class);
+        when(orderService.requireSendable(eq(3), anyList())).thenAnswer(inv -> inv.getArgument(1));
+        store = new ShardedFileSystemVideoStore(tempDir.resolve("store"));
+        service = new ChunkedUploadService(sessionRepo, chunkRepo, orderService, keyHierarchy, store,
+                new SimpleMeterRegistry(), tempDir.resolve("staging").toString(), 1000, 10_000, 24);
+    }
+
+    @Test
+    void upload_shouldAcceptOutOfOrderChunks_andFinaliseSealedVideo() throws Exception {
+        byte[] video = new byte[2500];
+        new SecureRandom().nextBytes(video);
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), new BigDecimal("10.00"), "clip.mp4", video.length);
+        when(orderService.createOrdersFromSealed(eq(3), eq(List.of("Bob")), any(), eq("clip.mp4"), any(), anyString(),
+                anyLong(), anyString())).thenReturn(new OrderService.CreateOrdersResult(List.of(42), List.of("Bob"), List.of()));
+
+        service.putChunk(3, s.getId(), 2, chunk(video, 2), sha(video, 2));
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        assertEquals(List.of(0, 2), service.status(3, s.getId()).received());
+        ChunkedUploadService.UploadStatus status = service.putChunk(3, s.getId(), 1, chunk(video, 1), sha(video, 1));
+        assertTrue(status.complete());
+
+        assertEquals(List.of(42), service.complete(3, s.getId()).orders().ids());
+
+        ArgumentCaptor<byte[]> root = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<String> objectId = ArgumentCaptor.forClass(String.class);
+        verify(orderService).createOrdersFromSealed(eq(3), eq(List.of("Bob")), any(), eq("clip.mp4"), root.capture(),
+                objectId.capture(), anyLong(), anyString());
+        assertTrue(SealedSegments.isSealed(objectId.getValue()));
+        String wrapped = new String(store.get(objectId.getValue() + ".dek"), StandardCharsets.UTF_8);
+        SealedSegments.Opened opened = SealedSegments.open(vaultPort.decryptDek("video-dek", wrapped),
+                store.get(objectId.getValue()), true);
+        assertArrayEquals(video, opened.plain());
+        assertArrayEquals(opened.root(), root.getValue());
+        // La session reste, finalisée, jusqu'à son expiration : une nouvelle tentative rejoue ses ids
+        assertEquals(UploadSessionJpaEntity.STATUS_COMPLETED, sessions.get(s.getId()).getStatus());
+        assertTrue(chunks.isEmpty());
+        assertFalse(store.exists("upload_" + s.getId() + "_0.part"));
+        assertFalse(Files.exists(tempDir.resolve("staging").resolve(s.getId() + ".upload")));
+    }
+
+    @Test
+    void upload_shouldNotDependOnTheReplicaThatOpenedTheSession() throws Exception {
+        byte[] video = new byte[1500];
+        new SecureRandom().nextBytes(video);
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", video.length);
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        when(orderService.createOrdersFromSealed(eq(3), anyList(), any(), any(), any(), anyString(), anyLong(), anyString()))
+                .thenReturn(new OrderService.CreateOrdersResult(List.of(42), List.of("Bob"), List.of()));
+        // Autre réplica : mêmes tables et même store, répertoire local et cache de DEK distincts
+        ChunkedUploadService other = new ChunkedUploadService(sessionRepo, chunkRepo, orderService, keyHierarchy, store,
+                new SimpleMeterRegistry(), tempDir.resolve("other-staging").toString(), 1000, 10_000, 24);
+
+        other.putChunk(3, s.getId(), 1, chunk(video, 1), sha(video, 1));
+        assertEquals(List.of(42), other.complete(3, s.getId()).orders().ids());
+
+        ArgumentCaptor<String> objectId = ArgumentCaptor.forClass(String.class);
+        verify(orderService).createOrdersFromSealed(eq(3), anyList(), any(), any(), any(), objectId.capture(), anyLong(), anyString());
+        String wrapped = new String(store.get(objectId.getValue() + ".dek"), StandardCharsets.UTF_8);
+        assertArrayEquals(video, SealedSegments.open(vaultPort.decryptDek("video-dek", wrapped),
+                store.get(objectId.getValue()), false).plain());
+    }
+
+    @Test
+    void purgeExpired_shouldDeleteSegmentsOfSessionsReceivedByAnyReplica() throws Exception {
+        byte[] video = new byte[1500];
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", video.length);
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        s.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(sessionRepo.findByExpiresAtBefore(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(s));
+        ChunkedUploadService other = new ChunkedUploadService(sessionRepo, chunkRepo, orderService, keyHierarchy, store,
+                new SimpleMeterRegistry(), tempDir.resolve("other-staging").toString(), 1000, 10_000, 24);
+
+        other.purgeExpired();
+
+        assertFalse(store.exists("upload_" + s.getId() + "_0.part"));
+        assertTrue(sessions.isEmpty());
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    void putChunk_shouldRejectBadChecksumSizeAndConflictingResend() throws Exception {
+        byte[] video = new byte[1500];
+        Arrays.fill(video, (byte) 7);
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", video.length);
+
+        assertThrows(IllegalArgumentException.class, () -> service.putChunk(3, s.getId(), 0, chunk(video, 0), "00"));
+        assertThrows(IllegalArgumentException.class, () -> service.putChunk(3, s.getId(), 1,
+                new ByteArrayInputStream(new byte[499]), sha(video, 1)));
+
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        byte[] other = new byte[1000];
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.putChunk(3, s.getId(), 0,
+                new ByteArrayInputStream(other), hex(MessageDigest.getInstance("SHA-256").digest(other))));
+        assertTrue(ex.getMessage().contains("contenu différent"));
+        assertEquals(1, chunks.size());
+    }
+
+    @Test
+    void complete_shouldRefuse_whenChunksMissing() throws Exception {
+        byte[] video = new byte[1500];
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", video.length);
+        service.putChunk(3, s.getId(), 1, chunk(video, 1), sha(video, 1));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.complete(3, s.getId()));
+        assertTrue(ex.getMessage().contains("Segments manquants"));
+        verify(orderService, never()).createOrdersFromSealed(any(), any(), any(), any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void complete_shouldReplayIds_whenRetriedAfterSuccess() throws Exception {
+        byte[] video = new byte[1500];
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob", "Carol"), BigDecimal.ONE, "clip.mp4", video.length);
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        service.putChunk(3, s.getId(), 1, chunk(video, 1), sha(video, 1));
+        when(orderService.createOrdersFromSealed(eq(3), anyList(), any(), any(), any(), anyString(), anyLong(), anyString()))
+                .thenReturn(new OrderService.CreateOrdersResult(List.of(42, 43), List.of("Bob", "Carol"), List.of()));
+
+        ChunkedUploadService.Completion first = service.complete(3, s.getId());
+        ChunkedUploadService.Completion retry = service.complete(3, s.getId());
+
+        assertEquals(ChunkedUploadService.Completion.State.CREATED, first.state());
+        assertEquals(ChunkedUploadService.Completion.State.REPLAYED, retry.state());
+        assertEquals(List.of(42, 43), retry.orders().ids());
+        assertEquals(List.of("Bob", "Carol"), retry.orders().recipients());
+        verify(orderService, times(1)).createOrdersFromSealed(any(), any(), any(), any(), any(), any(), anyLong(), any());
+        assertThrows(IllegalArgumentException.class, () -> service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0)));
+    }
+
+    @Test
+    void complete_shouldNotCreateOrders_whenAnotherRequestIsFinalising() throws Exception {
+        byte[] video = new byte[1500];
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", video.length);
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        service.putChunk(3, s.getId(), 1, chunk(video, 1), sha(video, 1));
+        // Une requête concurrente a réservé la finalisation
+        sessions.get(s.getId()).setStatus(UploadSessionJpaEntity.STATUS_FINALIZING);
+
+        ChunkedUploadService.Completion c = service.complete(3, s.getId());
+
+        assertEquals(ChunkedUploadService.Completion.State.IN_PROGRESS, c.state());
+        assertNull(c.orders());
+        verify(orderService, never()).createOrdersFromSealed(any(), any(), any(), any(), any(), any(), anyLong(), any());
+        assertThrows(IllegalStateException.class, () -> service.abort(3, s.getId()));
+        assertTrue(store.exists("upload_" + s.getId() + "_0.part"));
+    }
+
+    @Test
+    void complete_shouldReleaseClaim_whenOrderCreationFails() throws Exception {
+        byte[] video = new byte[1500];
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", video.length);
+        service.putChunk(3, s.getId(), 0, chunk(video, 0), sha(video, 0));
+        service.putChunk(3, s.getId(), 1, chunk(video, 1), sha(video, 1));
+        when(orderService.createOrdersFromSealed(eq(3), anyList(), any(), any(), any(), anyString(), anyLong(), anyString()))
+                .thenThrow(new IllegalStateException("Vault indisponible"))
+                .thenReturn(new OrderService.CreateOrdersResult(List.of(42), List.of("Bob"), List.of()));
+
+        assertThrows(IllegalStateException.class, () -> service.complete(3, s.getId()));
+        assertEquals(UploadSessionJpaEntity.STATUS_OPEN, sessions.get(s.getId()).getStatus());
+
+        assertEquals(List.of(42), service.complete(3, s.getId()).orders().ids());
+    }
+
+    @Test
+    void session_shouldBeInvisibleToOtherUsers_andTooLargeVideosRefused() throws Exception {
+        UploadSessionJpaEntity s = service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", 10);
+
+        assertThrows(IllegalArgumentException.class, () -> service.status(4, s.getId()));
+        assertThrows(IllegalArgumentException.class, () -> service.open(3, List.of("Bob"), BigDecimal.ONE, "clip.mp4", 10_001));
+
+        service.abort(3, s.getId());
+        assertTrue(sessions.isEmpty());
+    }
+
+    private static ByteArrayInputStream chunk(byte[] video, int index) {
+        int from = index * 1000;
+        return new ByteArrayInputStream(Arrays.copyOfRange(video, from, Math.min(video.length, from + 1000)));
+    }
+
+    private static String sha(byte[] video, int index) throws Exception {
+        int from = index * 1000;
+        return hex(MessageDigest.getInstance("SHA-256").digest(Arrays.copyOfRange(video, from, Math.min(video.length, from + 1000))));
+    }
+
+    private static String hex(byte[] b) {
+        return HexFormat.of().formatHex(b);
+    }
+}
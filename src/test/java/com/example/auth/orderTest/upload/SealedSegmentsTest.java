@@ -0,0 +1,102 @@
+package com.example.auth.orderTest.upload;
+
+import com.example.auth.order.upload.SealedSegments;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SealedSegmentsTest {
+
+    private final SecureRandom rng = new SecureRandom();
+
+    @Test
+    void open_shouldRestorePlaintextAndRoot_whenSegmentsSealedOutOfOrder() throws Exception {
+        byte[] dek = randomBytes(32);
+        byte[] video = randomBytes(2500);
+        SealedSegments.Header header = SealedSegments.newHeader(video.length, 1000, rng);
+
+        byte[] file = seal(dek, header, video, new int[]{2, 0, 1});
+        SealedSegments.Opened opened = SealedSegments.open(dek, file, true);
+
+        assertEquals(3, header.chunkCount());
+        assertEquals(500, header.chunkLength(2));
+        assertEquals(header.fileSize(), file.length);
+        assertArrayEquals(video, opened.plain());
+        assertArrayEquals(SealedSegments.root(header, chunkHashes(header, video)), opened.root());
+        assertNull(SealedSegments.open(dek, file, false).root());
+    }
+
+    @Test
+    void open_shouldRejectSwappedSegments() throws Exception {
+        byte[] dek = randomBytes(32);
+        byte[] video = randomBytes(2000);
+        SealedSegments.Header header = SealedSegments.newHeader(video.length, 1000, rng);
+        byte[] file = seal(dek, header, video, new int[]{0, 1});
+
+        byte[] swapped = file.clone();
+        int seg = 1000 + SealedSegments.TAG_LENGTH;
+        System.arraycopy(file, SealedSegments.HEADER_LENGTH, swapped, SealedSegments.HEADER_LENGTH + seg, seg);
+        System.arraycopy(file, SealedSegments.HEADER_LENGTH + seg, swapped, SealedSegments.HEADER_LENGTH, seg);
+
+        assertThrows(AEADBadTagException.class, () -> SealedSegments.open(dek, swapped, true));
+    }
+
+    @Test
+    void open_shouldRejectTruncatedOrForeignFiles() throws Exception {
+        byte[] dek = randomBytes(32);
+        byte[] video = randomBytes(1500);
+        SealedSegments.Header header = SealedSegments.newHeader(video.length, 1000, rng);
+        byte[] file = seal(dek, header, video, new int[]{0, 1});
+
+        assertThrows(IllegalStateException.class, () -> SealedSegments.open(dek, Arrays.copyOf(file, file.length - 1), true));
+        assertThrows(IllegalStateException.class, () -> SealedSegments.open(dek, randomBytes(100), true));
+        assertThrows(AEADBadTagException.class, () -> SealedSegments.open(randomBytes(32), file, true));
+    }
+
+    @Test
+    void seal_shouldRejectWrongChunkLengthOrIndex() {
+        SealedSegments.Header header = SealedSegments.newHeader(1500, 1000, rng);
+
+        assertThrows(IllegalArgumentException.class, () -> SealedSegments.seal(randomBytes(32), header, 1, new byte[1000]));
+        assertThrows(IllegalArgumentException.class, () -> SealedSegments.seal(randomBytes(32), header, 2, new byte[500]));
+    }
+
+    @Test
+    void isSealed_shouldMatchSuffixOnly() {
+        assertTrue(SealedSegments.isSealed("1_2_abc.seg.enc"));
+        assertFalse(SealedSegments.isSealed("1_2_abc.enc"));
+    }
+
+    private static byte[] seal(byte[] dek, SealedSegments.Header header, byte[] video, int[] order) throws Exception {
+        byte[] file = new byte[(int) header.fileSize()];
+        System.arraycopy(header.encode(), 0, file, 0, SealedSegments.HEADER_LENGTH);
+        for (int i : order) {
+            byte[] chunk = Arrays.copyOfRange(video, i * header.chunkSize(), i * header.chunkSize() + header.chunkLength(i));
+            byte[] sealed = SealedSegments.seal(dek, header, i, chunk);
+            System.arraycopy(sealed, 0, file, (int) header.segmentOffset(i), sealed.length);
+        }
+        return file;
+    }
+
+    static List<byte[]> chunkHashes(SealedSegments.Header header, byte[] video) throws Exception {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < header.chunkCount(); i++) {
+            hashes.add(MessageDigest.getInstance("SHA-256").digest(
+                    Arrays.copyOfRange(video, i * header.chunkSize(), i * header.chunkSize() + header.chunkLength(i))));
+        }
+        return hashes;
+    }
+
+    private byte[] randomBytes(int n) {
+        byte[] b = new byte[n];
+        rng.nextBytes(b);
+        return b;
+    }
+}
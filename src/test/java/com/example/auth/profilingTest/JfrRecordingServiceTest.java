@@ -0,0 +1,96 @@
+package com.example.auth.profilingTest;
+
+import com.example.auth.profiling.JfrRecordingService;
+import com.example.auth.profiling.VaultTransitEvent;
+import com.example.auth.profiling.VideoCryptoEvent;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrRecordingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private JfrRecordingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void stop_shouldWriteRecordingWithApplicationEvents() throws Exception {
+        service = new JfrRecordingService(dir.toString(), 60, 16 * 1024 * 1024);
+        service.start("default", Duration.ofSeconds(30));
+
+        VaultTransitEvent vault = VaultTransitEvent.begin("sign", "user-42");
+        vault.outcome = "success";
+        vault.commit();
+        VideoCryptoEvent crypto = VideoCryptoEvent.begin("decrypt", "1_abc.enc", 7, 4096);
+        crypto.commit();
+
+        Map<String, Object> status = service.stop();
+        assertEquals(false, status.get("running"));
+        Path file = service.lastFile().orElseThrow();
+        assertTrue(Files.size(file) > 0);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent v = events.stream().filter(e -> e.getEventType().getName().equals("com.example.auth.VaultTransit"))
+                .findFirst().orElseThrow();
+        assertEquals("sign", v.getString("operation"));
+        assertEquals("user-42", v.getString("keyName"));
+        assertEquals("success", v.getString("outcome"));
+        RecordedEvent c = events.stream().filter(e -> e.getEventType().getName().equals("com.example.auth.VideoCrypto"))
+                .findFirst().orElseThrow();
+        assertEquals(7, c.getInt("orderId"));
+        assertEquals(4096L, c.getLong("bytes"));
+    }
+
+    @Test
+    void stop_shouldWriteRecordingWithoutEnvironmentOrJvmArguments() throws Exception {
+        service = new JfrRecordingService(dir.toString(), 60, 16 * 1024 * 1024);
+        for (String settings : List.of("default", "profile")) {
+            service.start(settings, Duration.ofSeconds(30));
+            service.stop();
+
+            List<String> types = RecordingFile.readAllEvents(service.lastFile().orElseThrow()).stream()
+                    .map(e -> e.getEventType().getName()).distinct().toList();
+            assertFalse(types.isEmpty());
+            assertFalse(types.contains("jdk.InitialEnvironmentVariable"), settings);
+            assertFalse(types.contains("jdk.InitialSystemProperty"), settings);
+            assertFalse(types.contains("jdk.JVMInformation"), settings);
+        }
+    }
+
+    @Test
+    void start_shouldBoundDurationAndRejectSecondRecording() throws Exception {
+        service = new JfrRecordingService(dir.toString(), 5, 16 * 1024 * 1024);
+        Map<String, Object> status = service.start("profile", Duration.ofHours(1));
+        assertEquals(true, status.get("running"));
+        assertEquals(5L, status.get("duration"));
+        assertTrue(service.lastFile().isEmpty());
+
+        assertThrows(IllegalStateException.class, () -> service.start("default", null));
+        service.stop();
+        assertThrows(IllegalStateException.class, () -> service.stop());
+    }
+
+    @Test
+    void start_shouldRejectUnknownSettings() {
+        service = new JfrRecordingService(dir.toString(), 60, 16 * 1024 * 1024);
+        assertThrows(IllegalArgumentException.class, () -> service.start("/etc/custom.jfc", null));
+    }
+}
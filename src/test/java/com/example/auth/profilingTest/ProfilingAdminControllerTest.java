@@ -0,0 +1,132 @@
+package com.example.auth.profilingTest;
+
+import com.example.auth.inscription.adapters.out.UsersJpaEntity;
+import com.example.auth.inscription.ports.out.SpringDataUsersRepository;
+import com.example.auth.profiling.JfrRecordingService;
+import com.example.auth.profiling.ProfilingAdminController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProfilingAdminControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JfrRecordingService recordings;
+    private ProfilingAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        recordings = mock(JfrRecordingService.class);
+        SpringDataUsersRepository userRepo = mock(SpringDataUsersRepository.class);
+        controller = new ProfilingAdminController(recordings, userRepo);
+
+        UsersJpaEntity admin = new UsersJpaEntity();
+        admin.setId(1);
+        admin.setAdmin(true);
+        UsersJpaEntity user = new UsersJpaEntity();
+        user.setId(2);
+        user.setAdmin(false);
+        when(userRepo.findById(1)).thenReturn(Optional.of(admin));
+        when(userRepo.findById(2)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void endpoints_shouldReturn403_forNonAdmin() throws Exception {
+        assertEquals(HttpStatus.FORBIDDEN, controller.start(2, null, null).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.stop(2).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.status(2).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.download(2).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.status(null).getStatusCode());
+        verifyNoInteractions(recordings);
+    }
+
+    @Test
+    void start_shouldReturn201_withRequestedDuration() throws Exception {
+        when(recordings.start("profile", Duration.ofSeconds(30))).thenReturn(Map.of("recording", true));
+
+        ResponseEntity<?> res = controller.start(1, "profile", 30L);
+
+        assertEquals(HttpStatus.CREATED, res.getStatusCode());
+        assertEquals(Map.of("recording", true), res.getBody());
+    }
+
+    @Test
+    void start_shouldReturn400_whenSettingsInvalid() throws Exception {
+        when(recordings.start(eq("bogus"), any())).thenThrow(new IllegalArgumentException("Paramètres JFR inconnus"));
+
+        ResponseEntity<?> res = controller.start(1, "bogus", null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, res.getStatusCode());
+        assertEquals(Map.of("error", "Paramètres JFR inconnus"), res.getBody());
+    }
+
+    @Test
+    void start_shouldReturn409_whenRecordingAlreadyRunning() throws Exception {
+        when(recordings.start(any(), any())).thenThrow(new IllegalStateException("Enregistrement déjà en cours"));
+
+        assertEquals(HttpStatus.CONFLICT, controller.start(1, null, null).getStatusCode());
+    }
+
+    @Test
+    void stop_shouldReturn200_whenRecordingRunning() {
+        when(recordings.stop()).thenReturn(Map.of("recording", false));
+
+        ResponseEntity<?> res = controller.stop(1);
+
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(Map.of("recording", false), res.getBody());
+    }
+
+    @Test
+    void stop_shouldReturn409_whenNothingRecording() {
+        when(recordings.stop()).thenThrow(new IllegalStateException("Aucun enregistrement en cours"));
+
+        assertEquals(HttpStatus.CONFLICT, controller.stop(1).getStatusCode());
+    }
+
+    @Test
+    void status_shouldReturnServiceStatus_forAdmin() {
+        when(recordings.status()).thenReturn(Map.of("recording", false));
+
+        ResponseEntity<?> res = controller.status(1);
+
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(Map.of("recording", false), res.getBody());
+    }
+
+    @Test
+    void download_shouldReturnFileAsAttachment() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("moustass-profile.jfr"), "jfr");
+        when(recordings.lastFile()).thenReturn(Optional.of(file));
+
+        ResponseEntity<?> res = controller.download(1);
+
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertTrue(res.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("moustass-profile.jfr"));
+        assertEquals(file, ((FileSystemResource) res.getBody()).getFile().toPath());
+    }
+
+    @Test
+    void download_shouldReturn404_whenNoRecordingAvailable() {
+        when(recordings.lastFile()).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.download(1).getStatusCode());
+    }
+}
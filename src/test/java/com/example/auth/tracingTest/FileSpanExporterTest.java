@@ -0,0 +1,62 @@
+package com.example.auth.tracingTest;
+
+import com.example.auth.tracing.FileSpanExporter;
+import com.example.auth.tracing.InMemorySpanExporter;
+import com.example.auth.tracing.LocalTracing;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSpanExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void export_shouldWriteOneJsonLinePerSpanWithParentAndAttributes() throws Exception {
+        Path file = dir.resolve("traces/spans.jsonl");
+        try (LocalTracing tracing = LocalTracing.create(new FileSpanExporter(file))) {
+            Tracer tracer = tracing.tracer();
+            Span parent = tracer.nextSpan().name("order.validate").start();
+            try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+                tracer.nextSpan().name("vault.verify").tag("vault.key", "user-key").start().end();
+            } finally {
+                parent.end();
+            }
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        ObjectMapper om = new ObjectMapper();
+        Map<?, ?> child = om.readValue(lines.get(0), Map.class);
+        Map<?, ?> root = om.readValue(lines.get(1), Map.class);
+        assertEquals("vault.verify", child.get("name"));
+        assertEquals(root.get("spanId"), child.get("parentSpanId"));
+        assertEquals(root.get("traceId"), child.get("traceId"));
+        assertEquals(Map.of("vault.key", "user-key"), child.get("attributes"));
+        assertFalse(root.containsKey("parentSpanId"));
+    }
+
+    @Test
+    void inMemory_shouldKeepMostRecentSpansUpToCapacity() {
+        InMemorySpanExporter exporter = new InMemorySpanExporter(2);
+        try (LocalTracing tracing = LocalTracing.create(exporter)) {
+            for (String name : List.of("a", "b", "c")) {
+                tracing.tracer().nextSpan().name(name).start().end();
+            }
+        }
+
+        assertEquals(List.of("b", "c"), exporter.getFinishedSpans().stream().map(s -> s.getName()).toList());
+        exporter.reset();
+        assertTrue(exporter.getFinishedSpans().isEmpty());
+    }
+}